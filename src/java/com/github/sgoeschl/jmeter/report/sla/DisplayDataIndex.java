@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterHtmlReportWriter.BasicDataColumns;
+import com.github.sgoeschl.jmeter.report.sla.stats.SampleStatistics;
+import com.github.sgoeschl.jmeter.report.sla.utils.IndexSorter;
+import com.jamonapi.MonKeyImp;
+import com.jamonapi.Monitor;
+import com.jamonapi.MonitorComposite;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rows of the report tables partitioned by units. The pages and their failures are
+ * taken from the {@link SampleStatistics} of the labels and the JMeter errors from the
+ * primitive getters of their monitors, i.e. the boxed JAMon display data is never built.
+ * The rows are never sorted themselves - a permutation of the row indexes is sorted by
+ * primitive keys and cached per unit and sort column so the tables sharing a sort order
+ * reuse it.
+ */
+class DisplayDataIndex {
+
+    private static final Row[] NO_ROWS = new Row[0];
+
+    /**
+     * A row of a table using primitive columns only.
+     */
+    static final class Row {
+
+        private final String label;
+        private final long hits;
+        private final long total;
+        private final double stdDev;
+        private final long min;
+        private final long max;
+        private final long firstAccess;
+        private final long lastAccess;
+
+        Row(String label, long hits, long total, double stdDev, long min, long max, long firstAccess, long lastAccess) {
+            this.label = label;
+            this.hits = hits;
+            this.total = total;
+            this.stdDev = stdDev;
+            this.min = min;
+            this.max = max;
+            this.firstAccess = firstAccess;
+            this.lastAccess = lastAccess;
+        }
+
+        String getLabel() {
+            return label;
+        }
+
+        long getHits() {
+            return hits;
+        }
+
+        long getFirstAccess() {
+            return firstAccess;
+        }
+
+        long getLastAccess() {
+            return lastAccess;
+        }
+
+        /**
+         * @param column a numeric column
+         * @return the value of the column, i.e. timestamps in milliseconds
+         */
+        double getValue(BasicDataColumns column) {
+            switch (column) {
+                case HITS:
+                    return hits;
+                case AVG:
+                    return hits > 0 ? (double) total / hits : 0.0;
+                case TOTAL:
+                    return total;
+                case STDEV:
+                    return stdDev;
+                case MIN_TIME:
+                    return min;
+                case MAX_TIME:
+                    return max;
+                case FIRST_ACCESS:
+                    return firstAccess;
+                case LAST_ACCESS:
+                    return lastAccess;
+                default:
+                    throw new IllegalArgumentException("The column is not numeric: " + column);
+            }
+        }
+    }
+
+    /**
+     * The totals of the rows of a unit.
+     */
+    static class Totals {
+
+        private long hits;
+        private long total;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        private long firstAccess = Long.MAX_VALUE;
+        private long lastAccess = Long.MIN_VALUE;
+
+        long getHits() {
+            return hits;
+        }
+
+        long getTotal() {
+            return total;
+        }
+
+        long getMin() {
+            return min;
+        }
+
+        long getMax() {
+            return max;
+        }
+
+        long getFirstAccess() {
+            return firstAccess;
+        }
+
+        long getLastAccess() {
+            return lastAccess;
+        }
+
+        private void add(Row row) {
+            hits += row.hits;
+            total += row.total;
+            min = Math.min(min, row.min);
+            max = Math.max(max, row.max);
+            firstAccess = Math.min(firstAccess, row.firstAccess);
+            lastAccess = Math.max(lastAccess, row.lastAccess);
+        }
+    }
+
+    private final Map<String, Row[]> rowsByUnit;
+    private final Map<String, Totals> totalsByUnit;
+    private final Map<String, int[]> orders;
+
+    DisplayDataIndex(JMeterReportModel model) {
+
+        this.rowsByUnit = new HashMap<>();
+        this.totalsByUnit = new HashMap<>();
+        this.orders = new HashMap<>();
+
+        final Map<String, List<Row>> partitions = new HashMap<>();
+
+        for (String label : model.getLabels()) {
+            final SampleStatistics statistics = model.getStatistics(label);
+            if (statistics.getRequests() > 0) {
+                addRow(partitions, JMeterReportModel.UNIT_MS, new Row(label, statistics.getRequests(), statistics.getTotalTime(), statistics.getStdDev(),
+                        statistics.getMinTime(), statistics.getMaxTime(), statistics.getFirstAccess(), statistics.getLastAccess()));
+            }
+            if (statistics.getFailures() > 0) {
+                addRow(partitions, JMeterReportModel.UNIT_EXCEPTION, new Row(label, statistics.getFailures(), statistics.getFailures(), 0.0, 0, 0, 0, 0));
+            }
+        }
+
+        final MonitorComposite root = model.getProvider().getRoot();
+
+        if (root.hasData()) {
+            for (Monitor monitor : root.getMonitors()) {
+                final MonKeyImp monKey = (MonKeyImp) monitor.getMonKey();
+                if (JMeterReportModel.UNIT_JMETER_ERRORS.equals(monKey.getUnits()) && monitor.getHits() > 0) {
+                    addRow(partitions, JMeterReportModel.UNIT_JMETER_ERRORS, new Row(monKey.getLabel(), (long) monitor.getHits(), (long) monitor.getTotal(), 0.0,
+                            (long) monitor.getMin(), (long) monitor.getMax(), monitor.getFirstAccess().getTime(), monitor.getLastAccess().getTime()));
+                }
+            }
+        }
+
+        for (Map.Entry<String, List<Row>> entry : partitions.entrySet()) {
+            final Totals totals = new Totals();
+            for (Row row : entry.getValue()) {
+                totals.add(row);
+            }
+            rowsByUnit.put(entry.getKey(), entry.getValue().toArray(new Row[entry.getValue().size()]));
+            totalsByUnit.put(entry.getKey(), totals);
+        }
+    }
+
+    /**
+     * @param unit the unit, e.g. "ms."
+     * @return the rows of the unit in the order of the labels of the model
+     */
+    Row[] getRows(String unit) {
+        final Row[] result = rowsByUnit.get(unit);
+        return (result != null ? result : NO_ROWS);
+    }
+
+    /**
+     * @param unit the unit, e.g. "ms."
+     * @return the totals of the rows of the unit
+     */
+    Totals getTotals(String unit) {
+        final Totals result = totalsByUnit.get(unit);
+        return (result != null ? result : new Totals());
+    }
+
+    /**
+     * Get the order of the rows sorted by a column.
+     *
+     * @param unit      the unit, e.g. "ms."
+     * @param column    the column used for sorting
+     * @param sortOrder the sort order, i.e. "asc" or "desc"
+     * @return the indexes of the rows returned by {@link #getRows(String)} in sort order
+     */
+    synchronized int[] getOrder(String unit, BasicDataColumns column, String sortOrder) {
+
+        final String key = unit + '|' + column + '|' + sortOrder;
+        int[] result = orders.get(key);
+
+        if (result == null) {
+            result = sort(getRows(unit), column, isDescending(sortOrder));
+            orders.put(key, result);
+        }
+
+        return result;
+    }
+
+    private static int[] sort(Row[] rows, BasicDataColumns column, boolean descending) {
+
+        if (column == BasicDataColumns.LABEL) {
+            final String[] keys = new String[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                keys[i] = rows[i].label;
+            }
+            return IndexSorter.sort(keys, descending);
+        }
+
+        final long[] keys = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            keys[i] = IndexSorter.toSortableKey(rows[i].getValue(column));
+        }
+        return IndexSorter.sort(keys, descending);
+    }
+
+    private static boolean isDescending(String sortOrder) {
+        if ("asc".equalsIgnoreCase(sortOrder)) {
+            return false;
+        } else if ("desc".equalsIgnoreCase(sortOrder)) {
+            return true;
+        }
+        throw new IllegalArgumentException("Expecting the sort order 'asc' or 'desc': " + sortOrder);
+    }
+
+    private static void addRow(Map<String, List<Row>> partitions, String unit, Row row) {
+        List<Row> partition = partitions.get(unit);
+        if (partition == null) {
+            partition = new ArrayList<>();
+            partitions.put(unit, partition);
+        }
+        partition.add(row);
+    }
+}
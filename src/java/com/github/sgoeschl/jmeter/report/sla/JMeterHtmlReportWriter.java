@@ -17,13 +17,36 @@
  */
 package com.github.sgoeschl.jmeter.report.sla;
 
+import com.github.sgoeschl.jmeter.report.sla.compare.RunComparison;
+import com.github.sgoeschl.jmeter.report.sla.config.BucketLayout;
+import com.github.sgoeschl.jmeter.report.sla.groupby.GroupByDimension;
+import com.github.sgoeschl.jmeter.report.sla.groupby.Grouping;
+import com.github.sgoeschl.jmeter.report.sla.preview.PreviewEstimate;
+import com.github.sgoeschl.jmeter.report.sla.rules.SlaRuleResult;
+import com.github.sgoeschl.jmeter.report.sla.rules.SlaVerdict;
+import com.github.sgoeschl.jmeter.report.sla.stats.BandwidthTimeline;
+import com.github.sgoeschl.jmeter.report.sla.stats.BucketHistogram;
+import com.github.sgoeschl.jmeter.report.sla.stats.ConcurrencyHistogram;
+import com.github.sgoeschl.jmeter.report.sla.stats.ResponseStatistics;
+import com.github.sgoeschl.jmeter.report.sla.stats.SampleStatistics;
+import com.github.sgoeschl.jmeter.report.sla.stats.SampleTimeline;
+import com.github.sgoeschl.jmeter.report.sla.utils.DuplicateFilter;
+import com.github.sgoeschl.jmeter.report.sla.utils.IndexSorter;
+import com.github.sgoeschl.jmeter.report.sla.utils.LargestTriangleThreeBuckets;
+import com.github.sgoeschl.jmeter.report.sla.utils.LabelLimiter;
 import com.jamonapi.MonKeyImp;
 import com.jamonapi.MonitorComposite;
-import com.jamonapi.utils.Misc;
+import com.jamonapi.utils.LocaleContext;
 import org.apache.commons.text.StringEscapeUtils;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.InetAddress;
+import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -31,6 +54,12 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Generates a JMeter style HTML report based on the JAMon
@@ -45,6 +74,14 @@ public class JMeterHtmlReportWriter {
     public static final int DISPLAY_HEADER_FIRSTACCESS_INDEX = 13;
     public static final int DISPLAY_HEADER_LASTACCESS_INDEX = 14;
 
+    // tables having more rows are rendered as virtual tables
+    public static final int DEFAULT_VIRTUAL_TABLE_ROWS = 10000;
+
+    // the size of the inline SVG charts in pixels
+    private static final int CHART_WIDTH = 360;
+    private static final int CHART_HEIGHT = 100;
+    private static final int CHART_MARGIN = 12;
+
     enum BasicDataColumns {
         LABEL(DISPLAY_HEADER_LABEL_INDEX, "Label", true),
         UNITS(DISPLAY_HEADER_UNITS_INDEX, "Units", false),
@@ -76,12 +113,42 @@ public class JMeterHtmlReportWriter {
             }
             return result;
         }
+
+        static BasicDataColumns forIndex(int index) {
+            for (BasicDataColumns value : BasicDataColumns.values()) {
+                if (value.index == index && value.isReported) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Unable to sort by the column " + index);
+        }
     }
 
     /**
-     * the JAMON column used for sorting
+     * The sections following the summary in the order of the report - each section
+     * only reads the model and the summary so the sections can be rendered concurrently.
      */
-    private final int sortColumn;
+    enum ReportSection {
+        NOTICES,
+        PAGES_OVERVIEW,
+        CHARTS,
+        PAGES_DETAIL,
+        TRANSACTION_BREAKDOWN,
+        CONCURRENCY,
+        GROUPINGS,
+        TIMING_BREAKDOWN,
+        KILOBYTES_RECEIVED,
+        BANDWIDTH,
+        ERROR_SUMMARY,
+        ERROR_DETAIL,
+        ERROR_MESSAGES,
+        PROPERTIES
+    }
+
+    /**
+     * the column used for sorting
+     */
+    private final BasicDataColumns sortColumn;
 
     /**
      * the sort order, e.g. "asc" or "desc"
@@ -118,12 +185,37 @@ public class JMeterHtmlReportWriter {
      */
     private final Locale locale;
 
+    /**
+     * the optional SLA verdict
+     */
+    private SlaVerdict slaVerdict;
+
+    /**
+     * the optional estimates marking the report as approximate preview
+     */
+    private PreviewEstimate previewEstimate;
+
+    /**
+     * the optional comparisons with baseline runs
+     */
+    private List<RunComparison> runComparisons = new ArrayList<>();
+
+    /**
+     * the number of threads rendering the report sections
+     */
+    private int threads = 1;
+
+    /**
+     * the number of rows of a table rendered as HTML rows - larger tables are virtual tables
+     */
+    private int virtualTableRows = DEFAULT_VIRTUAL_TABLE_ROWS;
+
     private final JMeterReportModel model;
 
     public JMeterHtmlReportWriter(JMeterReportModel model, int sortColumn, String sortOrder, Locale locale) {
 
         this.model = model;
-        this.sortColumn = sortColumn;
+        this.sortColumn = BasicDataColumns.forIndex(sortColumn);
         this.sortOrder = sortOrder;
         this.locale = (locale != null ? locale : Locale.getDefault());
         this.firstAccessDate = new Date();
@@ -141,38 +233,60 @@ public class JMeterHtmlReportWriter {
      */
     public String createReport() {
 
+        final StringWriter writer = new StringWriter(100000);// guess on report size
+
+        try {
+            writeReport(writer);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create the report", e);
+        }
+
+        return writer.toString();
+    }
+
+    /**
+     * Writes a HTML JMeter report. The summary is rendered first since the other sections
+     * depend on it while the remaining sections are rendered into buffers of their own
+     * and written in the order of the report as soon as they are complete.
+     *
+     * @param out the output
+     * @throws IOException writing the report failed
+     */
+    public void writeReport(Writer out) throws IOException {
+
         final MonitorComposite monitor = model.getProvider().getRoot();
-        final MonitorComposite kikoByteReceivedMonitor = model.getKiloBytesReceivedMonitorProvider().getRoot();
 
         if (!monitor.hasData()) {
-            return "";
+            return;
         }
 
-        final StringBuffer html = new StringBuffer(100000);// guess on report size
+        final DisplayDataIndex index = new DisplayDataIndex(model);
+
+        final StringBuffer html = new StringBuffer(10000);
         html.append("<!DOCTYPE html PUBLIC \"-//W3C//DTD HTML 4.01 Transitional//EN\" \"http://www.w3.org/TR/html4/loose.dtd\">\n");
         html.append("<html>\n");
         html.append(getHtmlHeadFragment());
         html.append("<body>\n");
         html.append(getHeaderFragment());
         html.append("<hr size=\"1\">");
-        writeSummaryTable(html, monitor);
-        html.append("<hr size=\"1\">");
-        writePagesOverviewTable(html, monitor, this.sortColumn, this.sortOrder);
-        html.append("<hr size=\"1\">");
-        writePagesDetailTable(html, monitor, this.sortColumn, this.sortOrder);
+        writeSummaryTable(html, index);
         html.append("<hr size=\"1\">");
-        writeKiloBytesReceivedDetailTable(html, kikoByteReceivedMonitor, DISPLAY_HEADER_LABEL_INDEX, this.sortOrder);
-        html.append("<hr size=\"1\">");
-        writeErrorSummaryTable(html, monitor, 0, "asc");
-        html.append("<hr size=\"1\">");
-        writeErrorDetailTable(html, monitor, 0, "asc");
-        writeErrorMessagesTable(html);
-        html.append("<hr size=\"1\">");
-        writePropertyTable(html, System.getProperties());
-        html.append("</body>\n");
-        html.append("</html>\n");
+        out.write(html.toString());
 
-        return html.toString();
+        if (threads > 1) {
+            writeSectionsConcurrently(out, index);
+        } else {
+            for (ReportSection section : ReportSection.values()) {
+                out.write(renderSection(section, index));
+            }
+        }
+
+        if (isVirtualTable(index.getRows(JMeterReportModel.UNIT_MS).length) || isVirtualTable(model.getResponseLabels().size())) {
+            out.write(VirtualTable.getScript());
+        }
+
+        out.write("</body>\n");
+        out.write("</html>\n");
     }
 
     public String getReportTitle() {
@@ -183,6 +297,63 @@ public class JMeterHtmlReportWriter {
         this.reportTitle = reportTitle;
     }
 
+    public SlaVerdict getSlaVerdict() {
+        return slaVerdict;
+    }
+
+    public void setSlaVerdict(SlaVerdict slaVerdict) {
+        this.slaVerdict = slaVerdict;
+    }
+
+    public PreviewEstimate getPreviewEstimate() {
+        return previewEstimate;
+    }
+
+    public void setPreviewEstimate(PreviewEstimate previewEstimate) {
+        this.previewEstimate = previewEstimate;
+    }
+
+    public List<RunComparison> getRunComparisons() {
+        return runComparisons;
+    }
+
+    public void setRunComparisons(List<RunComparison> runComparisons) {
+        this.runComparisons = runComparisons;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Render the report sections concurrently using the given number of threads.
+     *
+     * @param threads the number of rendering threads
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Expecting at least one rendering thread: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    public int getVirtualTableRows() {
+        return virtualTableRows;
+    }
+
+    /**
+     * Render the rows of the pages and kilobytes received tables having more than the given
+     * number of rows by a script showing the visible rows only.
+     *
+     * @param virtualTableRows the maximum number of rows rendered as HTML rows
+     */
+    public void setVirtualTableRows(int virtualTableRows) {
+        if (virtualTableRows < 0) {
+            throw new IllegalArgumentException("Expecting a non-negative number of rows: " + virtualTableRows);
+        }
+        this.virtualTableRows = virtualTableRows;
+    }
+
     public String getReportSubtitle() {
         return reportSubtitle;
     }
@@ -213,45 +384,148 @@ public class JMeterHtmlReportWriter {
         }
     }
 
-    private void writeSummaryTable(StringBuffer html, MonitorComposite monitor) {
+    /**
+     * Formats a numeric cell the same way as a JAMon double.
+     */
+    private String formatNumber(double value) {
+        return String.format(locale, "%,10.0f", value);
+    }
 
-        final String[] header = monitor.getDisplayHeader();
-        final Object[][] data = getDisplayData(monitor, JMeterReportModel.UNIT_MS);
-        final Object[][] exceptionData = getDisplayData(monitor, JMeterReportModel.UNIT_EXCEPTION);
+    /**
+     * Formats a timestamp cell the same way as a JAMon date.
+     */
+    private String formatTime(long timestamp) {
+        return String.format(locale, "%1$tT", timestamp);
+    }
 
-        final int rows = data.length;
+    private String formatCell(DisplayDataIndex.Row row, BasicDataColumns column) {
+        switch (column) {
+            case LABEL:
+                return format(row.getLabel());
+            case FIRST_ACCESS:
+            case LAST_ACCESS:
+                return formatTime((long) row.getValue(column));
+            default:
+                return formatNumber(row.getValue(column));
+        }
+    }
 
-        // determine the timestamp of the first request
-        final int firstAccessIndex = getHeaderIndex(header, "FirstAccess");
-        for (int i = 0; i < rows; i++) {
-            final Date currFirstAccessDate = (Date) data[i][firstAccessIndex];
-            if (this.firstAccessDate.after(currFirstAccessDate)) {
-                this.firstAccessDate = currFirstAccessDate;
+    private void writeSectionsConcurrently(Writer out, final DisplayDataIndex index) throws IOException {
+
+        final ReportSection[] sections = ReportSection.values();
+        final ExecutorService executorService = Executors.newFixedThreadPool(Math.min(threads, sections.length));
+        final List<Future<String>> renderedSections = new ArrayList<>();
+
+        try {
+            for (final ReportSection section : sections) {
+                renderedSections.add(executorService.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return renderSection(section, index);
+                    }
+                }));
             }
-        }
 
-        // determine the timestamp of the last request
-        final int lastAccessIndex = getHeaderIndex(header, "LastAccess");
-        for (int i = 0; i < rows; i++) {
-            final Date currLastAccessDate = (Date) data[i][lastAccessIndex];
-            if (this.lastAccessDate.before(currLastAccessDate)) {
-                this.lastAccessDate = currLastAccessDate;
+            for (Future<String> renderedSection : renderedSections) {
+                try {
+                    out.write(renderedSection.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new RuntimeException("Failed to render the report", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while rendering the report", e);
+                }
             }
+        } finally {
+            executorService.shutdownNow();
         }
+    }
 
-        // determine the "requests"
-        Double nrOfRequests = 0.0;
-        final int hitsHeaderIndex = getHeaderIndex(header, "Hits");
-        for (int i = 0; i < rows; i++) {
-            nrOfRequests += (Double) data[i][hitsHeaderIndex];
+    private String renderSection(ReportSection section, DisplayDataIndex index) {
+
+        final StringBuffer html = new StringBuffer(10000);
+
+        switch (section) {
+            case NOTICES:
+                writeLabelCapNotice(html);
+                writeDuplicateNotice(html);
+                writeSlaVerdictTable(html);
+                writePreviewEstimateTable(html);
+                writeRunComparisonTables(html);
+                break;
+            case PAGES_OVERVIEW:
+                writePagesOverviewTable(html, index);
+                html.append("<hr size=\"1\">");
+                break;
+            case CHARTS:
+                writeCharts(html);
+                break;
+            case PAGES_DETAIL:
+                writePagesDetailTable(html, index);
+                html.append("<hr size=\"1\">");
+                break;
+            case TRANSACTION_BREAKDOWN:
+                writeTransactionBreakdown(html);
+                break;
+            case CONCURRENCY:
+                writeConcurrencyTable(html);
+                break;
+            case GROUPINGS:
+                writeGroupingTables(html);
+                break;
+            case TIMING_BREAKDOWN:
+                writeTimingBreakdownTable(html);
+                break;
+            case KILOBYTES_RECEIVED:
+                writeKiloBytesReceivedDetailTable(html, this.sortOrder);
+                html.append("<hr size=\"1\">");
+                break;
+            case BANDWIDTH:
+                writeBandwidthTable(html);
+                break;
+            case ERROR_SUMMARY:
+                writeErrorSummaryTable(html, index);
+                html.append("<hr size=\"1\">");
+                break;
+            case ERROR_DETAIL:
+                writeErrorDetailTable(html, index);
+                break;
+            case ERROR_MESSAGES:
+                writeErrorMessagesTable(html);
+                html.append("<hr size=\"1\">");
+                break;
+            default:
+                writePropertyTable(html, System.getProperties());
+                break;
         }
 
+        return html.toString();
+    }
+
+    private void writeSummaryTable(StringBuffer html, DisplayDataIndex index) {
+
+        final DisplayDataIndex.Totals totals = index.getTotals(JMeterReportModel.UNIT_MS);
+        final DisplayDataIndex.Row[] exceptionData = index.getRows(JMeterReportModel.UNIT_EXCEPTION);
+
+        // determine the timestamps of the first and last request
+        if (this.firstAccessDate.getTime() > totals.getFirstAccess()) {
+            this.firstAccessDate = new Date(totals.getFirstAccess());
+        }
+        if (this.lastAccessDate.getTime() < totals.getLastAccess()) {
+            this.lastAccessDate = new Date(totals.getLastAccess());
+        }
+
+        // determine the "requests"
+        final double nrOfRequests = totals.getHits();
+
         // determine the "Failures"
         Double nrOfFailures = 0.0;
-        for (Object[] anExceptionData : exceptionData) {
-            final String currLLabel = anExceptionData[BasicDataColumns.LABEL.index].toString();
-            final Double currHits = (Double) anExceptionData[BasicDataColumns.TOTAL.index];
-            this.failureMap.put(currLLabel, currHits);
+        for (DisplayDataIndex.Row anExceptionData : exceptionData) {
+            final double currHits = anExceptionData.getHits();
+            this.failureMap.put(anExceptionData.getLabel(), currHits);
             nrOfFailures += currHits;
         }
 
@@ -259,26 +533,11 @@ public class JMeterHtmlReportWriter {
         final double successRate = 100.0 - (nrOfFailures * 100.0 / nrOfRequests);
 
         // determine "Average Time"
-        double overallTime = 0;
-        final int totalHeaderIndex = getHeaderIndex(header, "Total");
-        for (int i = 0; i < rows; i++) {
-            overallTime += (Double) data[i][totalHeaderIndex];
-        }
-        final double averageTime = overallTime / nrOfRequests;
+        final double averageTime = totals.getTotal() / nrOfRequests;
 
-        // determine "Min Time"
-        double minTime = (double) Long.MAX_VALUE;
-        final int minHeaderIndex = getHeaderIndex(header, "Min");
-        for (int i = 0; i < rows; i++) {
-            minTime = Math.min(minTime, (Double) data[i][minHeaderIndex]);
-        }
-
-        // determine "Max Time"
-        double maxTime = (double) Long.MIN_VALUE;
-        final int maxHeaderIndex = getHeaderIndex(header, "Max");
-        for (int i = 0; i < rows; i++) {
-            maxTime = Math.max(maxTime, (Double) data[i][maxHeaderIndex]);
-        }
+        // determine "Min Time" and "Max Time"
+        final double minTime = totals.getMin();
+        final double maxTime = totals.getMax();
 
         html.append("<h2>Summary</h2>");
         html.append("<table width=\"95%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
@@ -290,7 +549,7 @@ public class JMeterHtmlReportWriter {
         } else {
             html.append("<tr valign=\"top\" class=\"\">\n");
         }
-        html.append("<td>").append(format(nrOfRequests.intValue())).append("</td>");
+        html.append("<td>").append(format((int) nrOfRequests)).append("</td>");
         html.append("<td>").append(format(nrOfFailures.intValue())).append("</td>");
         html.append("<td>").append(String.format(locale, "%3.4f", successRate)).append(" %</td>");
         html.append("<td>").append(format(averageTime)).append(" ms</td>");
@@ -300,21 +559,213 @@ public class JMeterHtmlReportWriter {
         html.append("</table>\n");
     }
 
-    private void writePagesOverviewTable(StringBuffer html, MonitorComposite monitor, int sortCol, String sortOrder) {
+    /**
+     * Tells how many samples were folded into the overflow label since the label cap was reached.
+     */
+    private void writeLabelCapNotice(StringBuffer html) {
+
+        final LabelLimiter labelLimiter = model.getLabelLimiter();
+        final SampleStatistics overflowStatistics = model.getStatistics(labelLimiter.getOverflowLabel());
+
+        if (overflowStatistics == null) {
+            return;
+        }
+
+        html.append("<p class=\"Failure\">")
+                .append(String.format(locale, "%,d", overflowStatistics.getRequests()))
+                .append(" samples of labels beyond the cap of ")
+                .append(String.format(locale, "%,d", labelLimiter.getMaxLabels()))
+                .append(" distinct labels were folded into '")
+                .append(format(labelLimiter.getOverflowLabel()))
+                .append("'</p>\n");
+        html.append("<hr size=\"1\">");
+    }
+
+    /**
+     * Tells how many duplicated samples were dropped when detecting duplicates.
+     */
+    private void writeDuplicateNotice(StringBuffer html) {
+
+        final DuplicateFilter duplicateFilter = model.getDuplicateFilter();
+
+        if (duplicateFilter == null || duplicateFilter.getDuplicates() + duplicateFilter.getUncheckedSamples() == 0) {
+            return;
+        }
+
+        html.append("<p class=\"Failure\">")
+                .append(String.format(locale, "%,d", duplicateFilter.getDuplicates()))
+                .append(" duplicated samples were dropped (estimated false-positive rate ")
+                .append(String.format(locale, "%.2g", duplicateFilter.getFalsePositiveRate()))
+                .append(")");
+        if (duplicateFilter.getUncheckedSamples() > 0) {
+            html.append(" while ")
+                    .append(String.format(locale, "%,d", duplicateFilter.getUncheckedSamples()))
+                    .append(" samples older than the deduplication window of ")
+                    .append(String.format(locale, "%,d", duplicateFilter.getWindowMillis() / 1000))
+                    .append(" seconds were not checked");
+        }
+        html.append("</p>\n");
+        html.append("<hr size=\"1\">");
+    }
+
+    private void writeSlaVerdictTable(StringBuffer html) {
+
+        if (slaVerdict == null) {
+            return;
+        }
+
+        html.append("<h2>SLA Verdict</h2>");
+        if (slaVerdict.isAborted()) {
+            html.append("<p class=\"Failure\">Parsing was aborted since the following SLA rules can no longer be met</p>");
+        }
+        html.append("\n<table width=\"95%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
+        html.append("<tr>");
+        html.append("<th>").append("Rule").append("</th>");
+        html.append("<th>").append("Label").append("</th>");
+        html.append("<th>").append("Condition").append("</th>");
+        html.append("<th>").append("Actual").append("</th>");
+        html.append("<th>").append("Result").append("</th>");
+        html.append("</tr>\n");
+
+        for (SlaRuleResult result : slaVerdict.getResults()) {
+            final double actual = result.getActual();
+            html.append(result.isPassed() ? "<tr valign=\"top\" class=\"\">" : "<tr valign=\"top\" class=\"Failure\">");
+            html.append("<td>").append(format(result.getRule().getName())).append("</td>");
+            html.append("<td>").append(format(result.getLabel())).append("</td>");
+            html.append("<td>").append(format(result.getRule().getCondition())).append("</td>");
+            html.append("<td align='right'>").append(Double.isNaN(actual) ? "no samples" : String.format(locale, "%,.2f", actual)).append("</td>");
+            html.append("<td>").append(result.isPassed() ? "Passed" : "Failed").append("</td>");
+            html.append("</tr>\n");
+        }
+
+        html.append("</table>\n");
+        html.append("<hr size=\"1\">");
+    }
+
+    private void writePreviewEstimateTable(StringBuffer html) {
+
+        if (previewEstimate == null) {
+            return;
+        }
+
+        html.append("<h2>Preview Estimates (95% confidence)</h2>");
+        html.append("\n<table width=\"95%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
+        html.append("<tr>");
+        html.append("<th>").append("Label").append("</th>");
+        html.append("<th>").append("Sampled Requests").append("</th>");
+        html.append("<th>").append("Estimated Requests").append("</th>");
+        html.append("<th>").append("Sampled Errors").append("</th>");
+        html.append("<th>").append("Estimated Errors").append("</th>");
+        html.append("<th>").append("Estimated Throughput").append("</th>");
+        html.append("</tr>\n");
+
+        for (String label : previewEstimate.getLabels()) {
+            writePreviewEstimateRow(html, label, model.getStatistics(label), previewEstimate.getRequests(label), previewEstimate.getErrors(label));
+        }
+        writePreviewEstimateRow(html, "Summary", model.getSummaryStatistics(), previewEstimate.getSummaryRequests(), previewEstimate.getSummaryErrors());
+
+        html.append("</table>\n");
+        html.append("<hr size=\"1\">");
+    }
+
+    private void writePreviewEstimateRow(StringBuffer html, String label, SampleStatistics statistics, PreviewEstimate.Estimate requests, PreviewEstimate.Estimate errors) {
+        final long sampledRequests = (statistics != null ? statistics.getRequests() : 0);
+        final long sampledErrors = (statistics != null ? statistics.getFailures() : 0);
+        final long duration = (statistics != null ? statistics.getLastAccess() - statistics.getFirstAccess() : 0);
+        final double throughput = (duration > 0 ? requests.getValue() * 1000.0 / duration : 0.0);
+
+        html.append(sampledErrors > 0 ? "<tr valign=\"top\" class=\"Failure\">" : "<tr valign=\"top\" class=\"\">");
+        html.append("<td>").append(format(label)).append("</td>");
+        html.append("<td align='right'>").append(String.format(locale, "%,d", sampledRequests)).append("</td>");
+        html.append("<td align='right'>").append(formatEstimate(requests)).append("</td>");
+        html.append("<td align='right'>").append(String.format(locale, "%,d", sampledErrors)).append("</td>");
+        html.append("<td align='right'>").append(formatEstimate(errors)).append("</td>");
+        html.append("<td align='right'>").append(String.format(locale, "%,.2f/s", throughput)).append("</td>");
+        html.append("</tr>\n");
+    }
+
+    private String formatEstimate(PreviewEstimate.Estimate estimate) {
+        return String.format(locale, "%,.0f &plusmn; %,.0f", estimate.getValue(), estimate.getBound());
+    }
+
+    private void writeRunComparisonTables(StringBuffer html) {
+
+        for (RunComparison comparison : runComparisons) {
+            html.append("<h2>Comparison with ").append(format(comparison.getBaselineName())).append("</h2>");
+            html.append("\n<table width=\"95%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
+            html.append("<tr>");
+            html.append("<th>").append("Label").append("</th>");
+            html.append("<th>").append("Avg").append("</th>");
+            html.append("<th>").append("Avg Delta").append("</th>");
+            html.append("<th>").append("p95").append("</th>");
+            html.append("<th>").append("p95 Delta").append("</th>");
+            html.append("<th>").append("Error Rate").append("</th>");
+            html.append("<th>").append("Error Rate Delta").append("</th>");
+            html.append("<th>").append("Throughput").append("</th>");
+            html.append("<th>").append("Throughput Delta").append("</th>");
+            html.append("</tr>\n");
+
+            for (RunComparison.Row row : comparison.getRows()) {
+                writeRunComparisonRow(html, row);
+            }
+            writeRunComparisonRow(html, comparison.getSummary());
+
+            html.append("</table>\n");
+            html.append("<hr size=\"1\">");
+        }
+    }
+
+    private void writeRunComparisonRow(StringBuffer html, RunComparison.Row row) {
+
+        html.append(row.isRegression() ? "<tr valign=\"top\" class=\"Failure\">" : "<tr valign=\"top\" class=\"\">");
+        html.append("<td>").append(format(row.getLabel())).append("</td>");
+
+        if (!row.isComparable()) {
+            final String status = (row.getCurrent() == null ? "missing in current run" : "missing in baseline");
+            html.append("<td colspan=\"8\">").append(status).append("</td>");
+            html.append("</tr>\n");
+            return;
+        }
+
+        final SampleStatistics current = row.getCurrent();
+        html.append("<td align='right'>").append(String.format(locale, "%,.0f", current.getAverageTime())).append("</td>");
+        html.append("<td align='right'>").append(formatDelta(row.getAvgDelta(), "%")).append("</td>");
+        html.append("<td align='right'>").append(String.format(locale, "%,d", current.getPercentile(95.0))).append("</td>");
+        html.append("<td align='right'>").append(formatDelta(row.getP95Delta(), "%")).append("</td>");
+        html.append("<td align='right'>").append(String.format(locale, "%,.2f%%", current.getErrorRate())).append("</td>");
+        html.append("<td align='right'>").append(formatDelta(row.getErrorRateDelta(), " pp")).append("</td>");
+        html.append("<td align='right'>").append(String.format(locale, "%,.2f/s", current.getThroughput())).append("</td>");
+        html.append("<td align='right'>").append(formatDelta(row.getThroughputDelta(), "%")).append("</td>");
+        html.append("</tr>\n");
+    }
+
+    private String formatDelta(double delta, String unit) {
+        if (Double.isInfinite(delta)) {
+            return "n/a";
+        }
+        return String.format(locale, "%+,.1f", delta) + unit;
+    }
+
+    private void writePagesOverviewTable(StringBuffer html, DisplayDataIndex index) {
 
         final List<BasicDataColumns> reportColumns = BasicDataColumns.getReportedColumns();
-        final Object[][] basicData = getBasicData(monitor, JMeterReportModel.UNIT_MS);
+        final DisplayDataIndex.Row[] data = index.getRows(JMeterReportModel.UNIT_MS);
 
-        if (basicData.length == 0)  {
+        if (data.length == 0)  {
             throw new IllegalArgumentException("The JMeter report model does not contain any data");
         }
 
-        final Object[][] data = Misc.sort(basicData, sortCol, sortOrder);
-
+        final int[] order = index.getOrder(JMeterReportModel.UNIT_MS, this.sortColumn, this.sortOrder);
         final int rows = data.length;
         final int cols = reportColumns.size();
 
         html.append("<h2>Pages Overview (ms)</h2>");
+
+        if (isVirtualTable(rows)) {
+            writeVirtualPagesOverviewTable(html, data, order, reportColumns);
+            return;
+        }
+
         html.append("\n<table width=\"95%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
         html.append("<tr>");
         for (BasicDataColumns column : reportColumns) {
@@ -324,14 +775,15 @@ public class JMeterHtmlReportWriter {
         html.append("</tr>\n");
 
         for (int i = 0; i < rows; i++) {
-            final String label = data[i][BasicDataColumns.LABEL.index].toString();
+            final DisplayDataIndex.Row row = data[order[i]];
+            final String label = row.getLabel();
             final double nrOfFailures = getNrOfFailures(label);
             final String failureClass = (nrOfFailures > 0.0 ? "Failure" : "");
             html.append("<tr valign=\"top\" class=\"" + failureClass + "\">");
             html.append("<td>").append(label).append("</td>");// first column
             for (int j = 1; j < cols; j++) {
                 html.append("<td align='right'>");
-                html.append(format(data[i][reportColumns.get(j).index]));
+                html.append(formatCell(row, reportColumns.get(j)));
                 html.append("</td>");
             }
             html.append("<td align='right'>").append(format(nrOfFailures)).append("</td>");
@@ -341,62 +793,486 @@ public class JMeterHtmlReportWriter {
         html.append("</table>\n");
     }
 
-    private void writePagesDetailTable(StringBuffer html, MonitorComposite monitor, int sortCol, String sortOrder) {
+    private void writeVirtualPagesOverviewTable(StringBuffer html, DisplayDataIndex.Row[] data, int[] order, List<BasicDataColumns> reportColumns) {
 
-        final String[] header = { "Label", "Requests", "0-10", "10-20", "20-40", "40-80", "80-160", "160-320", "320-640", "640-1280", "1280-2560", "2560-5120", "5120-10240", "10240-20480", ">20480ms" };
-        final int[] headerIndex = { DISPLAY_HEADER_LABEL_INDEX, DISPLAY_HEADER_HITS_INDEX, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30 };
-
-        final Object[][] rawData = getDisplayData(monitor, JMeterReportModel.UNIT_MS);
-        final Object[][] data = Misc.sort(rawData, sortCol, sortOrder);
-        final int rows = data.length;
-        final int cols = header.length;
+        final int cols = reportColumns.size();
+        final VirtualTable table = new VirtualTable("pages-overview");
+        final String[] cells = new String[cols + 1];
+        final double[] keys = new double[cols + 1];
 
-        html.append("<h2>Pages Detail Table (ms)</h2>");
-        html.append("\n<table width=\"95%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
-        html.append("<tr>");
-        for (String headerName : header) {
-            html.append("<th>").append(headerName).append("</th>");
+        for (int j = 0; j < cols; j++) {
+            table.addColumn(reportColumns.get(j).label, j > 0);
         }
-        html.append("</tr>");
+        table.addColumn("Failures", true);
 
-        for (int i = 0; i < rows; i++) {
-            final String label = data[i][DISPLAY_HEADER_LABEL_INDEX].toString();
+        for (int rowIndex : order) {
+            final DisplayDataIndex.Row row = data[rowIndex];
+            final String label = row.getLabel();
             final double nrOfFailures = getNrOfFailures(label);
-            if (nrOfFailures > 0.0) {
-                html.append("<tr valign=\"top\" class=\"Failure\">");
-            } else {
-                html.append("<tr valign=\"top\">");
-            }
-            html.append("<td>").append(label).append("</td>");// first column
+            cells[0] = label;
             for (int j = 1; j < cols; j++) {
-                html.append("<td align='right'>").append(format(data[i][headerIndex[j]])).append("</td>");
+                cells[j] = formatCell(row, reportColumns.get(j));
+                keys[j] = row.getValue(reportColumns.get(j));
+            }
+            cells[cols] = format(nrOfFailures);
+            keys[cols] = nrOfFailures;
+            table.addRow(nrOfFailures > 0.0, cells, keys);
+        }
+
+        table.writeTo(html);
+    }
+
+    private void writePagesDetailTable(StringBuffer html, DisplayDataIndex index) {
+
+        final DisplayDataIndex.Row[] data = index.getRows(JMeterReportModel.UNIT_MS);
+        final int[] order = index.getOrder(JMeterReportModel.UNIT_MS, this.sortColumn, this.sortOrder);
+        final BucketLayout defaultLayout = model.getSlaConfiguration().getResponseTimeLayout();
+
+        int tableIndex = 0;
+
+        // render a table for each distinct response time layout
+        for (BucketLayout layout : model.getSlaConfiguration().getResponseTimeLayouts()) {
+
+            final List<String> layoutData = new ArrayList<>();
+            for (int rowIndex : order) {
+                final String label = data[rowIndex].getLabel();
+                final BucketHistogram histogram = model.getResponseTimeHistogram(label);
+                if (histogram != null && histogram.getLayout().equals(layout)) {
+                    layoutData.add(label);
+                }
             }
+
+            if (layout.equals(defaultLayout)) {
+                html.append("<h2>Pages Detail Table (ms)</h2>");
+            } else if (!layoutData.isEmpty()) {
+                html.append("<hr size=\"1\">");
+                html.append("<h2>Pages Detail Table (ms, SLA &lt; ").append(layout.getThreshold()).append("ms)</h2>");
+            } else {
+                continue;
+            }
+
+            writeDistributionTable(html, "pages-detail-" + tableIndex++, layout, layoutData, new HistogramResolver() {
+                @Override
+                public BucketHistogram get(String label) {
+                    return model.getResponseTimeHistogram(label);
+                }
+            });
+        }
+    }
+
+    /**
+     * Renders a collapsible table of the sub-samples for each transaction.
+     */
+    private void writeTransactionBreakdown(StringBuffer html) {
+
+        if (model.getParentLabels().isEmpty()) {
+            return;
+        }
+
+        html.append("<h2>Transaction Breakdown (ms)</h2>\n");
+
+        for (String parentLabel : new TreeSet<>(model.getParentLabels())) {
+
+            final SampleStatistics parentStatistics = model.getStatistics(parentLabel);
+            final long parentTotalTime = (parentStatistics != null ? parentStatistics.getTotalTime() : 0);
+            final Map<String, SampleStatistics> subSampleStatistics = model.getSubSampleStatistics(parentLabel);
+
+            html.append("<details>\n");
+            html.append("<summary>").append(format(parentLabel)).append(" (").append(subSampleStatistics.size()).append(" sub-samples)</summary>");
+            html.append("\n<table width=\"95%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
+            html.append("<tr>");
+            html.append("<th>").append("Label").append("</th>");
+            html.append("<th>").append("Requests").append("</th>");
+            html.append("<th>").append("Avg").append("</th>");
+            html.append("<th>").append("Min Time").append("</th>");
+            html.append("<th>").append("Max Time").append("</th>");
+            html.append("<th>").append("Share").append("</th>");
+            html.append("<th>").append("Failures").append("</th>");
             html.append("</tr>\n");
+
+            for (String label : new TreeSet<>(subSampleStatistics.keySet())) {
+                final SampleStatistics statistics = subSampleStatistics.get(label);
+                final double share = (parentTotalTime > 0 ? statistics.getTotalTime() * 100.0 / parentTotalTime : 0.0);
+                html.append(statistics.getFailures() > 0 ? "<tr valign=\"top\" class=\"Failure\">" : "<tr valign=\"top\" class=\"\">");
+                html.append("<td>").append(format(label)).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,d", statistics.getRequests())).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,.0f", statistics.getAverageTime())).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,d", statistics.getMinTime())).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,d", statistics.getMaxTime())).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,.1f%%", share)).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,d", statistics.getFailures())).append("</td>");
+                html.append("</tr>\n");
+            }
+
+            html.append("</table>\n");
+            html.append("</details>\n");
+        }
+
+        html.append("<hr size=\"1\">");
+    }
+
+    /**
+     * Renders the response times of each label by the number of active threads.
+     */
+    private void writeConcurrencyTable(StringBuffer html) {
+
+        if (model.getConcurrencyLabels().isEmpty()) {
+            return;
+        }
+
+        html.append("<h2>Response Time by Active Threads (ms)</h2>\n");
+        html.append("<table width=\"95%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
+        html.append("<tr>");
+        html.append("<th>").append("Label").append("</th>");
+        html.append("<th>").append("Active Threads").append("</th>");
+        html.append("<th>").append("Requests").append("</th>");
+        html.append("<th>").append("Avg").append("</th>");
+        html.append("<th>").append("p50").append("</th>");
+        html.append("<th>").append("p90").append("</th>");
+        html.append("<th>").append("p95").append("</th>");
+        html.append("<th>").append("p99").append("</th>");
+        html.append("<th>").append("Max Time").append("</th>");
+        html.append("</tr>\n");
+
+        for (String label : new TreeSet<>(model.getConcurrencyLabels())) {
+            final ConcurrencyHistogram histogram = model.getConcurrencyHistogram(label);
+            for (int band = 0; band < histogram.getBandCount(); band++) {
+                if (histogram.getRequests(band) == 0) {
+                    continue;
+                }
+                html.append("<tr valign=\"top\" class=\"\">");
+                html.append("<td>").append(format(label)).append("</td>");
+                html.append("<td align='right'>").append(histogram.getLowestThreads(band)).append('-').append(histogram.getHighestThreads(band)).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,d", histogram.getRequests(band))).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,.0f", histogram.getAverageTime(band))).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,d", histogram.getPercentile(band, 50.0))).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,d", histogram.getPercentile(band, 90.0))).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,d", histogram.getPercentile(band, 95.0))).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,d", histogram.getPercentile(band, 99.0))).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,d", histogram.getMaxTime(band))).append("</td>");
+                html.append("</tr>\n");
+            }
         }
 
         html.append("</table>\n");
+        html.append("<hr size=\"1\">");
     }
 
-    private void writeKiloBytesReceivedDetailTable(StringBuffer html, MonitorComposite monitor, int sortCol, String sortOrder) {
+    /**
+     * Renders one table per configured grouping, e.g. by thread group and response code.
+     */
+    private void writeGroupingTables(StringBuffer html) {
 
-        final String[] header = { "Label", "Requests", "0-1", "1-2", "2-4", "4-8", "8-16", "16-32", "32-64", "64-128", "128-256", "256-512", "512-1024", "1024-2048", ">20480 KB" };
-        final int[] headerIndex = { DISPLAY_HEADER_LABEL_INDEX, DISPLAY_HEADER_HITS_INDEX, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30 };
+        for (Grouping grouping : model.getGroupings()) {
 
-        final Object[][] rawData = getDisplayData(monitor, JMeterReportModel.UNIT_KB);
-        final Object[][] data = Misc.sort(rawData, sortCol, sortOrder);
-        final int rows = data.length;
-        final int cols = header.length;
+            if (grouping.size() == 0) {
+                continue;
+            }
+
+            final StringBuilder title = new StringBuilder();
+            for (GroupByDimension dimension : grouping.getDimensions()) {
+                title.append(title.length() > 0 ? " / " : "").append(dimension.getTitle());
+            }
+
+            html.append("<h2>").append(format(grouping.getName())).append(" - Breakdown by ").append(title).append(" (ms)</h2>\n");
+            html.append("<table width=\"95%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
+            html.append("<tr>");
+            for (GroupByDimension dimension : grouping.getDimensions()) {
+                html.append("<th>").append(dimension.getTitle()).append("</th>");
+            }
+            html.append("<th>").append("Requests").append("</th>");
+            html.append("<th>").append("Failures").append("</th>");
+            html.append("<th>").append("Error %").append("</th>");
+            html.append("<th>").append("Avg").append("</th>");
+            html.append("<th>").append("p95").append("</th>");
+            html.append("<th>").append("Max Time").append("</th>");
+            html.append("</tr>\n");
+
+            for (int row : grouping.getSortedRows()) {
+                final SampleStatistics statistics = grouping.getStatistics(row);
+                html.append(statistics.getFailures() > 0 ? "<tr valign=\"top\" class=\"Failure\">" : "<tr valign=\"top\" class=\"\">");
+                for (String value : grouping.getValues(row)) {
+                    html.append("<td>").append(format(value)).append("</td>");
+                }
+                html.append("<td align='right'>").append(String.format(locale, "%,d", statistics.getRequests())).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,d", statistics.getFailures())).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,.2f%%", statistics.getErrorRate())).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,.0f", statistics.getAverageTime())).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,d", statistics.getPercentile(95.0))).append("</td>");
+                html.append("<td align='right'>").append(String.format(locale, "%,d", statistics.getMaxTime())).append("</td>");
+                html.append("</tr>\n");
+            }
+
+            html.append("</table>\n");
+            html.append("<hr size=\"1\">");
+        }
+    }
+
+    /**
+     * Renders the connect time, latency and elapsed time of each label side by side
+     * to distinguish between network and server time.
+     */
+    private void writeTimingBreakdownTable(StringBuffer html) {
+
+        final List<String> labels = new ArrayList<>();
+        for (String label : new TreeSet<>(model.getResponseLabels())) {
+            if (model.getResponseStatistics(label).getTimedRequests() > 0) {
+                labels.add(label);
+            }
+        }
+
+        if (labels.isEmpty()) {
+            return;
+        }
+
+        html.append("<h2>Connect Time and Latency Breakdown (ms)</h2>\n");
+        html.append("<table width=\"95%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
+        html.append("<tr>");
+        html.append("<th>").append("Label").append("</th>");
+        html.append("<th>").append("Requests").append("</th>");
+        html.append("<th>").append("Avg Connect").append("</th>");
+        html.append("<th>").append("p95 Connect").append("</th>");
+        html.append("<th>").append("Avg Latency").append("</th>");
+        html.append("<th>").append("p95 Latency").append("</th>");
+        html.append("<th>").append("Avg Processing").append("</th>");
+        html.append("<th>").append("Avg Total").append("</th>");
+        html.append("<th>").append("p95 Total").append("</th>");
+        html.append("</tr>\n");
+
+        for (String label : labels) {
+            final ResponseStatistics statistics = model.getResponseStatistics(label);
+            html.append("<tr valign=\"top\" class=\"\">");
+            html.append("<td>").append(format(label)).append("</td>");
+            html.append("<td align='right'>").append(String.format(locale, "%,d", statistics.getTimedRequests())).append("</td>");
+            html.append("<td align='right'>").append(String.format(locale, "%,.0f", statistics.getAverageConnectTime())).append("</td>");
+            html.append("<td align='right'>").append(String.format(locale, "%,d", statistics.getConnectTimePercentile(95.0))).append("</td>");
+            html.append("<td align='right'>").append(String.format(locale, "%,.0f", statistics.getAverageLatency())).append("</td>");
+            html.append("<td align='right'>").append(String.format(locale, "%,d", statistics.getLatencyPercentile(95.0))).append("</td>");
+            html.append("<td align='right'>").append(String.format(locale, "%,.0f", statistics.getAverageProcessingTime())).append("</td>");
+            html.append("<td align='right'>").append(String.format(locale, "%,.0f", statistics.getAverageElapsedTime())).append("</td>");
+            html.append("<td align='right'>").append(String.format(locale, "%,d", statistics.getElapsedTimePercentile(95.0))).append("</td>");
+            html.append("</tr>\n");
+        }
+
+        html.append("</table>\n");
+        html.append("<hr size=\"1\">");
+    }
+
+    private void writeKiloBytesReceivedDetailTable(StringBuffer html, String sortOrder) {
+
+        final List<String> labels = new ArrayList<>();
+        for (String label : model.getResponseLabels()) {
+            if (model.getKiloBytesReceivedHistogram(label).getTotalCount() > 0) {
+                labels.add(label);
+            }
+        }
+        final String[] keys = labels.toArray(new String[labels.size()]);
+        final List<String> data = new ArrayList<>(keys.length);
+        for (int rowIndex : IndexSorter.sort(keys, "desc".equalsIgnoreCase(sortOrder))) {
+            data.add(keys[rowIndex]);
+        }
 
         html.append("<h2>Kilobytes Received Detail Table (KB)</h2>");
+        writeDistributionTable(html, "kilobytes-received", model.getSlaConfiguration().getKiloBytesReceivedLayout(), data, new HistogramResolver() {
+            @Override
+            public BucketHistogram get(String label) {
+                return model.getKiloBytesReceivedHistogram(label);
+            }
+        });
+    }
+
+    /**
+     * Renders the average response time and the throughput of all samples and of the labels
+     * having the most requests over the time of the test run as inline SVG charts. Each series
+     * is downsampled to the configured number of points so the size of the charts does not
+     * depend on the duration of the test run.
+     */
+    private void writeCharts(StringBuffer html) {
+
+        final SampleTimeline summaryTimeline = model.getSummaryTimeline();
+
+        if (summaryTimeline.getSlots() < 2) {
+            return;
+        }
+
+        html.append("<h2>Response Time and Throughput Charts</h2>\n");
+        if (summaryTimeline.getSlotSeconds() > 1) {
+            html.append("<p>The values are averaged over ").append(summaryTimeline.getSlotSeconds()).append(" seconds for all samples.</p>\n");
+        }
+        html.append("<table width=\"95%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
+        html.append("<tr>");
+        html.append("<th>").append("Label").append("</th>");
+        html.append("<th>").append("Average Response Time (ms)").append("</th>");
+        html.append("<th>").append("Throughput and Errors (requests/s)").append("</th>");
+        html.append("</tr>\n");
+        // all charts share the time axis of the test run
+        final double firstTime = summaryTimeline.getStartTime(0);
+        final double lastTime = summaryTimeline.getStartTime(summaryTimeline.getSlots() - 1) + summaryTimeline.getSlotSeconds() * 1000.0;
+
+        writeChartRow(html, "All samples", summaryTimeline, false, firstTime, lastTime);
+        for (String label : getChartedLabels()) {
+            writeChartRow(html, label, model.getTimeline(label), getNrOfFailures(label) > 0.0, firstTime, lastTime);
+        }
+        html.append("</table>\n");
+        html.append("<hr size=\"1\">");
+    }
+
+    /**
+     * @return the labels having the most requests in descending order of their requests
+     */
+    private List<String> getChartedLabels() {
+
+        final List<String> result = new ArrayList<>(model.getTimelineLabels());
+
+        Collections.sort(result, new Comparator<String>() {
+            @Override
+            public int compare(String first, String second) {
+                final int order = Long.compare(model.getStatistics(second).getRequests(), model.getStatistics(first).getRequests());
+                return order != 0 ? order : first.compareTo(second);
+            }
+        });
+
+        return result.subList(0, Math.min(result.size(), model.getSlaConfiguration().getChartLabels()));
+    }
+
+    private void writeChartRow(StringBuffer html, String label, SampleTimeline timeline, boolean isFailure, double firstTime, double lastTime) {
+
+        final int slots = timeline.getSlots();
+        final double slotSeconds = timeline.getSlotSeconds();
+        final double[] time = new double[slots];
+        final double[] throughput = new double[slots];
+        final double[] errors = new double[slots];
+        final double[] responseTime = new double[slots];
+        final double[] responseTimeTime = new double[slots];
+        int responseTimes = 0;
+        boolean hasErrors = false;
+
+        for (int i = 0; i < slots; i++) {
+            time[i] = timeline.getStartTime(i) + slotSeconds * 500.0;
+            throughput[i] = timeline.getRequests(i) / slotSeconds;
+            errors[i] = timeline.getErrors(i) / slotSeconds;
+            hasErrors |= timeline.getErrors(i) > 0;
+            // the slots without requests have no response time
+            if (timeline.getRequests(i) > 0) {
+                responseTimeTime[responseTimes] = time[i];
+                responseTime[responseTimes++] = timeline.getAverageTime(i);
+            }
+        }
+
+        html.append("<tr valign=\"top\" class=\"").append(isFailure ? "Failure" : "").append("\">");
+        html.append("<td>").append(format(label)).append("</td>");
+        html.append("<td>");
+        writeChart(html, firstTime, lastTime, responseTimeTime, responseTimes, responseTime, null, String.format(locale, "%,.0f ms", max(responseTime, responseTimes)));
+        html.append("</td>");
+        html.append("<td>");
+        writeChart(html, firstTime, lastTime, time, slots, throughput, hasErrors ? errors : null, String.format(locale, "%,.1f/s", max(throughput, slots)));
+        html.append("</td>");
+        html.append("</tr>\n");
+    }
+
+    /**
+     * Draws the downsampled series (and optional error series) of a chart scaled to the
+     * maximum of the series.
+     */
+    private void writeChart(StringBuffer html, double firstTime, double lastTime, double[] x, int length, double[] y, double[] errors, String maxText) {
+
+        final int points = model.getSlaConfiguration().getChartPoints();
+        final double maxY = Math.max(max(y, length), errors != null ? max(errors, length) : 0.0);
+        final double scaleX = (CHART_WIDTH - 1) / Math.max(lastTime - firstTime, 1.0);
+        final double scaleY = (CHART_HEIGHT - 2 * CHART_MARGIN) / (maxY > 0.0 ? maxY : 1.0);
+
+        html.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(CHART_WIDTH).append("\" height=\"").append(CHART_HEIGHT).append("\">");
+        html.append("<rect x=\"0.5\" y=\"0.5\" width=\"").append(CHART_WIDTH - 1).append("\" height=\"").append(CHART_HEIGHT - 1).append("\" fill=\"#ffffff\" stroke=\"#a6caf0\"/>");
+        writePolyline(html, "#0000ff", x, y, LargestTriangleThreeBuckets.select(x, y, length, points), firstTime, scaleX, scaleY);
+        if (errors != null) {
+            writePolyline(html, "#ff0000", x, errors, LargestTriangleThreeBuckets.select(x, errors, length, points), firstTime, scaleX, scaleY);
+        }
+        html.append("<text x=\"3\" y=\"10\" font-size=\"9\">").append(maxText).append("</text>");
+        html.append("<text x=\"3\" y=\"").append(CHART_HEIGHT - 3).append("\" font-size=\"9\">").append(format(new Date((long) firstTime))).append("</text>");
+        html.append("<text x=\"").append(CHART_WIDTH - 3).append("\" y=\"").append(CHART_HEIGHT - 3).append("\" font-size=\"9\" text-anchor=\"end\">").append(format(new Date((long) lastTime))).append("</text>");
+        html.append("</svg>");
+    }
+
+    private void writePolyline(StringBuffer html, String color, double[] x, double[] y, int[] selected, double firstTime, double scaleX, double scaleY) {
+        html.append("<polyline fill=\"none\" stroke=\"").append(color).append("\" stroke-width=\"1\" points=\"");
+        for (int i = 0; i < selected.length; i++) {
+            final double px = 0.5 + (x[selected[i]] - firstTime) * scaleX;
+            final double py = CHART_HEIGHT - CHART_MARGIN - y[selected[i]] * scaleY;
+            html.append(i == 0 ? "" : " ").append(String.format(Locale.ROOT, "%.1f,%.1f", px, py));
+        }
+        html.append("\"/>");
+    }
+
+    private static double max(double[] values, int length) {
+        double result = 0.0;
+        for (int i = 0; i < length; i++) {
+            result = Math.max(result, values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Renders the received and sent kilobytes per second of the test run.
+     */
+    private void writeBandwidthTable(StringBuffer html) {
+
+        final BandwidthTimeline timeline = model.getBandwidthTimeline();
+
+        if (timeline.getSeconds() == 0) {
+            return;
+        }
+
+        html.append("<h2>Bandwidth (KB/s)</h2>\n");
+        if (timeline.getSlotSeconds() > 1) {
+            html.append("<p>The p95 and peak values are averaged over ").append(timeline.getSlotSeconds()).append(" seconds.</p>\n");
+        }
+        html.append("<table width=\"95%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
+        html.append("<tr>");
+        html.append("<th>").append("Direction").append("</th>");
+        html.append("<th>").append("Total (KB)").append("</th>");
+        html.append("<th>").append("Avg").append("</th>");
+        html.append("<th>").append("p95").append("</th>");
+        html.append("<th>").append("Peak").append("</th>");
+        html.append("</tr>\n");
+        writeBandwidthRow(html, "Received", timeline.getTotalBytesReceived(), timeline.getSeconds(), timeline.getBytesReceivedPercentile(95.0), timeline.getPeakBytesReceived());
+        writeBandwidthRow(html, "Sent", timeline.getTotalBytesSent(), timeline.getSeconds(), timeline.getBytesSentPercentile(95.0), timeline.getPeakBytesSent());
+        html.append("</table>\n");
+        html.append("<hr size=\"1\">");
+    }
+
+    private void writeBandwidthRow(StringBuffer html, String direction, long totalBytes, long seconds, double p95Bytes, double peakBytes) {
+        html.append("<tr valign=\"top\" class=\"\">");
+        html.append("<td>").append(direction).append("</td>");
+        html.append("<td align='right'>").append(String.format(locale, "%,.1f", totalBytes / 1024.0)).append("</td>");
+        html.append("<td align='right'>").append(String.format(locale, "%,.1f", totalBytes / 1024.0 / seconds)).append("</td>");
+        html.append("<td align='right'>").append(String.format(locale, "%,.1f", p95Bytes / 1024.0)).append("</td>");
+        html.append("<td align='right'>").append(String.format(locale, "%,.1f", peakBytes / 1024.0)).append("</td>");
+        html.append("</tr>\n");
+    }
+
+    /**
+     * Renders the histograms of the labels in the given order - the requests of a label are the total count of its histogram.
+     */
+    private void writeDistributionTable(StringBuffer html, String id, BucketLayout layout, List<String> data, HistogramResolver histograms) {
+
+        final int buckets = layout.getBucketCount();
+
+        if (isVirtualTable(data.size())) {
+            writeVirtualDistributionTable(html, id, layout, data, histograms);
+            return;
+        }
+
         html.append("\n<table width=\"95%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
         html.append("<tr>");
-        for (String headerName : header) {
-            html.append("<th>").append(headerName).append("</th>");
+        html.append("<th>").append("Label").append("</th>");
+        html.append("<th>").append("Requests").append("</th>");
+        for (int j = 0; j < buckets; j++) {
+            html.append("<th>").append(layout.getHeader(j)).append("</th>");
         }
         html.append("</tr>");
 
-        for (int i = 0; i < rows; i++) {
-            final String label = data[i][DISPLAY_HEADER_LABEL_INDEX].toString();
+        for (String label : data) {
+            final BucketHistogram histogram = histograms.get(label);
             final double nrOfFailures = getNrOfFailures(label);
             if (nrOfFailures > 0.0) {
                 html.append("<tr valign=\"top\" class=\"Failure\">");
@@ -404,8 +1280,9 @@ public class JMeterHtmlReportWriter {
                 html.append("<tr valign=\"top\">");
             }
             html.append("<td>").append(label).append("</td>");// first column
-            for (int j = 1; j < cols; j++) {
-                html.append("<td align='right'>").append(format(data[i][headerIndex[j]])).append("</td>");
+            html.append("<td align='right'>").append(formatNumber(histogram.getTotalCount())).append("</td>");
+            for (int j = 0; j < buckets; j++) {
+                html.append("<td align='right'>").append(formatBucket(histogram, j)).append("</td>");
             }
             html.append("</tr>\n");
         }
@@ -413,16 +1290,58 @@ public class JMeterHtmlReportWriter {
         html.append("</table>\n");
     }
 
-    private void writeErrorSummaryTable(StringBuffer html, MonitorComposite monitor, int sortColumn, String sortOrder) {
+    private void writeVirtualDistributionTable(StringBuffer html, String id, BucketLayout layout, List<String> data, HistogramResolver histograms) {
+
+        final int buckets = layout.getBucketCount();
+        final VirtualTable table = new VirtualTable(id);
+        final String[] cells = new String[buckets + 2];
+        final double[] keys = new double[buckets + 2];
+
+        table.addColumn("Label", false);
+        table.addColumn("Requests", true);
+        for (int j = 0; j < buckets; j++) {
+            table.addColumn(layout.getHeader(j), true);
+        }
+
+        for (String label : data) {
+            final BucketHistogram histogram = histograms.get(label);
+            cells[0] = label;
+            cells[1] = formatNumber(histogram.getTotalCount());
+            keys[1] = histogram.getTotalCount();
+            for (int j = 0; j < buckets; j++) {
+                cells[j + 2] = formatBucket(histogram, j);
+                keys[j + 2] = histogram.getCount(j);
+            }
+            table.addRow(getNrOfFailures(label) > 0.0, cells, keys);
+        }
 
-        final Object[][] rawData = getBasicData(monitor, JMeterReportModel.UNIT_EXCEPTION);
+        table.writeTo(html);
+    }
+
+    private boolean isVirtualTable(int rows) {
+        return rows > virtualTableRows;
+    }
 
-        if (!hasFailures(rawData)) {
+    /**
+     * Formats a bucket as "hits/average" the same way as a JAMon range does.
+     */
+    private String formatBucket(BucketHistogram histogram, int index) {
+        if (histogram == null || histogram.getCount(index) == 0) {
+            return "";
+        }
+        final DecimalFormat formatter = LocaleContext.getFloatingPointFormatter();
+        return formatter.format(histogram.getCount(index)) + "/" + formatter.format(histogram.getAverage(index)) + " ";
+    }
+
+    private void writeErrorSummaryTable(StringBuffer html, DisplayDataIndex index) {
+
+        final DisplayDataIndex.Row[] data = index.getRows(JMeterReportModel.UNIT_EXCEPTION);
+
+        if (data.length == 0) {
             return;
         }
 
-        final Object[][] data = Misc.sort(rawData, sortColumn, sortOrder);
-        final int rows = data.length;
+        final int[] order = index.getOrder(JMeterReportModel.UNIT_EXCEPTION, BasicDataColumns.LABEL, "asc");
 
         html.append("<h2>Error Summary</h2>");
         html.append("\n<table width=\"95%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
@@ -431,29 +1350,26 @@ public class JMeterHtmlReportWriter {
         html.append("<th>").append("Errors").append("</th>");
         html.append("</tr>");
 
-        for (int i = 0; i < rows; i++) {
-            final double hits = (Double) data[i][DISPLAY_HEADER_HITS_INDEX];
-
-            if (hits > 0d) {
-                html.append("<tr valign=\"top\" class=\"\">");
-                html.append("<td>").append(data[i][DISPLAY_HEADER_LABEL_INDEX]).append("</td>");// first column
-                html.append("<td align='right'>").append(format(hits)).append("</td>");
-                html.append("</tr>\n");
-            }
+        for (int rowIndex : order) {
+            final DisplayDataIndex.Row row = data[rowIndex];
+            html.append("<tr valign=\"top\" class=\"\">");
+            html.append("<td>").append(row.getLabel()).append("</td>");// first column
+            html.append("<td align='right'>").append(formatNumber(row.getHits())).append("</td>");
+            html.append("</tr>\n");
         }
 
         html.append("</table>\n");
     }
 
-    private void writeErrorDetailTable(StringBuffer html, MonitorComposite monitor, int sortCol, String sortOrder) {
+    private void writeErrorDetailTable(StringBuffer html, DisplayDataIndex index) {
 
-        final Object[][] rawData = getDisplayData(monitor, JMeterReportModel.UNIT_JMETER_ERRORS);
+        final DisplayDataIndex.Row[] data = index.getRows(JMeterReportModel.UNIT_JMETER_ERRORS);
 
-        if (!hasFailures(rawData)) {
+        if (data.length == 0) {
             return;
         }
 
-        final Object[][] data = Misc.sort(getDisplayData(monitor, JMeterReportModel.UNIT_JMETER_ERRORS), sortCol, sortOrder);
+        final int[] order = index.getOrder(JMeterReportModel.UNIT_JMETER_ERRORS, BasicDataColumns.LABEL, "asc");
 
         html.append("<h2>Error Details</h2>");
         html.append("\n<table width=\"95%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
@@ -464,20 +1380,14 @@ public class JMeterHtmlReportWriter {
         html.append("<th>").append("Last").append("</th>");
         html.append("</tr>\n");
 
-        for (int i = 0; i < data.length; i++) {
-            final double hits = (Double) data[i][DISPLAY_HEADER_HITS_INDEX];
-
-            if (hits > 0d) {
-                final String label = (String) data[i][DISPLAY_HEADER_LABEL_INDEX];
-                final Date firstAccess = (Date) data[i][DISPLAY_HEADER_FIRSTACCESS_INDEX];
-                final Date lastAccess = (Date) data[i][DISPLAY_HEADER_LASTACCESS_INDEX];
-                html.append("<tr valign=\"top\" class=\"\">");
-                html.append("<td>").append(format(label)).append("</td>");
-                html.append("<td align='right'>").append(format(hits)).append("</td>");
-                html.append("<td align='right'>").append(format(firstAccess)).append("</td>");
-                html.append("<td align='right'>").append(format(lastAccess)).append("</td>");
-                html.append("</tr>\n");
-            }
+        for (int rowIndex : order) {
+            final DisplayDataIndex.Row row = data[rowIndex];
+            html.append("<tr valign=\"top\" class=\"\">");
+            html.append("<td>").append(format(row.getLabel())).append("</td>");
+            html.append("<td align='right'>").append(formatNumber(row.getHits())).append("</td>");
+            html.append("<td align='right'>").append(formatTime(row.getFirstAccess())).append("</td>");
+            html.append("<td align='right'>").append(formatTime(row.getLastAccess())).append("</td>");
+            html.append("</tr>\n");
         }
 
         html.append("</table>\n");
@@ -601,16 +1511,6 @@ public class JMeterHtmlReportWriter {
         html.append("</table>\n");
     }
 
-    private static int getHeaderIndex(String[] headers, String name) {
-
-        for (int i = 0; i < headers.length; i++) {
-            if (headers[i].equalsIgnoreCase(name)) {
-                return i;
-            }
-        }
-        throw new IllegalArgumentException("Unable to find the following header" + name);
-    }
-
     private String getHtmlHeadFragment() {
 
         return "<head>\n" +
@@ -652,29 +1552,21 @@ public class JMeterHtmlReportWriter {
         return "<h1>" + getReportTitle() + "</h1>\n" +
                 "<table width=\"100%\">\n" +
                 "<tr>\n" +
-                "<td align=\"left\"></td><td align=\"right\">" + getReportSubtitle() + "</td>\n" +
+                "<td align=\"left\">" + getPreviewFragment() + "</td><td align=\"right\">" + getReportSubtitle() + "</td>\n" +
                 "</tr>\n" +
                 "</table>";
     }
 
-    private Object[][] getDisplayData(MonitorComposite monitor, String unit) {
-        final List<Object[]> result = new ArrayList<>();
-        for (Object[] currData : monitor.getDisplayData()) {
-            if (currData[DISPLAY_HEADER_UNITS_INDEX].toString().equals(unit)) {
-                result.add(currData);
-            }
+    private String getPreviewFragment() {
+        if (previewEstimate == null) {
+            return "";
         }
-        return result.toArray(new Object[result.size()][]);
+        return "<span class=\"Failure\">Approximate preview</span> based on " + previewEstimate.getParsedChunks() + " of "
+                + previewEstimate.getTotalChunks() + " chunks - the tables show the sampled requests only";
     }
 
-    private Object[][] getBasicData(MonitorComposite monitor, String unit) {
-        final List<Object[]> result = new ArrayList<>();
-        for (Object[] currData : monitor.getDisplayData()) {
-            if (currData[DISPLAY_HEADER_UNITS_INDEX].toString().equals(unit)) {
-                result.add(currData);
-            }
-        }
-        return result.toArray(new Object[result.size()][]);
+    private interface HistogramResolver {
+        BucketHistogram get(String label);
     }
 
     private Double getNrOfFailures(String label) {
@@ -682,22 +1574,6 @@ public class JMeterHtmlReportWriter {
         return (result != null ? result : 0.0);
     }
 
-    private boolean hasFailures(Object[][] data) {
-
-        if (data == null || data.length == 0) {
-            return false;
-        }
-
-        final int rows = data.length;
-        final double nrOfFirstError = (Double) (data[0][DISPLAY_HEADER_HITS_INDEX]);
-
-        if (rows == 1 && nrOfFirstError == 0d) {
-            return false;
-        }
-
-        return true;
-    }
-
     private String escapeHtml(String input) {
         return StringEscapeUtils.escapeHtml4(input);
     }
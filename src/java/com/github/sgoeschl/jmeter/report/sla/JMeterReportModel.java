@@ -17,128 +17,757 @@
  */
 package com.github.sgoeschl.jmeter.report.sla;
 
+import com.github.sgoeschl.jmeter.report.sla.config.SlaConfiguration;
+import com.github.sgoeschl.jmeter.report.sla.element.SampleElement;
+import com.github.sgoeschl.jmeter.report.sla.groupby.GroupByDimension;
+import com.github.sgoeschl.jmeter.report.sla.groupby.Grouping;
+import com.github.sgoeschl.jmeter.report.sla.parser.SampleSink;
+import com.github.sgoeschl.jmeter.report.sla.rules.SlaEvaluator;
+import com.github.sgoeschl.jmeter.report.sla.spill.SampleSpillWriter;
+import com.github.sgoeschl.jmeter.report.sla.stats.BandwidthTimeline;
+import com.github.sgoeschl.jmeter.report.sla.stats.BucketHistogram;
+import com.github.sgoeschl.jmeter.report.sla.stats.ConcurrencyHistogram;
+import com.github.sgoeschl.jmeter.report.sla.stats.ResponseStatistics;
+import com.github.sgoeschl.jmeter.report.sla.stats.SampleStatistics;
+import com.github.sgoeschl.jmeter.report.sla.stats.SampleTimeline;
 import com.jamonapi.MonKeyImp;
 import com.jamonapi.Monitor;
-import com.jamonapi.RangeHolder;
+import com.jamonapi.MonitorComposite;
 import com.github.sgoeschl.jmeter.report.sla.utils.BoundedList;
+import com.github.sgoeschl.jmeter.report.sla.utils.DuplicateFilter;
+import com.github.sgoeschl.jmeter.report.sla.utils.LabelLimiter;
+import com.github.sgoeschl.jmeter.report.sla.utils.StringPairMap;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import static com.github.sgoeschl.jmeter.report.sla.utils.DataStrings.readString;
+import static com.github.sgoeschl.jmeter.report.sla.utils.DataStrings.writeString;
+
 /**
  * Integrates JAMon with JMeter.
+ * <p>
+ * The model is not thread-safe and must be confined to a single parser thread - concurrent
+ * parsers collect their samples in a partial model (see {@link #createPartialModel()}) which
+ * is merged into the global model afterwards.
  */
-public class JMeterReportModel {
+public class JMeterReportModel implements SampleSink {
 
     // the units being used
     public static final String UNIT_MS = "ms.";
-    public static final String UNIT_KB = "kb.";
     public static final String UNIT_EXCEPTION = "Exception";
     public static final String UNIT_JMETER_ERRORS = "JMeter Errors";
 
     private static final int LIMITED_QUEUE_SIZE = 3;
 
+    // the types of the serialized monitor details
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_DATE = 2;
+    private static final byte VALUE_ARRAY = 3;
+
+    // the number of samples between checking the SLA rules while parsing
+    private static final int FAIL_FAST_CHECK_INTERVAL = 1000;
+
+    // bounds the cached failure paths, e.g. when every error has a unique response code
+    private static final int MAX_FAILURE_PATHS = 16384;
+
+    // the time slots of the chart of all samples
+    private static final int SUMMARY_TIMELINE_SLOTS = 4096;
+
+    // the time slots of the chart of a label - every label has a timeline since the labels
+    // having the most requests are not known before all samples are parsed, i.e. about 1 KB
+    private static final int LABEL_TIMELINE_SLOTS = 64;
+
+    private final SlaConfiguration slaConfiguration;
     private final MonitorProvider provider;
-    private final MonitorProvider kiloBytesReceivedMonitorProvider;
+    private final LabelLimiter labelLimiter;
+    private final LabelLimiter errorLabelLimiter;
     private final Map<String, List<MonKeyImp>> errorMessagesMap = new HashMap<>();
+    private final Map<String, LabelAggregates> labelAggregates = new HashMap<>();
+    private final SampleStatistics summaryStatistics = new SampleStatistics();
+    private final Map<String, Map<String, SampleStatistics>> subSampleStatisticsMap = new HashMap<>();
+    private final BandwidthTimeline bandwidthTimeline = new BandwidthTimeline();
+    private final SampleTimeline summaryTimeline = new SampleTimeline(SUMMARY_TIMELINE_SLOTS);
+    private final Map<String, Grouping> groupings = new LinkedHashMap<>();
+    private final String[] dimensionValues = new String[GroupByDimension.values().length];
+    private final StringPairMap<FailurePath> failurePaths = new StringPairMap<>();
+    private final List<String> changedLabels = new ArrayList<>();
+    private SlaEvaluator failFastEvaluator;
+    private SampleSpillWriter sampleSpillWriter;
+    private DuplicateFilter duplicateFilter;
+    private int samplesSinceLastCheck;
 
     public JMeterReportModel() {
-        provider = new MonitorProvider(UNIT_MS, createMSHolder());
-        kiloBytesReceivedMonitorProvider = new MonitorProvider(UNIT_KB, createKiloBytesReceivedHolder());
+        this(SlaConfiguration.createDefault());
     }
 
-    /**
-     * @return a customized range holder for measuring the execution time for services.
-     */
-    private static RangeHolder createMSHolder() {
+    public JMeterReportModel(SlaConfiguration slaConfiguration) {
+        this(slaConfiguration,
+                new LabelLimiter(slaConfiguration.getMaxLabels(), LabelLimiter.OVERFLOW_LABEL),
+                new LabelLimiter(slaConfiguration.getMaxLabels(), LabelLimiter.OVERFLOW_ERROR_LABEL));
+    }
 
-        final RangeHolder result = new RangeHolder("<");
+    private JMeterReportModel(SlaConfiguration slaConfiguration, LabelLimiter labelLimiter, LabelLimiter errorLabelLimiter) {
+        this.slaConfiguration = slaConfiguration;
+        this.provider = new MonitorProvider();
+        this.labelLimiter = labelLimiter;
+        this.errorLabelLimiter = errorLabelLimiter;
 
-        result.add("0_10ms", 10);
-        result.add("10_20ms", 20);
-        result.add("20_40ms", 40);
-        result.add("40_80ms", 80);
-        result.add("80_160ms", 160);
-        result.add("160_320ms", 320);
-        result.add("320_640ms", 640);
-        result.add("640_1280ms", 1280);
-        result.add("1280_2560ms", 2560);
-        result.add("2560_5120ms", 5120);
-        result.add("5120_10240ms", 10240);
-        result.add("10240_20480ms", 20480);
-        result.addLastHeader("20480ms_");
-        // note last range is always called lastRange and is added automatically
-        return result;
+        for (Map.Entry<String, List<GroupByDimension>> entry : slaConfiguration.getGroupings().entrySet()) {
+            groupings.put(entry.getKey(), new Grouping(entry.getKey(), entry.getValue()));
+        }
     }
 
     /**
-     * @return a customized range holder for measuring the received bytes.
+     * Adds a top-level sample including its sub-samples unless the duplicate filter
+     * has seen it before.
+     *
+     * @param sampleElement the sample
      */
-    private static RangeHolder createKiloBytesReceivedHolder() {
+    @Override
+    public void addSample(SampleElement sampleElement) {
 
-        final RangeHolder result = new RangeHolder("<");
+        addSubSamples(sampleElement);
 
-        result.add("0_1kb", 1);
-        result.add("1_2kb", 2);
-        result.add("2_4kb", 4);
-        result.add("4_8kb", 8);
-        result.add("8_16kb", 16);
-        result.add("16_32kb", 32);
-        result.add("32_64kb", 64);
-        result.add("64_128kb", 128);
-        result.add("128_256kb", 256);
-        result.add("256_512kb", 512);
-        result.add("512_1024kb", 1024);
-        result.add("1024_2048kb", 2048);
-        result.addLastHeader("2048kb_");
-        // note last range is always called lastRange and is added automatically
-        return result;
+        if (isDuplicate(sampleElement)) {
+            return;
+        }
+
+        // the label is resolved once to get all aggregates of the label
+        final LabelAggregates aggregates = getLabelAggregates(labelLimiter.resolve(sampleElement.getLabel()));
+        final Date timestamp = sampleElement.getTimestamp();
+        final long duration = sampleElement.getDuration();
+        final long bytesReceived = sampleElement.getBytesReceived();
+
+        addResponse(
+                aggregates,
+                timestamp,
+                duration,
+                sampleElement.getConnectTime(),
+                sampleElement.getLatency(),
+                bytesReceived,
+                sampleElement.getBytesSent(),
+                sampleElement.isSuccess());
+
+        if (sampleElement.isSuccess()) {
+            addSuccess(aggregates, timestamp, duration, bytesReceived);
+        } else {
+            addFailure(sampleElement.getLabel(), timestamp, duration, bytesReceived, sampleElement.getFailureCode(), sampleElement.getFailureMessage());
+        }
+
+        addResolvedGroupings(
+                aggregates.label,
+                sampleElement.getResultCode(),
+                sampleElement.getThreadName(),
+                sampleElement.getHostname(),
+                timestamp,
+                duration,
+                sampleElement.isSuccess());
+
+        if (sampleElement.getActiveThreads() > 0) {
+            getConcurrencyHistogram(aggregates).add(sampleElement.getActiveThreads(), duration);
+        }
     }
 
     public void addSuccess(String label, Date timestamp, long duration) {
-        addMonitor(UNIT_MS, label, timestamp, duration);
+        addSuccess(label, timestamp, duration, 0);
     }
 
     public void addSuccess(String label, Date timestamp, long duration, long bytesReceived) {
-        addMonitor(UNIT_MS, label, timestamp, duration, bytesReceived);
+        addSuccess(getLabelAggregates(labelLimiter.resolve(label)), timestamp, duration, bytesReceived);
     }
 
+    /**
+     * Adds a failed sample. During an outage most samples fail with a few distinct errors so
+     * the monitors and statistics of a label and error code are resolved once and cached, i.e.
+     * a repeated error costs a single lookup and no allocations unless it has an error message.
+     *
+     * @param label        the label of the sample
+     * @param timestamp    the timestamp of the sample
+     * @param duration     the elapsed time of the sample
+     * @param errorCode    the error code or null
+     * @param errorMessage the error message or null
+     */
     public void addFailure(String label, Date timestamp, long duration, String errorCode, String errorMessage) {
+        addFailure(label, timestamp, duration, 0, errorCode, errorMessage);
+    }
+
+    /**
+     * Adds a failed sample together with the bytes received before it failed.
+     *
+     * @param label         the label of the sample
+     * @param timestamp     the timestamp of the sample
+     * @param duration      the elapsed time of the sample
+     * @param bytesReceived the bytes received by the sample
+     * @param errorCode     the error code or null
+     * @param errorMessage  the error message or null
+     */
+    public void addFailure(String label, Date timestamp, long duration, long bytesReceived, String errorCode, String errorMessage) {
 
-        final String errorLabel = createErrorLabel(label, errorCode);
+        final FailurePath failurePath = getFailurePath(label, errorCode, errorMessage, timestamp);
 
         // keep track of the execution time regardless of the error
-        addMonitor(UNIT_MS, label, timestamp, duration);
+        addMonitor(getResponseTimeMonitor(failurePath.aggregates), timestamp, duration);
+        failurePath.aggregates.responseTimeHistogram.add(duration);
 
         // keep track of the JAMOn exceptions
-        final Object[] details = new Object[] { label, errorLabel, errorCode, errorMessage, timestamp };
-        final MonKeyImp monKey = new MonKeyImp(label, details, UNIT_EXCEPTION);
-        getProvider().add(monKey);
+        failurePath.exceptionMonitor.add(1);
 
         // additionally keep track of "JMeter" errors
-        addMonitor(UNIT_JMETER_ERRORS, errorLabel, timestamp, duration);
+        addMonitor(failurePath.errorMonitor, timestamp, duration);
 
         // assuming that error messages are mostly unique keep track
         // of the 'LIMITED_QUEUE_SIZE' occurrences
         if (errorMessage != null && !errorMessage.isEmpty()) {
-            addErrorMessages(label, monKey);
+            final String resolvedLabel = failurePath.aggregates.label;
+            final Object[] details = new Object[] { resolvedLabel, failurePath.errorLabel, errorCode, errorMessage, timestamp };
+            addErrorMessages(resolvedLabel, new MonKeyImp(resolvedLabel, details, UNIT_EXCEPTION));
         }
+
+        addStatistics(failurePath.aggregates, timestamp, duration, bytesReceived, false);
     }
 
-    public MonitorProvider getProvider() {
-        return provider;
+    /**
+     * Adds a sub-sample to the breakdown of its parent, e.g. a transaction controller. Sub-samples
+     * are not counted as samples on their own since the parent sample already contains them.
+     *
+     * @param parentLabel the label of the parent sample
+     * @param label       the label of the sub-sample
+     * @param timestamp   the timestamp of the sub-sample
+     * @param duration    the elapsed time of the sub-sample
+     * @param success     was the sub-sample successful
+     */
+    public void addSubSample(String parentLabel, String label, Date timestamp, long duration, boolean success) {
+        getSubSampleStatistics(labelLimiter.resolve(parentLabel), labelLimiter.resolve(label)).add(timestamp.getTime(), duration, success);
+    }
+
+    /**
+     * Adds the timings and the transferred bytes of a sample to the response statistics of its
+     * label using a single lookup.
+     *
+     * @param label         the label of the sample
+     * @param timestamp     the timestamp of the sample
+     * @param duration      the elapsed time of the sample
+     * @param connectTime   the time to establish the connection or -1 if not saved
+     * @param latency       the time to first byte or -1 if not saved
+     * @param bytesReceived the received bytes
+     * @param bytesSent     the sent bytes
+     * @param success       was the sample successful
+     */
+    public void addResponse(String label, Date timestamp, long duration, long connectTime, long latency, long bytesReceived, long bytesSent, boolean success) {
+        addResponse(getLabelAggregates(labelLimiter.resolve(label)), timestamp, duration, connectTime, latency, bytesReceived, bytesSent, success);
+    }
+
+    private void addResponse(LabelAggregates aggregates, Date timestamp, long duration, long connectTime, long latency, long bytesReceived, long bytesSent, boolean success) {
+
+        final ResponseStatistics responseStatistics = aggregates.responseStatistics;
+
+        responseStatistics.addBytes(bytesReceived, bytesSent, success);
+
+        if (connectTime >= 0 || latency >= 0) {
+            responseStatistics.addTimings(Math.max(connectTime, 0), Math.max(latency, 0), duration);
+        }
+
+        if (bytesReceived > 0 || bytesSent > 0) {
+            bandwidthTimeline.add(timestamp.getTime(), bytesReceived, bytesSent);
+        }
+    }
+
+    /**
+     * Correlates the response time of a sample with the load level when it was taken.
+     *
+     * @param label         the label of the sample
+     * @param activeThreads the number of active threads
+     * @param duration      the elapsed time of the sample
+     */
+    public void addActiveThreads(String label, int activeThreads, long duration) {
+        getConcurrencyHistogram(getLabelAggregates(labelLimiter.resolve(label))).add(activeThreads, duration);
+    }
+
+    /**
+     * Adds a sample to the configured groupings - all groupings are computed while parsing
+     * the samples once.
+     *
+     * @param label        the label of the sample
+     * @param responseCode the response code or null if not saved
+     * @param threadName   the name of the thread or null if not saved
+     * @param hostname     the name of the load generator or null if not saved
+     * @param timestamp    the timestamp of the sample
+     * @param duration     the elapsed time of the sample
+     * @param success      was the sample successful
+     */
+    public void addGroupings(String label, String responseCode, String threadName, String hostname, Date timestamp, long duration, boolean success) {
+        addResolvedGroupings(labelLimiter.resolve(label), responseCode, threadName, hostname, timestamp, duration, success);
+    }
+
+    private void addResolvedGroupings(String label, String responseCode, String threadName, String hostname, Date timestamp, long duration, boolean success) {
+
+        if (groupings.isEmpty()) {
+            return;
+        }
+
+        dimensionValues[GroupByDimension.LABEL.ordinal()] = label;
+        dimensionValues[GroupByDimension.RESPONSE_CODE.ordinal()] = responseCode;
+        dimensionValues[GroupByDimension.THREAD_GROUP.ordinal()] = threadName;
+        dimensionValues[GroupByDimension.HOST.ordinal()] = hostname;
+
+        for (Grouping grouping : groupings.values()) {
+            grouping.add(dimensionValues, timestamp.getTime(), duration, success);
+        }
+    }
+
+    /**
+     * Adds the sub-samples depth-first, i.e. the samplers of a nested transaction are
+     * broken down under the nested transaction and the latter under its parent.
+     */
+    private void addSubSamples(SampleElement parentElement) {
+        for (SampleElement subSample : parentElement.getSubSamples()) {
+            addSubSamples(subSample);
+            if (!isDuplicate(subSample)) {
+                addSubSample(parentElement.getLabel(), subSample.getLabel(), subSample.getTimestamp(), subSample.getDuration(), subSample.isSuccess());
+            }
+        }
+    }
+
+    private boolean isDuplicate(SampleElement sampleElement) {
+        return duplicateFilter != null && duplicateFilter.isDuplicate(
+                sampleElement.getTimestamp().getTime(),
+                sampleElement.getThreadName(),
+                sampleElement.getLabel(),
+                sampleElement.getDuration());
+    }
+
+    /**
+     * Creates an empty model sharing the configuration, the label cap, the duplicate filter,
+     * the spill writer and the fail-fast evaluator of this model to collect the samples of a
+     * single parser thread without any synchronization. A partial model checks the SLA rules
+     * against its own statistics - the rules decided before all samples are parsed only
+     * depend on counts, minimum and maximum so a rule violated by a part of the samples is
+     * violated by all samples while the totals are checked when merging.
+     *
+     * @return the partial model
+     */
+    public JMeterReportModel createPartialModel() {
+        final JMeterReportModel result = new JMeterReportModel(slaConfiguration, labelLimiter, errorLabelLimiter);
+        result.setSampleSpillWriter(sampleSpillWriter);
+        result.setDuplicateFilter(duplicateFilter);
+        result.setFailFastEvaluator(failFastEvaluator);
+        return result;
+    }
+
+    /**
+     * Creates a copy of the aggregated state to render a report on another thread while
+     * samples are still added to this model.
+     *
+     * @return the snapshot
+     */
+    public JMeterReportModel createSnapshot() {
+        final JMeterReportModel result = new JMeterReportModel(slaConfiguration, labelLimiter, errorLabelLimiter);
+        result.setDuplicateFilter(duplicateFilter);
+        result.merge(this);
+        return result;
+    }
+
+    /**
+     * Merges a partial model collected by another thread into this model. The
+     * SLA rules are checked afterwards when failing fast.
+     *
+     * @param other the partial model
+     */
+    public synchronized void merge(JMeterReportModel other) {
+
+        mergeMonitors(provider, other.getProvider().getRoot());
+
+        for (Map.Entry<String, List<MonKeyImp>> entry : other.errorMessagesMap.entrySet()) {
+            for (MonKeyImp monKey : entry.getValue()) {
+                addErrorMessages(entry.getKey(), monKey);
+            }
+        }
+
+        for (LabelAggregates source : other.labelAggregates.values()) {
+            final LabelAggregates target = getLabelAggregates(source.label);
+            target.statistics.add(source.statistics);
+            target.responseTimeHistogram.add(source.responseTimeHistogram);
+            target.responseStatistics.add(source.responseStatistics);
+            if (source.concurrencyHistogram != null) {
+                getConcurrencyHistogram(target).add(source.concurrencyHistogram);
+            }
+            if (source.timeline != null) {
+                getTimeline(target).add(source.timeline);
+            }
+        }
+
+        summaryStatistics.add(other.summaryStatistics);
+
+        for (Map.Entry<String, Map<String, SampleStatistics>> parentEntry : other.subSampleStatisticsMap.entrySet()) {
+            for (Map.Entry<String, SampleStatistics> entry : parentEntry.getValue().entrySet()) {
+                getSubSampleStatistics(parentEntry.getKey(), entry.getKey()).add(entry.getValue());
+            }
+        }
+
+        bandwidthTimeline.add(other.bandwidthTimeline);
+        summaryTimeline.add(other.summaryTimeline);
+
+        for (Grouping grouping : other.groupings.values()) {
+            groupings.get(grouping.getName()).add(grouping);
+        }
+
+        if (failFastEvaluator != null) {
+            samplesSinceLastCheck = 0;
+            failFastEvaluator.checkIncrementally(this);
+        }
     }
 
-    public MonitorProvider getKiloBytesReceivedMonitorProvider() {
-        return kiloBytesReceivedMonitorProvider;
+    /**
+     * Writes the aggregated state of the model, e.g. to checkpoint a long-running parser. The
+     * configuration, the fail-fast evaluator and the spill writer are not part of the state.
+     *
+     * @param out the output
+     * @throws IOException writing failed
+     */
+    public void writeTo(DataOutput out) throws IOException {
+
+        final MonitorComposite root = provider.getRoot();
+        final Monitor[] monitors = (root.hasData() ? root.getMonitors() : new Monitor[0]);
+
+        out.writeInt(monitors.length);
+        for (Monitor monitor : monitors) {
+            final MonKeyImp monKey = (MonKeyImp) monitor.getMonKey();
+            writeString(out, monKey.getLabel());
+            writeString(out, monKey.getUnits());
+            writeValue(out, monKey.getDetails());
+            out.writeDouble(monitor.getHits());
+            out.writeDouble(monitor.getTotal());
+            out.writeDouble(monitor.getMin());
+            out.writeDouble(monitor.getMax());
+            out.writeDouble(monitor.getLastValue());
+            out.writeLong(monitor.getFirstAccess().getTime());
+            out.writeLong(monitor.getLastAccess().getTime());
+        }
+
+        out.writeInt(errorMessagesMap.size());
+        for (Map.Entry<String, List<MonKeyImp>> entry : errorMessagesMap.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (MonKeyImp monKey : entry.getValue()) {
+                writeValue(out, monKey.getDetails());
+            }
+        }
+
+        out.writeInt(labelAggregates.size());
+        for (LabelAggregates aggregates : labelAggregates.values()) {
+            writeString(out, aggregates.label);
+            aggregates.statistics.writeTo(out);
+            aggregates.responseTimeHistogram.writeTo(out);
+            aggregates.responseStatistics.writeTo(out);
+            out.writeBoolean(aggregates.concurrencyHistogram != null);
+            if (aggregates.concurrencyHistogram != null) {
+                aggregates.concurrencyHistogram.writeTo(out);
+            }
+            out.writeBoolean(aggregates.timeline != null);
+            if (aggregates.timeline != null) {
+                aggregates.timeline.writeTo(out);
+            }
+        }
+
+        summaryStatistics.writeTo(out);
+
+        out.writeInt(subSampleStatisticsMap.size());
+        for (Map.Entry<String, Map<String, SampleStatistics>> parentEntry : subSampleStatisticsMap.entrySet()) {
+            writeString(out, parentEntry.getKey());
+            out.writeInt(parentEntry.getValue().size());
+            for (Map.Entry<String, SampleStatistics> entry : parentEntry.getValue().entrySet()) {
+                writeString(out, entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+        }
+
+        bandwidthTimeline.writeTo(out);
+        summaryTimeline.writeTo(out);
+
+        out.writeInt(groupings.size());
+        for (Grouping grouping : groupings.values()) {
+            grouping.writeTo(out);
+        }
+    }
+
+    /**
+     * Adds the state written by {@link #writeTo(DataOutput)} to this model, e.g. to resume
+     * parsing from a checkpoint. The restored labels count towards the label cap.
+     *
+     * @param in the input
+     * @throws IOException reading failed
+     */
+    public void readFrom(DataInput in) throws IOException {
+
+        final int monitors = in.readInt();
+        for (int i = 0; i < monitors; i++) {
+            final String label = readString(in);
+            final String units = readString(in);
+            final LabelLimiter limiter = (UNIT_JMETER_ERRORS.equals(units) ? errorLabelLimiter : labelLimiter);
+            final Object details = readValue(in);
+            final double hits = in.readDouble();
+            final double total = in.readDouble();
+            final double min = in.readDouble();
+            final double max = in.readDouble();
+            final double lastValue = in.readDouble();
+            final Date firstAccess = new Date(in.readLong());
+            final Date lastAccess = new Date(in.readLong());
+            if (hits > 0) {
+                mergeMonitor(provider.get(new MonKeyImp(restoreLabel(limiter, label), details, units)), hits, total, min, max, lastValue, firstAccess, lastAccess);
+            }
+        }
+
+        final int errorLabels = in.readInt();
+        for (int i = 0; i < errorLabels; i++) {
+            final String label = restoreLabel(labelLimiter, readString(in));
+            final int size = in.readInt();
+            for (int j = 0; j < size; j++) {
+                addErrorMessages(label, new MonKeyImp(label, readValue(in), UNIT_EXCEPTION));
+            }
+        }
+
+        final int labels = in.readInt();
+        for (int i = 0; i < labels; i++) {
+            final LabelAggregates aggregates = getLabelAggregates(restoreLabel(labelLimiter, readString(in)));
+            aggregates.statistics.add(SampleStatistics.readFrom(in));
+            aggregates.responseTimeHistogram.add(BucketHistogram.readFrom(in, slaConfiguration.getResponseTimeLayout(aggregates.label)));
+            aggregates.responseStatistics.add(ResponseStatistics.readFrom(in, slaConfiguration.getKiloBytesReceivedLayout()));
+            if (in.readBoolean()) {
+                getConcurrencyHistogram(aggregates).add(ConcurrencyHistogram.readFrom(in));
+            }
+            if (in.readBoolean()) {
+                getTimeline(aggregates).add(SampleTimeline.readFrom(in));
+            }
+        }
+
+        summaryStatistics.add(SampleStatistics.readFrom(in));
+
+        final int parentLabels = in.readInt();
+        for (int i = 0; i < parentLabels; i++) {
+            final String parentLabel = restoreLabel(labelLimiter, readString(in));
+            final int size = in.readInt();
+            for (int j = 0; j < size; j++) {
+                getSubSampleStatistics(parentLabel, restoreLabel(labelLimiter, readString(in))).add(SampleStatistics.readFrom(in));
+            }
+        }
+
+        bandwidthTimeline.add(BandwidthTimeline.readFrom(in));
+        summaryTimeline.add(SampleTimeline.readFrom(in));
+
+        final int groupingCount = in.readInt();
+        for (int i = 0; i < groupingCount; i++) {
+            final Grouping grouping = Grouping.readFrom(in);
+            if (!groupings.containsKey(grouping.getName())) {
+                throw new IOException("Unknown grouping: " + grouping);
+            }
+            groupings.get(grouping.getName()).add(grouping);
+        }
+    }
+
+    public MonitorProvider getProvider() {
+        return provider;
     }
 
     public Map<String, List<MonKeyImp>> getErrorMessagesMap() {
         return errorMessagesMap;
     }
 
+    /**
+     * @return the cap of the distinct labels
+     */
+    public LabelLimiter getLabelLimiter() {
+        return labelLimiter;
+    }
+
+    public SlaConfiguration getSlaConfiguration() {
+        return slaConfiguration;
+    }
+
+    /**
+     * @return the labels of all samples
+     */
+    public Collection<String> getLabels() {
+        return labelAggregates.keySet();
+    }
+
+    /**
+     * @param label the label
+     * @return the statistics of the label or null
+     */
+    public SampleStatistics getStatistics(String label) {
+        final LabelAggregates aggregates = labelAggregates.get(label);
+        return aggregates != null ? aggregates.statistics : null;
+    }
+
+    /**
+     * @return the labels of the samples having sub-samples, e.g. transaction controllers
+     */
+    public Collection<String> getParentLabels() {
+        return subSampleStatisticsMap.keySet();
+    }
+
+    /**
+     * @param parentLabel the label of the parent sample
+     * @return the statistics of the sub-samples by their labels or null
+     */
+    public Map<String, SampleStatistics> getSubSampleStatistics(String parentLabel) {
+        return subSampleStatisticsMap.get(parentLabel);
+    }
+
+    /**
+     * @return the labels of the samples having response statistics
+     */
+    public Collection<String> getResponseLabels() {
+        return labelAggregates.keySet();
+    }
+
+    /**
+     * @param label the label
+     * @return the timings and transferred bytes of the label or null
+     */
+    public ResponseStatistics getResponseStatistics(String label) {
+        final LabelAggregates aggregates = labelAggregates.get(label);
+        return aggregates != null ? aggregates.responseStatistics : null;
+    }
+
+    /**
+     * @return the received and sent bytes per second of the test run
+     */
+    public BandwidthTimeline getBandwidthTimeline() {
+        return bandwidthTimeline;
+    }
+
+    /**
+     * @return the labels having a timeline, i.e. none unless charting labels
+     */
+    public Collection<String> getTimelineLabels() {
+        final List<String> result = new ArrayList<>();
+        for (LabelAggregates aggregates : labelAggregates.values()) {
+            if (aggregates.timeline != null) {
+                result.add(aggregates.label);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param label the label
+     * @return the requests, errors and response times of the label per time slot or null
+     */
+    public SampleTimeline getTimeline(String label) {
+        final LabelAggregates aggregates = labelAggregates.get(label);
+        return aggregates != null ? aggregates.timeline : null;
+    }
+
+    /**
+     * @return the requests, errors and response times of all samples per time slot
+     */
+    public SampleTimeline getSummaryTimeline() {
+        return summaryTimeline;
+    }
+
+    /**
+     * @return the labels of the samples having saved the number of active threads
+     */
+    public Collection<String> getConcurrencyLabels() {
+        final List<String> result = new ArrayList<>();
+        for (LabelAggregates aggregates : labelAggregates.values()) {
+            if (aggregates.concurrencyHistogram != null) {
+                result.add(aggregates.label);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param label the label
+     * @return the response times by the number of active threads or null
+     */
+    public ConcurrencyHistogram getConcurrencyHistogram(String label) {
+        final LabelAggregates aggregates = labelAggregates.get(label);
+        return aggregates != null ? aggregates.concurrencyHistogram : null;
+    }
+
+    /**
+     * @return the configured groupings in the order of their names
+     */
+    public Collection<Grouping> getGroupings() {
+        return groupings.values();
+    }
+
+    /**
+     * @return the statistics of all samples
+     */
+    public SampleStatistics getSummaryStatistics() {
+        return summaryStatistics;
+    }
+
+    /**
+     * Check the SLA rules while adding samples to abort as soon as a rule can no longer be met.
+     *
+     * @param failFastEvaluator the SLA evaluator or null
+     */
+    public void setFailFastEvaluator(SlaEvaluator failFastEvaluator) {
+        this.failFastEvaluator = failFastEvaluator;
+    }
+
+    /**
+     * Spill the raw samples to memory-mapped column files for later queries.
+     *
+     * @param sampleSpillWriter the spill writer or null
+     */
+    public void setSampleSpillWriter(SampleSpillWriter sampleSpillWriter) {
+        this.sampleSpillWriter = sampleSpillWriter;
+    }
+
+    public SampleSpillWriter getSampleSpillWriter() {
+        return sampleSpillWriter;
+    }
+
+    public DuplicateFilter getDuplicateFilter() {
+        return duplicateFilter;
+    }
+
+    /**
+     * Drop duplicated samples, e.g. of overlapping source files. Each sample passed to
+     * {@link #addSample(SampleElement)} is checked before adding it - the parser adds the
+     * samples of several source files in timestamp order since the filter only remembers
+     * a window of sample time.
+     *
+     * @param duplicateFilter the duplicate filter or null
+     */
+    public void setDuplicateFilter(DuplicateFilter duplicateFilter) {
+        this.duplicateFilter = duplicateFilter;
+    }
+
+    /**
+     * @param label the label
+     * @return the response time distribution of the label or null
+     */
+    public BucketHistogram getResponseTimeHistogram(String label) {
+        final LabelAggregates aggregates = labelAggregates.get(label);
+        return aggregates != null ? aggregates.responseTimeHistogram : null;
+    }
+
+    /**
+     * @param label the label
+     * @return the received kilobytes distribution of the label or null
+     */
+    public BucketHistogram getKiloBytesReceivedHistogram(String label) {
+        final LabelAggregates aggregates = labelAggregates.get(label);
+        return aggregates != null ? aggregates.responseStatistics.getKiloBytesReceivedHistogram() : null;
+    }
+
     private String createErrorLabel(String label, String errorCode) {
         if (errorCode == null || errorCode.isEmpty()) {
             return label;
@@ -147,36 +776,241 @@ public class JMeterReportModel {
         }
     }
 
-    private Monitor addMonitor(String type, String label, Date timestamp, long duration) {
+    private void addSuccess(LabelAggregates aggregates, Date timestamp, long duration, long bytesReceived) {
+        addMonitor(getResponseTimeMonitor(aggregates), timestamp, duration);
+        aggregates.responseTimeHistogram.add(duration);
+        addStatistics(aggregates, timestamp, duration, bytesReceived, true);
+    }
 
-        final Monitor mon = getProvider().get(label, type).start();
+    private static void addMonitor(Monitor mon, Date timestamp, long duration) {
 
-        if (mon.getFirstAccess().getTime() == 0) {
-            mon.setFirstAccess(timestamp);
-        }
+        final boolean isFirstHit = (mon.getHits() == 0);
+        final Date firstAccess = mon.getFirstAccess();
+        final Date lastAccess = mon.getLastAccess();
+
+        mon.start();
         mon.add(duration);
         mon.stop();
-        mon.setLastAccess(timestamp);
 
-        return mon;
+        // samples of several files or slaves are not written in timestamp order
+        mon.setFirstAccess(isFirstHit || timestamp.before(firstAccess) ? timestamp : firstAccess);
+        mon.setLastAccess(isFirstHit || timestamp.after(lastAccess) ? timestamp : lastAccess);
     }
 
-    private Monitor addMonitor(String type, String label, Date timestamp, long duration, long bytesReceived) {
+    /**
+     * Resolves the labels, monitors and statistics of a failure once per label and error code.
+     */
+    private FailurePath getFailurePath(String label, String errorCode, String errorMessage, Date timestamp) {
 
-        final Monitor msMonitor = getProvider().get(label, type).start();
+        final FailurePath cached = failurePaths.get(label, errorCode);
 
-        if (msMonitor.getFirstAccess().getTime() == 0) {
-            msMonitor.setFirstAccess(timestamp);
+        if (cached != null) {
+            return cached;
         }
-        msMonitor.add(duration);
-        msMonitor.stop();
-        msMonitor.setLastAccess(timestamp);
 
-        final Monitor kbReceived = getKiloBytesReceivedMonitorProvider().get(label, UNIT_KB).start();
-        kbReceived.add(bytesReceived / 1024.0);
-        kbReceived.stop();
+        final String resolvedLabel = labelLimiter.resolve(label);
+        final String errorLabel = errorLabelLimiter.resolve(createErrorLabel(resolvedLabel, errorCode));
+        // the exception monitor keeps the details of the first failure of the label
+        final Object[] details = new Object[] { resolvedLabel, errorLabel, errorCode, errorMessage, timestamp };
+
+        final FailurePath result = new FailurePath(
+                getLabelAggregates(resolvedLabel),
+                errorLabel,
+                getProvider().get(new MonKeyImp(resolvedLabel, details, UNIT_EXCEPTION)),
+                getProvider().get(errorLabel, UNIT_JMETER_ERRORS));
 
-        return msMonitor;
+        if (failurePaths.size() < MAX_FAILURE_PATHS) {
+            failurePaths.put(label, errorCode, result);
+        }
+
+        return result;
+    }
+
+    private LabelAggregates getLabelAggregates(String label) {
+        LabelAggregates result = labelAggregates.get(label);
+        if (result == null) {
+            result = new LabelAggregates(label,
+                    new BucketHistogram(slaConfiguration.getResponseTimeLayout(label)),
+                    new ResponseStatistics(slaConfiguration.getKiloBytesReceivedLayout()));
+            labelAggregates.put(label, result);
+        }
+        return result;
+    }
+
+    /**
+     * The monitor is created with the first success or failure since JAMon reports every monitor.
+     */
+    private Monitor getResponseTimeMonitor(LabelAggregates aggregates) {
+        if (aggregates.responseTimeMonitor == null) {
+            aggregates.responseTimeMonitor = getProvider().get(aggregates.label, UNIT_MS);
+        }
+        return aggregates.responseTimeMonitor;
+    }
+
+    private ConcurrencyHistogram getConcurrencyHistogram(LabelAggregates aggregates) {
+        if (aggregates.concurrencyHistogram == null) {
+            aggregates.concurrencyHistogram = new ConcurrencyHistogram(slaConfiguration.getConcurrencyBandWidth());
+        }
+        return aggregates.concurrencyHistogram;
+    }
+
+    private SampleTimeline getTimeline(LabelAggregates aggregates) {
+        if (aggregates.timeline == null) {
+            aggregates.timeline = new SampleTimeline(LABEL_TIMELINE_SLOTS);
+        }
+        return aggregates.timeline;
+    }
+
+    private SampleStatistics getStatistics(String label, Map<String, SampleStatistics> statistics) {
+        SampleStatistics result = statistics.get(label);
+        if (result == null) {
+            result = new SampleStatistics();
+            statistics.put(label, result);
+        }
+        return result;
+    }
+
+    private SampleStatistics getSubSampleStatistics(String parentLabel, String label) {
+        Map<String, SampleStatistics> subSampleStatistics = subSampleStatisticsMap.get(parentLabel);
+        if (subSampleStatistics == null) {
+            subSampleStatistics = new HashMap<>();
+            subSampleStatisticsMap.put(parentLabel, subSampleStatistics);
+        }
+        return getStatistics(label, subSampleStatistics);
+    }
+
+    private void mergeMonitors(MonitorProvider provider, MonitorComposite root) {
+
+        if (!root.hasData()) {
+            return;
+        }
+
+        for (Monitor source : root.getMonitors()) {
+
+            final double hits = source.getHits();
+
+            if (hits == 0) {
+                continue;
+            }
+
+            mergeMonitor(provider.get(source.getMonKey()), hits, source.getTotal(), source.getMin(), source.getMax(),
+                    source.getLastValue(), source.getFirstAccess(), source.getLastAccess());
+        }
+    }
+
+    /**
+     * Merges the fields of a monitor explicitly using the setters of JAMon. JAMon does not
+     * expose the sum of squares so the standard deviation of a merged monitor is not
+     * maintained - the report takes it from the {@link SampleStatistics} of the label instead.
+     */
+    private static void mergeMonitor(Monitor target, double hits, double total, double min, double max,
+                                     double lastValue, Date firstAccess, Date lastAccess) {
+
+        final boolean isEmpty = (target.getHits() == 0);
+
+        target.setHits(target.getHits() + hits);
+        target.setTotal(target.getTotal() + total);
+        target.setMin(isEmpty ? min : Math.min(target.getMin(), min));
+        target.setMax(isEmpty ? max : Math.max(target.getMax(), max));
+        target.setLastValue(lastValue);
+        target.setFirstAccess(isEmpty || firstAccess.before(target.getFirstAccess()) ? firstAccess : target.getFirstAccess());
+        target.setLastAccess(isEmpty || lastAccess.after(target.getLastAccess()) ? lastAccess : target.getLastAccess());
+    }
+
+    /**
+     * Registers a restored label with the label cap unless it is the overflow label itself.
+     */
+    private static String restoreLabel(LabelLimiter limiter, String label) {
+        return limiter.getOverflowLabel().equals(label) ? label : limiter.resolve(label);
+    }
+
+    /**
+     * Writes the details of a JAMon key, i.e. a string or an array of strings and dates.
+     */
+    private static void writeValue(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(VALUE_NULL);
+        } else if (value instanceof Date) {
+            out.writeByte(VALUE_DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof Object[]) {
+            final Object[] values = (Object[]) value;
+            out.writeByte(VALUE_ARRAY);
+            out.writeInt(values.length);
+            for (Object element : values) {
+                writeValue(out, element);
+            }
+        } else {
+            out.writeByte(VALUE_STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static Object readValue(DataInput in) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_DATE:
+                return new Date(in.readLong());
+            case VALUE_ARRAY:
+                final Object[] values = new Object[in.readInt()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = readValue(in);
+                }
+                return values;
+            case VALUE_STRING:
+                return readString(in);
+            default:
+                throw new IOException("Unknown type of the serialized value: " + type);
+        }
+    }
+
+    private void addStatistics(LabelAggregates aggregates, Date timestamp, long duration, long bytesReceived, boolean success) {
+
+        final String label = aggregates.label;
+
+        aggregates.statistics.add(timestamp.getTime(), duration, success);
+        summaryStatistics.add(timestamp.getTime(), duration, success);
+        summaryTimeline.add(timestamp.getTime(), duration, success);
+
+        if (slaConfiguration.getChartLabels() > 0) {
+            getTimeline(aggregates).add(timestamp.getTime(), duration, success);
+        }
+
+        if (sampleSpillWriter != null) {
+            try {
+                sampleSpillWriter.append(label, timestamp.getTime(), duration, bytesReceived, success);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to spill the sample to " + sampleSpillWriter.getDirectory(), e);
+            }
+        }
+
+        if (failFastEvaluator != null) {
+            if (!aggregates.changed) {
+                aggregates.changed = true;
+                changedLabels.add(label);
+            }
+            if (++samplesSinceLastCheck >= FAIL_FAST_CHECK_INTERVAL) {
+                checkChangedLabels();
+            }
+        }
+    }
+
+    /**
+     * Checks the SLA rules of the labels having samples added since the last check - the
+     * statistics of the other labels did not change so their rules can't be violated now.
+     */
+    private void checkChangedLabels() {
+        samplesSinceLastCheck = 0;
+        for (String label : changedLabels) {
+            labelAggregates.get(label).changed = false;
+        }
+        try {
+            failFastEvaluator.checkIncrementally(this, changedLabels);
+        } finally {
+            changedLabels.clear();
+        }
     }
 
     private void addErrorMessages(String label, MonKeyImp monKey) {
@@ -190,4 +1024,46 @@ public class JMeterReportModel {
 
         labelErrorDetails.add(monKey);
     }
+
+    /**
+     * The aggregates of a resolved label, i.e. a sample costs a single lookup of its label
+     * instead of one per aggregate. The concurrency histogram and the timeline are only
+     * created when needed.
+     */
+    private static final class LabelAggregates {
+
+        private final String label;
+        private final SampleStatistics statistics = new SampleStatistics();
+        private final BucketHistogram responseTimeHistogram;
+        private final ResponseStatistics responseStatistics;
+        private Monitor responseTimeMonitor;
+        private ConcurrencyHistogram concurrencyHistogram;
+        private SampleTimeline timeline;
+        // samples were added since the last fail-fast check
+        private boolean changed;
+
+        LabelAggregates(String label, BucketHistogram responseTimeHistogram, ResponseStatistics responseStatistics) {
+            this.label = label;
+            this.responseTimeHistogram = responseTimeHistogram;
+            this.responseStatistics = responseStatistics;
+        }
+    }
+
+    /**
+     * The pre-resolved aggregates of a label and error code.
+     */
+    private static final class FailurePath {
+
+        private final LabelAggregates aggregates;
+        private final String errorLabel;
+        private final Monitor exceptionMonitor;
+        private final Monitor errorMonitor;
+
+        FailurePath(LabelAggregates aggregates, String errorLabel, Monitor exceptionMonitor, Monitor errorMonitor) {
+            this.aggregates = aggregates;
+            this.errorLabel = errorLabel;
+            this.exceptionMonitor = exceptionMonitor;
+            this.errorMonitor = errorMonitor;
+        }
+    }
 }
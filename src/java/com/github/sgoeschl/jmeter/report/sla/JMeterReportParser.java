@@ -20,10 +20,20 @@ package com.github.sgoeschl.jmeter.report.sla;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
+import com.github.sgoeschl.jmeter.report.sla.binary.BinaryResultFormat;
+import com.github.sgoeschl.jmeter.report.sla.binary.BinaryResultReader;
+import com.github.sgoeschl.jmeter.report.sla.checkpoint.CheckpointWriter;
+import com.github.sgoeschl.jmeter.report.sla.checkpoint.ParserCheckpoint;
+import com.github.sgoeschl.jmeter.report.sla.config.SlaConfiguration;
+import com.github.sgoeschl.jmeter.report.sla.merge.TimeOrderedMerger;
 import com.github.sgoeschl.jmeter.report.sla.parser.CsvSampleParser;
+import com.github.sgoeschl.jmeter.report.sla.parser.SampleSink;
+import com.github.sgoeschl.jmeter.report.sla.parser.TimestampDecoder;
 import com.github.sgoeschl.jmeter.report.sla.parser.XmlAssertionResultParser;
 import com.github.sgoeschl.jmeter.report.sla.parser.XmlSampleParser;
+import com.github.sgoeschl.jmeter.report.sla.rules.SlaViolationException;
 import com.github.sgoeschl.jmeter.report.sla.stax.StaxParser;
+import com.github.sgoeschl.jmeter.report.sla.utils.SampleBoundaries;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -34,18 +44,36 @@ import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
 import java.io.Reader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * A JMeter XML Report post processor to efficiently process gigabytes of JMeter reports.
  */
 public class JMeterReportParser implements Runnable {
 
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 256L * 1024 * 1024;
+    public static final long DEFAULT_CHUNK_SIZE = 64L * 1024 * 1024;
+
     private List<File> sourceFiles;
+    private boolean skipSuccessfulSamples;
+    private int threads = 1;
+    private File checkpointFile;
+    private boolean resume;
+    private long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+    private long chunkSize = DEFAULT_CHUNK_SIZE;
+    private int reorderWindow;
     private final JMeterReportModel model;
 
     public JMeterReportParser(JMeterReportModel model) {
@@ -55,35 +83,321 @@ public class JMeterReportParser implements Runnable {
     @Override
     public void run() {
 
-        FileInputStream fis = null;
-        final XMLInputFactory factory = XMLInputFactory.newInstance();
         final List<File> sourceFiles = getSourceFiles();
 
         if (sourceFiles == null || sourceFiles.isEmpty()) {
             throw new RuntimeException("No source files defined");
         }
 
+        if (checkpointFile != null) {
+            parseWithCheckpoints(sourceFiles);
+            return;
+        }
+
+        if (reorderWindow > 0) {
+            parseInTimestampOrder(sourceFiles, reorderWindow);
+            return;
+        }
+
+        // the duplicate filter only remembers a window of sample time so the samples of
+        // overlapping source files are added in timestamp order to detect their duplicates
+        if (model.getDuplicateFilter() != null && sourceFiles.size() > 1) {
+            parseInTimestampOrder(sourceFiles, TimeOrderedMerger.DEFAULT_REORDER_WINDOW);
+            return;
+        }
+
+        // a single source file with duplicate detection is parsed in timestamp order
+        if (threads > 1 && model.getDuplicateFilter() == null) {
+            final List<SourceRange> sourceRanges = splitSourceFiles(sourceFiles);
+            if (sourceRanges.size() > 1) {
+                parseConcurrently(sourceRanges);
+                return;
+            }
+        }
+
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+
         for (File sourceFile : sourceFiles) {
             try {
-                fis = new FileInputStream(sourceFile);
-                if (sourceFile.getName().toLowerCase().endsWith(".csv")) {
-                    parseInputAsCsv(fis);
-                } else {
-                    parseInputAsXml(fis, factory);
-                }
+                parseSourceFile(sourceFile, model, factory);
+            } catch (SlaViolationException e) {
+                throw e;
             } catch (Exception e) {
                 final String msg = "Exception while parsing the source files : " + e.getMessage();
                 System.out.println(msg);
                 break;
-            } finally {
-                close(fis);
             }
         }
     }
 
-    private void parseInputAsCsv(InputStream is) throws IOException {
+    /**
+     * Parses the chunks of the source files into partial models of the worker threads. The
+     * partial models are merged into the model in the order of the chunks to get the same
+     * result as parsing the source files one after another. At most two chunks per thread
+     * are parsed or waiting to be merged so the memory of the partial models is bounded
+     * regardless of the size of the source files.
+     */
+    private void parseConcurrently(List<SourceRange> sourceRanges) {
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(Math.min(threads, sourceRanges.size()));
+        final Deque<Future<JMeterReportModel>> partialModels = new ArrayDeque<>();
+        int next = 0;
+
+        try {
+            while (next < sourceRanges.size() || !partialModels.isEmpty()) {
+                while (next < sourceRanges.size() && partialModels.size() < 2 * threads) {
+                    final SourceRange sourceRange = sourceRanges.get(next++);
+                    partialModels.add(executorService.submit(new Callable<JMeterReportModel>() {
+                        @Override
+                        public JMeterReportModel call() throws Exception {
+                            final JMeterReportModel partialModel = model.createPartialModel();
+                            parseSourceRange(sourceRange, partialModel);
+                            return partialModel;
+                        }
+                    }));
+                }
+                try {
+                    model.merge(partialModels.removeFirst().get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof SlaViolationException) {
+                        throw (SlaViolationException) e.getCause();
+                    }
+                    final String msg = "Exception while parsing the source files : " + e.getCause().getMessage();
+                    System.out.println(msg);
+                    break;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while parsing the source files", e);
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits JTL and CSV files into chunks of samples. Binary result files, incomplete JTL
+     * files and files smaller than a chunk are parsed as a whole.
+     */
+    private List<SourceRange> splitSourceFiles(List<File> sourceFiles) {
+
+        final List<SourceRange> result = new ArrayList<>();
+
+        for (File sourceFile : sourceFiles) {
+            final String fileName = sourceFile.getName();
+            final boolean isCsv = fileName.toLowerCase().endsWith(".csv");
+
+            if (sourceFile.length() > chunkSize && !BinaryResultFormat.isBinaryResultFile(fileName)) {
+                try (RandomAccessFile file = new RandomAccessFile(sourceFile, "r")) {
+                    final SampleBoundaries boundaries = new SampleBoundaries(file, isCsv);
+                    final long end = boundaries.getLength();
+                    // the truncated last sample of an incomplete JTL file would fail the chunk
+                    if (boundaries.getFirstSampleStart() < end && (isCsv || end < file.length())) {
+                        long start = boundaries.getFirstSampleStart();
+                        while (start < end) {
+                            final long rangeEnd = Math.min(end, boundaries.findSampleStart(start + chunkSize));
+                            result.add(new SourceRange(sourceFile, start, rangeEnd));
+                            start = rangeEnd;
+                        }
+                        continue;
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to split the source file " + sourceFile.getAbsolutePath() + " : " + e.getMessage(), e);
+                }
+            }
+
+            result.add(new SourceRange(sourceFile, 0, -1));
+        }
+
+        return result;
+    }
+
+    private void parseSourceRange(SourceRange sourceRange, JMeterReportModel partialModel) throws IOException, XMLStreamException {
+
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        final String fileName = sourceRange.file.getName();
+
+        if (sourceRange.end < 0) {
+            parseSourceFile(sourceRange.file, partialModel, factory);
+            return;
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(sourceRange.file, "r")) {
+            final SampleBoundaries boundaries = new SampleBoundaries(file, fileName.toLowerCase().endsWith(".csv"));
+            try (InputStream is = boundaries.openStream(sourceRange.start, sourceRange.end)) {
+                parse(fileName, is, partialModel, partialModel.getSlaConfiguration(), factory);
+            }
+        }
+    }
+
+    /**
+     * Parses each source file in a thread of its own and adds the samples of all files to
+     * the model in timestamp order, e.g. to get the exact bandwidth timeline and monitor
+     * access times of test runs distributed over several JMeter slaves.
+     */
+    private void parseInTimestampOrder(List<File> sourceFiles, int reorderWindow) {
+        new TimeOrderedMerger(model, reorderWindow).merge(sourceFiles, new TimeOrderedMerger.SourceParser() {
+            @Override
+            public void parse(File sourceFile, SampleSink sampleSink) throws Exception {
+                parseSourceFile(sourceFile, sampleSink, XMLInputFactory.newInstance());
+            }
+        });
+    }
+
+    /**
+     * Parses the source files one after another and takes a checkpoint after each checkpoint
+     * interval and source file. JTL and CSV files are parsed in ranges of samples so parsing
+     * resumes within a file while binary result files and JTL files without line breaks are
+     * resumed as a whole. In contrast to the other modes a failure aborts parsing instead of
+     * creating a report of the samples parsed so far.
+     */
+    private void parseWithCheckpoints(List<File> sourceFiles) {
+
+        if (threads > 1) {
+            throw new IllegalArgumentException("Checkpoints require parsing the source files with a single thread");
+        }
+
+        if (reorderWindow > 0) {
+            throw new IllegalArgumentException("Checkpoints require adding the samples in the order of the source files");
+        }
+
+        if (model.getDuplicateFilter() != null) {
+            throw new IllegalArgumentException("Checkpoints do not contain the state of the duplicate filter");
+        }
+
+        if (model.getSampleSpillWriter() != null) {
+            throw new IllegalArgumentException("Checkpoints do not contain the spilled samples");
+        }
+
+        final long[] lengths = new long[sourceFiles.size()];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = sourceFiles.get(i).length();
+        }
+
+        final long[] offsets = (resume && checkpointFile.exists() ? restoreCheckpoint(sourceFiles, lengths) : new long[lengths.length]);
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        final CheckpointWriter checkpointWriter = new CheckpointWriter(checkpointFile);
+
+        try {
+            for (int i = 0; i < sourceFiles.size(); i++) {
+                if (offsets[i] < lengths[i]) {
+                    try {
+                        parseSourceFile(sourceFiles, i, lengths, offsets, checkpointWriter, factory);
+                    } catch (SlaViolationException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        final String msg = "Exception while parsing " + sourceFiles.get(i).getAbsolutePath()
+                                + " - resume from the checkpoint " + checkpointFile.getAbsolutePath() + " : " + e.getMessage();
+                        throw new RuntimeException(msg, e);
+                    }
+                }
+            }
+        } finally {
+            checkpointWriter.close();
+        }
+
+        // the checkpoint is obsolete once all source files are parsed
+        if (checkpointFile.exists() && !checkpointFile.delete()) {
+            System.err.println("Failed to delete the checkpoint " + checkpointFile.getAbsolutePath());
+        }
+    }
+
+    private long[] restoreCheckpoint(List<File> sourceFiles, long[] lengths) {
+        try {
+            final ParserCheckpoint checkpoint = ParserCheckpoint.load(checkpointFile);
+            checkpoint.verify(sourceFiles, lengths);
+            checkpoint.restore(model);
+            System.out.println("Resuming from the checkpoint " + checkpointFile.getAbsolutePath() + " after "
+                    + checkpoint.getParsedBytes() + " of " + checkpoint.getTotalBytes() + " bytes");
+            return checkpoint.getOffsets();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to restore the checkpoint " + checkpointFile.getAbsolutePath() + " : " + e.getMessage(), e);
+        }
+    }
+
+    private void parseSourceFile(List<File> sourceFiles, int index, long[] lengths, long[] offsets, CheckpointWriter checkpointWriter, XMLInputFactory factory) throws IOException, XMLStreamException {
+
+        final File sourceFile = sourceFiles.get(index);
+        final String fileName = sourceFile.getName();
+
+        if (!BinaryResultFormat.isBinaryResultFile(fileName)) {
+            try (RandomAccessFile file = new RandomAccessFile(sourceFile, "r")) {
+                final SampleBoundaries boundaries = new SampleBoundaries(file, fileName.toLowerCase().endsWith(".csv"));
+                final long end = boundaries.getLength();
+                if (boundaries.getFirstSampleStart() < end) {
+                    long start = Math.max(offsets[index], boundaries.getFirstSampleStart());
+                    while (start < end) {
+                        final long rangeEnd = Math.min(end, boundaries.findSampleStart(start + checkpointInterval));
+                        try (InputStream is = boundaries.openStream(start, rangeEnd)) {
+                            parse(fileName, is, model, model.getSlaConfiguration(), factory);
+                        }
+                        start = rangeEnd;
+                        offsets[index] = (start < end ? start : lengths[index]);
+                        checkpointWriter.write(ParserCheckpoint.of(sourceFiles, lengths, offsets, model));
+                    }
+                    return;
+                }
+            }
+        }
+
+        parseSourceFile(sourceFile, model, factory);
+        offsets[index] = lengths[index];
+        checkpointWriter.write(ParserCheckpoint.of(sourceFiles, lengths, offsets, model));
+    }
+
+    private void parseSourceFile(File sourceFile, SampleSink sampleSink, XMLInputFactory factory) throws IOException, XMLStreamException {
+        FileInputStream fis = null;
+        try {
+            fis = new FileInputStream(sourceFile);
+            parse(sourceFile.getName(), fis, sampleSink, model.getSlaConfiguration(), factory);
+        } finally {
+            close(fis);
+        }
+    }
+
+    /**
+     * Parses JMeter results picking the format by the file name, e.g. for parsing
+     * the chunks of a preview.
+     *
+     * @param fileName the name of the source file
+     * @param is       the content
+     * @param model    the model to add the samples to
+     * @throws IOException        reading the content failed
+     * @throws XMLStreamException parsing the XML content failed
+     */
+    public void parse(String fileName, InputStream is, JMeterReportModel model) throws IOException, XMLStreamException {
+        parse(fileName, is, model, model.getSlaConfiguration(), XMLInputFactory.newInstance());
+    }
+
+    /**
+     * Parses JMeter results picking the format by the file name and passes the samples to
+     * the given sink instead of the model, e.g. for converting them. The CSV timestamp format
+     * is taken from the configuration of the model.
+     *
+     * @param fileName   the name of the source file
+     * @param is         the content
+     * @param sampleSink the sink to pass the samples to
+     * @throws IOException        reading the content failed
+     * @throws XMLStreamException parsing the XML content failed
+     */
+    public void parse(String fileName, InputStream is, SampleSink sampleSink) throws IOException, XMLStreamException {
+        parse(fileName, is, sampleSink, model.getSlaConfiguration(), XMLInputFactory.newInstance());
+    }
+
+    private void parse(String fileName, InputStream is, SampleSink sampleSink, SlaConfiguration slaConfiguration, XMLInputFactory factory) throws IOException, XMLStreamException {
+        if (fileName.toLowerCase().endsWith(".csv")) {
+            parseInputAsCsv(is, sampleSink, slaConfiguration);
+        } else if (BinaryResultFormat.isBinaryResultFile(fileName)) {
+            new BinaryResultReader(sampleSink).parse(is);
+        } else {
+            parseInputAsXml(is, factory, sampleSink);
+        }
+    }
+
+    private void parseInputAsCsv(InputStream is, SampleSink sampleSink, SlaConfiguration slaConfiguration) throws IOException {
         final Reader reader = new InputStreamReader(is);
-        final CsvSampleParser csvSampleParser = new CsvSampleParser(model);
+        final TimestampDecoder timestampDecoder = new TimestampDecoder(slaConfiguration.getTimestampFormat());
+        final CsvSampleParser csvSampleParser = new CsvSampleParser(sampleSink, timestampDecoder);
         final CSVParser csvParser = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(reader);
 
         for (CSVRecord csvRecord : csvParser) {
@@ -92,16 +406,18 @@ public class JMeterReportParser implements Runnable {
         }
     }
 
-    private void parseInputAsXml(FileInputStream fis, XMLInputFactory factory) throws XMLStreamException {
+    private void parseInputAsXml(InputStream fis, XMLInputFactory factory, SampleSink sampleSink) throws XMLStreamException {
         XMLStreamReader xmlStreamReader = null;
         try {
             xmlStreamReader = factory.createXMLStreamReader(fis);
 
             final StaxParser staxParser = new StaxParser();
-            staxParser.registerParser("sample", new XmlSampleParser(model));
-            staxParser.registerParser("httpSample", new XmlSampleParser(model));
-            staxParser.registerParser("assertionResult", new XmlAssertionResultParser());
+            staxParser.registerParser("sample", new XmlSampleParser(sampleSink));
+            staxParser.registerParser("httpSample", new XmlSampleParser(sampleSink));
+            staxParser.registerParser("assertionResult", new XmlAssertionResultParser(skipSuccessfulSamples));
             staxParser.parseElement(xmlStreamReader);
+        } catch (SlaViolationException e) {
+            throw e;
         } catch (Exception e) {
             if (e.getMessage() != null && e.getMessage().contains("XML document structures must start and end within the same entity")) {
                 // ignore
@@ -131,7 +447,7 @@ public class JMeterReportParser implements Runnable {
                         final String lowerName = name.toLowerCase();
                         final boolean isJtl = lowerName.endsWith(".jtl");
                         final boolean isCsv = lowerName.endsWith(".csv");
-                        return isJtl || isCsv;
+                        return isJtl || isCsv || BinaryResultFormat.isBinaryResultFile(lowerName);
                     }
                 });
 
@@ -148,6 +464,112 @@ public class JMeterReportParser implements Runnable {
         this.sourceFiles = sourceFiles;
     }
 
+    public boolean isSkipSuccessfulSamples() {
+        return skipSuccessfulSamples;
+    }
+
+    /**
+     * Skip the assertion results of successful XML samples instead of parsing them while
+     * their sub-samples are still parsed, i.e. the aggregated results are the same. Other
+     * nested elements like the response data are never interpreted. Failed samples are
+     * still parsed completely to capture the assertion details.
+     *
+     * @param skipSuccessfulSamples skip the content of successful samples
+     */
+    public void setSkipSuccessfulSamples(boolean skipSuccessfulSamples) {
+        this.skipSuccessfulSamples = skipSuccessfulSamples;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Parse the source files concurrently using the given number of threads - large JTL and
+     * CSV files are split into chunks of samples and each thread collects the samples of a
+     * chunk in a partial model without any synchronization.
+     *
+     * @param threads the number of parser threads
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Expecting at least one parser thread: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    public File getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    /**
+     * Take checkpoints of the model and the parsed bytes of each source file while parsing
+     * so parsing can be resumed after the process was killed or failed. The checkpoint is
+     * deleted after all source files are parsed.
+     *
+     * @param checkpointFile the checkpoint file or null
+     */
+    public void setCheckpointFile(File checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    /**
+     * Restore the model from an existing checkpoint file and continue parsing after the
+     * bytes parsed so far - the model is expected to be empty.
+     *
+     * @param resume resume from the checkpoint file
+     */
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    public long getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * @param checkpointInterval the number of bytes of a source file being parsed between two checkpoints
+     */
+    public void setCheckpointInterval(long checkpointInterval) {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("Expecting a positive checkpoint interval: " + checkpointInterval);
+        }
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * @param chunkSize the bytes of a chunk of a JTL or CSV file being parsed by a single
+     *                  thread when parsing concurrently
+     */
+    public void setChunkSize(long chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Expecting a positive chunk size: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public int getReorderWindow() {
+        return reorderWindow;
+    }
+
+    /**
+     * Add the samples of all source files in timestamp order instead of one file after
+     * another - the given number of samples is buffered per source file since JMeter
+     * writes the samples in the order of their completion.
+     *
+     * @param reorderWindow the number of buffered samples per source file or zero to add the samples in file order
+     */
+    public void setReorderWindow(int reorderWindow) {
+        if (reorderWindow < 0) {
+            throw new IllegalArgumentException("Expecting a non-negative reorder window: " + reorderWindow);
+        }
+        this.reorderWindow = reorderWindow;
+    }
+
     private void close(XMLStreamReader xmlStreamReader) {
         try {
             if (xmlStreamReader != null) {
@@ -167,4 +589,21 @@ public class JMeterReportParser implements Runnable {
             System.err.println("Closing the FileInputStream failed : " + e.getMessage());
         }
     }
+
+    /**
+     * A chunk of samples of a source file or the whole source file.
+     */
+    private static final class SourceRange {
+
+        private final File file;
+        private final long start;
+        // the end of the chunk or -1 for the whole file
+        private final long end;
+
+        SourceRange(File file, long start, long end) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+        }
+    }
 }
@@ -17,41 +17,212 @@
  */
 package com.github.sgoeschl.jmeter.report.sla;
 
+import com.github.sgoeschl.jmeter.report.sla.binary.BinaryResultConverter;
+import com.github.sgoeschl.jmeter.report.sla.compare.RunAggregates;
+import com.github.sgoeschl.jmeter.report.sla.compare.RunComparison;
+import com.github.sgoeschl.jmeter.report.sla.config.SlaConfiguration;
+import com.github.sgoeschl.jmeter.report.sla.live.LiveSampleReceiver;
+import com.github.sgoeschl.jmeter.report.sla.merge.TimeOrderedMerger;
+import com.github.sgoeschl.jmeter.report.sla.preview.PreviewEstimate;
+import com.github.sgoeschl.jmeter.report.sla.preview.PreviewSampler;
+import com.github.sgoeschl.jmeter.report.sla.rules.SlaEvaluator;
+import com.github.sgoeschl.jmeter.report.sla.rules.SlaRuleResult;
+import com.github.sgoeschl.jmeter.report.sla.rules.SlaVerdict;
+import com.github.sgoeschl.jmeter.report.sla.rules.SlaViolationException;
+import com.github.sgoeschl.jmeter.report.sla.spill.SampleSpillWriter;
+import com.github.sgoeschl.jmeter.report.sla.utils.DuplicateFilter;
+
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * A JMeter XML Report post processor to efficiently process gigabytes of JMeter reports.
  */
 public class Main {
 
+    // the supported command-line options
+    public static final String OPTION_SKIP_SUCCESSFUL_SAMPLES = "--skip-successful-samples";
+    public static final String OPTION_SLA_CONFIG = "--sla-config";
+    public static final String OPTION_FAIL_FAST = "--fail-fast";
+    public static final String OPTION_SPILL_DIR = "--spill-dir";
+    public static final String OPTION_THREADS = "--threads";
+    public static final String OPTION_CONVERT = "--convert";
+    public static final String OPTION_COMPARE = "--compare";
+    public static final String OPTION_SAVE_AGGREGATES = "--save-aggregates";
+    public static final String OPTION_PREVIEW = "--preview";
+    public static final String OPTION_PREVIEW_SEED = "--preview-seed";
+    public static final String OPTION_CHECKPOINT = "--checkpoint";
+    public static final String OPTION_RESUME = "--resume";
+    public static final String OPTION_LISTEN = "--listen";
+    public static final String OPTION_LISTEN_IDLE = "--listen-idle";
+    public static final String OPTION_TIME_ORDERED = "--time-ordered";
+    public static final String OPTION_DEDUP = "--dedup";
+    public static final String OPTION_VIRTUAL_TABLES = "--virtual-tables";
+
+    private static final String OPTION_PREFIX = "--";
+
+    // the exit codes
+    public static final int EXIT_SUCCESS = 0;
+    public static final int EXIT_FAILURE = 1;
+    public static final int EXIT_SLA_VIOLATION = 2;
+
     public static void main(String args[]) throws Exception {
         try {
-            onMain(args);
+            final int exitCode = onMain(args);
+            if (exitCode != EXIT_SUCCESS) {
+                System.exit(exitCode);
+            }
         } catch (Exception e) {
             System.err.println("Failed to create JMeter SLA report: " + e.getMessage());
-            System.exit(1);
+            System.exit(EXIT_FAILURE);
         }
     }
 
     public static int onMain(String args[]) throws Exception {
 
-        if (args == null || args.length < 1) {
+        final Map<String, String> options = getOptions(args);
+        final String[] arguments = getArguments(args);
+
+        if (arguments.length < 1) {
             System.err.println("Expecting at least one command-line argument");
-            System.err.println("Usage: java -jar jmeter-sla-report-1.0.5.jar output [sources]*");
-            return 1;
+            System.err.println("Usage: java -jar jmeter-sla-report-1.0.5.jar [options] output [sources]*");
+            System.err.println("Options:");
+            System.err.println("  " + OPTION_SKIP_SUCCESSFUL_SAMPLES + "  skip the assertion results of successful XML samples");
+            System.err.println("  " + OPTION_SLA_CONFIG + "=file  the SLA configuration, e.g. the response time buckets and SLA rules");
+            System.err.println("  " + OPTION_FAIL_FAST + "  abort parsing as soon as a SLA rule can no longer be met");
+            System.err.println("  " + OPTION_SPILL_DIR + "=dir  spill the raw samples to memory-mapped column files for later queries (not with " + OPTION_CHECKPOINT + ")");
+            System.err.println("  " + OPTION_THREADS + "=n  parse the source files in chunks of 64 MB and render the report concurrently using n threads");
+            System.err.println("  " + OPTION_COMPARE + "=baseline[,baseline]*  compare with stored aggregates (*.jsla) or the JMeter results of baseline runs");
+            System.err.println("  " + OPTION_SAVE_AGGREGATES + "=file  store the aggregates (*.jsla) of this run for later comparisons");
+            System.err.println("  " + OPTION_PREVIEW + "=fraction  create an approximate preview parsing a random fraction of the source file chunks, e.g. 0.05");
+            System.err.println("  " + OPTION_PREVIEW_SEED + "=n  the seed selecting the chunks of the preview");
+            System.err.println("  " + OPTION_TIME_ORDERED + "[=window]  add the samples of all source files in timestamp order buffering window samples per file");
+            System.err.println("  " + OPTION_DEDUP + "  drop duplicated samples, e.g. of overlapping source files being added in timestamp order");
+            System.err.println("  " + OPTION_VIRTUAL_TABLES + "=rows  render tables having more rows by a script showing the visible rows only (defaults to " + JMeterHtmlReportWriter.DEFAULT_VIRTUAL_TABLE_ROWS + ")");
+            System.err.println("  " + OPTION_CHECKPOINT + "=file  periodically save the parsing progress to resume an aborted run (not with " + OPTION_SPILL_DIR + ", " + OPTION_DEDUP + ", " + OPTION_THREADS + " or " + OPTION_TIME_ORDERED + ")");
+            System.err.println("  " + OPTION_RESUME + "  resume parsing from the checkpoint file");
+            System.err.println("  " + OPTION_LISTEN + "=port  receive the samples streamed by JMeter on a local port instead of parsing source files");
+            System.err.println("  " + OPTION_LISTEN_IDLE + "=seconds  stop receiving when nothing arrived for the given seconds (defaults to " + LiveSampleReceiver.DEFAULT_IDLE_TIMEOUT / 1000 + ")");
+            System.err.println("  " + OPTION_CONVERT + "  convert the sources into a binary result file (*.jtlc) instead of creating a report");
+            return EXIT_FAILURE;
+        }
+
+        final File reportFile = new File(arguments[0]);
+        final List<File> sourceFiles = getSourceFiles(arguments);
+        final SlaConfiguration slaConfiguration = getSlaConfiguration(options);
+
+        if (Boolean.parseBoolean(options.get(OPTION_CONVERT))) {
+            createReportDirectory(reportFile);
+            final long samples = BinaryResultConverter.convert(sourceFiles, reportFile, slaConfiguration);
+            System.out.println("Converted " + samples + " samples into " + reportFile.getAbsolutePath());
+            return EXIT_SUCCESS;
+        }
+
+        final SlaEvaluator slaEvaluator = slaConfiguration.createSlaEvaluator();
+        final JMeterReportModel reportModel = new JMeterReportModel(slaConfiguration);
+
+        if (Boolean.parseBoolean(options.get(OPTION_FAIL_FAST)) && slaEvaluator.hasRules()) {
+            reportModel.setFailFastEvaluator(slaEvaluator);
+        }
+
+        setDuplicateFilter(reportModel, options);
+
+        final SampleSpillWriter sampleSpillWriter = getSampleSpillWriter(options);
+        reportModel.setSampleSpillWriter(sampleSpillWriter);
+
+        SlaVerdict slaVerdict = null;
+        PreviewEstimate previewEstimate = null;
+        String reportSource = sourceFiles.get(0).getAbsolutePath();
+        String runName = sourceFiles.get(0).getName();
+
+        try {
+            if (options.containsKey(OPTION_LISTEN)) {
+                reportSource = receiveSamples(reportFile, reportModel, Integer.parseInt(options.get(OPTION_LISTEN)), options);
+                runName = reportSource;
+            } else {
+                previewEstimate = parseSourceFiles(reportModel, sourceFiles, options);
+            }
+        } catch (SlaViolationException e) {
+            slaVerdict = e.getVerdict();
+        } finally {
+            if (sampleSpillWriter != null) {
+                sampleSpillWriter.close();
+            }
+        }
+
+        reportDuplicates(reportModel.getDuplicateFilter());
+
+        if (slaVerdict == null && slaEvaluator.hasRules()) {
+            slaVerdict = slaEvaluator.evaluate(reportModel);
+        }
+
+        final RunAggregates runAggregates = RunAggregates.of(runName, reportModel);
+
+        if (options.containsKey(OPTION_SAVE_AGGREGATES)) {
+            runAggregates.save(new File(options.get(OPTION_SAVE_AGGREGATES)));
+        }
+
+        final List<RunComparison> runComparisons = compareRuns(runAggregates, slaConfiguration, options);
+
+        createReport(reportFile, reportSource, reportModel, slaVerdict, previewEstimate, runComparisons, options);
+
+        if (slaVerdict != null && !slaVerdict.isPassed()) {
+            for (SlaRuleResult violation : slaVerdict.getViolations()) {
+                System.err.println("SLA violation: " + violation);
+            }
+            return EXIT_SLA_VIOLATION;
+        }
+
+        return EXIT_SUCCESS;
+    }
+
+    /**
+     * Collects the command-line options, e.g. "--name" or "--name=value".
+     */
+    private static Map<String, String> getOptions(String args[]) {
+
+        final Map<String, String> result = new HashMap<>();
+
+        if (args != null) {
+            for (String arg : args) {
+                if (arg.startsWith(OPTION_PREFIX)) {
+                    final int index = arg.indexOf('=');
+                    if (index > 0) {
+                        result.put(arg.substring(0, index), arg.substring(index + 1));
+                    } else {
+                        result.put(arg, "true");
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Collects the command-line arguments not being options.
+     */
+    private static String[] getArguments(String args[]) {
+
+        final List<String> result = new ArrayList<>();
+
+        if (args != null) {
+            for (String arg : args) {
+                if (!arg.startsWith(OPTION_PREFIX)) {
+                    result.add(arg);
+                }
+            }
         }
 
-        final File reportFile = new File(args[0]);
-        final List<File> sourceFiles = getSourceFiles(args);
-        final JMeterReportModel reportModel = createReportModel(sourceFiles);
-        createReport(reportFile, sourceFiles.get(0).getAbsolutePath(), reportModel);
-        return 0;
+        return result.toArray(new String[0]);
     }
 
     private static List<File> getSourceFiles(String args[]) {
@@ -76,12 +247,134 @@ public class Main {
         return sourceFiles;
     }
 
-    private static JMeterReportModel createReportModel(List<File> sourceFiles) {
-        final JMeterReportModel model = new JMeterReportModel();
+    /**
+     * @return the estimates of an approximate preview or null if all samples were parsed
+     */
+    private static PreviewEstimate parseSourceFiles(JMeterReportModel model, List<File> sourceFiles, Map<String, String> options) throws Exception {
+        final JMeterReportParser parser = createParser(model, sourceFiles, options);
+        if (options.containsKey(OPTION_CHECKPOINT)) {
+            parser.setCheckpointFile(new File(options.get(OPTION_CHECKPOINT)));
+            parser.setResume(Boolean.parseBoolean(options.get(OPTION_RESUME)));
+        } else if (options.containsKey(OPTION_RESUME)) {
+            throw new IllegalArgumentException("Expecting " + OPTION_CHECKPOINT + "=file to resume from");
+        }
+        if (options.containsKey(OPTION_PREVIEW)) {
+            final long seed = Long.parseLong(options.getOrDefault(OPTION_PREVIEW_SEED, "0"));
+            return new PreviewSampler(parser, Double.parseDouble(options.get(OPTION_PREVIEW)), seed).run(model);
+        }
+        parser.run();
+        return null;
+    }
+
+    /**
+     * Creates a parser applying the options which affect the aggregated samples of the
+     * current run and of the baselines alike.
+     */
+    private static JMeterReportParser createParser(JMeterReportModel model, List<File> sourceFiles, Map<String, String> options) {
         final JMeterReportParser parser = new JMeterReportParser(model);
         parser.setSourceFiles(sourceFiles);
-        parser.run();
-        return model;
+        parser.setSkipSuccessfulSamples(Boolean.parseBoolean(options.get(OPTION_SKIP_SUCCESSFUL_SAMPLES)));
+        if (options.containsKey(OPTION_THREADS)) {
+            parser.setThreads(getThreads(options));
+        }
+        if (options.containsKey(OPTION_TIME_ORDERED)) {
+            final String reorderWindow = options.get(OPTION_TIME_ORDERED);
+            parser.setReorderWindow("true".equals(reorderWindow) ? TimeOrderedMerger.DEFAULT_REORDER_WINDOW : Integer.parseInt(reorderWindow));
+        }
+        return parser;
+    }
+
+    private static void setDuplicateFilter(JMeterReportModel model, Map<String, String> options) {
+        if (Boolean.parseBoolean(options.get(OPTION_DEDUP))) {
+            model.setDuplicateFilter(model.getSlaConfiguration().createDuplicateFilter());
+        }
+    }
+
+    /**
+     * Receives the samples streamed by JMeter until the test has ended while the report
+     * is updated periodically from snapshots of the model.
+     *
+     * @return the address of the receiver
+     */
+    private static String receiveSamples(final File reportFile, JMeterReportModel model, int port, final Map<String, String> options) throws IOException {
+        try (LiveSampleReceiver receiver = new LiveSampleReceiver(model, port)) {
+            final String reportSource = "tcp://" + receiver.getAddress();
+            if (options.containsKey(OPTION_LISTEN_IDLE)) {
+                receiver.setIdleTimeout(Long.parseLong(options.get(OPTION_LISTEN_IDLE)) * 1000);
+            }
+            receiver.setReportUpdater(new LiveSampleReceiver.ReportUpdater() {
+                @Override
+                public void update(JMeterReportModel model) throws IOException {
+                    createReport(reportFile, reportSource, model, null, null, new ArrayList<RunComparison>(), options);
+                }
+            });
+            System.out.println("Receiving JMeter samples on " + reportSource);
+            receiver.run();
+            System.out.println("Received " + receiver.getSamples() + " samples on " + reportSource);
+            return reportSource;
+        }
+    }
+
+    /**
+     * Compares the current run with the baselines which are either stored aggregates
+     * or JMeter results being parsed.
+     */
+    private static List<RunComparison> compareRuns(RunAggregates current, SlaConfiguration slaConfiguration, Map<String, String> options) throws Exception {
+
+        final List<RunComparison> result = new ArrayList<>();
+
+        if (!options.containsKey(OPTION_COMPARE)) {
+            return result;
+        }
+
+        for (String baseline : options.get(OPTION_COMPARE).split(",")) {
+            final File baselineFile = new File(baseline.trim());
+            final RunAggregates baselineAggregates;
+
+            if (RunAggregates.isAggregatesFile(baselineFile.getName())) {
+                baselineAggregates = RunAggregates.load(baselineFile);
+            } else {
+                // the baseline is aggregated like the current run, e.g. dropping duplicates
+                final JMeterReportModel baselineModel = new JMeterReportModel(slaConfiguration);
+                setDuplicateFilter(baselineModel, options);
+                createParser(baselineModel, Collections.singletonList(baselineFile), options).run();
+                baselineAggregates = RunAggregates.of(baselineFile.getName(), baselineModel);
+            }
+
+            result.add(RunComparison.compare(baselineAggregates, current, slaConfiguration.getComparisonThresholds()));
+        }
+
+        return result;
+    }
+
+    private static void reportDuplicates(DuplicateFilter duplicateFilter) {
+        if (duplicateFilter == null) {
+            return;
+        }
+        System.out.println("Dropped " + duplicateFilter.getDuplicates() + " duplicates of " + duplicateFilter.getSamples()
+                + " samples (estimated false-positive rate " + String.format(Locale.ENGLISH, "%.2g", duplicateFilter.getFalsePositiveRate()) + ")");
+        if (duplicateFilter.getUncheckedSamples() > 0) {
+            System.out.println(duplicateFilter.getUncheckedSamples() + " samples were older than the deduplication window of "
+                    + duplicateFilter.getWindowMillis() / 1000 + " seconds and not checked - consider a larger " + SlaConfiguration.KEY_DEDUP_WINDOW);
+        }
+    }
+
+    private static int getThreads(Map<String, String> options) {
+        return options.containsKey(OPTION_THREADS) ? Integer.parseInt(options.get(OPTION_THREADS)) : 1;
+    }
+
+    private static SlaConfiguration getSlaConfiguration(Map<String, String> options) throws IOException {
+        final String fileName = options.get(OPTION_SLA_CONFIG);
+        return (fileName != null ? SlaConfiguration.load(new File(fileName)) : SlaConfiguration.createDefault());
+    }
+
+    private static SampleSpillWriter getSampleSpillWriter(Map<String, String> options) throws IOException {
+        final String directoryName = options.get(OPTION_SPILL_DIR);
+        // creating the writer truncates the column files so fail before touching a previous run
+        if (directoryName != null && options.containsKey(OPTION_CHECKPOINT)) {
+            throw new IllegalArgumentException(OPTION_SPILL_DIR + " cannot be combined with " + OPTION_CHECKPOINT);
+        }
+        return (directoryName != null ? new SampleSpillWriter(new File(directoryName)) : null);
     }
 
     private static void createReportDirectory(File targetFile) {
@@ -93,7 +386,7 @@ public class Main {
         }
     }
 
-    private static void createReport(File reportFile, String reportSource, JMeterReportModel model) throws IOException {
+    private static void createReport(File reportFile, String reportSource, JMeterReportModel model, SlaVerdict slaVerdict, PreviewEstimate previewEstimate, List<RunComparison> runComparisons, Map<String, String> options) throws IOException {
         final Locale locale = Locale.getDefault();
         final int sortColumn = JMeterHtmlReportWriter.DISPLAY_HEADER_FIRSTACCESS_INDEX;
         final String sortOrder = "asc";
@@ -104,7 +397,15 @@ public class Main {
 
         try {
             System.setProperty("jmeter.source.file", reportSource);
-            out.write(new JMeterHtmlReportWriter(model, sortColumn, sortOrder, locale).createReport());
+            final JMeterHtmlReportWriter writer = new JMeterHtmlReportWriter(model, sortColumn, sortOrder, locale);
+            writer.setSlaVerdict(slaVerdict);
+            writer.setPreviewEstimate(previewEstimate);
+            writer.setRunComparisons(runComparisons);
+            writer.setThreads(getThreads(options));
+            if (options.containsKey(OPTION_VIRTUAL_TABLES)) {
+                writer.setVirtualTableRows(Integer.parseInt(options.get(OPTION_VIRTUAL_TABLES)));
+            }
+            writer.writeReport(out);
         } finally {
             System.setProperty("jmeter.source.file", "");
             out.close();
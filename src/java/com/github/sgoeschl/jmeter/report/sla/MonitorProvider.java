@@ -5,21 +5,23 @@ import com.jamonapi.MonKey;
 import com.jamonapi.Monitor;
 import com.jamonapi.MonitorComposite;
 import com.jamonapi.MonitorFactoryInterface;
-import com.jamonapi.RangeHolder;
 
 public class MonitorProvider {
 
     private final MonitorFactoryInterface factory;
 
-    public MonitorProvider(String type, RangeHolder rangeHolder) {
+    public MonitorProvider() {
         factory = new FactoryEnabled();
-        factory.setRangeDefault(type, rangeHolder);
     }
 
     public Monitor get(String label, String type) {
         return factory.getMonitor(label, type);
     }
 
+    public Monitor get(MonKey key) {
+        return factory.getMonitor(key);
+    }
+
     public void add(MonKey key) {
         factory.add(key, 1);
     }
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla;
+
+import org.apache.commons.text.StringEscapeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A report table embedding its rows as a compact columnar JSON blob instead of
+ * HTML rows. The script returned by {@link #getScript()} renders only the rows
+ * scrolled into view and sorts the rows when clicking a header, i.e. a browser
+ * stays responsive for reports having hundreds of thousands of labels.
+ */
+class VirtualTable {
+
+    private final String id;
+    private final List<String> headers;
+    private final List<StringBuilder> cells;
+    private final List<StringBuilder> keys;
+    private final StringBuilder failures;
+    private int rows;
+
+    /**
+     * @param id the unique id of the table within the report, e.g. "pages-overview"
+     */
+    VirtualTable(String id) {
+        this.id = id;
+        this.headers = new ArrayList<>();
+        this.cells = new ArrayList<>();
+        this.keys = new ArrayList<>();
+        this.failures = new StringBuilder();
+    }
+
+    /**
+     * @param header  the header as HTML fragment
+     * @param numeric is the column right-aligned and sorted by numeric keys
+     */
+    void addColumn(String header, boolean numeric) {
+        headers.add(header);
+        cells.add(new StringBuilder());
+        keys.add(numeric ? new StringBuilder() : null);
+    }
+
+    /**
+     * @param isFailure  is the row highlighted as failure
+     * @param rowCells   the cells of the row as HTML fragments - the padding is trimmed
+     * @param rowKeys    the sort keys of the numeric columns - the other keys are ignored
+     */
+    void addRow(boolean isFailure, String[] rowCells, double[] rowKeys) {
+
+        final String separator = (rows == 0 ? "" : ",");
+
+        for (int i = 0; i < headers.size(); i++) {
+            cells.get(i).append(separator).append('"').append(StringEscapeUtils.escapeJson(rowCells[i].trim())).append('"');
+            if (keys.get(i) != null) {
+                keys.get(i).append(separator).append(formatKey(rowKeys[i]));
+            }
+        }
+
+        if (isFailure) {
+            failures.append(failures.length() == 0 ? "" : ",").append(rows);
+        }
+
+        rows++;
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    void writeTo(StringBuffer html) {
+
+        html.append("\n<div id=\"").append(id).append("\" class=\"virtual-table\" style=\"width:95%; max-height:600px; overflow:auto\">\n");
+        html.append("<table width=\"100%\" cellspacing=\"2\" cellpadding=\"5\" border=\"0\" class=\"details\">\n");
+        html.append("<thead><tr>");
+        for (String header : headers) {
+            html.append("<th style=\"cursor:pointer\">").append(header).append("</th>");
+        }
+        html.append("</tr></thead>\n");
+        html.append("<tbody></tbody>\n");
+        html.append("</table>\n");
+        html.append("</div>\n");
+
+        html.append("<script type=\"application/json\" id=\"").append(id).append("-data\">");
+        html.append("{\"failures\":[").append(failures).append("],\"cells\":[");
+        for (int i = 0; i < cells.size(); i++) {
+            html.append(i == 0 ? "[" : ",[").append(cells.get(i)).append("]");
+        }
+        html.append("],\"keys\":[");
+        for (int i = 0; i < keys.size(); i++) {
+            html.append(i == 0 ? "" : ",").append(keys.get(i) == null ? "null" : "[" + keys.get(i) + "]");
+        }
+        html.append("]}</script>\n");
+    }
+
+    /**
+     * @return the script rendering all virtual tables of a report - appended once after the tables
+     */
+    static String getScript() {
+        return "<script type=\"text/javascript\">\n" +
+                "(function () {\n" +
+                "  function init(container) {\n" +
+                "    var data = JSON.parse(document.getElementById(container.id + '-data').textContent);\n" +
+                "    var tbody = container.getElementsByTagName('tbody')[0];\n" +
+                "    var headers = container.getElementsByTagName('th');\n" +
+                "    var columns = data.cells.length;\n" +
+                "    var rows = data.cells[0].length;\n" +
+                "    var failures = {};\n" +
+                "    var order = [];\n" +
+                "    var rowHeight = 0;\n" +
+                "    var sortColumn = -1;\n" +
+                "    var descending = false;\n" +
+                "    var pending = false;\n" +
+                "    var i;\n" +
+                "    for (i = 0; i < rows; i++) { order.push(i); }\n" +
+                "    for (i = 0; i < data.failures.length; i++) { failures[data.failures[i]] = true; }\n" +
+                "    function createRow(index) {\n" +
+                "      var tr = document.createElement('tr');\n" +
+                "      tr.vAlign = 'top';\n" +
+                "      tr.className = failures[index] ? 'Failure' : '';\n" +
+                "      for (var c = 0; c < columns; c++) {\n" +
+                "        var td = document.createElement('td');\n" +
+                "        if (data.keys[c]) { td.align = 'right'; }\n" +
+                "        td.innerHTML = data.cells[c][index];\n" +
+                "        tr.appendChild(td);\n" +
+                "      }\n" +
+                "      return tr;\n" +
+                "    }\n" +
+                "    function createSpacer(height) {\n" +
+                "      var tr = document.createElement('tr');\n" +
+                "      var td = document.createElement('td');\n" +
+                "      td.colSpan = columns;\n" +
+                "      td.style.cssText = 'padding:0; background:none; height:' + height + 'px';\n" +
+                "      tr.appendChild(td);\n" +
+                "      return tr;\n" +
+                "    }\n" +
+                "    function render() {\n" +
+                "      pending = false;\n" +
+                "      if (rowHeight === 0) {\n" +
+                "        tbody.appendChild(createRow(order[0]));\n" +
+                "        tbody.appendChild(createRow(order[Math.min(1, rows - 1)]));\n" +
+                "        rowHeight = Math.max(tbody.rows[1].offsetTop - tbody.rows[0].offsetTop, 1);\n" +
+                "      }\n" +
+                "      var first = Math.max(0, Math.floor(container.scrollTop / rowHeight) - 10);\n" +
+                "      var last = Math.min(rows, first + Math.ceil(container.clientHeight / rowHeight) + 20);\n" +
+                "      var fragment = document.createDocumentFragment();\n" +
+                "      if (first > 0) { fragment.appendChild(createSpacer(first * rowHeight)); }\n" +
+                "      for (var r = first; r < last; r++) { fragment.appendChild(createRow(order[r])); }\n" +
+                "      if (last < rows) { fragment.appendChild(createSpacer((rows - last) * rowHeight)); }\n" +
+                "      tbody.innerHTML = '';\n" +
+                "      tbody.appendChild(fragment);\n" +
+                "    }\n" +
+                "    function sort(column) {\n" +
+                "      descending = (column === sortColumn) && !descending;\n" +
+                "      sortColumn = column;\n" +
+                "      var keys = data.keys[column] || data.cells[column];\n" +
+                "      order.sort(function (a, b) {\n" +
+                "        var x = keys[a] === null ? -Infinity : keys[a];\n" +
+                "        var y = keys[b] === null ? -Infinity : keys[b];\n" +
+                "        if (x === y) { return a - b; }\n" +
+                "        return (x < y) !== descending ? -1 : 1;\n" +
+                "      });\n" +
+                "      render();\n" +
+                "    }\n" +
+                "    for (i = 0; i < headers.length; i++) {\n" +
+                "      headers[i].style.position = 'sticky';\n" +
+                "      headers[i].style.top = '0';\n" +
+                "      headers[i].onclick = (function (column) { return function () { sort(column); }; })(i);\n" +
+                "    }\n" +
+                "    container.onscroll = function () {\n" +
+                "      if (!pending) { pending = true; window.requestAnimationFrame(render); }\n" +
+                "    };\n" +
+                "    if (rows > 0) { render(); }\n" +
+                "  }\n" +
+                "  var containers = document.getElementsByClassName('virtual-table');\n" +
+                "  for (var i = 0; i < containers.length; i++) { init(containers[i]); }\n" +
+                "})();\n" +
+                "</script>\n";
+    }
+
+    private static String formatKey(double key) {
+        if (Double.isNaN(key) || Double.isInfinite(key)) {
+            return "null";
+        }
+        return key == Math.rint(key) && Math.abs(key) < 1.0E15 ? Long.toString((long) key) : Double.toString(key);
+    }
+}
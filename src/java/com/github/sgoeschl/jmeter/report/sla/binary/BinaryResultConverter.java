@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.binary;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportParser;
+import com.github.sgoeschl.jmeter.report.sla.config.SlaConfiguration;
+import com.github.sgoeschl.jmeter.report.sla.element.SampleElement;
+import com.github.sgoeschl.jmeter.report.sla.parser.SampleSink;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Converts JMeter JTL and CSV files into the {@link BinaryResultFormat} by
+ * re-using the existing parsers.
+ */
+public class BinaryResultConverter {
+
+    private BinaryResultConverter() {
+    }
+
+    /**
+     * @param sourceFiles        the JTL and CSV files or directories
+     * @param targetFile         the binary result file
+     * @param slaConfiguration   the configuration providing the CSV timestamp format
+     * @return the number of converted samples
+     * @throws IOException writing the binary result file failed
+     */
+    public static long convert(List<File> sourceFiles, File targetFile, SlaConfiguration slaConfiguration) throws IOException {
+        final JMeterReportParser parser = new JMeterReportParser(new JMeterReportModel(slaConfiguration));
+        parser.setSourceFiles(sourceFiles);
+
+        if (parser.getSourceFiles().isEmpty()) {
+            throw new RuntimeException("No source files defined");
+        }
+
+        try (BinaryResultWriter writer = new BinaryResultWriter(targetFile)) {
+            final ConvertingSink convertingSink = new ConvertingSink(writer);
+            for (File sourceFile : parser.getSourceFiles()) {
+                try (InputStream is = new FileInputStream(sourceFile)) {
+                    parser.parse(sourceFile.getName(), is, convertingSink);
+                } catch (XMLStreamException e) {
+                    throw new IOException("Failed to parse " + sourceFile.getAbsolutePath(), e);
+                }
+            }
+            return writer.getSampleCount();
+        }
+    }
+
+    /**
+     * Passes the parsed samples to the writer instead of aggregating them.
+     */
+    private static final class ConvertingSink implements SampleSink {
+
+        private final BinaryResultWriter writer;
+
+        ConvertingSink(BinaryResultWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void addSample(SampleElement sampleElement) {
+            try {
+                writer.addSample(sampleElement);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to write the binary result file", e);
+            }
+        }
+    }
+}
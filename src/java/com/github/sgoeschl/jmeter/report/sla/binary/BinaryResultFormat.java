@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary columnar result format storing samples in blocks of primitive columns.
+ *
+ * <pre>
+ * file   := magic("JTLC") version(int) block* end(int 0)
+ * block  := rows(int) length(int) payload(byte[length])
+ * payload := new labels, new messages (count + strings)
+ *            timestamps (zig-zag delta varints), elapsed times (varints), received bytes (varints),
+ *            connect times and latencies (varints plus one, zero if not saved), sent bytes (varints),
+ *            label ids (varints), success bits, error code and error message ids of failed samples,
+ *            response code, thread name and host name ids (varints),
+ *            active threads of all thread groups and of the thread group (varints),
+ *            sub-samples of each sample
+ * subs   := count(varint) sub*
+ * sub    := label id, timestamp relative to the top-level sample (zig-zag varint),
+ *           elapsed time, success (one or zero) (varints) subs
+ * </pre>
+ * Labels and all other strings, e.g. messages and thread names, are stored once in two dictionaries
+ * growing with each block and referenced by their ids starting with one, i.e. a sample mostly
+ * takes less than fifteen bytes.
+ */
+public final class BinaryResultFormat {
+
+    public static final String FILE_EXTENSION = ".jtlc";
+
+    static final byte[] MAGIC = { 'J', 'T', 'L', 'C' };
+    static final int VERSION = 1;
+    static final int BLOCK_SIZE = 4096;
+
+    // the dictionary id of a null string
+    static final int NULL_ID = 0;
+
+    private BinaryResultFormat() {
+    }
+
+    /**
+     * @param fileName the name of the file
+     * @return true if the file uses the binary result format
+     */
+    public static boolean isBinaryResultFile(String fileName) {
+        return fileName.toLowerCase().endsWith(FILE_EXTENSION);
+    }
+
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static void writeString(OutputStream out, String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int readInt(InputStream in) throws IOException {
+        final int b1 = in.read();
+        final int b2 = in.read();
+        final int b3 = in.read();
+        final int b4 = in.read();
+        if ((b1 | b2 | b3 | b4) < 0) {
+            throw new IOException("Unexpected end of the binary result file");
+        }
+        return (b1 << 24) | (b2 << 16) | (b3 << 8) | b4;
+    }
+
+    static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    /**
+     * Decodes the payload of a block without any stream overhead.
+     */
+    static final class BlockDecoder {
+
+        private final byte[] buffer;
+        private int position;
+
+        BlockDecoder(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer[position++];
+                result |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return result;
+        }
+
+        int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        String readString() {
+            final int length = readVarInt();
+            final String result = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return result;
+        }
+
+        byte readByte() {
+            return buffer[position++];
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.binary;
+
+import com.github.sgoeschl.jmeter.report.sla.element.SampleElement;
+import com.github.sgoeschl.jmeter.report.sla.parser.SampleSink;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static com.github.sgoeschl.jmeter.report.sla.binary.BinaryResultFormat.BLOCK_SIZE;
+import static com.github.sgoeschl.jmeter.report.sla.binary.BinaryResultFormat.readInt;
+import static com.github.sgoeschl.jmeter.report.sla.binary.BinaryResultFormat.unZigZag;
+
+/**
+ * Reads a file using the {@link BinaryResultFormat} into a sample sink, e.g. the model. Each
+ * block is read at once and its columns are decoded in bulk before passing on the samples.
+ */
+public class BinaryResultReader {
+
+    private final SampleSink sampleSink;
+
+    // the columns of the current block
+    private final long[] timestamps = new long[BLOCK_SIZE];
+    private final long[] elapsedTimes = new long[BLOCK_SIZE];
+    private final long[] bytesReceived = new long[BLOCK_SIZE];
+    private final long[] bytesSent = new long[BLOCK_SIZE];
+    private final long[] connectTimes = new long[BLOCK_SIZE];
+    private final long[] latencies = new long[BLOCK_SIZE];
+    private final int[] labelIds = new int[BLOCK_SIZE];
+    private final boolean[] successes = new boolean[BLOCK_SIZE];
+    private final SampleElement[] sampleElements = new SampleElement[BLOCK_SIZE];
+
+    // the dictionaries using the null string for the id zero
+    private final List<String> labels = new ArrayList<>();
+    private final List<String> messages = new ArrayList<>();
+
+    public BinaryResultReader(SampleSink sampleSink) {
+        this.sampleSink = sampleSink;
+    }
+
+    /**
+     * @param is the input stream of the binary result file
+     * @throws IOException reading or decoding the file failed
+     */
+    public void parse(InputStream is) throws IOException {
+
+        final InputStream in = new BufferedInputStream(is, 1 << 16);
+        final byte[] magic = new byte[BinaryResultFormat.MAGIC.length];
+
+        if (in.read(magic) != magic.length || !Arrays.equals(magic, BinaryResultFormat.MAGIC)) {
+            throw new IOException("Not a binary result file");
+        }
+
+        final int version = readInt(in);
+        if (version != BinaryResultFormat.VERSION) {
+            throw new IOException("Unsupported version of the binary result file: " + version);
+        }
+
+        labels.clear();
+        labels.add(null);
+        messages.clear();
+        messages.add(null);
+
+        int rows;
+        while ((rows = readInt(in)) > 0) {
+            final byte[] payload = new byte[readInt(in)];
+            readFully(in, payload);
+            parseBlock(rows, new BinaryResultFormat.BlockDecoder(payload));
+        }
+    }
+
+    private void parseBlock(int rows, BinaryResultFormat.BlockDecoder decoder) {
+
+        readStrings(decoder, labels);
+        readStrings(decoder, messages);
+
+        long timestamp = 0;
+        for (int i = 0; i < rows; i++) {
+            timestamp += unZigZag(decoder.readVarLong());
+            timestamps[i] = timestamp;
+        }
+        for (int i = 0; i < rows; i++) {
+            elapsedTimes[i] = decoder.readVarLong();
+        }
+        for (int i = 0; i < rows; i++) {
+            bytesReceived[i] = decoder.readVarLong();
+        }
+        for (int i = 0; i < rows; i++) {
+            connectTimes[i] = decoder.readVarLong() - 1;
+        }
+        for (int i = 0; i < rows; i++) {
+            latencies[i] = decoder.readVarLong() - 1;
+        }
+        for (int i = 0; i < rows; i++) {
+            bytesSent[i] = decoder.readVarLong();
+        }
+        for (int i = 0; i < rows; i++) {
+            labelIds[i] = decoder.readVarInt();
+        }
+        for (int i = 0; i < rows; i += 8) {
+            final int bits = decoder.readByte();
+            for (int j = 0; j < 8 && i + j < rows; j++) {
+                successes[i + j] = (bits & (1 << j)) != 0;
+            }
+        }
+
+        for (int i = 0; i < rows; i++) {
+            final SampleElement sampleElement = new SampleElement();
+            sampleElements[i] = sampleElement;
+            sampleElement.setLabel(labels.get(labelIds[i]));
+            sampleElement.setTimestamp(new Date(timestamps[i]));
+            sampleElement.setDuration(elapsedTimes[i]);
+            sampleElement.setBytesReceived(bytesReceived[i]);
+            sampleElement.setBytesSent(bytesSent[i]);
+            sampleElement.setConnectTime(connectTimes[i]);
+            sampleElement.setLatency(latencies[i]);
+            sampleElement.setSuccess(successes[i]);
+            if (!successes[i]) {
+                final String errorCode = messages.get(decoder.readVarInt());
+                final String errorMessage = messages.get(decoder.readVarInt());
+                sampleElement.setFailure(errorCode, errorMessage);
+            }
+        }
+        for (int i = 0; i < rows; i++) {
+            sampleElements[i].setResultCode(messages.get(decoder.readVarInt()));
+        }
+        for (int i = 0; i < rows; i++) {
+            sampleElements[i].setThreadName(messages.get(decoder.readVarInt()));
+        }
+        for (int i = 0; i < rows; i++) {
+            sampleElements[i].setHostname(messages.get(decoder.readVarInt()));
+        }
+        for (int i = 0; i < rows; i++) {
+            sampleElements[i].setAllThreads(decoder.readVarInt());
+        }
+        for (int i = 0; i < rows; i++) {
+            sampleElements[i].setGroupThreads(decoder.readVarInt());
+        }
+        for (int i = 0; i < rows; i++) {
+            readSubSamples(decoder, sampleElements[i], timestamps[i]);
+        }
+
+        for (int i = 0; i < rows; i++) {
+            sampleSink.addSample(sampleElements[i]);
+            sampleElements[i] = null;
+        }
+    }
+
+    /**
+     * The sub-samples are executed by the thread of their top-level sample.
+     */
+    private void readSubSamples(BinaryResultFormat.BlockDecoder decoder, SampleElement parentElement, long timestamp) {
+        final int count = decoder.readVarInt();
+        for (int i = 0; i < count; i++) {
+            final SampleElement sampleElement = new SampleElement();
+            sampleElement.setLabel(labels.get(decoder.readVarInt()));
+            sampleElement.setTimestamp(new Date(timestamp + unZigZag(decoder.readVarLong())));
+            sampleElement.setDuration(decoder.readVarLong());
+            sampleElement.setSuccess(decoder.readVarInt() != 0);
+            sampleElement.setThreadName(parentElement.getThreadName());
+            readSubSamples(decoder, sampleElement, timestamp);
+            parentElement.addSubSample(sampleElement);
+        }
+    }
+
+    private static void readStrings(BinaryResultFormat.BlockDecoder decoder, List<String> dictionary) {
+        final int count = decoder.readVarInt();
+        for (int i = 0; i < count; i++) {
+            dictionary.add(decoder.readString());
+        }
+    }
+
+    private static void readFully(InputStream in, byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            final int count = in.read(buffer, offset, buffer.length - offset);
+            if (count < 0) {
+                throw new IOException("Unexpected end of the binary result file");
+            }
+            offset += count;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.binary;
+
+import com.github.sgoeschl.jmeter.report.sla.element.SampleElement;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.sgoeschl.jmeter.report.sla.binary.BinaryResultFormat.BLOCK_SIZE;
+import static com.github.sgoeschl.jmeter.report.sla.binary.BinaryResultFormat.NULL_ID;
+import static com.github.sgoeschl.jmeter.report.sla.binary.BinaryResultFormat.writeInt;
+import static com.github.sgoeschl.jmeter.report.sla.binary.BinaryResultFormat.writeString;
+import static com.github.sgoeschl.jmeter.report.sla.binary.BinaryResultFormat.writeVarLong;
+import static com.github.sgoeschl.jmeter.report.sla.binary.BinaryResultFormat.zigZag;
+
+/**
+ * Writes samples using the {@link BinaryResultFormat} - the samples are buffered
+ * column by column and written as a block once {@link BinaryResultFormat#BLOCK_SIZE}
+ * samples are collected.
+ */
+public class BinaryResultWriter implements Closeable {
+
+    private final OutputStream out;
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream(BLOCK_SIZE * 8);
+    private final ByteArrayOutputStream subSamples = new ByteArrayOutputStream();
+
+    // the columns of the current block
+    private final long[] timestamps = new long[BLOCK_SIZE];
+    private final long[] elapsedTimes = new long[BLOCK_SIZE];
+    private final long[] bytesReceived = new long[BLOCK_SIZE];
+    private final long[] bytesSent = new long[BLOCK_SIZE];
+    private final long[] connectTimes = new long[BLOCK_SIZE];
+    private final long[] latencies = new long[BLOCK_SIZE];
+    private final int[] labelIds = new int[BLOCK_SIZE];
+    private final boolean[] successes = new boolean[BLOCK_SIZE];
+    private final int[] errorCodeIds = new int[BLOCK_SIZE];
+    private final int[] errorMessageIds = new int[BLOCK_SIZE];
+    private final int[] responseCodeIds = new int[BLOCK_SIZE];
+    private final int[] threadNameIds = new int[BLOCK_SIZE];
+    private final int[] hostnameIds = new int[BLOCK_SIZE];
+    private final int[] allThreads = new int[BLOCK_SIZE];
+    private final int[] groupThreads = new int[BLOCK_SIZE];
+    private int rows;
+
+    // the string dictionaries of the labels and all other strings
+    private final Map<String, Integer> labelDictionary = new HashMap<>();
+    private final Map<String, Integer> messageDictionary = new HashMap<>();
+    private final List<String> newLabels = new ArrayList<>();
+    private final List<String> newMessages = new ArrayList<>();
+    private long sampleCount;
+
+    public BinaryResultWriter(File file) throws IOException {
+        this.out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+        out.write(BinaryResultFormat.MAGIC);
+        writeInt(out, BinaryResultFormat.VERSION);
+    }
+
+    public void addSuccess(String label, long timestamp, long duration, long bytes) throws IOException {
+        final SampleElement sampleElement = createSampleElement(label, timestamp, duration, true);
+        sampleElement.setBytesReceived(bytes);
+        addSample(sampleElement);
+    }
+
+    public void addFailure(String label, long timestamp, long duration, String errorCode, String errorMessage) throws IOException {
+        final SampleElement sampleElement = createSampleElement(label, timestamp, duration, false);
+        sampleElement.setFailure(errorCode, errorMessage);
+        addSample(sampleElement);
+    }
+
+    /**
+     * @param sampleElement the top-level sample
+     * @throws IOException writing the block failed
+     */
+    public void addSample(SampleElement sampleElement) throws IOException {
+        final boolean success = sampleElement.isSuccess();
+        timestamps[rows] = sampleElement.getTimestamp().getTime();
+        elapsedTimes[rows] = sampleElement.getDuration();
+        bytesReceived[rows] = sampleElement.getBytesReceived();
+        bytesSent[rows] = sampleElement.getBytesSent();
+        connectTimes[rows] = sampleElement.getConnectTime();
+        latencies[rows] = sampleElement.getLatency();
+        labelIds[rows] = getId(sampleElement.getLabel(), labelDictionary, newLabels);
+        successes[rows] = success;
+        errorCodeIds[rows] = (success ? NULL_ID : getId(sampleElement.getFailureCode(), messageDictionary, newMessages));
+        errorMessageIds[rows] = (success ? NULL_ID : getId(sampleElement.getFailureMessage(), messageDictionary, newMessages));
+        responseCodeIds[rows] = getId(sampleElement.getResultCode(), messageDictionary, newMessages);
+        threadNameIds[rows] = getId(sampleElement.getThreadName(), messageDictionary, newMessages);
+        hostnameIds[rows] = getId(sampleElement.getHostname(), messageDictionary, newMessages);
+        allThreads[rows] = sampleElement.getAllThreads();
+        groupThreads[rows] = sampleElement.getGroupThreads();
+        writeSubSamples(sampleElement, timestamps[rows]);
+        sampleCount++;
+
+        if (++rows == BLOCK_SIZE) {
+            flushBlock();
+        }
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBlock();
+            writeInt(out, 0);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+
+        if (rows == 0) {
+            return;
+        }
+
+        payload.reset();
+        writeStrings(newLabels);
+        writeStrings(newMessages);
+
+        long previousTimestamp = 0;
+        for (int i = 0; i < rows; i++) {
+            writeVarLong(payload, zigZag(timestamps[i] - previousTimestamp));
+            previousTimestamp = timestamps[i];
+        }
+        for (int i = 0; i < rows; i++) {
+            writeVarLong(payload, Math.max(elapsedTimes[i], 0));
+        }
+        for (int i = 0; i < rows; i++) {
+            writeVarLong(payload, Math.max(bytesReceived[i], 0));
+        }
+        for (int i = 0; i < rows; i++) {
+            writeVarLong(payload, Math.max(connectTimes[i], -1) + 1);
+        }
+        for (int i = 0; i < rows; i++) {
+            writeVarLong(payload, Math.max(latencies[i], -1) + 1);
+        }
+        for (int i = 0; i < rows; i++) {
+            writeVarLong(payload, Math.max(bytesSent[i], 0));
+        }
+        for (int i = 0; i < rows; i++) {
+            writeVarLong(payload, labelIds[i]);
+        }
+        for (int i = 0; i < rows; i += 8) {
+            int bits = 0;
+            for (int j = 0; j < 8 && i + j < rows; j++) {
+                bits |= (successes[i + j] ? 1 << j : 0);
+            }
+            payload.write(bits);
+        }
+        for (int i = 0; i < rows; i++) {
+            if (!successes[i]) {
+                writeVarLong(payload, errorCodeIds[i]);
+                writeVarLong(payload, errorMessageIds[i]);
+            }
+        }
+        for (int i = 0; i < rows; i++) {
+            writeVarLong(payload, responseCodeIds[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            writeVarLong(payload, threadNameIds[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            writeVarLong(payload, hostnameIds[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            writeVarLong(payload, Math.max(allThreads[i], 0));
+        }
+        for (int i = 0; i < rows; i++) {
+            writeVarLong(payload, Math.max(groupThreads[i], 0));
+        }
+        subSamples.writeTo(payload);
+
+        writeInt(out, rows);
+        writeInt(out, payload.size());
+        payload.writeTo(out);
+
+        rows = 0;
+        subSamples.reset();
+        newLabels.clear();
+        newMessages.clear();
+    }
+
+    /**
+     * The sub-samples, e.g. of a transaction controller, are written depth-first
+     * once the sample is added since they are rare compared to the samples.
+     */
+    private void writeSubSamples(SampleElement parentElement, long timestamp) throws IOException {
+        final List<SampleElement> elements = parentElement.getSubSamples();
+        writeVarLong(subSamples, elements.size());
+        for (SampleElement element : elements) {
+            writeVarLong(subSamples, getId(element.getLabel(), labelDictionary, newLabels));
+            writeVarLong(subSamples, zigZag(element.getTimestamp().getTime() - timestamp));
+            writeVarLong(subSamples, Math.max(element.getDuration(), 0));
+            writeVarLong(subSamples, element.isSuccess() ? 1 : 0);
+            writeSubSamples(element, timestamp);
+        }
+    }
+
+    private void writeStrings(List<String> strings) throws IOException {
+        writeVarLong(payload, strings.size());
+        for (String value : strings) {
+            writeString(payload, value);
+        }
+    }
+
+    private static SampleElement createSampleElement(String label, long timestamp, long duration, boolean success) {
+        final SampleElement result = new SampleElement();
+        result.setLabel(label);
+        result.setTimestamp(new Date(timestamp));
+        result.setDuration(duration);
+        result.setSuccess(success);
+        return result;
+    }
+
+    private static int getId(String value, Map<String, Integer> dictionary, List<String> newValues) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        Integer result = dictionary.get(value);
+        if (result == null) {
+            result = dictionary.size() + 1;
+            dictionary.put(value, result);
+            newValues.add(value);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.checkpoint;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Saves checkpoints on a background thread so the parser thread only takes the snapshot.
+ * When saving falls behind the parser a pending checkpoint is replaced by the newer one,
+ * i.e. at most one checkpoint is waiting to be saved.
+ */
+public class CheckpointWriter implements Closeable {
+
+    private final File file;
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final AtomicReference<ParserCheckpoint> pendingCheckpoint = new AtomicReference<>();
+
+    /**
+     * @param file the checkpoint file
+     */
+    public CheckpointWriter(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Saves the checkpoint in the background.
+     *
+     * @param checkpoint the checkpoint
+     */
+    public void write(ParserCheckpoint checkpoint) {
+        if (pendingCheckpoint.getAndSet(checkpoint) == null) {
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    save(pendingCheckpoint.getAndSet(null));
+                }
+            });
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Waits until the last checkpoint is saved.
+     */
+    @Override
+    public void close() {
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while saving the checkpoint " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private void save(ParserCheckpoint checkpoint) {
+        if (checkpoint == null) {
+            return;
+        }
+        try {
+            checkpoint.save(file);
+        } catch (IOException e) {
+            // parsing continues since a later checkpoint might succeed
+            System.err.println("Failed to save the checkpoint " + file.getAbsolutePath() + " : " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.checkpoint;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.sgoeschl.jmeter.report.sla.utils.DataStrings.readString;
+import static com.github.sgoeschl.jmeter.report.sla.utils.DataStrings.writeString;
+
+/**
+ * A snapshot of a running parser consisting of the aggregated state of the model and
+ * the number of parsed bytes of each source file so parsing can be resumed after the
+ * process was killed or failed.
+ */
+public class ParserCheckpoint {
+
+    private static final int MAGIC = 0x4A534350; // "JSCP"
+    private static final int VERSION = 1;
+
+    private final List<String> sourceFiles;
+    private final long[] lengths;
+    private final long[] offsets;
+    private final byte[] modelState;
+
+    /**
+     * @param sourceFiles the absolute paths of the source files
+     * @param lengths     the lengths of the source files
+     * @param offsets     the parsed bytes of the source files, i.e. the file length for completely parsed files
+     * @param modelState  the state written by {@link JMeterReportModel#writeTo(java.io.DataOutput)}
+     */
+    public ParserCheckpoint(List<String> sourceFiles, long[] lengths, long[] offsets, byte[] modelState) {
+        this.sourceFiles = sourceFiles;
+        this.lengths = lengths;
+        this.offsets = offsets;
+        this.modelState = modelState;
+    }
+
+    /**
+     * Takes a snapshot of the model on the parser thread so it can be written in the background.
+     *
+     * @param sourceFiles the source files
+     * @param lengths     the lengths of the source files
+     * @param offsets     the parsed bytes of the source files
+     * @param model       the model
+     * @return the checkpoint
+     * @throws IOException serializing the model failed
+     */
+    public static ParserCheckpoint of(List<File> sourceFiles, long[] lengths, long[] offsets, JMeterReportModel model) throws IOException {
+        final List<String> paths = new ArrayList<>();
+        for (File sourceFile : sourceFiles) {
+            paths.add(sourceFile.getAbsolutePath());
+        }
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bos)) {
+            model.writeTo(out);
+        }
+        return new ParserCheckpoint(paths, lengths.clone(), offsets.clone(), bos.toByteArray());
+    }
+
+    public static ParserCheckpoint load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a parser checkpoint file: " + file.getAbsolutePath());
+            }
+            final int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version of the parser checkpoint file: " + version);
+            }
+            final int size = in.readInt();
+            final List<String> sourceFiles = new ArrayList<>(size);
+            final long[] lengths = new long[size];
+            final long[] offsets = new long[size];
+            for (int i = 0; i < size; i++) {
+                sourceFiles.add(readString(in));
+                lengths[i] = in.readLong();
+                offsets[i] = in.readLong();
+            }
+            final byte[] modelState = new byte[in.readInt()];
+            in.readFully(modelState);
+            return new ParserCheckpoint(sourceFiles, lengths, offsets, modelState);
+        }
+    }
+
+    /**
+     * Saves the checkpoint to a temporary file being renamed afterwards so a
+     * process killed while saving keeps the previous checkpoint.
+     *
+     * @param file the checkpoint file
+     * @throws IOException writing failed
+     */
+    public void save(File file) throws IOException {
+        final File tempFile = new File(file.getAbsolutePath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sourceFiles.size());
+            for (int i = 0; i < sourceFiles.size(); i++) {
+                writeString(out, sourceFiles.get(i));
+                out.writeLong(lengths[i]);
+                out.writeLong(offsets[i]);
+            }
+            out.writeInt(modelState.length);
+            out.write(modelState);
+        }
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Checks that the checkpoint was taken for the same and unchanged source files.
+     *
+     * @param sourceFiles the source files to be parsed
+     * @param lengths     the current lengths of the source files
+     */
+    public void verify(List<File> sourceFiles, long[] lengths) {
+        if (sourceFiles.size() != this.sourceFiles.size()) {
+            throw new IllegalArgumentException("The checkpoint was taken for " + this.sourceFiles.size() + " source files but found " + sourceFiles.size());
+        }
+        for (int i = 0; i < sourceFiles.size(); i++) {
+            final String path = sourceFiles.get(i).getAbsolutePath();
+            if (!path.equals(this.sourceFiles.get(i))) {
+                throw new IllegalArgumentException("The checkpoint was taken for the source file " + this.sourceFiles.get(i) + " instead of " + path);
+            }
+            if (lengths[i] != this.lengths[i]) {
+                throw new IllegalArgumentException("The source file changed since the checkpoint was taken: " + path);
+            }
+        }
+    }
+
+    /**
+     * Adds the aggregated state of the checkpoint to an empty model.
+     *
+     * @param model the model
+     * @throws IOException reading the state failed
+     */
+    public void restore(JMeterReportModel model) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(modelState))) {
+            model.readFrom(in);
+        }
+    }
+
+    public List<String> getSourceFiles() {
+        return sourceFiles;
+    }
+
+    /**
+     * @return the parsed bytes of each source file
+     */
+    public long[] getOffsets() {
+        return offsets.clone();
+    }
+
+    /**
+     * @return the parsed bytes of all source files
+     */
+    public long getParsedBytes() {
+        long result = 0;
+        for (long offset : offsets) {
+            result += offset;
+        }
+        return result;
+    }
+
+    /**
+     * @return the bytes of all source files
+     */
+    public long getTotalBytes() {
+        long result = 0;
+        for (long length : lengths) {
+            result += length;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.compare;
+
+/**
+ * The thresholds turning the difference between a baseline and the current run into a regression.
+ */
+public class ComparisonThresholds {
+
+    private final double avgIncrease;
+    private final double p95Increase;
+    private final double errorRateIncrease;
+    private final double throughputDecrease;
+
+    /**
+     * @param avgIncrease        the tolerated increase of the average response time in percent
+     * @param p95Increase        the tolerated increase of the 95th percentile in percent
+     * @param errorRateIncrease  the tolerated increase of the error rate in percentage points
+     * @param throughputDecrease the tolerated decrease of the throughput in percent
+     */
+    public ComparisonThresholds(double avgIncrease, double p95Increase, double errorRateIncrease, double throughputDecrease) {
+        this.avgIncrease = avgIncrease;
+        this.p95Increase = p95Increase;
+        this.errorRateIncrease = errorRateIncrease;
+        this.throughputDecrease = throughputDecrease;
+    }
+
+    public double getAvgIncrease() {
+        return avgIncrease;
+    }
+
+    public double getP95Increase() {
+        return p95Increase;
+    }
+
+    public double getErrorRateIncrease() {
+        return errorRateIncrease;
+    }
+
+    public double getThroughputDecrease() {
+        return throughputDecrease;
+    }
+}
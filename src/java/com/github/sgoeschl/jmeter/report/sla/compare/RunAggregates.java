@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.compare;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.stats.SampleStatistics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.github.sgoeschl.jmeter.report.sla.utils.DataStrings.readString;
+import static com.github.sgoeschl.jmeter.report.sla.utils.DataStrings.writeString;
+
+/**
+ * The per-label statistics of a test run which can be stored and loaded
+ * again to compare runs without re-parsing their JMeter results.
+ */
+public class RunAggregates {
+
+    public static final String FILE_EXTENSION = ".jsla";
+
+    private static final int MAGIC = 0x4A534C41; // "JSLA"
+    private static final int VERSION = 1;
+
+    private final String name;
+    private final Map<String, SampleStatistics> statistics;
+    private final SampleStatistics summaryStatistics;
+
+    public RunAggregates(String name, Map<String, SampleStatistics> statistics, SampleStatistics summaryStatistics) {
+        this.name = name;
+        this.statistics = statistics;
+        this.summaryStatistics = summaryStatistics;
+    }
+
+    /**
+     * @param name  the name of the run, e.g. the source file
+     * @param model the parsed model
+     * @return the aggregates of the model
+     */
+    public static RunAggregates of(String name, JMeterReportModel model) {
+        final Map<String, SampleStatistics> statistics = new HashMap<>();
+        for (String label : model.getLabels()) {
+            statistics.put(label, model.getStatistics(label));
+        }
+        return new RunAggregates(name, statistics, model.getSummaryStatistics());
+    }
+
+    /**
+     * @param fileName the name of a file
+     * @return true if the file contains stored aggregates
+     */
+    public static boolean isAggregatesFile(String fileName) {
+        return fileName.toLowerCase().endsWith(FILE_EXTENSION);
+    }
+
+    public static RunAggregates load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a stored aggregates file: " + file.getAbsolutePath());
+            }
+            final int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version of the stored aggregates file: " + version);
+            }
+            final String name = readString(in);
+            final int size = in.readInt();
+            final Map<String, SampleStatistics> statistics = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                statistics.put(readString(in), SampleStatistics.readFrom(in));
+            }
+            return new RunAggregates(name, statistics, SampleStatistics.readFrom(in));
+        }
+    }
+
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, name);
+            out.writeInt(statistics.size());
+            for (Map.Entry<String, SampleStatistics> entry : statistics.entrySet()) {
+                writeString(out, entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+            summaryStatistics.writeTo(out);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, SampleStatistics> getStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    public SampleStatistics getStatistics(String label) {
+        return statistics.get(label);
+    }
+
+    public SampleStatistics getSummaryStatistics() {
+        return summaryStatistics;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.compare;
+
+import com.github.sgoeschl.jmeter.report.sla.stats.SampleStatistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the current run with a baseline by joining their statistics by label.
+ */
+public class RunComparison {
+
+    private static final double PERCENTILE = 95.0;
+
+    /**
+     * The statistics of a label in both runs - either side is null if the label is missing.
+     */
+    public static final class Row {
+
+        private final String label;
+        private final SampleStatistics baseline;
+        private final SampleStatistics current;
+        private final ComparisonThresholds thresholds;
+
+        Row(String label, SampleStatistics baseline, SampleStatistics current, ComparisonThresholds thresholds) {
+            this.label = label;
+            this.baseline = baseline;
+            this.current = current;
+            this.thresholds = thresholds;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public SampleStatistics getBaseline() {
+            return baseline;
+        }
+
+        public SampleStatistics getCurrent() {
+            return current;
+        }
+
+        public boolean isComparable() {
+            return baseline != null && current != null;
+        }
+
+        /**
+         * @return the change of the average response time in percent
+         */
+        public double getAvgDelta() {
+            return relativeDelta(baseline.getAverageTime(), current.getAverageTime());
+        }
+
+        /**
+         * @return the change of the 95th percentile in percent
+         */
+        public double getP95Delta() {
+            return relativeDelta(baseline.getPercentile(PERCENTILE), current.getPercentile(PERCENTILE));
+        }
+
+        /**
+         * @return the change of the error rate in percentage points
+         */
+        public double getErrorRateDelta() {
+            return current.getErrorRate() - baseline.getErrorRate();
+        }
+
+        /**
+         * @return the change of the throughput in percent
+         */
+        public double getThroughputDelta() {
+            return relativeDelta(baseline.getThroughput(), current.getThroughput());
+        }
+
+        public boolean isAvgRegression() {
+            return isComparable() && getAvgDelta() > thresholds.getAvgIncrease();
+        }
+
+        public boolean isP95Regression() {
+            return isComparable() && getP95Delta() > thresholds.getP95Increase();
+        }
+
+        public boolean isErrorRateRegression() {
+            return isComparable() && getErrorRateDelta() > thresholds.getErrorRateIncrease();
+        }
+
+        public boolean isThroughputRegression() {
+            return isComparable() && -getThroughputDelta() > thresholds.getThroughputDecrease();
+        }
+
+        public boolean isRegression() {
+            return isAvgRegression() || isP95Regression() || isErrorRateRegression() || isThroughputRegression();
+        }
+
+        private static double relativeDelta(double baseline, double current) {
+            if (baseline == 0.0) {
+                return current == 0.0 ? 0.0 : Double.POSITIVE_INFINITY;
+            }
+            return (current - baseline) * 100.0 / baseline;
+        }
+    }
+
+    private final String baselineName;
+    private final List<Row> rows;
+    private final Row summary;
+
+    private RunComparison(String baselineName, List<Row> rows, Row summary) {
+        this.baselineName = baselineName;
+        this.rows = rows;
+        this.summary = summary;
+    }
+
+    /**
+     * Joins the labels of both runs using the baseline as hash table.
+     *
+     * @param baseline   the baseline run
+     * @param current    the current run
+     * @param thresholds the regression thresholds
+     * @return the comparison ordered by label
+     */
+    public static RunComparison compare(RunAggregates baseline, RunAggregates current, ComparisonThresholds thresholds) {
+
+        final Map<String, SampleStatistics> unmatched = new HashMap<>(baseline.getStatistics());
+        final List<Row> rows = new ArrayList<>(current.getStatistics().size() + unmatched.size());
+
+        for (Map.Entry<String, SampleStatistics> entry : current.getStatistics().entrySet()) {
+            rows.add(new Row(entry.getKey(), unmatched.remove(entry.getKey()), entry.getValue(), thresholds));
+        }
+
+        for (Map.Entry<String, SampleStatistics> entry : unmatched.entrySet()) {
+            rows.add(new Row(entry.getKey(), entry.getValue(), null, thresholds));
+        }
+
+        Collections.sort(rows, new Comparator<Row>() {
+            @Override
+            public int compare(Row o1, Row o2) {
+                return o1.getLabel().compareTo(o2.getLabel());
+            }
+        });
+
+        final Row summary = new Row("Summary", baseline.getSummaryStatistics(), current.getSummaryStatistics(), thresholds);
+        return new RunComparison(baseline.getName(), rows, summary);
+    }
+
+    public String getBaselineName() {
+        return baselineName;
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    public Row getSummary() {
+        return summary;
+    }
+
+    public boolean hasRegressions() {
+        for (Row row : rows) {
+            if (row.isRegression()) {
+                return true;
+            }
+        }
+        return summary.isRegression();
+    }
+}
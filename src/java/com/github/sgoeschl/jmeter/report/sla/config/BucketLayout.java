@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.config;
+
+import java.util.Arrays;
+
+/**
+ * The buckets of a distribution, e.g. "0-10", "10-20", ..., ">20480ms". A bucket
+ * contains all values less than its upper bound while the last bucket collects
+ * the remaining values.
+ *
+ * Resolving the bucket of a value is done in constant time either by shifting
+ * (when the upper bounds double) or by using a pre-computed lookup table.
+ */
+public class BucketLayout {
+
+    private static final int MAX_LOOKUP_TABLE_SIZE = 1 << 16;
+    private static final int MAX_BUCKETS = Byte.MAX_VALUE;
+
+    /**
+     * the upper bounds as configured, e.g. "10,20,40"
+     */
+    private final long[] upperBounds;
+
+    /**
+     * the upper bounds multiplied with the scale, i.e. the raw values being added
+     */
+    private final long[] scaledUpperBounds;
+
+    /**
+     * the scale between raw values and configured values, e.g. 1024 for bytes to KB
+     */
+    private final long scale;
+
+    /**
+     * the unit appended to the header of the last bucket, e.g. "ms" or " KB"
+     */
+    private final String unit;
+
+    /**
+     * the first upper bound if the upper bounds double otherwise zero
+     */
+    private final long doublingBase;
+
+    /**
+     * the resolution of the lookup table
+     */
+    private final long resolution;
+
+    /**
+     * maps "value / resolution" to the bucket index
+     */
+    private final byte[] lookupTable;
+
+    public BucketLayout(long[] upperBounds, long scale, String unit) {
+
+        if (upperBounds == null || upperBounds.length == 0 || upperBounds.length >= MAX_BUCKETS) {
+            throw new IllegalArgumentException("Expecting between 1 and " + (MAX_BUCKETS - 1) + " upper bounds");
+        }
+
+        this.upperBounds = upperBounds.clone();
+        this.scaledUpperBounds = new long[upperBounds.length];
+        this.scale = scale;
+        this.unit = unit;
+
+        for (int i = 0; i < upperBounds.length; i++) {
+            if (upperBounds[i] <= 0 || (i > 0 && upperBounds[i] <= upperBounds[i - 1])) {
+                throw new IllegalArgumentException("Expecting positive and ascending upper bounds: " + Arrays.toString(upperBounds));
+            }
+            this.scaledUpperBounds[i] = upperBounds[i] * scale;
+        }
+
+        this.doublingBase = isDoubling(scaledUpperBounds) ? scaledUpperBounds[0] : 0;
+        this.resolution = gcd(scaledUpperBounds);
+        this.lookupTable = (doublingBase == 0 ? createLookupTable() : null);
+    }
+
+    /**
+     * Parses a comma-separated list of upper bounds, e.g. "10,20,40".
+     *
+     * @param value the comma-separated upper bounds
+     * @param scale the scale between raw values and configured values
+     * @param unit  the unit of the last bucket header
+     * @return the bucket layout
+     */
+    public static BucketLayout parse(String value, long scale, String unit) {
+        final String[] parts = value.split(",");
+        final long[] upperBounds = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                upperBounds[i] = Long.parseLong(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Unable to parse the following bucket upper bounds: " + value, e);
+            }
+        }
+        return new BucketLayout(upperBounds, scale, unit);
+    }
+
+    /**
+     * @return the number of buckets including the last one collecting the remaining values
+     */
+    public int getBucketCount() {
+        return upperBounds.length + 1;
+    }
+
+    /**
+     * @return the largest configured upper bound, e.g. the SLA threshold
+     */
+    public long getThreshold() {
+        return upperBounds[upperBounds.length - 1];
+    }
+
+    public long getScale() {
+        return scale;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * @param index the bucket index
+     * @return the header of the bucket, e.g. "10-20" or ">20480ms"
+     */
+    public String getHeader(int index) {
+        if (index == 0) {
+            return "0-" + upperBounds[0];
+        } else if (index < upperBounds.length) {
+            return upperBounds[index - 1] + "-" + upperBounds[index];
+        } else {
+            return ">" + getThreshold() + unit;
+        }
+    }
+
+    /**
+     * Resolves the bucket of a raw value in constant time.
+     *
+     * @param value the raw value, e.g. milliseconds or bytes
+     * @return the bucket index
+     */
+    public int indexOf(long value) {
+        if (value >= scaledUpperBounds[scaledUpperBounds.length - 1]) {
+            return upperBounds.length;
+        } else if (value <= 0) {
+            return 0;
+        } else if (lookupTable != null) {
+            return lookupTable[(int) (value / resolution)];
+        } else {
+            return 64 - Long.numberOfLeadingZeros(value / doublingBase);
+        }
+    }
+
+    /**
+     * @return a string representation which can be parsed again
+     */
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder();
+        for (long upperBound : upperBounds) {
+            if (result.length() > 0) {
+                result.append(',');
+            }
+            result.append(upperBound);
+        }
+        return result.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final BucketLayout that = (BucketLayout) o;
+        return scale == that.scale && Arrays.equals(upperBounds, that.upperBounds) && unit.equals(that.unit);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(upperBounds) + unit.hashCode();
+    }
+
+    private byte[] createLookupTable() {
+
+        final long size = scaledUpperBounds[scaledUpperBounds.length - 1] / resolution;
+
+        if (size > MAX_LOOKUP_TABLE_SIZE) {
+            throw new IllegalArgumentException("The following upper bounds need a lookup table being too large: " + this);
+        }
+
+        final byte[] result = new byte[(int) size];
+        int bucket = 0;
+        for (int i = 0; i < result.length; i++) {
+            while (i * resolution >= scaledUpperBounds[bucket]) {
+                bucket++;
+            }
+            result[i] = (byte) bucket;
+        }
+        return result;
+    }
+
+    private static boolean isDoubling(long[] values) {
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] != values[0] << i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long gcd(long[] values) {
+        long result = values[0];
+        for (long value : values) {
+            long a = result;
+            long b = value;
+            while (b != 0) {
+                final long t = a % b;
+                a = b;
+                b = t;
+            }
+            result = a;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.config;
+
+import com.github.sgoeschl.jmeter.report.sla.compare.ComparisonThresholds;
+import com.github.sgoeschl.jmeter.report.sla.groupby.GroupByDimension;
+import com.github.sgoeschl.jmeter.report.sla.groupby.Grouping;
+import com.github.sgoeschl.jmeter.report.sla.rules.SlaEvaluator;
+import com.github.sgoeschl.jmeter.report.sla.rules.SlaRule;
+import com.github.sgoeschl.jmeter.report.sla.utils.DuplicateFilter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The SLA configuration loaded from a properties file, e.g.
+ *
+ * <pre>
+ * # the default response time buckets (ms)
+ * sla.buckets.ms=10,20,40,80,160,320,640,1280,2560,5120,10240,20480
+ * # the received kilobytes buckets (KB)
+ * sla.buckets.kb=1,2,4,8,16,32,64,128,256,512,1024,2048
+ * # the response time buckets of a label or labels with a common prefix
+ * sla.buckets.ms.Checkout=100,200,300
+ * sla.buckets.ms.Search*=200,400,800
+ * # the SLA rules, i.e. "label metric operator threshold"
+ * sla.rule.checkout=Checkout p95 &lt; 300
+ * sla.rule.errors=summary errorRate &lt; 1
+ * # the expected number of requests turning the error rate into an error budget
+ * sla.expected.requests=100000
+ * # the regression thresholds comparing runs, i.e. increase of avg and p95 (%), error rate (percentage points) and decrease of throughput (%)
+ * sla.compare.avg=10
+ * sla.compare.p95=10
+ * sla.compare.errorRate=1
+ * sla.compare.throughput=10
+ * # the groupings rendered as additional tables, i.e. "label", "responseCode", "threadGroup" and "host"
+ * sla.groupby.codesByThreadGroup=threadGroup,responseCode
+ * sla.groupby.labelsByHost=label,host
+ * # the sample time (seconds) and memory (MB) of the duplicate detection
+ * sla.dedup.window=600
+ * sla.dedup.memory=64
+ * # the number of labels having the most requests charted besides all samples and the points per chart
+ * sla.charts.labels=10
+ * sla.charts.points=200
+ * # the maximum number of distinct labels folding further labels into "[other labels]" (0 for no limit)
+ * sla.labels.max=10000
+ * # the JMeter timestamp format of CSV files
+ * jmeter.save.saveservice.timestamp_format=yyyy/MM/dd HH:mm:ss,SSS
+ * </pre>
+ */
+public class SlaConfiguration {
+
+    public static final String KEY_BUCKETS_MS = "sla.buckets.ms";
+    public static final String KEY_BUCKETS_KB = "sla.buckets.kb";
+    public static final String KEY_RULE = "sla.rule";
+    public static final String KEY_EXPECTED_REQUESTS = "sla.expected.requests";
+    public static final String KEY_COMPARE_AVG = "sla.compare.avg";
+    public static final String KEY_COMPARE_P95 = "sla.compare.p95";
+    public static final String KEY_COMPARE_ERROR_RATE = "sla.compare.errorRate";
+    public static final String KEY_COMPARE_THROUGHPUT = "sla.compare.throughput";
+    public static final String KEY_MAX_LABELS = "sla.labels.max";
+    public static final String KEY_CONCURRENCY_BAND = "sla.concurrency.band";
+    public static final String KEY_GROUP_BY = "sla.groupby";
+    public static final String KEY_DEDUP_WINDOW = "sla.dedup.window";
+    public static final String KEY_DEDUP_MEMORY = "sla.dedup.memory";
+    public static final String KEY_CHART_LABELS = "sla.charts.labels";
+    public static final String KEY_CHART_POINTS = "sla.charts.points";
+    public static final String KEY_TIMESTAMP_FORMAT = "jmeter.save.saveservice.timestamp_format";
+
+    private static final String DEFAULT_BUCKETS_MS = "10,20,40,80,160,320,640,1280,2560,5120,10240,20480";
+    private static final String DEFAULT_BUCKETS_KB = "1,2,4,8,16,32,64,128,256,512,1024,2048";
+    private static final String DEFAULT_MAX_LABELS = "0";
+    private static final String UNIT_MS = "ms";
+    private static final String UNIT_KB = " KB";
+    private static final String WILDCARD = "*";
+
+    private final BucketLayout responseTimeLayout;
+    private final BucketLayout kiloBytesReceivedLayout;
+    private final Map<String, BucketLayout> labelLayouts;
+    private final NavigableMap<String, BucketLayout> labelPrefixLayouts;
+    private final List<SlaRule> rules;
+    private final long expectedRequests;
+    private final String timestampFormat;
+    private final ComparisonThresholds comparisonThresholds;
+    private final int concurrencyBandWidth;
+    private final int maxLabels;
+    private final Map<String, List<GroupByDimension>> groupings;
+    private final long dedupWindowMillis;
+    private final long dedupMemoryBytes;
+    private final int chartLabels;
+    private final int chartPoints;
+
+    public SlaConfiguration(Properties properties) {
+        this.responseTimeLayout = BucketLayout.parse(properties.getProperty(KEY_BUCKETS_MS, DEFAULT_BUCKETS_MS), 1, UNIT_MS);
+        this.kiloBytesReceivedLayout = BucketLayout.parse(properties.getProperty(KEY_BUCKETS_KB, DEFAULT_BUCKETS_KB), 1024, UNIT_KB);
+        this.labelLayouts = new TreeMap<>();
+        this.labelPrefixLayouts = new TreeMap<>();
+
+        final String labelKeyPrefix = KEY_BUCKETS_MS + ".";
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(labelKeyPrefix)) {
+                final String label = key.substring(labelKeyPrefix.length());
+                final BucketLayout layout = BucketLayout.parse(properties.getProperty(key), 1, UNIT_MS);
+                if (label.endsWith(WILDCARD)) {
+                    labelPrefixLayouts.put(label.substring(0, label.length() - 1), layout);
+                } else {
+                    labelLayouts.put(label, layout);
+                }
+            }
+        }
+
+        this.rules = new ArrayList<>();
+        final String ruleKeyPrefix = KEY_RULE + ".";
+        for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+            if (key.startsWith(ruleKeyPrefix)) {
+                rules.add(SlaRule.parse(key.substring(ruleKeyPrefix.length()), properties.getProperty(key)));
+            }
+        }
+
+        this.expectedRequests = Long.parseLong(properties.getProperty(KEY_EXPECTED_REQUESTS, "0"));
+        this.timestampFormat = properties.getProperty(KEY_TIMESTAMP_FORMAT, System.getProperty(KEY_TIMESTAMP_FORMAT));
+        this.comparisonThresholds = new ComparisonThresholds(
+                Double.parseDouble(properties.getProperty(KEY_COMPARE_AVG, "10")),
+                Double.parseDouble(properties.getProperty(KEY_COMPARE_P95, "10")),
+                Double.parseDouble(properties.getProperty(KEY_COMPARE_ERROR_RATE, "1")),
+                Double.parseDouble(properties.getProperty(KEY_COMPARE_THROUGHPUT, "10")));
+        this.concurrencyBandWidth = Integer.parseInt(properties.getProperty(KEY_CONCURRENCY_BAND, "10"));
+
+        if (concurrencyBandWidth <= 0) {
+            throw new IllegalArgumentException("Expecting a positive value for " + KEY_CONCURRENCY_BAND + ": " + concurrencyBandWidth);
+        }
+
+        this.maxLabels = Integer.parseInt(properties.getProperty(KEY_MAX_LABELS, DEFAULT_MAX_LABELS));
+
+        if (maxLabels < 0) {
+            throw new IllegalArgumentException("Expecting a non-negative value for " + KEY_MAX_LABELS + ": " + maxLabels);
+        }
+
+        this.groupings = new TreeMap<>();
+        final String groupByKeyPrefix = KEY_GROUP_BY + ".";
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(groupByKeyPrefix)) {
+                final String name = key.substring(groupByKeyPrefix.length());
+                groupings.put(name, Grouping.parse(name, properties.getProperty(key)).getDimensions());
+            }
+        }
+
+        this.dedupWindowMillis = Long.parseLong(properties.getProperty(KEY_DEDUP_WINDOW, Long.toString(DuplicateFilter.DEFAULT_WINDOW_MILLIS / 1000))) * 1000;
+        this.dedupMemoryBytes = Long.parseLong(properties.getProperty(KEY_DEDUP_MEMORY, Long.toString(DuplicateFilter.DEFAULT_MEMORY_BYTES / 1024 / 1024))) * 1024 * 1024;
+
+        if (dedupWindowMillis <= 0 || dedupMemoryBytes <= 0) {
+            throw new IllegalArgumentException("Expecting positive values for " + KEY_DEDUP_WINDOW + " and " + KEY_DEDUP_MEMORY + ": " + dedupWindowMillis / 1000 + " and " + dedupMemoryBytes / 1024 / 1024);
+        }
+
+        this.chartLabels = Integer.parseInt(properties.getProperty(KEY_CHART_LABELS, "10"));
+        this.chartPoints = Integer.parseInt(properties.getProperty(KEY_CHART_POINTS, "200"));
+
+        if (chartLabels < 0 || chartPoints < 3) {
+            throw new IllegalArgumentException("Expecting a non-negative value for " + KEY_CHART_LABELS + " and at least 3 for " + KEY_CHART_POINTS + ": " + chartLabels + " and " + chartPoints);
+        }
+    }
+
+    /**
+     * @return the configuration using the default response time and kilobytes buckets
+     */
+    public static SlaConfiguration createDefault() {
+        return new SlaConfiguration(new Properties());
+    }
+
+    /**
+     * @param file the properties file
+     * @return the configuration loaded from the properties file
+     * @throws IOException reading the properties file failed
+     */
+    public static SlaConfiguration load(File file) throws IOException {
+        final Properties properties = new Properties();
+        try (InputStream is = new FileInputStream(file)) {
+            properties.load(is);
+        }
+        return new SlaConfiguration(properties);
+    }
+
+    /**
+     * @return the default response time buckets
+     */
+    public BucketLayout getResponseTimeLayout() {
+        return responseTimeLayout;
+    }
+
+    /**
+     * Resolve the response time buckets of a label - this is only done once per label
+     * so a linear scan of the prefixes is good enough. The prefixes are scanned in
+     * descending order so the longest matching prefix wins, e.g. "Login.Admin*" over "Login*".
+     *
+     * @param label the label
+     * @return the response time buckets of the label
+     */
+    public BucketLayout getResponseTimeLayout(String label) {
+
+        final BucketLayout layout = labelLayouts.get(label);
+
+        if (layout != null) {
+            return layout;
+        }
+
+        for (Map.Entry<String, BucketLayout> entry : labelPrefixLayouts.descendingMap().entrySet()) {
+            if (label.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+
+        return responseTimeLayout;
+    }
+
+    /**
+     * @return the distinct response time buckets starting with the default ones
+     */
+    public List<BucketLayout> getResponseTimeLayouts() {
+        final List<BucketLayout> result = new ArrayList<>();
+        result.add(responseTimeLayout);
+        addDistinct(result, labelLayouts.values());
+        addDistinct(result, labelPrefixLayouts.values());
+        return result;
+    }
+
+    public BucketLayout getKiloBytesReceivedLayout() {
+        return kiloBytesReceivedLayout;
+    }
+
+    /**
+     * @return the SLA rules ordered by their names
+     */
+    public List<SlaRule> getRules() {
+        return rules;
+    }
+
+    public long getExpectedRequests() {
+        return expectedRequests;
+    }
+
+    /**
+     * @return the JMeter timestamp format of CSV files or null for the default format
+     */
+    public String getTimestampFormat() {
+        return timestampFormat;
+    }
+
+    public ComparisonThresholds getComparisonThresholds() {
+        return comparisonThresholds;
+    }
+
+    /**
+     * @return the number of active threads per concurrency band
+     */
+    public int getConcurrencyBandWidth() {
+        return concurrencyBandWidth;
+    }
+
+    /**
+     * @return the maximum number of distinct labels or zero for no limit
+     */
+    public int getMaxLabels() {
+        return maxLabels;
+    }
+
+    /**
+     * @return the dimensions of the configured groupings by their names
+     */
+    public Map<String, List<GroupByDimension>> getGroupings() {
+        return groupings;
+    }
+
+    /**
+     * @return the number of labels having the most requests being charted or zero to chart all samples only
+     */
+    public int getChartLabels() {
+        return chartLabels;
+    }
+
+    /**
+     * @return the maximum number of points of a chart
+     */
+    public int getChartPoints() {
+        return chartPoints;
+    }
+
+    public SlaEvaluator createSlaEvaluator() {
+        return new SlaEvaluator(rules, expectedRequests);
+    }
+
+    /**
+     * @return a new duplicate filter using the configured window and memory
+     */
+    public DuplicateFilter createDuplicateFilter() {
+        return new DuplicateFilter(dedupWindowMillis, dedupMemoryBytes);
+    }
+
+    private static void addDistinct(List<BucketLayout> result, Iterable<BucketLayout> layouts) {
+        for (BucketLayout layout : layouts) {
+            if (!result.contains(layout)) {
+                result.add(layout);
+            }
+        }
+    }
+}
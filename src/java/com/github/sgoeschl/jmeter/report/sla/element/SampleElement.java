@@ -18,6 +18,7 @@
 package com.github.sgoeschl.jmeter.report.sla.element;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -33,6 +34,16 @@ public class SampleElement {
     private String responseMessage;
     private boolean success;
     private long bytesReceived = 0;
+    private long bytesSent = 0;
+    private long connectTime = -1;
+    private long latency = -1;
+    private int allThreads = 0;
+    private int groupThreads = 0;
+    private String threadName;
+    private String hostname;
+    private String failureCode;
+    private String failureMessage;
+    private List<SampleElement> subSamples;
     private final List<AssertionResultElement> assertionResultList = new ArrayList<>();
 
     public long getDuration() {
@@ -63,10 +74,100 @@ public class SampleElement {
         return bytesReceived;
     }
 
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return the time to establish the connection or -1 if not saved
+     */
+    public long getConnectTime() {
+        return connectTime;
+    }
+
+    /**
+     * @return the time to first byte or -1 if not saved
+     */
+    public long getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return the number of active threads of all thread groups or zero if not saved
+     */
+    public int getAllThreads() {
+        return allThreads;
+    }
+
+    /**
+     * @return the number of active threads of the thread group or zero if not saved
+     */
+    public int getGroupThreads() {
+        return groupThreads;
+    }
+
+    /**
+     * @return the number of active threads preferring all thread groups or zero if not saved
+     */
+    public int getActiveThreads() {
+        return allThreads > 0 ? allThreads : groupThreads;
+    }
+
+    /**
+     * @return the name of the thread, e.g. "Checkout 1-5", or null if not saved
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * @return the name of the load generator or null if not saved
+     */
+    public String getHostname() {
+        return hostname;
+    }
+
     public List<AssertionResultElement> getAssertionResultList() {
         return assertionResultList;
     }
 
+    /**
+     * @return the error code of a failed sample, i.e. the first failed assertion or the result
+     * code followed by the response message unless set explicitly
+     */
+    public String getFailureCode() {
+        if (failureCode != null) {
+            return failureCode;
+        }
+
+        final String code;
+        final String message;
+
+        if (!assertionResultList.isEmpty()) {
+            code = assertionResultList.get(0).getName();
+            message = assertionResultList.get(0).getFailureMessage();
+        } else {
+            code = resultCode;
+            message = responseMessage;
+        }
+
+        return (message == null || message.isEmpty()) ? code : code + " - " + message;
+    }
+
+    /**
+     * @return the error message of a failed sample or null if not set explicitly
+     */
+    public String getFailureMessage() {
+        return failureMessage;
+    }
+
+    /**
+     * @return the nested samples, e.g. the samplers of a transaction controller
+     */
+    public List<SampleElement> getSubSamples() {
+        return subSamples != null ? subSamples : Collections.<SampleElement>emptyList();
+    }
+
     public void setDuration(long duration) {
         this.duration = duration;
     }
@@ -94,4 +195,51 @@ public class SampleElement {
     public void setBytesReceived(long bytesReceived) {
         this.bytesReceived = bytesReceived;
     }
+
+    public void setBytesSent(long bytesSent) {
+        this.bytesSent = bytesSent;
+    }
+
+    public void setConnectTime(long connectTime) {
+        this.connectTime = connectTime;
+    }
+
+    public void setLatency(long latency) {
+        this.latency = latency;
+    }
+
+    public void setAllThreads(int allThreads) {
+        this.allThreads = allThreads;
+    }
+
+    public void setGroupThreads(int groupThreads) {
+        this.groupThreads = groupThreads;
+    }
+
+    public void setThreadName(String threadName) {
+        this.threadName = threadName;
+    }
+
+    public void setHostname(String hostname) {
+        this.hostname = hostname;
+    }
+
+    /**
+     * Overrides the error code and message derived from the result code and the assertions,
+     * e.g. when reading a binary result file storing them as they were reported.
+     *
+     * @param failureCode    the error code
+     * @param failureMessage the error message or null
+     */
+    public void setFailure(String failureCode, String failureMessage) {
+        this.failureCode = failureCode;
+        this.failureMessage = failureMessage;
+    }
+
+    public void addSubSample(SampleElement subSample) {
+        if (subSamples == null) {
+            subSamples = new ArrayList<>();
+        }
+        subSamples.add(subSample);
+    }
 }
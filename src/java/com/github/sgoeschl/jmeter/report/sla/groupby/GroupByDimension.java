@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.groupby;
+
+/**
+ * A dimension of a sample to group the samples by.
+ */
+public enum GroupByDimension {
+
+    LABEL("label", "Label"),
+    RESPONSE_CODE("responseCode", "Response Code"),
+    THREAD_GROUP("threadGroup", "Thread Group"),
+    HOST("host", "Host");
+
+    private final String name;
+    private final String title;
+
+    GroupByDimension(String name, String title) {
+        this.name = name;
+        this.title = title;
+    }
+
+    /**
+     * @param value the name of the dimension, e.g. "threadGroup"
+     * @return the dimension
+     */
+    public static GroupByDimension parse(String value) {
+        for (GroupByDimension dimension : values()) {
+            if (dimension.name.equals(value)) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("Unknown group-by dimension: " + value);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the column header of the dimension
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Turns the raw value of a sample into the value of the dimension, i.e. JMeter thread
+     * names such as "Checkout 1-5" are reduced to the name of their thread group.
+     *
+     * @param value the raw value of the sample
+     * @return the value of the dimension
+     */
+    String normalize(String value) {
+        if (this != THREAD_GROUP) {
+            return value;
+        }
+
+        // strip the trailing " <group number>-<thread number>"
+        int end = value.length();
+        int dashes = 0;
+        while (end > 0) {
+            final char c = value.charAt(end - 1);
+            if (c == '-' && dashes == 0 && end < value.length()) {
+                dashes++;
+            } else if (c < '0' || c > '9') {
+                break;
+            }
+            end--;
+        }
+
+        final boolean isThreadName = dashes == 1
+                && end > 1 && end < value.length()
+                && value.charAt(end - 1) == ' '
+                && value.charAt(end) != '-';
+
+        return isThreadName ? value.substring(0, end - 1) : value;
+    }
+}
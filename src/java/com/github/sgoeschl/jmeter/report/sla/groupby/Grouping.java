@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.groupby;
+
+import com.github.sgoeschl.jmeter.report.sla.stats.SampleStatistics;
+import com.github.sgoeschl.jmeter.report.sla.utils.LongIndexMap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.sgoeschl.jmeter.report.sla.utils.DataStrings.readString;
+import static com.github.sgoeschl.jmeter.report.sla.utils.DataStrings.writeString;
+
+/**
+ * Aggregates the samples by a tuple of dimensions, e.g. "threadGroup,responseCode". Each
+ * dimension value is replaced by a dense id and the ids are packed into a single long so a
+ * sample is aggregated with a primitive hash lookup. The number of distinct values per
+ * dimension is bounded by the bits available to the dimension and any further values are
+ * folded into {@link #OVERFLOW_VALUE}.
+ * <p>
+ * A grouping is not thread-safe and must be confined to a single parser thread like the
+ * report model owning it.
+ */
+public class Grouping {
+
+    public static final String MISSING_VALUE = "-";
+    public static final String OVERFLOW_VALUE = "[other]";
+
+    // the dictionary ids are list indexes so a dimension never uses more than 31 bits
+    private static final int MAX_BITS_PER_DIMENSION = 31;
+    // raw values are only cached up to this size, e.g. when every sample has a new thread name
+    private static final int MAX_CACHED_RAW_VALUES = 1 << 16;
+
+    private final String name;
+    private final GroupByDimension[] dimensions;
+    private final int bitsPerDimension;
+    private final int overflowId;
+    private final List<Map<String, Integer>> rawIds;
+    private final List<Map<String, Integer>> valueIds;
+    private final List<List<String>> values;
+    private final LongIndexMap rowsByKey = new LongIndexMap();
+    private final List<Long> keys = new ArrayList<>();
+    private final List<SampleStatistics> statistics = new ArrayList<>();
+
+    public Grouping(String name, List<GroupByDimension> dimensions) {
+
+        if (dimensions.isEmpty()) {
+            throw new IllegalArgumentException("Expecting at least one dimension for the grouping " + name);
+        }
+
+        if (dimensions.size() != new HashSet<>(dimensions).size()) {
+            throw new IllegalArgumentException("Expecting distinct dimensions for the grouping " + name + ": " + dimensions);
+        }
+
+        this.name = name;
+        this.dimensions = dimensions.toArray(new GroupByDimension[dimensions.size()]);
+        this.bitsPerDimension = Math.min(MAX_BITS_PER_DIMENSION, Long.SIZE / this.dimensions.length);
+        this.overflowId = (1 << bitsPerDimension) - 1;
+        this.rawIds = new ArrayList<>();
+        this.valueIds = new ArrayList<>();
+        this.values = new ArrayList<>();
+
+        for (int i = 0; i < this.dimensions.length; i++) {
+            rawIds.add(new HashMap<String, Integer>());
+            valueIds.add(new HashMap<String, Integer>());
+            values.add(new ArrayList<String>());
+        }
+    }
+
+    /**
+     * @param name  the name of the grouping
+     * @param value the comma-separated dimensions, e.g. "threadGroup,responseCode"
+     * @return the grouping
+     */
+    public static Grouping parse(String name, String value) {
+        final List<GroupByDimension> dimensions = new ArrayList<>();
+        for (String dimension : value.split(",")) {
+            if (!dimension.trim().isEmpty()) {
+                dimensions.add(GroupByDimension.parse(dimension.trim()));
+            }
+        }
+        return new Grouping(name, dimensions);
+    }
+
+    /**
+     * @param sampleValues the raw values of the sample indexed by {@link GroupByDimension#ordinal()}
+     * @param timestamp    the timestamp of the sample in milliseconds
+     * @param duration     the elapsed time of the sample in milliseconds
+     * @param success      was the sample successful
+     */
+    public void add(String[] sampleValues, long timestamp, long duration, boolean success) {
+        long key = 0;
+        for (int i = 0; i < dimensions.length; i++) {
+            key = (key << bitsPerDimension) | rawIdOf(i, sampleValues[dimensions[i].ordinal()]);
+        }
+        getStatistics(key).add(timestamp, duration, success);
+    }
+
+    /**
+     * Adds the rows of another grouping with the same dimensions, e.g. collected by another thread.
+     *
+     * @param other the other grouping
+     */
+    public void add(Grouping other) {
+        if (!Arrays.equals(dimensions, other.dimensions)) {
+            throw new IllegalArgumentException("Unable to merge the grouping " + name + " with different dimensions: " + getDimensions() + " and " + other.getDimensions());
+        }
+        for (int row = 0; row < other.size(); row++) {
+            getStatistics(keyOf(other.getValues(row))).add(other.getStatistics(row));
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<GroupByDimension> getDimensions() {
+        return Collections.unmodifiableList(Arrays.asList(dimensions));
+    }
+
+    /**
+     * @return the number of distinct tuples
+     */
+    public int size() {
+        return statistics.size();
+    }
+
+    /**
+     * @param row the row
+     * @return the values of the tuple in the order of the dimensions
+     */
+    public String[] getValues(int row) {
+        final long key = keys.get(row);
+        final long mask = (1L << bitsPerDimension) - 1;
+        final String[] result = new String[dimensions.length];
+        for (int i = dimensions.length - 1, shift = 0; i >= 0; i--, shift += bitsPerDimension) {
+            result[i] = values.get(i).get((int) ((key >>> shift) & mask));
+        }
+        return result;
+    }
+
+    /**
+     * @param row the row
+     * @return the statistics of the tuple
+     */
+    public SampleStatistics getStatistics(int row) {
+        return statistics.get(row);
+    }
+
+    /**
+     * @return the rows ordered by their values
+     */
+    public List<Integer> getSortedRows() {
+        final List<String[]> rowValues = new ArrayList<>();
+        final List<Integer> result = new ArrayList<>();
+        for (int row = 0; row < size(); row++) {
+            rowValues.add(getValues(row));
+            result.add(row);
+        }
+        Collections.sort(result, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer left, Integer right) {
+                final String[] leftValues = rowValues.get(left);
+                final String[] rightValues = rowValues.get(right);
+                for (int i = 0; i < leftValues.length; i++) {
+                    final int comparison = leftValues[i].compareTo(rightValues[i]);
+                    if (comparison != 0) {
+                        return comparison;
+                    }
+                }
+                return 0;
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @param out the output
+     * @throws IOException writing failed
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        writeString(out, name);
+        out.writeInt(dimensions.length);
+        for (GroupByDimension dimension : dimensions) {
+            writeString(out, dimension.getName());
+        }
+        out.writeInt(size());
+        for (int row = 0; row < size(); row++) {
+            for (String value : getValues(row)) {
+                writeString(out, value);
+            }
+            statistics.get(row).writeTo(out);
+        }
+    }
+
+    /**
+     * @param in the input
+     * @return the grouping written by {@link #writeTo(DataOutput)}
+     * @throws IOException reading failed
+     */
+    public static Grouping readFrom(DataInput in) throws IOException {
+        final String name = readString(in);
+        final List<GroupByDimension> dimensions = new ArrayList<>();
+        final int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            dimensions.add(GroupByDimension.parse(readString(in)));
+        }
+        final Grouping result = new Grouping(name, dimensions);
+        final int rows = in.readInt();
+        final String[] rowValues = new String[size];
+        for (int row = 0; row < rows; row++) {
+            for (int i = 0; i < size; i++) {
+                rowValues[i] = readString(in);
+            }
+            result.getStatistics(result.keyOf(rowValues)).add(SampleStatistics.readFrom(in));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return name + "=" + getDimensions();
+    }
+
+    private SampleStatistics getStatistics(long key) {
+        final int row = rowsByKey.get(key);
+        if (row >= 0) {
+            return statistics.get(row);
+        }
+        final SampleStatistics result = new SampleStatistics();
+        rowsByKey.put(key, statistics.size());
+        keys.add(key);
+        statistics.add(result);
+        return result;
+    }
+
+    /**
+     * @param rowValues the normalized values in the order of the dimensions
+     */
+    private long keyOf(String[] rowValues) {
+        long key = 0;
+        for (int i = 0; i < dimensions.length; i++) {
+            key = (key << bitsPerDimension) | idOf(i, rowValues[i]);
+        }
+        return key;
+    }
+
+    /**
+     * Looks up the raw value first to normalize it only once, e.g. a thread name.
+     */
+    private int rawIdOf(int dimension, String rawValue) {
+        final String value = (rawValue == null || rawValue.isEmpty() ? MISSING_VALUE : rawValue);
+        final Map<String, Integer> ids = rawIds.get(dimension);
+        final Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        final int result = idOf(dimension, dimensions[dimension].normalize(value));
+        if (ids.size() < MAX_CACHED_RAW_VALUES) {
+            ids.put(value, result);
+        }
+        return result;
+    }
+
+    private int idOf(int dimension, String value) {
+        final Map<String, Integer> ids = valueIds.get(dimension);
+        Integer result = ids.get(value);
+        if (result == null) {
+            final List<String> dictionary = values.get(dimension);
+            if (dictionary.size() >= overflowId && !OVERFLOW_VALUE.equals(value)) {
+                return idOf(dimension, OVERFLOW_VALUE);
+            }
+            result = dictionary.size();
+            ids.put(value, result);
+            dictionary.add(value);
+        }
+        return result;
+    }
+}
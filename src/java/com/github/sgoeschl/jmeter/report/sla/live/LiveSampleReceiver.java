@@ -0,0 +1,402 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.live;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.parser.LineProtocolSampleParser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Receives the samples of a running test streamed by JMeter (see {@link LineProtocolSampleParser})
+ * over a local TCP socket instead of writing and re-reading JTL files. A single thread reads the
+ * connections using non-blocking NIO, decodes all complete lines of each read and adds them to the
+ * model - so the model stays confined to this thread. The report is updated periodically by another
+ * thread rendering a snapshot of the model so receiving is not stalled by rendering.
+ * <p>
+ * Receiving stops when every sender has sent the end marker {@link #END_OF_TEST} or when nothing
+ * was received for the idle timeout, e.g. since a sender was killed - closed connections do not
+ * end the test since a sender might reconnect.
+ */
+public class LiveSampleReceiver implements Runnable, Closeable {
+
+    public static final long DEFAULT_REPORT_INTERVAL = 5000;
+    public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+
+    /**
+     * The line a sender writes after its last sample.
+     */
+    public static final String END_OF_TEST = "# end of test";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_LINE_LENGTH = 1024 * 1024;
+
+    /**
+     * Creates the report of the samples received so far.
+     */
+    public interface ReportUpdater {
+
+        void update(JMeterReportModel model) throws IOException;
+    }
+
+    private final LineProtocolSampleParser sampleParser;
+    private final JMeterReportModel model;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ExecutorService reportExecutor = Executors.newSingleThreadExecutor();
+    private ReportUpdater reportUpdater;
+    private Future<Void> pendingReport;
+    private long reportInterval = DEFAULT_REPORT_INTERVAL;
+    private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    private volatile boolean stopped;
+    private long lastReceived;
+    private int runningConnections;
+    private int endedConnections;
+    private long samples;
+    private long invalidLines;
+
+    /**
+     * @param model the model
+     * @param port  the local port or zero for an ephemeral port
+     * @throws IOException opening the socket failed
+     */
+    public LiveSampleReceiver(JMeterReportModel model, int port) throws IOException {
+        this.model = model;
+        this.sampleParser = new LineProtocolSampleParser(model);
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    @Override
+    public void run() {
+
+        long nextReport = System.currentTimeMillis() + reportInterval;
+        long reportedSamples = 0;
+
+        try {
+            while (!stopped) {
+                selector.select(Math.max(1, Math.min(nextReport, getIdleDeadline()) - System.currentTimeMillis()));
+
+                final Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    final SelectionKey key = iterator.next();
+                    iterator.remove();
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+
+                final long now = System.currentTimeMillis();
+
+                if (now >= getIdleDeadline()) {
+                    System.err.println("Stopped receiving on " + getAddress() + " after " + idleTimeout / 1000 + " idle seconds");
+                    stopped = true;
+                }
+
+                if (now >= nextReport) {
+                    if (samples > reportedSamples && isReportDone()) {
+                        updateReport();
+                        reportedSamples = samples;
+                    }
+                    nextReport = now + reportInterval;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to receive the samples on " + getAddress() + " : " + e.getMessage(), e);
+        } finally {
+            // the final report is created by the caller and must not be overwritten by a snapshot
+            if (pendingReport != null) {
+                awaitReport();
+            }
+        }
+
+        if (invalidLines > 0) {
+            System.err.println("Ignored " + invalidLines + " invalid lines received on " + getAddress());
+        }
+    }
+
+    /**
+     * Stops receiving, e.g. from another thread.
+     */
+    public void stop() {
+        stopped = true;
+        selector.wakeup();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reportExecutor.shutdownNow();
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    /**
+     * @return the local address, e.g. "localhost:2003"
+     */
+    public String getAddress() {
+        return serverChannel.socket().getInetAddress().getHostName() + ":" + getPort();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * @return the number of samples received so far
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    public long getInvalidLines() {
+        return invalidLines;
+    }
+
+    public void setReportUpdater(ReportUpdater reportUpdater) {
+        this.reportUpdater = reportUpdater;
+    }
+
+    /**
+     * @param reportInterval the milliseconds between updating the report while samples arrive
+     */
+    public void setReportInterval(long reportInterval) {
+        if (reportInterval < 1) {
+            throw new IllegalArgumentException("Expecting a positive report interval: " + reportInterval);
+        }
+        this.reportInterval = reportInterval;
+    }
+
+    /**
+     * @param idleTimeout the milliseconds without receiving anything after which receiving
+     *                    stops - the timeout starts with the first connection
+     */
+    public void setIdleTimeout(long idleTimeout) {
+        if (idleTimeout < 1) {
+            throw new IllegalArgumentException("Expecting a positive idle timeout: " + idleTimeout);
+        }
+        this.idleTimeout = idleTimeout;
+    }
+
+    private long getIdleDeadline() {
+        return (lastReceived > 0 ? lastReceived + idleTimeout : Long.MAX_VALUE);
+    }
+
+    private void accept() throws IOException {
+        final SocketChannel channel = serverChannel.accept();
+        if (channel != null) {
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, new Connection());
+            lastReceived = System.currentTimeMillis();
+            runningConnections++;
+        }
+    }
+
+    /**
+     * Reads the available bytes of a connection and parses all complete lines - an incomplete
+     * last line is kept in the buffer of the connection until the next read.
+     */
+    private void read(SelectionKey key) throws IOException {
+
+        final SocketChannel channel = (SocketChannel) key.channel();
+        final Connection connection = (Connection) key.attachment();
+        int count;
+
+        try {
+            count = channel.read(connection.buffer);
+        } catch (IOException e) {
+            // the connection was reset by the sender
+            count = -1;
+        }
+
+        if (count > 0) {
+            lastReceived = System.currentTimeMillis();
+            parseLines(connection, false);
+            if (!connection.buffer.hasRemaining()) {
+                grow(connection);
+            }
+        } else if (count < 0) {
+            parseLines(connection, true);
+            key.cancel();
+            channel.close();
+            if (!connection.ended) {
+                runningConnections--;
+            }
+        }
+
+        // the test has ended once all senders still connected have sent the end marker
+        if (endedConnections > 0 && runningConnections == 0) {
+            stopped = true;
+        }
+    }
+
+    private void parseLines(Connection connection, boolean isEndOfStream) {
+
+        final ByteBuffer buffer = connection.buffer;
+        final byte[] bytes = buffer.array();
+        final int end = buffer.position();
+        int start = 0;
+
+        for (int i = 0; i < end; i++) {
+            if (bytes[i] == '\n') {
+                if (connection.skipLine) {
+                    // the remainder of a line exceeding the maximum line length
+                    connection.skipLine = false;
+                } else {
+                    parseLine(connection, bytes, start, i);
+                }
+                start = i + 1;
+            }
+        }
+
+        if (isEndOfStream && start < end && !connection.skipLine) {
+            parseLine(connection, bytes, start, end);
+            start = end;
+        }
+
+        if (connection.skipLine) {
+            start = end;
+        }
+
+        // keep the incomplete line at the beginning of the buffer
+        System.arraycopy(bytes, start, bytes, 0, end - start);
+        buffer.position(end - start);
+    }
+
+    private void parseLine(Connection connection, byte[] bytes, int start, int end) {
+
+        final int length = (end > start && bytes[end - 1] == '\r' ? end - start - 1 : end - start);
+
+        if (length == 0) {
+            return;
+        }
+
+        final String line = new String(bytes, start, length, StandardCharsets.UTF_8);
+
+        if (END_OF_TEST.equals(line)) {
+            if (!connection.ended) {
+                connection.ended = true;
+                runningConnections--;
+                endedConnections++;
+            }
+            return;
+        }
+
+        try {
+            sampleParser.parse(line);
+            samples++;
+        } catch (IllegalArgumentException e) {
+            if (invalidLines++ == 0) {
+                System.err.println("Ignoring invalid lines received on " + getAddress() + ", e.g. " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Grows the buffer of a connection for a long line - a line exceeding the maximum line
+     * length is dropped including the bytes up to its line break still to be received.
+     */
+    private void grow(Connection connection) {
+        final ByteBuffer buffer = connection.buffer;
+        if (buffer.capacity() >= MAX_LINE_LENGTH) {
+            invalidLines++;
+            buffer.clear();
+            connection.skipLine = true;
+            return;
+        }
+        connection.buffer = ByteBuffer.wrap(Arrays.copyOf(buffer.array(), buffer.capacity() * 2));
+        connection.buffer.position(buffer.position());
+    }
+
+    /**
+     * Renders a snapshot of the model on the report thread.
+     */
+    private void updateReport() {
+        if (reportUpdater == null) {
+            return;
+        }
+        final JMeterReportModel snapshot = model.createSnapshot();
+        pendingReport = reportExecutor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws IOException {
+                reportUpdater.update(snapshot);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * @return true if no report is being rendered, i.e. a report of the current samples is due
+     */
+    private boolean isReportDone() {
+        if (pendingReport == null) {
+            return true;
+        }
+        if (!pendingReport.isDone()) {
+            return false;
+        }
+        awaitReport();
+        return true;
+    }
+
+    private void awaitReport() {
+        try {
+            pendingReport.get();
+        } catch (ExecutionException e) {
+            // an intermediate report failing does not stop receiving the samples
+            System.err.println("Failed to update the report of " + getAddress() + " : " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while updating the report of " + getAddress(), e);
+        } finally {
+            pendingReport = null;
+        }
+    }
+
+    /**
+     * The read state of a connection.
+     */
+    private static final class Connection {
+
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private boolean skipLine;
+        private boolean ended;
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.live;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterHtmlReportWriter;
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.element.SampleElement;
+import com.github.sgoeschl.jmeter.report.sla.parser.AbstractModelParser;
+import com.github.sgoeschl.jmeter.report.sla.parser.SampleSink;
+import com.github.sgoeschl.jmeter.report.sla.rules.SlaEvaluator;
+import com.github.sgoeschl.jmeter.report.sla.rules.SlaVerdict;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Aggregates the samples of a running test in-process, e.g. called by a JMeter sample listener
+ * on the sampler threads instead of writing a JTL file and parsing it afterwards. A sampler thread
+ * only appends the sample to a buffer of its own - without any locks or model lookups - so the
+ * measured response times are not skewed while full buffers are handed over to a single
+ * aggregation thread adding them to the model.
+ * <p>
+ * A JMeter listener forwards the getters of each "SampleResult" to {@link #add} and calls
+ * {@link #close()} and {@link #writeReport(File)} when the test has ended, i.e. after all
+ * sampler threads are finished.
+ */
+public class SampleAggregator implements Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    // signals the end of the test to the aggregation thread
+    private static final SampleBuffer END_OF_TEST = new SampleBuffer(0);
+
+    private final JMeterReportModel model;
+    private final int bufferSize;
+    private final BlockingQueue<SampleBuffer> fullBuffers = new LinkedBlockingQueue<>();
+    private final Queue<BufferHolder> bufferHolders = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<BufferHolder> threadBufferHolder;
+    private final Thread aggregationThread;
+    private volatile RuntimeException failure;
+    private volatile long samples;
+
+    public SampleAggregator(JMeterReportModel model) {
+        this(model, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param model      the model
+     * @param bufferSize the number of samples buffered by each sampler thread
+     */
+    public SampleAggregator(JMeterReportModel model, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Expecting a positive buffer size: " + bufferSize);
+        }
+        this.model = model;
+        this.bufferSize = bufferSize;
+        this.threadBufferHolder = new ThreadLocal<BufferHolder>() {
+            @Override
+            protected BufferHolder initialValue() {
+                final BufferHolder result = new BufferHolder(new SampleBuffer(SampleAggregator.this.bufferSize));
+                bufferHolders.add(result);
+                return result;
+            }
+        };
+        this.aggregationThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                aggregate();
+            }
+        }, "sla-report-aggregator");
+        this.aggregationThread.setDaemon(true);
+        this.aggregationThread.start();
+    }
+
+    /**
+     * Adds a sample on the calling sampler thread.
+     *
+     * @param label           the label of the sample
+     * @param timestamp       the timestamp in epoch milliseconds
+     * @param elapsed         the elapsed time in milliseconds
+     * @param latency         the time to first byte or -1 if unknown
+     * @param connectTime     the time to establish the connection or -1 if unknown
+     * @param bytesReceived   the received bytes
+     * @param bytesSent       the sent bytes
+     * @param success         was the sample successful
+     * @param responseCode    the response code
+     * @param responseMessage the response message
+     * @param threadName      the name of the sampler thread, e.g. "Checkout 1-5"
+     * @param hostname        the name of the load generator
+     * @param allThreads      the number of active threads of all thread groups
+     * @param groupThreads    the number of active threads of the thread group
+     */
+    public void add(String label, long timestamp, long elapsed, long latency, long connectTime, long bytesReceived, long bytesSent,
+                    boolean success, String responseCode, String responseMessage, String threadName, String hostname,
+                    int allThreads, int groupThreads) {
+
+        final BufferHolder bufferHolder = threadBufferHolder.get();
+        final SampleBuffer buffer = bufferHolder.buffer;
+
+        buffer.add(label, timestamp, elapsed, latency, connectTime, bytesReceived, bytesSent, success, responseCode, responseMessage,
+                threadName, hostname, allThreads, groupThreads);
+
+        if (buffer.size == buffer.labels.length) {
+            fullBuffers.add(buffer);
+            bufferHolder.buffer = new SampleBuffer(bufferSize);
+        }
+    }
+
+    /**
+     * Flushes the buffers of all sampler threads and waits until they are added to the model.
+     * The sampler threads must be finished already.
+     */
+    @Override
+    public void close() {
+
+        for (BufferHolder bufferHolder : bufferHolders) {
+            if (bufferHolder.buffer.size > 0) {
+                fullBuffers.add(bufferHolder.buffer);
+                bufferHolder.buffer = new SampleBuffer(bufferSize);
+            }
+        }
+
+        fullBuffers.add(END_OF_TEST);
+
+        try {
+            aggregationThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while aggregating the samples", e);
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Evaluates the SLA rules and writes the report of the aggregated samples.
+     *
+     * @param reportFile the report file
+     * @return the SLA verdict or null if there are no SLA rules
+     * @throws IOException writing the report failed
+     */
+    public SlaVerdict writeReport(File reportFile) throws IOException {
+
+        final SlaEvaluator slaEvaluator = model.getSlaConfiguration().createSlaEvaluator();
+        final SlaVerdict slaVerdict = (slaEvaluator.hasRules() ? slaEvaluator.evaluate(model) : null);
+        final JMeterHtmlReportWriter writer = new JMeterHtmlReportWriter(model, JMeterHtmlReportWriter.DISPLAY_HEADER_FIRSTACCESS_INDEX, "asc", Locale.getDefault());
+        writer.setSlaVerdict(slaVerdict);
+
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(reportFile))) {
+            out.write(writer.createReport());
+        }
+
+        return slaVerdict;
+    }
+
+    public JMeterReportModel getModel() {
+        return model;
+    }
+
+    /**
+     * @return the number of samples added to the model so far
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    private void aggregate() {
+
+        final BufferParser bufferParser = new BufferParser(model);
+
+        try {
+            while (true) {
+                final SampleBuffer buffer = fullBuffers.take();
+                if (buffer == END_OF_TEST) {
+                    return;
+                }
+                bufferParser.add(buffer);
+                samples += buffer.size;
+            }
+        } catch (InterruptedException e) {
+            failure = new RuntimeException("Interrupted while aggregating the samples", e);
+        } catch (RuntimeException e) {
+            // e.g. a SLA violation when failing fast - the remaining buffers are dropped
+            failure = e;
+            drainUntilEndOfTest();
+        }
+    }
+
+    private void drainUntilEndOfTest() {
+        try {
+            while (fullBuffers.take() != END_OF_TEST) {
+                // the buffers are dropped
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Holds the current buffer of a sampler thread.
+     */
+    private static final class BufferHolder {
+
+        volatile SampleBuffer buffer;
+
+        BufferHolder(SampleBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * The samples of a sampler thread stored column by column.
+     */
+    private static final class SampleBuffer {
+
+        final String[] labels;
+        final long[] timestamps;
+        final long[] elapsedTimes;
+        final long[] latencies;
+        final long[] connectTimes;
+        final long[] bytesReceived;
+        final long[] bytesSent;
+        final boolean[] successes;
+        final String[] responseCodes;
+        final String[] responseMessages;
+        final String[] threadNames;
+        final String[] hostnames;
+        final int[] allThreads;
+        final int[] groupThreads;
+        int size;
+
+        SampleBuffer(int capacity) {
+            labels = new String[capacity];
+            timestamps = new long[capacity];
+            elapsedTimes = new long[capacity];
+            latencies = new long[capacity];
+            connectTimes = new long[capacity];
+            bytesReceived = new long[capacity];
+            bytesSent = new long[capacity];
+            successes = new boolean[capacity];
+            responseCodes = new String[capacity];
+            responseMessages = new String[capacity];
+            threadNames = new String[capacity];
+            hostnames = new String[capacity];
+            allThreads = new int[capacity];
+            groupThreads = new int[capacity];
+        }
+
+        void add(String label, long timestamp, long elapsed, long latency, long connectTime, long received, long sent,
+                 boolean success, String responseCode, String responseMessage, String threadName, String hostname, int all, int group) {
+            labels[size] = label;
+            timestamps[size] = timestamp;
+            elapsedTimes[size] = elapsed;
+            latencies[size] = latency;
+            connectTimes[size] = connectTime;
+            bytesReceived[size] = received;
+            bytesSent[size] = sent;
+            successes[size] = success;
+            responseCodes[size] = responseCode;
+            // the response message of successful samples is not reported
+            responseMessages[size] = (success ? null : responseMessage);
+            threadNames[size] = threadName;
+            hostnames[size] = hostname;
+            allThreads[size] = all;
+            groupThreads[size] = group;
+            size++;
+        }
+    }
+
+    /**
+     * Adds the buffered samples to the model like the JTL and CSV parsers.
+     */
+    private static final class BufferParser extends AbstractModelParser {
+
+        BufferParser(SampleSink sampleSink) {
+            super(sampleSink);
+        }
+
+        void add(SampleBuffer buffer) {
+            for (int i = 0; i < buffer.size; i++) {
+                final SampleElement sampleElement = new SampleElement();
+                sampleElement.setLabel(buffer.labels[i]);
+                sampleElement.setTimestamp(new Date(buffer.timestamps[i]));
+                sampleElement.setDuration(buffer.elapsedTimes[i]);
+                sampleElement.setLatency(buffer.latencies[i]);
+                sampleElement.setConnectTime(buffer.connectTimes[i]);
+                sampleElement.setBytesReceived(buffer.bytesReceived[i]);
+                sampleElement.setBytesSent(buffer.bytesSent[i]);
+                sampleElement.setSuccess(buffer.successes[i]);
+                sampleElement.setResultCode(buffer.responseCodes[i]);
+                sampleElement.setResponseMessage(buffer.responseMessages[i]);
+                sampleElement.setThreadName(buffer.threadNames[i]);
+                sampleElement.setHostname(buffer.hostnames[i]);
+                sampleElement.setAllThreads(buffer.allThreads[i]);
+                sampleElement.setGroupThreads(buffer.groupThreads[i]);
+                addElement(sampleElement);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.merge;
+
+import com.github.sgoeschl.jmeter.report.sla.element.SampleElement;
+import com.github.sgoeschl.jmeter.report.sla.parser.SampleSink;
+
+import java.util.Comparator;
+import java.util.Date;
+
+/**
+ * A top-level sample including its sub-samples recorded while parsing a source file to
+ * be added to the report model later.
+ */
+final class RecordedSample {
+
+    static final Comparator<RecordedSample> TIMESTAMP_ORDER = new Comparator<RecordedSample>() {
+        @Override
+        public int compare(RecordedSample left, RecordedSample right) {
+            final int result = left.getTimestamp().compareTo(right.getTimestamp());
+            return result != 0 ? result : Long.compare(left.sequence, right.sequence);
+        }
+    };
+
+    private final long sequence;
+    private final SampleElement sampleElement;
+
+    RecordedSample(long sequence, SampleElement sampleElement) {
+        this.sequence = sequence;
+        this.sampleElement = sampleElement;
+    }
+
+    Date getTimestamp() {
+        return sampleElement.getTimestamp();
+    }
+
+    /**
+     * @param sampleSink the sink to pass the sample to, e.g. the report model
+     */
+    void addTo(SampleSink sampleSink) {
+        sampleSink.addSample(sampleElement);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.merge;
+
+import com.github.sgoeschl.jmeter.report.sla.element.SampleElement;
+import com.github.sgoeschl.jmeter.report.sla.parser.SampleSink;
+
+import java.util.Date;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Records the samples of a single source file instead of aggregating them and passes them
+ * on in timestamp order using a bounded reorder buffer - JMeter writes a sample when it
+ * completes, so a long-running sample is written after shorter samples started later.
+ * Samples being out of order by more than the buffer size are passed on late and counted.
+ */
+final class ReorderingSink implements SampleSink {
+
+    static final RecordedSample END_OF_FILE = new RecordedSample(-1, createEndOfFileElement());
+
+    private final int reorderWindow;
+    private final BlockingQueue<RecordedSample> output;
+    private final PriorityQueue<RecordedSample> reorderBuffer;
+    private long samples;
+    private long lateSamples;
+    private Date lastTimestamp;
+
+    ReorderingSink(int reorderWindow, BlockingQueue<RecordedSample> output) {
+        this.reorderWindow = reorderWindow;
+        this.output = output;
+        this.reorderBuffer = new PriorityQueue<>(reorderWindow + 1, RecordedSample.TIMESTAMP_ORDER);
+    }
+
+    @Override
+    public void addSample(SampleElement sampleElement) {
+        reorderBuffer.add(new RecordedSample(samples++, sampleElement));
+        if (reorderBuffer.size() > reorderWindow) {
+            try {
+                passOn(reorderBuffer.poll());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while merging the source files", e);
+            }
+        }
+    }
+
+    /**
+     * Passes on the buffered samples followed by {@link #END_OF_FILE}.
+     *
+     * @throws InterruptedException merging was aborted
+     */
+    void finish() throws InterruptedException {
+        while (!reorderBuffer.isEmpty()) {
+            passOn(reorderBuffer.poll());
+        }
+        output.put(END_OF_FILE);
+    }
+
+    long getSamples() {
+        return samples;
+    }
+
+    /**
+     * @return the number of samples passed on after a sample having a later timestamp
+     */
+    long getLateSamples() {
+        return lateSamples;
+    }
+
+    private void passOn(RecordedSample sample) throws InterruptedException {
+        if (lastTimestamp != null && sample.getTimestamp().before(lastTimestamp)) {
+            lateSamples++;
+        } else {
+            lastTimestamp = sample.getTimestamp();
+        }
+        output.put(sample);
+    }
+
+    private static SampleElement createEndOfFileElement() {
+        final SampleElement result = new SampleElement();
+        result.setTimestamp(new Date(0));
+        return result;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.merge;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.parser.SampleSink;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Adds the samples of several source files, e.g. written by multiple JMeter slaves, to the
+ * report model in timestamp order. Each source file is parsed by a thread of its own into a
+ * bounded reorder buffer and a bounded queue while the calling thread merges the queues using
+ * a priority queue of their heads, i.e. the memory is proportional to the reorder window and
+ * the number of source files but not to their size. Since every source file needs a thread
+ * of its own to make progress the number of source files is limited.
+ */
+public class TimeOrderedMerger {
+
+    public static final int DEFAULT_REORDER_WINDOW = 10000;
+
+    public static final int MAX_SOURCE_FILES = 64;
+
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /**
+     * Parses a source file passing its samples to the given sink.
+     */
+    public interface SourceParser {
+        void parse(File sourceFile, SampleSink sampleSink) throws Exception;
+    }
+
+    private final JMeterReportModel model;
+    private final int reorderWindow;
+
+    /**
+     * @param model         the report model
+     * @param reorderWindow the number of samples per source file buffered to restore the timestamp order
+     */
+    public TimeOrderedMerger(JMeterReportModel model, int reorderWindow) {
+        if (reorderWindow <= 0) {
+            throw new IllegalArgumentException("Expecting a positive reorder window: " + reorderWindow);
+        }
+        this.model = model;
+        this.reorderWindow = reorderWindow;
+    }
+
+    /**
+     * Merges the samples of the source files - the merge is aborted when parsing a source
+     * file fails since the report would be incomplete otherwise.
+     *
+     * @param sourceFiles the source files
+     * @param parser      the parser of a single source file
+     */
+    public void merge(List<File> sourceFiles, final SourceParser parser) {
+
+        if (sourceFiles.size() > MAX_SOURCE_FILES) {
+            throw new IllegalArgumentException("Adding the samples in timestamp order supports up to " + MAX_SOURCE_FILES
+                    + " source files but got " + sourceFiles.size());
+        }
+
+        final List<Source> sources = new ArrayList<>();
+        final ExecutorService executorService = Executors.newFixedThreadPool(sourceFiles.size());
+
+        try {
+            for (File sourceFile : sourceFiles) {
+                final Source source = new Source(sources.size(), sourceFile);
+                sources.add(source);
+                executorService.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        source.parse(parser);
+                    }
+                });
+            }
+
+            final PriorityQueue<Source> heads = new PriorityQueue<>(sources.size(), new Comparator<Source>() {
+                @Override
+                public int compare(Source left, Source right) {
+                    final int result = RecordedSample.TIMESTAMP_ORDER.compare(left.head, right.head);
+                    return result != 0 ? result : Integer.compare(left.index, right.index);
+                }
+            });
+
+            for (Source source : sources) {
+                if (source.next()) {
+                    heads.add(source);
+                }
+            }
+
+            while (!heads.isEmpty()) {
+                final Source source = heads.poll();
+                source.head.addTo(model);
+                if (source.next()) {
+                    heads.add(source);
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        for (Source source : sources) {
+            source.report();
+        }
+    }
+
+    private final class Source {
+
+        private final int index;
+        private final File sourceFile;
+        private final BlockingQueue<RecordedSample> queue;
+        private final ReorderingSink reorderingSink;
+        private volatile Exception failure;
+        private RecordedSample head;
+
+        Source(int index, File sourceFile) {
+            this.index = index;
+            this.sourceFile = sourceFile;
+            this.queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            this.reorderingSink = new ReorderingSink(reorderWindow, queue);
+        }
+
+        void parse(SourceParser parser) {
+            try {
+                parser.parse(sourceFile, reorderingSink);
+            } catch (Exception e) {
+                failure = e;
+            }
+            try {
+                reorderingSink.finish();
+            } catch (InterruptedException e) {
+                // merging was aborted
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * @return false if the end of the source file is reached
+         * @throws RuntimeException parsing the source file failed
+         */
+        boolean next() {
+            try {
+                head = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while merging the source files", e);
+            }
+            if (head != ReorderingSink.END_OF_FILE) {
+                return true;
+            }
+            if (failure != null) {
+                throw new RuntimeException("Exception while parsing " + sourceFile.getAbsolutePath() + " : " + failure.getMessage(), failure);
+            }
+            return false;
+        }
+
+        void report() {
+            if (reorderingSink.getLateSamples() > 0) {
+                System.out.println(reorderingSink.getLateSamples() + " of " + reorderingSink.getSamples() + " samples of "
+                        + sourceFile.getAbsolutePath() + " were out of order by more than " + reorderWindow + " samples");
+            }
+        }
+    }
+}
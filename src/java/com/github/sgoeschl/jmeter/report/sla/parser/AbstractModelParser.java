@@ -17,58 +17,22 @@
  */
 package com.github.sgoeschl.jmeter.report.sla.parser;
 
-import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
-import com.github.sgoeschl.jmeter.report.sla.element.AssertionResultElement;
 import com.github.sgoeschl.jmeter.report.sla.element.SampleElement;
 
-import java.util.Date;
-
 public abstract class AbstractModelParser {
 
-    private final JMeterReportModel model;
+    private final SampleSink sampleSink;
 
-    public AbstractModelParser(JMeterReportModel model) {
-        this.model = model;
+    public AbstractModelParser(SampleSink sampleSink) {
+        this.sampleSink = sampleSink;
     }
 
+    /**
+     * Passes a complete top-level sample including its sub-samples to the sink.
+     *
+     * @param sampleElement the sample
+     */
     protected void addElement(SampleElement sampleElement) {
-
-        final String label = sampleElement.getLabel();
-        final Date timestamp = sampleElement.getTimestamp();
-        final long duration = sampleElement.getDuration();
-        final long bytesReceived = sampleElement.getBytesReceived();
-
-        if (sampleElement.isSuccess()) {
-            model.addSuccess(label, timestamp, duration, bytesReceived);
-        } else {
-            final String resultCode;
-            final String responseMessage;
-
-            if (!sampleElement.getAssertionResultList().isEmpty()) {
-                final AssertionResultElement assertionResult = sampleElement.getAssertionResultList().get(0);
-                resultCode = assertionResult.getName();
-                responseMessage = assertionResult.getFailureMessage();
-            } else {
-                resultCode = sampleElement.getResultCode();
-                responseMessage = sampleElement.getResponseMessage();
-            }
-
-            final String failureResultCode = createFailureResultCode(resultCode, responseMessage);
-
-            model.addFailure(
-                    label,
-                    timestamp,
-                    duration,
-                    failureResultCode,
-                    null);
-        }
-    }
-
-    private String createFailureResultCode(String errorCode, String errorMessage) {
-        if (errorMessage == null || errorMessage.isEmpty()) {
-            return errorCode;
-        } else {
-            return errorCode + " - " + errorMessage;
-        }
+        sampleSink.addSample(sampleElement);
     }
 }
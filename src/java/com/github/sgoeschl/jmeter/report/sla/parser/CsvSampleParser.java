@@ -20,7 +20,6 @@ package com.github.sgoeschl.jmeter.report.sla.parser;
 import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
 import com.github.sgoeschl.jmeter.report.sla.element.SampleElement;
 
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Map;
 
@@ -31,8 +30,6 @@ import static java.lang.Boolean.parseBoolean;
  */
 public class CsvSampleParser extends AbstractModelParser {
 
-    private final SimpleDateFormat sdf = new SimpleDateFormat("yyyy/MM/dd hh:mm:ss,SSS");
-
     private static final String TIME_STAMP = "timeStamp";
     private static final String ELAPSED = "elapsed";
     private static final String LABEL = "label";
@@ -40,9 +37,23 @@ public class CsvSampleParser extends AbstractModelParser {
     private static final String RESPONSE_MESSAGE = "responseMessage";
     private static final String SUCCESS = "success";
     private static final String BYTES = "bytes";
+    private static final String SENT_BYTES = "sentBytes";
+    private static final String LATENCY = "Latency";
+    private static final String CONNECT = "Connect";
+    private static final String ALL_THREADS = "allThreads";
+    private static final String GROUP_THREADS = "grpThreads";
+    private static final String THREAD_NAME = "threadName";
+    private static final String HOSTNAME = "Hostname";
+
+    private final TimestampDecoder timestampDecoder;
 
     public CsvSampleParser(JMeterReportModel model) {
-        super(model);
+        this(model, new TimestampDecoder(model.getSlaConfiguration().getTimestampFormat()));
+    }
+
+    public CsvSampleParser(SampleSink sampleSink, TimestampDecoder timestampDecoder) {
+        super(sampleSink);
+        this.timestampDecoder = timestampDecoder;
     }
 
     public void parse(Map<String, String> parts) {
@@ -54,6 +65,13 @@ public class CsvSampleParser extends AbstractModelParser {
         final String responseMessage = parts.get(RESPONSE_MESSAGE);
         final boolean success = parseBoolean(parts.get(SUCCESS));
         final long bytesReceived = Long.parseLong(parts.getOrDefault(BYTES, "0"));
+        final long bytesSent = Long.parseLong(parts.getOrDefault(SENT_BYTES, "0"));
+        final long latency = Long.parseLong(parts.getOrDefault(LATENCY, "-1"));
+        final long connectTime = Long.parseLong(parts.getOrDefault(CONNECT, "-1"));
+        final int allThreads = Integer.parseInt(parts.getOrDefault(ALL_THREADS, "0"));
+        final int groupThreads = Integer.parseInt(parts.getOrDefault(GROUP_THREADS, "0"));
+        final String threadName = parts.get(THREAD_NAME);
+        final String hostname = parts.get(HOSTNAME);
 
         final SampleElement sampleElement = new SampleElement();
 
@@ -64,17 +82,20 @@ public class CsvSampleParser extends AbstractModelParser {
         sampleElement.setResponseMessage(responseMessage);
         sampleElement.setSuccess(success);
         sampleElement.setBytesReceived(bytesReceived);
+        sampleElement.setBytesSent(bytesSent);
+        sampleElement.setLatency(latency);
+        sampleElement.setConnectTime(connectTime);
+        sampleElement.setAllThreads(allThreads);
+        sampleElement.setGroupThreads(groupThreads);
+        sampleElement.setThreadName(threadName);
+        sampleElement.setHostname(hostname);
 
         addElement(sampleElement);
     }
 
     private Date parseTimestamp(String value) {
         try {
-            if (value.contains(":")) {
-                return sdf.parse(value);
-            } else {
-                return new Date(Long.parseLong(value));
-            }
+            return new Date(timestampDecoder.decode(value));
         } catch (Exception e) {
             throw new RuntimeException("Parsing the following date failed: " + value, e);
         }
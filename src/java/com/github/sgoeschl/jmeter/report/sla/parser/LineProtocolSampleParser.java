@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.parser;
+
+import com.github.sgoeschl.jmeter.report.sla.element.SampleElement;
+
+import java.util.Date;
+
+/**
+ * Parses a sample sent as a line of the InfluxDB line protocol, e.g. by a JMeter backend
+ * listener streaming each sample instead of writing a JTL file
+ *
+ * <pre>
+ * jmeter,label=Login\ Page,responseCode=200,success=true elapsed=123i,bytes=4096i,responseMessage="OK" 1309253259940
+ * </pre>
+ *
+ * Tags and fields use the names of the JMeter CSV columns, i.e. "label", "responseCode",
+ * "responseMessage", "success", "elapsed", "bytes", "sentBytes", "Latency", "Connect",
+ * "allThreads", "grpThreads", "threadName" and "Hostname" - the measurement and any other tags or fields are ignored.
+ * The optional timestamp is expected in epoch milliseconds and defaults to the current time.
+ */
+public class LineProtocolSampleParser extends AbstractModelParser {
+
+    private static final String LABEL = "label";
+    private static final String RESPONSE_CODE = "responseCode";
+    private static final String RESPONSE_MESSAGE = "responseMessage";
+    private static final String SUCCESS = "success";
+    private static final String ELAPSED = "elapsed";
+    private static final String BYTES = "bytes";
+    private static final String SENT_BYTES = "sentBytes";
+    private static final String LATENCY = "Latency";
+    private static final String CONNECT = "Connect";
+    private static final String ALL_THREADS = "allThreads";
+    private static final String GROUP_THREADS = "grpThreads";
+    private static final String THREAD_NAME = "threadName";
+    private static final String HOSTNAME = "Hostname";
+
+    private final StringBuilder token = new StringBuilder();
+    private String line;
+    private int position;
+
+    public LineProtocolSampleParser(SampleSink sampleSink) {
+        super(sampleSink);
+    }
+
+    /**
+     * @param line a line without the line break
+     */
+    public void parse(String line) {
+
+        this.line = line;
+        this.position = 0;
+
+        final SampleElement sampleElement = new SampleElement();
+        boolean hasElapsed = false;
+
+        // the measurement
+        nextToken(',', ' ');
+
+        while (position < line.length() && line.charAt(position) == ',') {
+            position++;
+            final String key = nextToken('=', '=');
+            expect('=');
+            hasElapsed |= set(sampleElement, key, nextToken(',', ' '));
+        }
+
+        expect(' ');
+
+        do {
+            final String key = nextToken('=', '=');
+            expect('=');
+            final String value = (position < line.length() && line.charAt(position) == '"' ? nextQuotedToken() : nextToken(',', ' '));
+            hasElapsed |= set(sampleElement, key, value);
+        } while (position < line.length() && line.charAt(position++) == ',');
+
+        final String timestamp = (position < line.length() ? line.substring(position).trim() : "");
+        sampleElement.setTimestamp(new Date(timestamp.isEmpty() ? System.currentTimeMillis() : Long.parseLong(timestamp)));
+
+        if (sampleElement.getLabel() == null || !hasElapsed) {
+            throw new IllegalArgumentException("Expecting a label and an elapsed time: " + line);
+        }
+
+        addElement(sampleElement);
+    }
+
+    /**
+     * @return true if the elapsed time was set
+     */
+    private static boolean set(SampleElement sampleElement, String key, String value) {
+        switch (key) {
+            case LABEL:
+                sampleElement.setLabel(value);
+                return false;
+            case RESPONSE_CODE:
+                sampleElement.setResultCode(value);
+                return false;
+            case RESPONSE_MESSAGE:
+                sampleElement.setResponseMessage(value);
+                return false;
+            case SUCCESS:
+                sampleElement.setSuccess("true".equalsIgnoreCase(value) || "t".equalsIgnoreCase(value));
+                return false;
+            case ELAPSED:
+                sampleElement.setDuration(parseLong(value));
+                return true;
+            case BYTES:
+                sampleElement.setBytesReceived(parseLong(value));
+                return false;
+            case SENT_BYTES:
+                sampleElement.setBytesSent(parseLong(value));
+                return false;
+            case LATENCY:
+                sampleElement.setLatency(parseLong(value));
+                return false;
+            case CONNECT:
+                sampleElement.setConnectTime(parseLong(value));
+                return false;
+            case ALL_THREADS:
+                sampleElement.setAllThreads((int) parseLong(value));
+                return false;
+            case GROUP_THREADS:
+                sampleElement.setGroupThreads((int) parseLong(value));
+                return false;
+            case THREAD_NAME:
+                sampleElement.setThreadName(value);
+                return false;
+            case HOSTNAME:
+                sampleElement.setHostname(value);
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Parses an integer field which might have an "i" suffix.
+     */
+    private static long parseLong(String value) {
+        final int end = (value.endsWith("i") ? value.length() - 1 : value.length());
+        return Long.parseLong(value.substring(0, end));
+    }
+
+    /**
+     * Reads an unquoted token up to one of the delimiters handling backslash escapes.
+     */
+    private String nextToken(char delimiter, char otherDelimiter) {
+        token.setLength(0);
+        while (position < line.length()) {
+            final char c = line.charAt(position);
+            if (c == delimiter || c == otherDelimiter) {
+                break;
+            }
+            if (c == '\\' && position + 1 < line.length()) {
+                position++;
+            }
+            token.append(line.charAt(position++));
+        }
+        return token.toString();
+    }
+
+    private String nextQuotedToken() {
+        token.setLength(0);
+        position++;
+        while (position < line.length() && line.charAt(position) != '"') {
+            if (line.charAt(position) == '\\' && position + 1 < line.length()) {
+                position++;
+            }
+            token.append(line.charAt(position++));
+        }
+        expect('"');
+        return token.toString();
+    }
+
+    private void expect(char c) {
+        if (position >= line.length() || line.charAt(position) != c) {
+            throw new IllegalArgumentException("Expecting '" + c + "' at position " + position + ": " + line);
+        }
+        position++;
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.parser;
+
+import com.github.sgoeschl.jmeter.report.sla.element.SampleElement;
+
+/**
+ * Receives the top-level samples of the parsers, e.g. the report model aggregating them or
+ * the binary result converter writing them. A sample is passed once it is complete, i.e.
+ * including its sub-samples and failure details.
+ */
+public interface SampleSink {
+
+    /**
+     * @param sampleElement the top-level sample including its sub-samples
+     */
+    void addSample(SampleElement sampleElement);
+}
@@ -0,0 +1,349 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.parser;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Decodes the "timeStamp" column of JMeter CSV files into epoch milliseconds. Fixed-layout
+ * patterns such as "yyyy/MM/dd HH:mm:ss,SSS" are decoded directly from the characters and
+ * the epoch milliseconds of the last second are cached since consecutive samples mostly
+ * share the same second. Other patterns fall back to a {@link SimpleDateFormat} per thread.
+ * Timestamps consisting of digits only are always treated as epoch milliseconds.
+ * <p>
+ * The decoder is thread-safe.
+ */
+public class TimestampDecoder {
+
+    /** the timestamp format used by JMeter for epoch milliseconds */
+    public static final String FORMAT_MS = "ms";
+
+    public static final String DEFAULT_PATTERN = "yyyy/MM/dd HH:mm:ss,SSS";
+
+    private static final char QUOTE = '\'';
+
+    private enum FieldType {
+        YEAR, MONTH, DAY, HOUR, HOUR_12, AM_PM, MINUTE, SECOND, MILLIS
+    }
+
+    private static final class Field {
+        final FieldType type;
+        final int offset;
+        final int width;
+
+        Field(FieldType type, int offset, int width) {
+            this.type = type;
+            this.offset = offset;
+            this.width = width;
+        }
+    }
+
+    /** an immutable cache entry to be safely shared between threads */
+    private static final class CachedSecond {
+        final String value;
+        final long epochMillis;
+
+        CachedSecond(String value, long epochMillis) {
+            this.value = value;
+            this.epochMillis = epochMillis;
+        }
+    }
+
+    private final String pattern;
+    private final ZoneId zoneId;
+    private final List<Field> fields;
+    private final int length;
+    private final Field millisField;
+    private final ThreadLocal<SimpleDateFormat> fallbackFormat;
+    private volatile CachedSecond cachedSecond;
+
+    /**
+     * @param pattern the {@link SimpleDateFormat} pattern, "ms" or null for the default pattern
+     */
+    public TimestampDecoder(String pattern) {
+        this.pattern = (pattern == null || pattern.isEmpty() || FORMAT_MS.equals(pattern) ? DEFAULT_PATTERN : pattern);
+        this.zoneId = TimeZone.getDefault().toZoneId();
+        this.fields = compile(this.pattern);
+        this.length = (fields != null ? getLength(this.pattern) : -1);
+        this.millisField = (fields != null ? getField(fields, FieldType.MILLIS) : null);
+        this.fallbackFormat = (fields == null ? createFallbackFormat(this.pattern) : null);
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * @return true if the pattern is decoded without {@link SimpleDateFormat}
+     */
+    public boolean isFixedLayout() {
+        return fields != null;
+    }
+
+    /**
+     * @param value the textual timestamp
+     * @return the epoch milliseconds
+     */
+    public long decode(String value) {
+
+        if (isDigits(value)) {
+            return Long.parseLong(value);
+        }
+
+        if (fields == null) {
+            return decodeWithFallbackFormat(value);
+        }
+
+        if (value.length() != length) {
+            throw new IllegalArgumentException("Expecting a timestamp matching '" + pattern + "': " + value);
+        }
+
+        final int millis = (millisField != null ? parseDigits(value, millisField) : 0);
+        final CachedSecond current = cachedSecond;
+
+        if (current != null && isSameSecond(current.value, value)) {
+            return current.epochMillis + millis;
+        }
+
+        final long epochMillis = decodeSecond(value);
+        cachedSecond = new CachedSecond(value, epochMillis);
+        return epochMillis + millis;
+    }
+
+    private long decodeSecond(String value) {
+
+        int year = 1970;
+        int month = 1;
+        int day = 1;
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        boolean isPm = false;
+        boolean isHour12 = false;
+
+        for (Field field : fields) {
+            switch (field.type) {
+                case YEAR:
+                    year = parseDigits(value, field);
+                    year = (field.width == 2 ? 2000 + year : year);
+                    break;
+                case MONTH:
+                    month = parseDigits(value, field);
+                    break;
+                case DAY:
+                    day = parseDigits(value, field);
+                    break;
+                case HOUR:
+                    hour = parseDigits(value, field);
+                    break;
+                case HOUR_12:
+                    hour = parseDigits(value, field);
+                    isHour12 = true;
+                    break;
+                case AM_PM:
+                    isPm = parseAmPm(value, field);
+                    break;
+                case MINUTE:
+                    minute = parseDigits(value, field);
+                    break;
+                case SECOND:
+                    second = parseDigits(value, field);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (isHour12 && getField(fields, FieldType.AM_PM) != null) {
+            hour = (hour % 12) + (isPm ? 12 : 0);
+        }
+
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second).atZone(zoneId).toInstant().toEpochMilli();
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Expecting a timestamp matching '" + pattern + "': " + value, e);
+        }
+    }
+
+    /**
+     * Both timestamps share the same second if all characters except the milliseconds are equal.
+     */
+    private boolean isSameSecond(String cached, String value) {
+        if (millisField == null) {
+            return cached.equals(value);
+        }
+        final int millisEnd = millisField.offset + millisField.width;
+        return cached.regionMatches(0, value, 0, millisField.offset)
+                && cached.regionMatches(millisEnd, value, millisEnd, length - millisEnd);
+    }
+
+    private long decodeWithFallbackFormat(String value) {
+        try {
+            return fallbackFormat.get().parse(value).getTime();
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Expecting a timestamp matching '" + pattern + "': " + value, e);
+        }
+    }
+
+    private int parseDigits(String value, Field field) {
+        int result = 0;
+        for (int i = field.offset; i < field.offset + field.width; i++) {
+            final int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Expecting a timestamp matching '" + pattern + "': " + value);
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private boolean parseAmPm(String value, Field field) {
+        final char c = Character.toUpperCase(value.charAt(field.offset));
+        if ((c != 'A' && c != 'P') || Character.toUpperCase(value.charAt(field.offset + 1)) != 'M') {
+            throw new IllegalArgumentException("Expecting a timestamp matching '" + pattern + "': " + value);
+        }
+        return c == 'P';
+    }
+
+    private static boolean isDigits(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compiles the pattern into fixed-width fields.
+     *
+     * @return the fields or null if the pattern has no fixed layout
+     */
+    private static List<Field> compile(String pattern) {
+
+        final List<Field> result = new ArrayList<>();
+        int offset = 0;
+        int i = 0;
+
+        while (i < pattern.length()) {
+            final char c = pattern.charAt(i);
+
+            if (c == QUOTE) {
+                final int end = pattern.indexOf(QUOTE, i + 1);
+                if (end < 0 || end == i + 1) {
+                    // unterminated literals and escaped quotes are left to SimpleDateFormat
+                    return null;
+                }
+                offset += end - i - 1;
+                i = end + 1;
+            } else if (Character.isLetter(c)) {
+                int width = 1;
+                while (i + width < pattern.length() && pattern.charAt(i + width) == c) {
+                    width++;
+                }
+                final FieldType type = getFieldType(c, width);
+                if (type == null) {
+                    return null;
+                }
+                // the AM/PM marker is written as "AM" or "PM"
+                final int fieldWidth = (type == FieldType.AM_PM ? 2 : width);
+                result.add(new Field(type, offset, fieldWidth));
+                offset += fieldWidth;
+                i += width;
+            } else {
+                offset++;
+                i++;
+            }
+        }
+
+        return result;
+    }
+
+    private static FieldType getFieldType(char c, int width) {
+        switch (c) {
+            case 'y':
+                return (width == 4 || width == 2 ? FieldType.YEAR : null);
+            case 'M':
+                return (width == 2 ? FieldType.MONTH : null);
+            case 'd':
+                return (width == 2 ? FieldType.DAY : null);
+            case 'H':
+                return (width == 2 ? FieldType.HOUR : null);
+            case 'h':
+                return (width == 2 ? FieldType.HOUR_12 : null);
+            case 'a':
+                return (width == 1 ? FieldType.AM_PM : null);
+            case 'm':
+                return (width == 2 ? FieldType.MINUTE : null);
+            case 's':
+                return (width == 2 ? FieldType.SECOND : null);
+            case 'S':
+                return (width == 3 ? FieldType.MILLIS : null);
+            default:
+                return null;
+        }
+    }
+
+    private static int getLength(String pattern) {
+        int result = 0;
+        boolean isQuoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+            if (c == QUOTE) {
+                isQuoted = !isQuoted;
+            } else if (c == 'a' && !isQuoted) {
+                // "AM" or "PM"
+                result += 2;
+            } else {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    private static Field getField(List<Field> fields, FieldType type) {
+        for (Field field : fields) {
+            if (field.type == type) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static ThreadLocal<SimpleDateFormat> createFallbackFormat(final String pattern) {
+        // fail early for invalid patterns
+        new SimpleDateFormat(pattern);
+        return new ThreadLocal<SimpleDateFormat>() {
+            @Override
+            protected SimpleDateFormat initialValue() {
+                return new SimpleDateFormat(pattern);
+            }
+        };
+    }
+}
@@ -31,11 +31,31 @@ import java.util.Stack;
  */
 public class XmlAssertionResultParser implements ComponentParser {
 
+    /**
+     * skip the assertion results of successful samples
+     */
+    private final boolean skipSuccessfulSamples;
+
+    public XmlAssertionResultParser() {
+        this(false);
+    }
+
+    public XmlAssertionResultParser(boolean skipSuccessfulSamples) {
+        this.skipSuccessfulSamples = skipSuccessfulSamples;
+    }
+
     @Override
     public Object startElement(XMLStreamReader streamReader, Stack<Object> elementStack) throws XMLStreamException {
 
         final AssertionResultElement assertionResultElement = new AssertionResultElement();
 
+        // the assertion results of a successful sample are never reported so we don't need
+        // to parse them - any nested sample is still parsed since it is a sibling element
+        if (skipSuccessfulSamples && ((SampleElement) elementStack.peek()).isSuccess()) {
+            StaxUtil.skipElement(streamReader);
+            return assertionResultElement;
+        }
+
         StaxUtil.moveReaderToElement("name", streamReader);
         assertionResultElement.setName(streamReader.getElementText());
 
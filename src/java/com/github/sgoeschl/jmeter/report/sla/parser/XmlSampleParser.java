@@ -17,7 +17,6 @@
  */
 package com.github.sgoeschl.jmeter.report.sla.parser;
 
-import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
 import com.github.sgoeschl.jmeter.report.sla.element.SampleElement;
 import com.github.sgoeschl.jmeter.report.sla.stax.ComponentParser;
 
@@ -34,8 +33,8 @@ public class XmlSampleParser extends AbstractModelParser implements ComponentPar
     private static final int LABEL_LENGTH = 70;
     private static final int RESPONSE_MESSAGE_LENGTH = 255;
 
-    public XmlSampleParser(JMeterReportModel model) {
-        super(model);
+    public XmlSampleParser(SampleSink sampleSink) {
+        super(sampleSink);
     }
 
     /**
@@ -60,6 +59,13 @@ public class XmlSampleParser extends AbstractModelParser implements ComponentPar
         final String responseMessage = trim(attributes.getProperty("rm"), RESPONSE_MESSAGE_LENGTH);
         final boolean success = Boolean.parseBoolean(attributes.getProperty("s"));
         final int bytesReceived = Integer.parseInt(attributes.getProperty("by", "0"));
+        final long bytesSent = Long.parseLong(attributes.getProperty("sby", "0"));
+        final long latency = Long.parseLong(attributes.getProperty("lt", "-1"));
+        final long connectTime = Long.parseLong(attributes.getProperty("ct", "-1"));
+        final int allThreads = Integer.parseInt(attributes.getProperty("na", "0"));
+        final int groupThreads = Integer.parseInt(attributes.getProperty("ng", "0"));
+        final String threadName = attributes.getProperty("tn");
+        final String hostname = attributes.getProperty("hn");
 
         final SampleElement sampleElement = new SampleElement();
         sampleElement.setDuration(duration);
@@ -69,14 +75,45 @@ public class XmlSampleParser extends AbstractModelParser implements ComponentPar
         sampleElement.setResponseMessage(responseMessage);
         sampleElement.setSuccess(success);
         sampleElement.setBytesReceived(bytesReceived);
+        sampleElement.setBytesSent(bytesSent);
+        sampleElement.setLatency(latency);
+        sampleElement.setConnectTime(connectTime);
+        sampleElement.setAllThreads(allThreads);
+        sampleElement.setGroupThreads(groupThreads);
+        sampleElement.setThreadName(threadName);
+        sampleElement.setHostname(hostname);
 
         return sampleElement;
     }
 
+    /**
+     * Nested samples written by transaction controllers are aggregated under their
+     * parent sample instead of being counted as separate top-level samples, i.e. they
+     * are attached to their parent which is passed on when complete.
+     */
     @Override
     public void endElement(XMLStreamReader streamReader, Stack<Object> elementStack) {
         final SampleElement sampleElement = (SampleElement) elementStack.peek();
-        addElement(sampleElement);
+        final SampleElement parentElement = getParentElement(elementStack);
+
+        if (parentElement != null) {
+            parentElement.addSubSample(sampleElement);
+        } else {
+            addElement(sampleElement);
+        }
+    }
+
+    /**
+     * @return the nearest enclosing sample of the current sample or null for top-level samples
+     */
+    private static SampleElement getParentElement(Stack<Object> elementStack) {
+        for (int i = elementStack.size() - 2; i >= 0; i--) {
+            final Object element = elementStack.get(i);
+            if (element instanceof SampleElement) {
+                return (SampleElement) element;
+            }
+        }
+        return null;
     }
 
     private String trim(String input, int maxLength) {
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.preview;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.stats.SampleStatistics;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The number of requests and errors per label parsed from a single chunk.
+ */
+class ChunkCounts {
+
+    private final Map<String, long[]> counts = new HashMap<>();
+    private long totalRequests;
+    private long totalErrors;
+
+    static ChunkCounts of(JMeterReportModel model) {
+        final ChunkCounts result = new ChunkCounts();
+        for (String label : model.getLabels()) {
+            final SampleStatistics statistics = model.getStatistics(label);
+            result.add(label, statistics.getRequests(), statistics.getFailures());
+        }
+        return result;
+    }
+
+    static ChunkCounts sum(Collection<ChunkCounts> chunks) {
+        final ChunkCounts result = new ChunkCounts();
+        for (ChunkCounts chunk : chunks) {
+            for (Map.Entry<String, long[]> entry : chunk.counts.entrySet()) {
+                result.add(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+            }
+        }
+        return result;
+    }
+
+    @SafeVarargs
+    static Collection<String> getLabels(Collection<ChunkCounts>... chunks) {
+        final Collection<String> result = new TreeSet<>();
+        for (Collection<ChunkCounts> collection : chunks) {
+            for (ChunkCounts chunk : collection) {
+                result.addAll(chunk.counts.keySet());
+            }
+        }
+        return result;
+    }
+
+    long getRequests(String label) {
+        final long[] values = counts.get(label);
+        return values != null ? values[0] : 0;
+    }
+
+    long getErrors(String label) {
+        final long[] values = counts.get(label);
+        return values != null ? values[1] : 0;
+    }
+
+    long getTotalRequests() {
+        return totalRequests;
+    }
+
+    long getTotalErrors() {
+        return totalErrors;
+    }
+
+    private void add(String label, long requests, long errors) {
+        long[] values = counts.get(label);
+        if (values == null) {
+            values = new long[2];
+            counts.put(label, values);
+        }
+        values[0] += requests;
+        values[1] += errors;
+        totalRequests += requests;
+        totalErrors += errors;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.preview;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The estimated number of requests and errors of a preview based on a subset of chunks.
+ * <p>
+ * Each file is a stratum - its first and last chunks are always parsed while the remaining
+ * chunks are a simple random sample. So the total of a file is estimated by scaling the
+ * sampled chunks and its variance by the variance between the sampled chunks using the
+ * finite population correction. The estimates of the files are summed up.
+ */
+public class PreviewEstimate {
+
+    // the z-value of the 95% confidence interval
+    private static final double Z_95 = 1.96;
+
+    /**
+     * An estimated total with its 95% confidence bound.
+     */
+    public static final class Estimate {
+
+        private double value;
+        private double variance;
+
+        public double getValue() {
+            return value;
+        }
+
+        /**
+         * @return the half-width of the 95% confidence interval
+         */
+        public double getBound() {
+            return Z_95 * Math.sqrt(variance);
+        }
+    }
+
+    private final Map<String, Estimate> requests = new TreeMap<>();
+    private final Map<String, Estimate> errors = new TreeMap<>();
+    private final Estimate summaryRequests = new Estimate();
+    private final Estimate summaryErrors = new Estimate();
+    private long totalChunks;
+    private long parsedChunks;
+
+    public Collection<String> getLabels() {
+        return Collections.unmodifiableCollection(requests.keySet());
+    }
+
+    public Estimate getRequests(String label) {
+        return requests.get(label);
+    }
+
+    public Estimate getErrors(String label) {
+        return errors.get(label);
+    }
+
+    public Estimate getSummaryRequests() {
+        return summaryRequests;
+    }
+
+    public Estimate getSummaryErrors() {
+        return summaryErrors;
+    }
+
+    public long getTotalChunks() {
+        return totalChunks;
+    }
+
+    public long getParsedChunks() {
+        return parsedChunks;
+    }
+
+    /**
+     * Adds the estimates of a file.
+     *
+     * @param totalChunks the number of chunks of the file
+     * @param certain     the counts of the chunks parsed for sure, i.e. the first and last chunk
+     * @param sampled     the counts of the randomly sampled chunks
+     */
+    void addFile(long totalChunks, Collection<ChunkCounts> certain, Collection<ChunkCounts> sampled) {
+
+        this.totalChunks += totalChunks;
+        this.parsedChunks += certain.size() + sampled.size();
+
+        final long sampleSize = sampled.size();
+        final long populationSize = totalChunks - certain.size();
+        final ChunkCounts certainTotals = ChunkCounts.sum(certain);
+
+        for (String label : ChunkCounts.getLabels(certain, sampled)) {
+            final long[] sampledRequests = new long[sampled.size()];
+            final long[] sampledErrors = new long[sampled.size()];
+            int i = 0;
+            for (ChunkCounts counts : sampled) {
+                sampledRequests[i] = counts.getRequests(label);
+                sampledErrors[i++] = counts.getErrors(label);
+            }
+            add(getEstimate(requests, label), certainTotals.getRequests(label), sampledRequests, populationSize, sampleSize);
+            add(getEstimate(errors, label), certainTotals.getErrors(label), sampledErrors, populationSize, sampleSize);
+        }
+
+        final long[] sampledRequests = new long[sampled.size()];
+        final long[] sampledErrors = new long[sampled.size()];
+        int i = 0;
+        for (ChunkCounts counts : sampled) {
+            sampledRequests[i] = counts.getTotalRequests();
+            sampledErrors[i++] = counts.getTotalErrors();
+        }
+        add(summaryRequests, certainTotals.getTotalRequests(), sampledRequests, populationSize, sampleSize);
+        add(summaryErrors, certainTotals.getTotalErrors(), sampledErrors, populationSize, sampleSize);
+    }
+
+    private static void add(Estimate estimate, long certainTotal, long[] sampled, long populationSize, long sampleSize) {
+
+        estimate.value += certainTotal;
+
+        if (sampleSize == 0) {
+            return;
+        }
+
+        double sum = 0.0;
+        for (long value : sampled) {
+            sum += value;
+        }
+
+        final double mean = sum / sampleSize;
+        estimate.value += populationSize * mean;
+
+        if (sampleSize < populationSize) {
+            // a single sampled chunk has no variance - assume Poisson distributed counts instead
+            double sampleVariance = mean;
+            if (sampleSize > 1) {
+                double sumOfSquares = 0.0;
+                for (long value : sampled) {
+                    sumOfSquares += (value - mean) * (value - mean);
+                }
+                sampleVariance = sumOfSquares / (sampleSize - 1);
+            }
+            final double finitePopulationCorrection = 1.0 - (double) sampleSize / populationSize;
+            estimate.variance += (double) populationSize * populationSize * finitePopulationCorrection * sampleVariance / sampleSize;
+        }
+    }
+
+    private static Estimate getEstimate(Map<String, Estimate> estimates, String label) {
+        Estimate result = estimates.get(label);
+        if (result == null) {
+            result = new Estimate();
+            estimates.put(label, result);
+        }
+        return result;
+    }
+}
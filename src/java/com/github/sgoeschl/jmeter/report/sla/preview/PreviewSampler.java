@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.preview;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportParser;
+import com.github.sgoeschl.jmeter.report.sla.binary.BinaryResultFormat;
+import com.github.sgoeschl.jmeter.report.sla.utils.SampleBoundaries;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Creates a quick preview of huge JMeter results by parsing a random subset of byte-range
+ * chunks of each file. A chunk is parsed starting with the first sample beginning within
+ * the chunk up to the end of the last sample beginning within the chunk, i.e. each sample
+ * belongs to exactly one chunk.
+ * <p>
+ * The chunk boundaries are found by {@link SampleBoundaries}. Binary result files can't
+ * be split into chunks and are always parsed completely.
+ */
+public class PreviewSampler {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private final JMeterReportParser parser;
+    private final double fraction;
+    private final long seed;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * @param parser   the parser providing the source files and parsing the chunks
+     * @param fraction the fraction of chunks to parse, e.g. 0.05
+     * @param seed     the seed selecting the chunks, i.e. the same seed parses the same chunks
+     */
+    public PreviewSampler(JMeterReportParser parser, double fraction, long seed) {
+        if (fraction <= 0.0 || fraction > 1.0) {
+            throw new IllegalArgumentException("Expecting a preview fraction greater than 0 and less or equal to 1: " + fraction);
+        }
+        this.parser = parser;
+        this.fraction = fraction;
+        this.seed = seed;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Parses the chunks into the model.
+     *
+     * @param model the model
+     * @return the estimated number of requests and errors
+     * @throws Exception parsing failed
+     */
+    public PreviewEstimate run(JMeterReportModel model) throws Exception {
+
+        final List<File> sourceFiles = parser.getSourceFiles();
+
+        if (sourceFiles == null || sourceFiles.isEmpty()) {
+            throw new RuntimeException("No source files defined");
+        }
+
+        final PreviewEstimate result = new PreviewEstimate();
+        final Random random = new Random(seed);
+
+        for (File sourceFile : sourceFiles) {
+            if (BinaryResultFormat.isBinaryResultFile(sourceFile.getName())) {
+                parseCompletely(sourceFile, model, result);
+            } else {
+                parseChunks(sourceFile, model, random, result);
+            }
+        }
+
+        return result;
+    }
+
+    private void parseCompletely(File sourceFile, JMeterReportModel model, PreviewEstimate estimate) throws Exception {
+        final JMeterReportModel partialModel = model.createPartialModel();
+        try (InputStream is = new FileInputStream(sourceFile)) {
+            parser.parse(sourceFile.getName(), is, partialModel);
+        }
+        estimate.addFile(1, Arrays.asList(ChunkCounts.of(partialModel)), new ArrayList<ChunkCounts>());
+        model.merge(partialModel);
+    }
+
+    private void parseChunks(File sourceFile, JMeterReportModel model, Random random, PreviewEstimate estimate) throws Exception {
+
+        final boolean isCsv = sourceFile.getName().toLowerCase().endsWith(".csv");
+        final List<ChunkCounts> certain = new ArrayList<>();
+        final List<ChunkCounts> sampled = new ArrayList<>();
+
+        try (RandomAccessFile file = new RandomAccessFile(sourceFile, "r")) {
+
+            final SampleBoundaries boundaries = new SampleBoundaries(file, isCsv);
+            final long length = boundaries.getLength();
+            final int totalChunks = (int) Math.max(1, (length + chunkSize - 1) / chunkSize);
+
+            for (int chunk : selectChunks(totalChunks, random)) {
+                final long chunkStart = (chunk == 0 ? boundaries.getFirstSampleStart() : Math.min(length, boundaries.findSampleStart((long) chunk * chunkSize)));
+                final long chunkEnd = Math.min(length, (long) (chunk + 1) * chunkSize);
+                final JMeterReportModel partialModel = model.createPartialModel();
+
+                if (chunkStart < chunkEnd) {
+                    final long samplesEnd = Math.min(length, boundaries.findSampleStart(chunkEnd));
+                    final byte[] content = boundaries.read(chunkStart, samplesEnd);
+                    parser.parse(sourceFile.getName(), new ByteArrayInputStream(content), partialModel);
+                }
+
+                final ChunkCounts counts = ChunkCounts.of(partialModel);
+                if (chunk == 0 || chunk == totalChunks - 1) {
+                    certain.add(counts);
+                } else {
+                    sampled.add(counts);
+                }
+                model.merge(partialModel);
+            }
+
+            estimate.addFile(totalChunks, certain, sampled);
+        }
+    }
+
+    /**
+     * The first and last chunks are always selected to capture the start and end of the test
+     * run while the remaining chunks are selected randomly.
+     *
+     * @return the ordered chunk indexes
+     */
+    int[] selectChunks(int totalChunks, Random random) {
+
+        if (totalChunks <= 2) {
+            return totalChunks == 1 ? new int[] { 0 } : new int[] { 0, 1 };
+        }
+
+        final int innerChunks = totalChunks - 2;
+        final int sampleSize = (int) Math.min(innerChunks, Math.max(1, Math.round(innerChunks * fraction)));
+
+        // partial Fisher-Yates shuffle of the inner chunks
+        final int[] chunks = new int[innerChunks];
+        for (int i = 0; i < innerChunks; i++) {
+            chunks[i] = i + 1;
+        }
+        for (int i = 0; i < sampleSize; i++) {
+            final int j = i + random.nextInt(innerChunks - i);
+            final int chunk = chunks[j];
+            chunks[j] = chunks[i];
+            chunks[i] = chunk;
+        }
+
+        final int[] result = new int[sampleSize + 2];
+        System.arraycopy(chunks, 0, result, 1, sampleSize);
+        result[sampleSize + 1] = totalChunks - 1;
+        Arrays.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.rules;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.stats.SampleStatistics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Evaluates the SLA rules against the aggregated statistics of a report model.
+ */
+public class SlaEvaluator {
+
+    private final List<SlaRule> rules;
+
+    /**
+     * the number of expected requests to turn an error rate into an error budget
+     */
+    private final long expectedRequests;
+
+    /**
+     * the label rules matching a label being resolved once per label - concurrent since the
+     * evaluator is shared by the partial models of concurrent parsing
+     */
+    private final ConcurrentMap<String, List<SlaRule>> labelRules = new ConcurrentHashMap<>();
+
+    public SlaEvaluator(List<SlaRule> rules, long expectedRequests) {
+        this.rules = rules;
+        this.expectedRequests = expectedRequests;
+    }
+
+    public List<SlaRule> getRules() {
+        return rules;
+    }
+
+    public boolean hasRules() {
+        return !rules.isEmpty();
+    }
+
+    /**
+     * @param model the report model
+     * @return the verdict of all rules
+     */
+    public SlaVerdict evaluate(JMeterReportModel model) {
+
+        final List<SlaRuleResult> results = new ArrayList<>();
+
+        for (SlaRule rule : rules) {
+            if (rule.isSummary()) {
+                results.add(evaluate(rule, SlaRule.SUMMARY, model.getSummaryStatistics()));
+            } else {
+                final int size = results.size();
+                for (String label : model.getLabels()) {
+                    if (rule.matches(label)) {
+                        results.add(evaluate(rule, label, model.getStatistics(label)));
+                    }
+                }
+                // a rule without any samples is violated, e.g. the test never reached the label
+                if (results.size() == size) {
+                    results.add(new SlaRuleResult(rule, rule.getLabel(), Double.NaN, false));
+                }
+            }
+        }
+
+        return new SlaVerdict(results, false);
+    }
+
+    /**
+     * Checks the rules which can be decided before all samples are parsed.
+     *
+     * @param model the report model being populated
+     * @throws SlaViolationException a rule can no longer be met
+     */
+    public void checkIncrementally(JMeterReportModel model) {
+        checkIncrementally(model, model.getLabels());
+    }
+
+    /**
+     * Checks the summary rules and the rules of the given labels which can be decided before
+     * all samples are parsed, e.g. of the labels having samples added since the last check.
+     *
+     * @param model  the report model being populated
+     * @param labels the labels to check
+     * @throws SlaViolationException a rule can no longer be met
+     */
+    public void checkIncrementally(JMeterReportModel model, Collection<String> labels) {
+
+        final List<SlaRuleResult> violations = new ArrayList<>();
+
+        for (SlaRule rule : rules) {
+            if (rule.isSummary()) {
+                final SampleStatistics statistics = model.getSummaryStatistics();
+                if (rule.isViolatedForGood(statistics, expectedRequests)) {
+                    violations.add(new SlaRuleResult(rule, SlaRule.SUMMARY, rule.getValue(statistics), false));
+                }
+            }
+        }
+
+        for (String label : labels) {
+            for (SlaRule rule : getLabelRules(label)) {
+                final SampleStatistics statistics = model.getStatistics(label);
+                if (rule.isViolatedForGood(statistics, 0)) {
+                    violations.add(new SlaRuleResult(rule, label, rule.getValue(statistics), false));
+                }
+            }
+        }
+
+        if (!violations.isEmpty()) {
+            throw new SlaViolationException(new SlaVerdict(violations, true));
+        }
+    }
+
+    /**
+     * @return the label rules matching the label
+     */
+    private List<SlaRule> getLabelRules(String label) {
+
+        List<SlaRule> result = labelRules.get(label);
+
+        if (result == null) {
+            result = new ArrayList<>();
+            for (SlaRule rule : rules) {
+                if (!rule.isSummary() && rule.matches(label)) {
+                    result.add(rule);
+                }
+            }
+            result = (result.isEmpty() ? Collections.<SlaRule>emptyList() : result);
+            labelRules.put(label, result);
+        }
+
+        return result;
+    }
+
+    private static SlaRuleResult evaluate(SlaRule rule, String label, SampleStatistics statistics) {
+        final double actual = rule.getValue(statistics);
+        return new SlaRuleResult(rule, label, actual, rule.isSatisfied(actual));
+    }
+}
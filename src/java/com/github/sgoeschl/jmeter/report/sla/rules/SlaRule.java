@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.rules;
+
+import com.github.sgoeschl.jmeter.report.sla.stats.SampleStatistics;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A declarative SLA rule such as "Checkout p95 &lt; 300" consisting of
+ *
+ * <ul>
+ * <li>the label, a label prefix ending with '*' or "summary" for all samples</li>
+ * <li>the metric, i.e. "requests", "errors", "errorRate", "avg", "min", "max", "throughput" or a percentile such as "p95"</li>
+ * <li>the operator, i.e. "&lt;", "&lt;=", "&gt;" or "&gt;="</li>
+ * <li>the threshold</li>
+ * </ul>
+ */
+public class SlaRule {
+
+    public static final String SUMMARY = "summary";
+
+    private static final String WILDCARD = "*";
+    private static final Pattern RULE_PATTERN = Pattern.compile("(.+?)\\s+(\\S+)\\s+(\\S+)\\s+(\\S+)");
+
+    enum Metric {
+        REQUESTS("requests"),
+        ERRORS("errors"),
+        ERROR_RATE("errorRate"),
+        AVG("avg"),
+        MIN("min"),
+        MAX("max"),
+        THROUGHPUT("throughput"),
+        PERCENTILE("p");
+
+        final String name;
+
+        Metric(String name) {
+            this.name = name;
+        }
+
+        static Metric parse(String value) {
+            for (Metric metric : values()) {
+                if (metric.name.equals(value)) {
+                    return metric;
+                }
+            }
+            if (value.startsWith(PERCENTILE.name)) {
+                return PERCENTILE;
+            }
+            throw new IllegalArgumentException("Unknown SLA metric: " + value);
+        }
+    }
+
+    enum Operator {
+        LT("<"),
+        LE("<="),
+        GT(">"),
+        GE(">=");
+
+        final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Operator parse(String value) {
+            for (Operator operator : values()) {
+                if (operator.symbol.equals(value)) {
+                    return operator;
+                }
+            }
+            throw new IllegalArgumentException("Unknown SLA operator: " + value);
+        }
+
+        boolean isSatisfied(double actual, double threshold) {
+            switch (this) {
+                case LT:
+                    return actual < threshold;
+                case LE:
+                    return actual <= threshold;
+                case GT:
+                    return actual > threshold;
+                default:
+                    return actual >= threshold;
+            }
+        }
+    }
+
+    private final String name;
+    private final String label;
+    private final String metricName;
+    private final Metric metric;
+    private final double percentile;
+    private final Operator operator;
+    private final double threshold;
+
+    SlaRule(String name, String label, String metricName, Operator operator, double threshold) {
+        this.name = name;
+        this.label = label;
+        this.metricName = metricName;
+        this.metric = Metric.parse(metricName);
+        this.percentile = (metric == Metric.PERCENTILE ? parsePercentile(metricName) : 0.0);
+        this.operator = operator;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Parses a rule such as "Checkout p95 &lt; 300" - the label may contain blanks.
+     *
+     * @param name  the name of the rule
+     * @param value the textual rule
+     * @return the SLA rule
+     */
+    public static SlaRule parse(String name, String value) {
+
+        final Matcher matcher = RULE_PATTERN.matcher(value.trim());
+
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Expecting '<label> <metric> <operator> <threshold>' for the SLA rule " + name + ": " + value);
+        }
+
+        try {
+            return new SlaRule(name, matcher.group(1), matcher.group(2), Operator.parse(matcher.group(3)), Double.parseDouble(matcher.group(4)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unable to parse the threshold of the SLA rule " + name + ": " + value, e);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public boolean isSummary() {
+        return SUMMARY.equals(label);
+    }
+
+    /**
+     * @param label the label of the statistics
+     * @return true if the rule applies to the label
+     */
+    public boolean matches(String label) {
+        if (this.label.endsWith(WILDCARD)) {
+            return label.startsWith(this.label.substring(0, this.label.length() - 1));
+        }
+        return this.label.equals(label);
+    }
+
+    /**
+     * @return the condition, e.g. "p95 &lt; 300"
+     */
+    public String getCondition() {
+        return metricName + " " + operator.symbol + " " + formatThreshold();
+    }
+
+    /**
+     * @param statistics the statistics
+     * @return the actual value of the metric
+     */
+    public double getValue(SampleStatistics statistics) {
+        switch (metric) {
+            case REQUESTS:
+                return statistics.getRequests();
+            case ERRORS:
+                return statistics.getFailures();
+            case ERROR_RATE:
+                return statistics.getErrorRate();
+            case AVG:
+                return statistics.getAverageTime();
+            case MIN:
+                return statistics.getMinTime();
+            case MAX:
+                return statistics.getMaxTime();
+            case THROUGHPUT:
+                return statistics.getThroughput();
+            default:
+                return statistics.getPercentile(percentile);
+        }
+    }
+
+    public boolean isSatisfied(double actual) {
+        return operator.isSatisfied(actual, threshold);
+    }
+
+    /**
+     * Checks if the rule can no longer be met regardless of the remaining samples, e.g.
+     * "errors &lt; 100" is violated for good as soon as there are 100 errors. When the
+     * number of expected requests is known an error rate can be turned into an error budget.
+     *
+     * @param statistics       the statistics collected so far
+     * @param expectedRequests the number of expected requests or zero if unknown
+     * @return true if the rule is violated for good
+     */
+    public boolean isViolatedForGood(SampleStatistics statistics, long expectedRequests) {
+
+        final boolean isUpperLimit = (operator == Operator.LT || operator == Operator.LE);
+
+        switch (metric) {
+            case REQUESTS:
+            case ERRORS:
+            case MAX:
+                // these metrics never decrease
+                return isUpperLimit && !isSatisfied(getValue(statistics));
+            case MIN:
+                // the minimum never increases
+                return !isUpperLimit && !isSatisfied(getValue(statistics));
+            case ERROR_RATE:
+                // the error budget is exhausted
+                return isUpperLimit && expectedRequests > 0 && !isSatisfied(statistics.getFailures() * 100.0 / expectedRequests);
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return label + " " + getCondition();
+    }
+
+    private String formatThreshold() {
+        return threshold == Math.rint(threshold) ? Long.toString((long) threshold) : Double.toString(threshold);
+    }
+
+    private static double parsePercentile(String metricName) {
+        try {
+            final double result = Double.parseDouble(metricName.substring(Metric.PERCENTILE.name.length()));
+            if (result <= 0.0 || result > 100.0) {
+                throw new IllegalArgumentException("Expecting a percentile between 0 and 100: " + metricName);
+            }
+            return result;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unknown SLA metric: " + metricName, e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.rules;
+
+/**
+ * The result of evaluating a SLA rule for a single label.
+ */
+public class SlaRuleResult {
+
+    private final SlaRule rule;
+    private final String label;
+    private final double actual;
+    private final boolean passed;
+
+    public SlaRuleResult(SlaRule rule, String label, double actual, boolean passed) {
+        this.rule = rule;
+        this.label = label;
+        this.actual = actual;
+        this.passed = passed;
+    }
+
+    public SlaRule getRule() {
+        return rule;
+    }
+
+    /**
+     * @return the label of the evaluated statistics
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return the actual value or NaN if there are no matching samples
+     */
+    public double getActual() {
+        return actual;
+    }
+
+    public boolean isPassed() {
+        return passed;
+    }
+
+    @Override
+    public String toString() {
+        return rule.getName() + " : " + label + " " + rule.getCondition() + " (actual " + actual + ") " + (passed ? "passed" : "failed");
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of evaluating all SLA rules.
+ */
+public class SlaVerdict {
+
+    private final List<SlaRuleResult> results;
+    private final boolean aborted;
+
+    public SlaVerdict(List<SlaRuleResult> results, boolean aborted) {
+        this.results = results;
+        this.aborted = aborted;
+    }
+
+    public List<SlaRuleResult> getResults() {
+        return results;
+    }
+
+    /**
+     * @return true if the parsing was aborted since a rule can no longer be met
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    public boolean isPassed() {
+        return getViolations().isEmpty();
+    }
+
+    public List<SlaRuleResult> getViolations() {
+        final List<SlaRuleResult> result = new ArrayList<>();
+        for (SlaRuleResult ruleResult : results) {
+            if (!ruleResult.isPassed()) {
+                result.add(ruleResult);
+            }
+        }
+        return result;
+    }
+}
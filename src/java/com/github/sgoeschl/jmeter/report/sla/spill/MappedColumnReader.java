@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.spill;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads fixed-width values from a file using memory-mapped segments.
+ */
+class MappedColumnReader implements Closeable {
+
+    private static final int SEGMENT_SHIFT = Long.numberOfTrailingZeros(MappedColumnWriter.SEGMENT_SIZE);
+    private static final long SEGMENT_MASK = MappedColumnWriter.SEGMENT_SIZE - 1;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer[] segments;
+    private final int width;
+
+    MappedColumnReader(File file, int width) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.width = width;
+
+        final FileChannel channel = this.file.getChannel();
+        final long size = channel.size();
+        this.segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >> SEGMENT_SHIFT)];
+
+        for (int i = 0; i < segments.length; i++) {
+            final long offset = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(MappedColumnWriter.SEGMENT_SIZE, size - offset));
+        }
+    }
+
+    long getLong(long index) {
+        final long offset = index * width;
+        return segments[(int) (offset >> SEGMENT_SHIFT)].getLong((int) (offset & SEGMENT_MASK));
+    }
+
+    int getInt(long index) {
+        final long offset = index * width;
+        return segments[(int) (offset >> SEGMENT_SHIFT)].getInt((int) (offset & SEGMENT_MASK));
+    }
+
+    byte getByte(long index) {
+        final long offset = index * width;
+        return segments[(int) (offset >> SEGMENT_SHIFT)].get((int) (offset & SEGMENT_MASK));
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.spill;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Appends fixed-width values to a file using memory-mapped segments so
+ * the values never end up on the Java heap.
+ */
+class MappedColumnWriter implements Closeable {
+
+    // the size of a mapped segment being a multiple of all value widths
+    static final long SEGMENT_SIZE = 64L << 20;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private MappedByteBuffer segment;
+    private long position;
+
+    MappedColumnWriter(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "rw");
+        this.file.setLength(0);
+        this.channel = this.file.getChannel();
+    }
+
+    void putLong(long value) throws IOException {
+        ensureCapacity();
+        segment.putLong(value);
+        position += 8;
+    }
+
+    void putInt(int value) throws IOException {
+        ensureCapacity();
+        segment.putInt(value);
+        position += 4;
+    }
+
+    void putByte(byte value) throws IOException {
+        ensureCapacity();
+        segment.put(value);
+        position += 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        segment = null;
+        try {
+            // remove the unused part of the last segment
+            channel.truncate(position);
+        } finally {
+            file.close();
+        }
+    }
+
+    private void ensureCapacity() throws IOException {
+        if (segment == null || !segment.hasRemaining()) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, position, SEGMENT_SIZE);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.spill;
+
+import com.github.sgoeschl.jmeter.report.sla.stats.SampleStatistics;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.github.sgoeschl.jmeter.report.sla.utils.DataStrings.readString;
+
+/**
+ * Queries the raw samples spilled by {@link SampleSpillWriter} without
+ * going back to the JMeter result files. All queries scan the memory-mapped
+ * columns and use a constant amount of heap.
+ */
+public class SampleSpillReader implements Closeable {
+
+    // exact percentiles are computed by counting the upper and lower 16 bits of the elapsed time
+    private static final int RADIX_BITS = 16;
+    private static final int RADIX_SIZE = 1 << RADIX_BITS;
+    private static final int RADIX_MASK = RADIX_SIZE - 1;
+
+    private final MappedColumnReader timestamps;
+    private final MappedColumnReader elapsedTimes;
+    private final MappedColumnReader bytes;
+    private final MappedColumnReader successes;
+    private final MappedColumnReader labelIds;
+    private final List<String> labels;
+    private final long sampleCount;
+
+    public SampleSpillReader(File directory) throws IOException {
+        final File successFile = new File(directory, SampleSpillWriter.SUCCESS_COLUMN);
+        this.timestamps = new MappedColumnReader(new File(directory, SampleSpillWriter.TIMESTAMP_COLUMN), 8);
+        this.elapsedTimes = new MappedColumnReader(new File(directory, SampleSpillWriter.ELAPSED_COLUMN), 4);
+        this.bytes = new MappedColumnReader(new File(directory, SampleSpillWriter.BYTES_COLUMN), 8);
+        this.successes = new MappedColumnReader(successFile, 1);
+        this.labelIds = new MappedColumnReader(new File(directory, SampleSpillWriter.LABEL_COLUMN), 4);
+        this.labels = readLabels(new File(directory, SampleSpillWriter.LABELS_FILE));
+        this.sampleCount = successFile.length();
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    /**
+     * @param label the label
+     * @return the id of the label or -1 if the label is unknown
+     */
+    public int getLabelId(String label) {
+        return labels.indexOf(label);
+    }
+
+    /**
+     * Visits all samples in the order they were parsed.
+     *
+     * @param visitor the visitor
+     */
+    public void scan(SampleVisitor visitor) {
+        for (long i = 0; i < sampleCount; i++) {
+            visitor.visit(
+                    timestamps.getLong(i),
+                    elapsedTimes.getInt(i),
+                    bytes.getLong(i),
+                    successes.getByte(i) != 0,
+                    labelIds.getInt(i));
+        }
+    }
+
+    /**
+     * Visits all samples of the given time range, e.g. for drilling into a single minute.
+     *
+     * @param fromTimestamp the inclusive start of the time range in milliseconds
+     * @param toTimestamp   the exclusive end of the time range in milliseconds
+     * @param visitor       the visitor
+     */
+    public void scan(long fromTimestamp, long toTimestamp, SampleVisitor visitor) {
+        for (long i = 0; i < sampleCount; i++) {
+            final long timestamp = timestamps.getLong(i);
+            if (timestamp >= fromTimestamp && timestamp < toTimestamp) {
+                visitor.visit(timestamp, elapsedTimes.getInt(i), bytes.getLong(i), successes.getByte(i) != 0, labelIds.getInt(i));
+            }
+        }
+    }
+
+    /**
+     * @param label         the label or null for all labels
+     * @param fromTimestamp the inclusive start of the time range in milliseconds
+     * @param toTimestamp   the exclusive end of the time range in milliseconds
+     * @return the statistics of the matching samples
+     */
+    public SampleStatistics getStatistics(String label, long fromTimestamp, long toTimestamp) {
+        final int labelId = (label != null ? getLabelId(label) : -1);
+        final SampleStatistics result = new SampleStatistics();
+        for (long i = 0; i < sampleCount; i++) {
+            final long timestamp = timestamps.getLong(i);
+            if (timestamp >= fromTimestamp && timestamp < toTimestamp && (label == null || labelIds.getInt(i) == labelId)) {
+                result.add(timestamp, elapsedTimes.getInt(i), successes.getByte(i) != 0);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes an exact percentile using two passes over the elapsed times - the first pass
+     * counts the upper 16 bits and the second one the lower 16 bits of the matching bucket.
+     *
+     * @param label      the label or null for all labels
+     * @param percentile the percentile, e.g. 95.0
+     * @return the exact elapsed time at the given percentile or -1 if there are no samples
+     */
+    public long getExactPercentile(String label, double percentile) {
+
+        final int labelId = (label != null ? getLabelId(label) : -1);
+        final long[] counts = new long[RADIX_SIZE];
+        long total = 0;
+
+        for (long i = 0; i < sampleCount; i++) {
+            if (label == null || labelIds.getInt(i) == labelId) {
+                counts[elapsedTimes.getInt(i) >>> RADIX_BITS]++;
+                total++;
+            }
+        }
+
+        if (total == 0) {
+            return -1;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        final int upper = findBucket(counts, rank);
+        final long remainingRank = rank - sum(counts, upper);
+
+        Arrays.fill(counts, 0);
+        for (long i = 0; i < sampleCount; i++) {
+            final int elapsed = elapsedTimes.getInt(i);
+            if ((elapsed >>> RADIX_BITS) == upper && (label == null || labelIds.getInt(i) == labelId)) {
+                counts[elapsed & RADIX_MASK]++;
+            }
+        }
+
+        return ((long) upper << RADIX_BITS) | findBucket(counts, remainingRank);
+    }
+
+    @Override
+    public void close() throws IOException {
+        timestamps.close();
+        elapsedTimes.close();
+        bytes.close();
+        successes.close();
+        labelIds.close();
+    }
+
+    private static int findBucket(long[] counts, long rank) {
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            if (count >= rank) {
+                return i;
+            }
+        }
+        return counts.length - 1;
+    }
+
+    private static long sum(long[] counts, int end) {
+        long result = 0;
+        for (int i = 0; i < end; i++) {
+            result += counts[i];
+        }
+        return result;
+    }
+
+    private static List<String> readLabels(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            final int size = in.readInt();
+            final List<String> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(readString(in));
+            }
+            return Collections.unmodifiableList(result);
+        }
+    }
+}
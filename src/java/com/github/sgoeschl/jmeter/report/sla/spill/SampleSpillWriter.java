@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.spill;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.sgoeschl.jmeter.report.sla.utils.DataStrings.writeString;
+
+/**
+ * Spills the raw samples into memory-mapped column files of a directory while
+ * parsing, i.e. the heap usage only grows with the number of distinct labels
+ * but not with the number of samples.
+ *
+ * <ul>
+ * <li>timestamp.col - the timestamp in milliseconds (long)</li>
+ * <li>elapsed.col - the elapsed time in milliseconds (int)</li>
+ * <li>bytes.col - the received bytes (long)</li>
+ * <li>success.col - 1 for successful samples otherwise 0 (byte)</li>
+ * <li>label.col - the label id (int)</li>
+ * <li>labels.bin - the labels ordered by their ids</li>
+ * </ul>
+ */
+public class SampleSpillWriter implements Closeable {
+
+    static final String TIMESTAMP_COLUMN = "timestamp.col";
+    static final String ELAPSED_COLUMN = "elapsed.col";
+    static final String BYTES_COLUMN = "bytes.col";
+    static final String SUCCESS_COLUMN = "success.col";
+    static final String LABEL_COLUMN = "label.col";
+    static final String LABELS_FILE = "labels.bin";
+
+    private final File directory;
+    private final MappedColumnWriter timestamps;
+    private final MappedColumnWriter elapsedTimes;
+    private final MappedColumnWriter bytes;
+    private final MappedColumnWriter successes;
+    private final MappedColumnWriter labelIds;
+    private final Map<String, Integer> labelIdMap = new HashMap<>();
+    private final List<String> labels = new ArrayList<>();
+
+    public SampleSpillWriter(File directory) throws IOException {
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Failed to create " + directory.getAbsolutePath());
+        }
+
+        this.directory = directory;
+        this.timestamps = new MappedColumnWriter(new File(directory, TIMESTAMP_COLUMN));
+        this.elapsedTimes = new MappedColumnWriter(new File(directory, ELAPSED_COLUMN));
+        this.bytes = new MappedColumnWriter(new File(directory, BYTES_COLUMN));
+        this.successes = new MappedColumnWriter(new File(directory, SUCCESS_COLUMN));
+        this.labelIds = new MappedColumnWriter(new File(directory, LABEL_COLUMN));
+    }
+
+    /**
+     * Appends a sample - synchronized since the writer is shared by concurrent parsers.
+     */
+    public synchronized void append(String label, long timestamp, long elapsed, long bytesReceived, boolean success) throws IOException {
+        timestamps.putLong(timestamp);
+        elapsedTimes.putInt((int) Math.min(elapsed, Integer.MAX_VALUE));
+        bytes.putLong(bytesReceived);
+        successes.putByte(success ? (byte) 1 : (byte) 0);
+        labelIds.putInt(getLabelId(label));
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() throws IOException {
+        timestamps.close();
+        elapsedTimes.close();
+        bytes.close();
+        successes.close();
+        labelIds.close();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(directory, LABELS_FILE))))) {
+            out.writeInt(labels.size());
+            for (String label : labels) {
+                writeString(out, label);
+            }
+        }
+    }
+
+    private int getLabelId(String label) {
+        Integer labelId = labelIdMap.get(label);
+        if (labelId == null) {
+            labelId = labels.size();
+            labelIdMap.put(label, labelId);
+            labels.add(label);
+        }
+        return labelId;
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The received and sent bytes of all samples per second of the test run using
+ * primitive arrays of time slots. A slot covers a single second unless the test
+ * run (or a set of source files far apart) spans more than {@link #MAX_SLOTS}
+ * seconds - in this case the slot duration is doubled until the run fits so the
+ * memory stays bounded.
+ */
+public class BandwidthTimeline {
+
+    static final int MAX_SLOTS = 1 << 16;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // the slot duration is 2^shift seconds
+    private int shift;
+    private long firstSlot;
+    private int slots;
+    private long[] bytesReceived = new long[0];
+    private long[] bytesSent = new long[0];
+    private long firstSecond = Long.MAX_VALUE;
+    private long lastSecond = Long.MIN_VALUE;
+
+    /**
+     * @param timestamp     the timestamp of the sample in milliseconds
+     * @param bytesReceived the received bytes
+     * @param bytesSent     the sent bytes
+     */
+    public void add(long timestamp, long bytesReceived, long bytesSent) {
+        add(Math.floorDiv(timestamp, 1000L), bytesReceived, bytesSent, 0);
+    }
+
+    /**
+     * Adds the bytes collected by another thread.
+     *
+     * @param other the other timeline
+     */
+    public void add(BandwidthTimeline other) {
+        for (int i = 0; i < other.slots; i++) {
+            if (other.bytesReceived[i] != 0 || other.bytesSent[i] != 0) {
+                add((other.firstSlot + i) << other.shift, other.bytesReceived[i], other.bytesSent[i], other.shift);
+            }
+        }
+        firstSecond = Math.min(firstSecond, other.firstSecond);
+        lastSecond = Math.max(lastSecond, other.lastSecond);
+    }
+
+    /**
+     * @param out the output
+     * @throws IOException writing failed
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(shift);
+        out.writeLong(firstSlot);
+        out.writeInt(slots);
+        out.writeLong(firstSecond);
+        out.writeLong(lastSecond);
+        for (int i = 0; i < slots; i++) {
+            out.writeLong(bytesReceived[i]);
+            out.writeLong(bytesSent[i]);
+        }
+    }
+
+    /**
+     * @param in the input
+     * @return the timeline written by {@link #writeTo(DataOutput)}
+     * @throws IOException reading failed
+     */
+    public static BandwidthTimeline readFrom(DataInput in) throws IOException {
+        final BandwidthTimeline result = new BandwidthTimeline();
+        result.shift = in.readInt();
+        result.firstSlot = in.readLong();
+        final int slots = in.readInt();
+        result.firstSecond = in.readLong();
+        result.lastSecond = in.readLong();
+        result.ensureCapacity(slots);
+        result.slots = slots;
+        for (int i = 0; i < slots; i++) {
+            result.bytesReceived[i] = in.readLong();
+            result.bytesSent[i] = in.readLong();
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of seconds between the first and the last sample
+     */
+    public long getSeconds() {
+        return slots == 0 ? 0 : lastSecond - firstSecond + 1;
+    }
+
+    /**
+     * @return the number of time slots
+     */
+    public int getSlots() {
+        return slots;
+    }
+
+    /**
+     * @return the duration of a time slot in seconds
+     */
+    public long getSlotSeconds() {
+        return 1L << shift;
+    }
+
+    /**
+     * @param slot the time slot
+     * @return the received bytes of the time slot
+     */
+    public long getBytesReceived(int slot) {
+        return bytesReceived[slot];
+    }
+
+    /**
+     * @param slot the time slot
+     * @return the sent bytes of the time slot
+     */
+    public long getBytesSent(int slot) {
+        return bytesSent[slot];
+    }
+
+    public long getTotalBytesReceived() {
+        return sum(bytesReceived);
+    }
+
+    public long getTotalBytesSent() {
+        return sum(bytesSent);
+    }
+
+    /**
+     * @return the highest received bytes per second of a time slot
+     */
+    public double getPeakBytesReceived() {
+        return getBytesReceivedPercentile(100.0);
+    }
+
+    /**
+     * @return the highest sent bytes per second of a time slot
+     */
+    public double getPeakBytesSent() {
+        return getBytesSentPercentile(100.0);
+    }
+
+    /**
+     * @param percentile the percentile, e.g. 95.0
+     * @return the received bytes per second of the time slots at the given percentile
+     */
+    public double getBytesReceivedPercentile(double percentile) {
+        return percentile(bytesReceived, percentile);
+    }
+
+    /**
+     * @param percentile the percentile, e.g. 95.0
+     * @return the sent bytes per second of the time slots at the given percentile
+     */
+    public double getBytesSentPercentile(double percentile) {
+        return percentile(bytesSent, percentile);
+    }
+
+    private void add(long second, long bytesReceived, long bytesSent, int otherShift) {
+
+        while (shift < otherShift) {
+            coarsen();
+        }
+
+        final long lastSecondOfSlot = second + (1L << otherShift) - 1;
+        final int index = indexOf(second);
+        this.bytesReceived[index] += bytesReceived;
+        this.bytesSent[index] += bytesSent;
+
+        if (otherShift == 0) {
+            firstSecond = Math.min(firstSecond, second);
+            lastSecond = Math.max(lastSecond, lastSecondOfSlot);
+        }
+    }
+
+    private int indexOf(long second) {
+
+        long slot = second >> shift;
+
+        if (slots == 0) {
+            firstSlot = slot;
+        }
+
+        while (Math.max(slot, firstSlot + slots - 1) - Math.min(slot, firstSlot) >= MAX_SLOTS) {
+            coarsen();
+            slot = second >> shift;
+        }
+
+        if (slot < firstSlot) {
+            // an earlier sample, e.g. of another source file, shifts the timeline
+            final int offset = (int) (firstSlot - slot);
+            ensureCapacity(slots + offset);
+            System.arraycopy(bytesReceived, 0, bytesReceived, offset, slots);
+            System.arraycopy(bytesSent, 0, bytesSent, offset, slots);
+            Arrays.fill(bytesReceived, 0, offset, 0L);
+            Arrays.fill(bytesSent, 0, offset, 0L);
+            slots += offset;
+            firstSlot = slot;
+        }
+
+        final int index = (int) (slot - firstSlot);
+        if (index >= slots) {
+            ensureCapacity(index + 1);
+            slots = index + 1;
+        }
+        return index;
+    }
+
+    /**
+     * Doubles the slot duration by adding up adjacent slots.
+     */
+    private void coarsen() {
+        final long newFirstSlot = firstSlot >> 1;
+        int newSlots = 0;
+        for (int i = 0; i < slots; i++) {
+            final int index = (int) (((firstSlot + i) >> 1) - newFirstSlot);
+            final long received = bytesReceived[i];
+            final long sent = bytesSent[i];
+            bytesReceived[i] = 0;
+            bytesSent[i] = 0;
+            bytesReceived[index] += received;
+            bytesSent[index] += sent;
+            newSlots = index + 1;
+        }
+        shift++;
+        firstSlot = newFirstSlot;
+        slots = newSlots;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytesReceived.length) {
+            final int newCapacity = Math.min(Math.max(capacity, Math.max(INITIAL_CAPACITY, bytesReceived.length * 2)), MAX_SLOTS);
+            bytesReceived = Arrays.copyOf(bytesReceived, newCapacity);
+            bytesSent = Arrays.copyOf(bytesSent, newCapacity);
+        }
+    }
+
+    private long sum(long[] values) {
+        long result = 0;
+        for (int i = 0; i < slots; i++) {
+            result += values[i];
+        }
+        return result;
+    }
+
+    private double percentile(long[] values, double percentile) {
+        if (slots == 0) {
+            return 0.0;
+        }
+        final long[] sorted = Arrays.copyOf(values, slots);
+        Arrays.sort(sorted);
+        final int rank = (int) Math.max(1, Math.ceil(percentile / 100.0 * slots));
+        return (double) sorted[rank - 1] / getSlotSeconds();
+    }
+}
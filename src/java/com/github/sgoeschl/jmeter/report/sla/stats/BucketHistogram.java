@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.stats;
+
+import com.github.sgoeschl.jmeter.report.sla.config.BucketLayout;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Counts the values of a distribution using a {@link BucketLayout}.
+ */
+public class BucketHistogram {
+
+    private final BucketLayout layout;
+    private final long[] counts;
+    private final long[] totals;
+
+    public BucketHistogram(BucketLayout layout) {
+        this.layout = layout;
+        this.counts = new long[layout.getBucketCount()];
+        this.totals = new long[layout.getBucketCount()];
+    }
+
+    /**
+     * @param value the raw value, e.g. milliseconds or bytes
+     */
+    public void add(long value) {
+        final int index = layout.indexOf(value);
+        counts[index]++;
+        totals[index] += value;
+    }
+
+    /**
+     * Adds the counts of another histogram using the same layout.
+     *
+     * @param other the other histogram
+     */
+    public void add(BucketHistogram other) {
+        if (!layout.equals(other.layout)) {
+            throw new IllegalArgumentException("Unable to merge histograms with different layouts: " + layout + " and " + other.layout);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+            totals[i] += other.totals[i];
+        }
+    }
+
+    /**
+     * @param out the output
+     * @throws IOException writing failed
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            out.writeLong(counts[i]);
+            out.writeLong(totals[i]);
+        }
+    }
+
+    /**
+     * @param in     the input
+     * @param layout the layout of the written histogram
+     * @return the histogram written by {@link #writeTo(DataOutput)}
+     * @throws IOException reading failed or the number of buckets does not match the layout
+     */
+    public static BucketHistogram readFrom(DataInput in, BucketLayout layout) throws IOException {
+        final BucketHistogram result = new BucketHistogram(layout);
+        final int buckets = in.readInt();
+        if (buckets != result.counts.length) {
+            throw new IOException("Expecting " + result.counts.length + " buckets of the layout " + layout + " but found " + buckets);
+        }
+        for (int i = 0; i < buckets; i++) {
+            result.counts[i] = in.readLong();
+            result.totals[i] = in.readLong();
+        }
+        return result;
+    }
+
+    public BucketLayout getLayout() {
+        return layout;
+    }
+
+    public long getCount(int index) {
+        return counts[index];
+    }
+
+    /**
+     * @return the number of values of all buckets
+     */
+    public long getTotalCount() {
+        long result = 0;
+        for (long count : counts) {
+            result += count;
+        }
+        return result;
+    }
+
+    /**
+     * @param index the bucket index
+     * @return the average value of the bucket using the configured unit, e.g. KB
+     */
+    public double getAverage(int index) {
+        return counts[index] == 0 ? 0.0 : (double) totals[index] / counts[index] / layout.getScale();
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A two-dimensional histogram counting response times per concurrency band, i.e. the
+ * number of active threads divided by the band width. The response times use the
+ * log-linear buckets of {@link PercentileHistogram} so the memory only depends on the
+ * number of bands and the largest response time but not on the number of samples.
+ */
+public class ConcurrencyHistogram {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final int bandWidth;
+    private long[][] counts;
+    private long[] requests;
+    private long[] totalTimes;
+    private long[] maxTimes;
+
+    /**
+     * @param bandWidth the number of active threads per band
+     */
+    public ConcurrencyHistogram(int bandWidth) {
+        if (bandWidth <= 0) {
+            throw new IllegalArgumentException("Expecting a positive concurrency band width: " + bandWidth);
+        }
+        this.bandWidth = bandWidth;
+        this.counts = new long[0][];
+        this.requests = EMPTY;
+        this.totalTimes = EMPTY;
+        this.maxTimes = EMPTY;
+    }
+
+    /**
+     * @param activeThreads the number of active threads when the sample was taken
+     * @param duration      the elapsed time of the sample in milliseconds
+     */
+    public void add(int activeThreads, long duration) {
+        final int band = Math.max(activeThreads, 0) / bandWidth;
+        ensureBands(band + 1);
+
+        final int index = PercentileHistogram.indexOf(duration);
+        if (index >= counts[band].length) {
+            counts[band] = Arrays.copyOf(counts[band], index + 1);
+        }
+        counts[band][index]++;
+        requests[band]++;
+        totalTimes[band] += duration;
+        maxTimes[band] = Math.max(maxTimes[band], duration);
+    }
+
+    /**
+     * Adds the counts of another histogram using the same band width.
+     *
+     * @param other the other histogram
+     */
+    public void add(ConcurrencyHistogram other) {
+        if (bandWidth != other.bandWidth) {
+            throw new IllegalArgumentException("Unable to merge histograms with different band widths: " + bandWidth + " and " + other.bandWidth);
+        }
+        ensureBands(other.getBandCount());
+        for (int band = 0; band < other.getBandCount(); band++) {
+            final long[] otherCounts = other.counts[band];
+            if (otherCounts.length > counts[band].length) {
+                counts[band] = Arrays.copyOf(counts[band], otherCounts.length);
+            }
+            for (int i = 0; i < otherCounts.length; i++) {
+                counts[band][i] += otherCounts[i];
+            }
+            requests[band] += other.requests[band];
+            totalTimes[band] += other.totalTimes[band];
+            maxTimes[band] = Math.max(maxTimes[band], other.maxTimes[band]);
+        }
+    }
+
+    /**
+     * @param out the output
+     * @throws IOException writing failed
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(bandWidth);
+        out.writeInt(counts.length);
+        for (int band = 0; band < counts.length; band++) {
+            out.writeLong(requests[band]);
+            out.writeLong(totalTimes[band]);
+            out.writeLong(maxTimes[band]);
+            out.writeInt(counts[band].length);
+            for (long count : counts[band]) {
+                out.writeLong(count);
+            }
+        }
+    }
+
+    /**
+     * @param in the input
+     * @return the histogram written by {@link #writeTo(DataOutput)}
+     * @throws IOException reading failed
+     */
+    public static ConcurrencyHistogram readFrom(DataInput in) throws IOException {
+        final ConcurrencyHistogram result = new ConcurrencyHistogram(in.readInt());
+        result.ensureBands(in.readInt());
+        for (int band = 0; band < result.counts.length; band++) {
+            result.requests[band] = in.readLong();
+            result.totalTimes[band] = in.readLong();
+            result.maxTimes[band] = in.readLong();
+            final long[] bandCounts = new long[in.readInt()];
+            for (int i = 0; i < bandCounts.length; i++) {
+                bandCounts[i] = in.readLong();
+            }
+            result.counts[band] = bandCounts;
+        }
+        return result;
+    }
+
+    public int getBandWidth() {
+        return bandWidth;
+    }
+
+    /**
+     * @return the number of bands up to the highest band seen so far
+     */
+    public int getBandCount() {
+        return counts.length;
+    }
+
+    /**
+     * @param band the band index
+     * @return the lowest number of active threads of the band
+     */
+    public int getLowestThreads(int band) {
+        return band * bandWidth;
+    }
+
+    /**
+     * @param band the band index
+     * @return the highest number of active threads of the band
+     */
+    public int getHighestThreads(int band) {
+        return (band + 1) * bandWidth - 1;
+    }
+
+    public long getRequests(int band) {
+        return requests[band];
+    }
+
+    public double getAverageTime(int band) {
+        return requests[band] > 0 ? (double) totalTimes[band] / requests[band] : 0.0;
+    }
+
+    public long getMaxTime(int band) {
+        return maxTimes[band];
+    }
+
+    /**
+     * @param band       the band index
+     * @param percentile the percentile, e.g. 95.0
+     * @return the (slightly overestimated) response time at the given percentile or zero if the band is empty
+     */
+    public long getPercentile(int band, double percentile) {
+
+        if (requests[band] == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * requests[band]));
+        final long[] bandCounts = counts[band];
+        long count = 0;
+
+        for (int i = 0; i < bandCounts.length; i++) {
+            count += bandCounts[i];
+            if (count >= rank) {
+                return Math.min(PercentileHistogram.highestValueOf(i), maxTimes[band]);
+            }
+        }
+
+        return maxTimes[band];
+    }
+
+    private void ensureBands(int bandCount) {
+        if (bandCount > counts.length) {
+            final int oldBandCount = counts.length;
+            counts = Arrays.copyOf(counts, bandCount);
+            for (int band = oldBandCount; band < bandCount; band++) {
+                counts[band] = EMPTY;
+            }
+            requests = Arrays.copyOf(requests, bandCount);
+            totalTimes = Arrays.copyOf(totalTimes, bandCount);
+            maxTimes = Arrays.copyOf(maxTimes, bandCount);
+        }
+    }
+}
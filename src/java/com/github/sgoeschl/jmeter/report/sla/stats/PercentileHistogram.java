@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A log-linear histogram to estimate percentiles using constant memory. Values
+ * below 64 are counted exactly while larger values are counted in 32 sub-buckets
+ * per power of two, i.e. the relative error is less than 3.2%.
+ */
+public class PercentileHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKET_COUNT;
+
+    private long[] counts;
+    private long totalCount;
+    private long maxValue;
+
+    public PercentileHistogram() {
+        this.counts = new long[LINEAR_LIMIT];
+    }
+
+    /**
+     * @param value a non-negative value, e.g. milliseconds
+     */
+    public void add(long value) {
+        final int index = indexOf(value);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, index + SUB_BUCKET_COUNT);
+        }
+        counts[index]++;
+        totalCount++;
+        maxValue = Math.max(maxValue, value);
+    }
+
+    /**
+     * Adds the counts of another histogram.
+     *
+     * @param other the other histogram
+     */
+    public void add(PercentileHistogram other) {
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @param percentile the percentile, e.g. 95.0
+     * @return the (slightly overestimated) value at the given percentile or zero if there are no values
+     */
+    public long getValueAtPercentile(double percentile) {
+
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long count = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            if (count >= rank) {
+                return Math.min(highestValueOf(i), maxValue);
+            }
+        }
+
+        return maxValue;
+    }
+
+    /**
+     * Writes the non-empty buckets as index/count pairs.
+     *
+     * @param out the output
+     * @throws IOException writing failed
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        int buckets = 0;
+        for (long count : counts) {
+            buckets += (count > 0 ? 1 : 0);
+        }
+        out.writeLong(maxValue);
+        out.writeInt(buckets);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                out.writeInt(i);
+                out.writeLong(counts[i]);
+            }
+        }
+    }
+
+    /**
+     * @param in the input
+     * @return the histogram written by {@link #writeTo(DataOutput)}
+     * @throws IOException reading failed
+     */
+    public static PercentileHistogram readFrom(DataInput in) throws IOException {
+        final PercentileHistogram result = new PercentileHistogram();
+        result.maxValue = in.readLong();
+        final int buckets = in.readInt();
+        for (int i = 0; i < buckets; i++) {
+            final int index = in.readInt();
+            final long count = in.readLong();
+            if (index >= result.counts.length) {
+                result.counts = Arrays.copyOf(result.counts, index + SUB_BUCKET_COUNT);
+            }
+            result.counts[index] = count;
+            result.totalCount += count;
+        }
+        return result;
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) Math.max(value, 0);
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKET_COUNT;
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long highestValueOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        final int offset = index - LINEAR_LIMIT;
+        final int shift = offset / SUB_BUCKET_COUNT + 1;
+        final long lowestValue = (long) (SUB_BUCKET_COUNT + offset % SUB_BUCKET_COUNT) << shift;
+        return lowestValue + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.stats;
+
+import com.github.sgoeschl.jmeter.report.sla.config.BucketLayout;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The per-label record of the connect time, latency (time to first byte), elapsed time
+ * and the received and sent bytes collected side by side so a sample only requires a
+ * single lookup.
+ */
+public class ResponseStatistics {
+
+    private long timedRequests;
+    private long totalConnectTime;
+    private long totalLatency;
+    private long totalElapsedTime;
+    private final PercentileHistogram connectTimes = new PercentileHistogram();
+    private final PercentileHistogram latencies = new PercentileHistogram();
+    private final PercentileHistogram elapsedTimes = new PercentileHistogram();
+
+    private long totalBytesReceived;
+    private long totalBytesSent;
+    private final BucketHistogram bytesReceivedOfSuccesses;
+
+    /**
+     * @param kiloBytesReceivedLayout the buckets of the received bytes of successful samples
+     */
+    public ResponseStatistics(BucketLayout kiloBytesReceivedLayout) {
+        this.bytesReceivedOfSuccesses = new BucketHistogram(kiloBytesReceivedLayout);
+    }
+
+    /**
+     * @param bytesReceived the received bytes
+     * @param bytesSent     the sent bytes
+     * @param success       was the sample successful
+     */
+    public void addBytes(long bytesReceived, long bytesSent, boolean success) {
+        totalBytesReceived += bytesReceived;
+        totalBytesSent += bytesSent;
+        if (success) {
+            bytesReceivedOfSuccesses.add(bytesReceived);
+        }
+    }
+
+    /**
+     * @param connectTime the time to establish the connection in milliseconds
+     * @param latency     the time to first byte in milliseconds
+     * @param elapsedTime the elapsed time of the sample in milliseconds
+     */
+    public void addTimings(long connectTime, long latency, long elapsedTime) {
+        timedRequests++;
+        totalConnectTime += connectTime;
+        totalLatency += latency;
+        totalElapsedTime += elapsedTime;
+        connectTimes.add(connectTime);
+        latencies.add(latency);
+        elapsedTimes.add(elapsedTime);
+    }
+
+    /**
+     * Adds the statistics collected by another thread.
+     *
+     * @param other the other statistics
+     */
+    public void add(ResponseStatistics other) {
+        timedRequests += other.timedRequests;
+        totalConnectTime += other.totalConnectTime;
+        totalLatency += other.totalLatency;
+        totalElapsedTime += other.totalElapsedTime;
+        connectTimes.add(other.connectTimes);
+        latencies.add(other.latencies);
+        elapsedTimes.add(other.elapsedTimes);
+        totalBytesReceived += other.totalBytesReceived;
+        totalBytesSent += other.totalBytesSent;
+        bytesReceivedOfSuccesses.add(other.bytesReceivedOfSuccesses);
+    }
+
+    /**
+     * @param out the output
+     * @throws IOException writing failed
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(timedRequests);
+        out.writeLong(totalConnectTime);
+        out.writeLong(totalLatency);
+        out.writeLong(totalElapsedTime);
+        connectTimes.writeTo(out);
+        latencies.writeTo(out);
+        elapsedTimes.writeTo(out);
+        out.writeLong(totalBytesReceived);
+        out.writeLong(totalBytesSent);
+        bytesReceivedOfSuccesses.writeTo(out);
+    }
+
+    /**
+     * @param in                      the input
+     * @param kiloBytesReceivedLayout the buckets of the received bytes of successful samples
+     * @return the statistics written by {@link #writeTo(DataOutput)}
+     * @throws IOException reading failed
+     */
+    public static ResponseStatistics readFrom(DataInput in, BucketLayout kiloBytesReceivedLayout) throws IOException {
+        final ResponseStatistics result = new ResponseStatistics(kiloBytesReceivedLayout);
+        result.timedRequests = in.readLong();
+        result.totalConnectTime = in.readLong();
+        result.totalLatency = in.readLong();
+        result.totalElapsedTime = in.readLong();
+        result.connectTimes.add(PercentileHistogram.readFrom(in));
+        result.latencies.add(PercentileHistogram.readFrom(in));
+        result.elapsedTimes.add(PercentileHistogram.readFrom(in));
+        result.totalBytesReceived = in.readLong();
+        result.totalBytesSent = in.readLong();
+        result.bytesReceivedOfSuccesses.add(BucketHistogram.readFrom(in, kiloBytesReceivedLayout));
+        return result;
+    }
+
+    /**
+     * @return the number of samples having saved the connect time or latency
+     */
+    public long getTimedRequests() {
+        return timedRequests;
+    }
+
+    public double getAverageConnectTime() {
+        return average(totalConnectTime);
+    }
+
+    public double getAverageLatency() {
+        return average(totalLatency);
+    }
+
+    public double getAverageElapsedTime() {
+        return average(totalElapsedTime);
+    }
+
+    /**
+     * @return the average time between the first and the last byte, i.e. the elapsed time minus the latency
+     */
+    public double getAverageProcessingTime() {
+        return average(totalElapsedTime - totalLatency);
+    }
+
+    public long getConnectTimePercentile(double percentile) {
+        return connectTimes.getValueAtPercentile(percentile);
+    }
+
+    public long getLatencyPercentile(double percentile) {
+        return latencies.getValueAtPercentile(percentile);
+    }
+
+    public long getElapsedTimePercentile(double percentile) {
+        return elapsedTimes.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * @return the received bytes of all samples
+     */
+    public long getTotalBytesReceived() {
+        return totalBytesReceived;
+    }
+
+    /**
+     * @return the sent bytes of all samples
+     */
+    public long getTotalBytesSent() {
+        return totalBytesSent;
+    }
+
+    /**
+     * @return the distribution of the received bytes of the successful samples
+     */
+    public BucketHistogram getKiloBytesReceivedHistogram() {
+        return bytesReceivedOfSuccesses;
+    }
+
+    private double average(long total) {
+        return timedRequests > 0 ? (double) total / timedRequests : 0.0;
+    }
+}
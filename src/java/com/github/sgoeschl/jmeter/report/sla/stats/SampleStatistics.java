@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The statistics of a label (or of all samples) using primitive fields only.
+ */
+public class SampleStatistics {
+
+    private long requests;
+    private long failures;
+    private long totalTime;
+    private double sumOfSquares;
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = Long.MIN_VALUE;
+    private long firstAccess = Long.MAX_VALUE;
+    private long lastAccess = Long.MIN_VALUE;
+    private PercentileHistogram responseTimes = new PercentileHistogram();
+
+    /**
+     * @param timestamp the timestamp of the sample in milliseconds
+     * @param duration  the elapsed time of the sample in milliseconds
+     * @param success   was the sample successful
+     */
+    public void add(long timestamp, long duration, boolean success) {
+        requests++;
+        if (!success) {
+            failures++;
+        }
+        totalTime += duration;
+        sumOfSquares += (double) duration * duration;
+        minTime = Math.min(minTime, duration);
+        maxTime = Math.max(maxTime, duration);
+        firstAccess = Math.min(firstAccess, timestamp);
+        lastAccess = Math.max(lastAccess, timestamp);
+        responseTimes.add(duration);
+    }
+
+    /**
+     * Adds the statistics collected by another thread.
+     *
+     * @param other the other statistics
+     */
+    public void add(SampleStatistics other) {
+        requests += other.requests;
+        failures += other.failures;
+        totalTime += other.totalTime;
+        sumOfSquares += other.sumOfSquares;
+        minTime = Math.min(minTime, other.minTime);
+        maxTime = Math.max(maxTime, other.maxTime);
+        firstAccess = Math.min(firstAccess, other.firstAccess);
+        lastAccess = Math.max(lastAccess, other.lastAccess);
+        responseTimes.add(other.responseTimes);
+    }
+
+    /**
+     * @param out the output
+     * @throws IOException writing failed
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(requests);
+        out.writeLong(failures);
+        out.writeLong(totalTime);
+        out.writeDouble(sumOfSquares);
+        out.writeLong(minTime);
+        out.writeLong(maxTime);
+        out.writeLong(firstAccess);
+        out.writeLong(lastAccess);
+        responseTimes.writeTo(out);
+    }
+
+    /**
+     * @param in the input
+     * @return the statistics written by {@link #writeTo(DataOutput)}
+     * @throws IOException reading failed
+     */
+    public static SampleStatistics readFrom(DataInput in) throws IOException {
+        final SampleStatistics result = new SampleStatistics();
+        result.requests = in.readLong();
+        result.failures = in.readLong();
+        result.totalTime = in.readLong();
+        result.sumOfSquares = in.readDouble();
+        result.minTime = in.readLong();
+        result.maxTime = in.readLong();
+        result.firstAccess = in.readLong();
+        result.lastAccess = in.readLong();
+        result.responseTimes = PercentileHistogram.readFrom(in);
+        return result;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+    public long getMinTime() {
+        return requests > 0 ? minTime : 0;
+    }
+
+    public long getMaxTime() {
+        return requests > 0 ? maxTime : 0;
+    }
+
+    public long getFirstAccess() {
+        return requests > 0 ? firstAccess : 0;
+    }
+
+    public long getLastAccess() {
+        return requests > 0 ? lastAccess : 0;
+    }
+
+    public double getAverageTime() {
+        return requests > 0 ? (double) totalTime / requests : 0.0;
+    }
+
+    /**
+     * @return the sample standard deviation of the response times computed like JAMon
+     */
+    public double getStdDev() {
+        if (requests == 0) {
+            return 0.0;
+        }
+        final double total = totalTime;
+        return Math.sqrt((sumOfSquares - total * total / requests) / Math.max(requests - 1, 1));
+    }
+
+    /**
+     * @return the error rate in percent
+     */
+    public double getErrorRate() {
+        return requests > 0 ? failures * 100.0 / requests : 0.0;
+    }
+
+    /**
+     * @return the requests per second between the first and last access
+     */
+    public double getThroughput() {
+        final long duration = getLastAccess() - getFirstAccess();
+        return duration > 0 ? requests * 1000.0 / duration : requests;
+    }
+
+    /**
+     * @param percentile the percentile, e.g. 95.0
+     * @return the estimated response time at the given percentile
+     */
+    public long getPercentile(double percentile) {
+        return responseTimes.getValueAtPercentile(percentile);
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The requests, errors and response times of a label per time slot of the test run
+ * to draw charts without reading the samples again. Like {@link BandwidthTimeline}
+ * the slot duration starts with a second and is doubled whenever the run does not
+ * fit into the maximum number of slots, i.e. the memory does not depend on the
+ * duration of the test run.
+ */
+public class SampleTimeline {
+
+    public static final int DEFAULT_MAX_SLOTS = 512;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int maxSlots;
+
+    // the slot duration is 2^shift seconds
+    private int shift;
+    private long firstSlot;
+    private int slots;
+    private int[] requests = new int[0];
+    private int[] errors = new int[0];
+    private long[] totalTime = new long[0];
+
+    public SampleTimeline() {
+        this(DEFAULT_MAX_SLOTS);
+    }
+
+    /**
+     * @param maxSlots the maximum number of time slots
+     */
+    public SampleTimeline(int maxSlots) {
+        if (maxSlots < 2) {
+            throw new IllegalArgumentException("Expecting at least two time slots: " + maxSlots);
+        }
+        this.maxSlots = maxSlots;
+    }
+
+    /**
+     * @param timestamp the timestamp of the sample in milliseconds
+     * @param duration  the elapsed time of the sample in milliseconds
+     * @param success   was the sample successful
+     */
+    public void add(long timestamp, long duration, boolean success) {
+        add(Math.floorDiv(timestamp, 1000L), 1, success ? 0 : 1, duration, 0);
+    }
+
+    /**
+     * Adds the samples collected by another thread.
+     *
+     * @param other the other timeline
+     */
+    public void add(SampleTimeline other) {
+        for (int i = 0; i < other.slots; i++) {
+            if (other.requests[i] != 0) {
+                add((other.firstSlot + i) << other.shift, other.requests[i], other.errors[i], other.totalTime[i], other.shift);
+            }
+        }
+    }
+
+    /**
+     * @param out the output
+     * @throws IOException writing failed
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(maxSlots);
+        out.writeInt(shift);
+        out.writeLong(firstSlot);
+        out.writeInt(slots);
+        for (int i = 0; i < slots; i++) {
+            out.writeInt(requests[i]);
+            out.writeInt(errors[i]);
+            out.writeLong(totalTime[i]);
+        }
+    }
+
+    /**
+     * @param in the input
+     * @return the timeline written by {@link #writeTo(DataOutput)}
+     * @throws IOException reading failed
+     */
+    public static SampleTimeline readFrom(DataInput in) throws IOException {
+        final SampleTimeline result = new SampleTimeline(in.readInt());
+        result.shift = in.readInt();
+        result.firstSlot = in.readLong();
+        final int slots = in.readInt();
+        if (slots > result.maxSlots) {
+            throw new IOException("Expecting at most " + result.maxSlots + " time slots but found " + slots);
+        }
+        result.ensureCapacity(slots);
+        result.slots = slots;
+        for (int i = 0; i < slots; i++) {
+            result.requests[i] = in.readInt();
+            result.errors[i] = in.readInt();
+            result.totalTime[i] = in.readLong();
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of time slots
+     */
+    public int getSlots() {
+        return slots;
+    }
+
+    /**
+     * @return the duration of a time slot in seconds
+     */
+    public long getSlotSeconds() {
+        return 1L << shift;
+    }
+
+    /**
+     * @param slot the time slot
+     * @return the start of the time slot in milliseconds
+     */
+    public long getStartTime(int slot) {
+        return ((firstSlot + slot) << shift) * 1000L;
+    }
+
+    public int getRequests(int slot) {
+        return requests[slot];
+    }
+
+    public int getErrors(int slot) {
+        return errors[slot];
+    }
+
+    /**
+     * @param slot the time slot
+     * @return the average response time of the time slot or zero if there are no requests
+     */
+    public double getAverageTime(int slot) {
+        return requests[slot] > 0 ? (double) totalTime[slot] / requests[slot] : 0.0;
+    }
+
+    private void add(long second, int requests, int errors, long totalTime, int otherShift) {
+
+        while (shift < otherShift) {
+            coarsen();
+        }
+
+        final int index = indexOf(second);
+        this.requests[index] += requests;
+        this.errors[index] += errors;
+        this.totalTime[index] += totalTime;
+    }
+
+    private int indexOf(long second) {
+
+        long slot = second >> shift;
+
+        if (slots == 0) {
+            firstSlot = slot;
+        }
+
+        while (Math.max(slot, firstSlot + slots - 1) - Math.min(slot, firstSlot) >= maxSlots) {
+            coarsen();
+            slot = second >> shift;
+        }
+
+        if (slot < firstSlot) {
+            // an earlier sample, e.g. of another source file, shifts the timeline
+            final int offset = (int) (firstSlot - slot);
+            ensureCapacity(slots + offset);
+            System.arraycopy(requests, 0, requests, offset, slots);
+            System.arraycopy(errors, 0, errors, offset, slots);
+            System.arraycopy(totalTime, 0, totalTime, offset, slots);
+            Arrays.fill(requests, 0, offset, 0);
+            Arrays.fill(errors, 0, offset, 0);
+            Arrays.fill(totalTime, 0, offset, 0L);
+            slots += offset;
+            firstSlot = slot;
+        }
+
+        final int index = (int) (slot - firstSlot);
+        if (index >= slots) {
+            ensureCapacity(index + 1);
+            slots = index + 1;
+        }
+        return index;
+    }
+
+    /**
+     * Doubles the slot duration by adding up adjacent slots.
+     */
+    private void coarsen() {
+        final long newFirstSlot = firstSlot >> 1;
+        int newSlots = 0;
+        for (int i = 0; i < slots; i++) {
+            final int index = (int) (((firstSlot + i) >> 1) - newFirstSlot);
+            final int slotRequests = requests[i];
+            final int slotErrors = errors[i];
+            final long slotTotalTime = totalTime[i];
+            requests[i] = 0;
+            errors[i] = 0;
+            totalTime[i] = 0;
+            requests[index] += slotRequests;
+            errors[index] += slotErrors;
+            totalTime[index] += slotTotalTime;
+            newSlots = index + 1;
+        }
+        shift++;
+        firstSlot = newFirstSlot;
+        slots = newSlots;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > requests.length) {
+            final int newCapacity = Math.min(Math.max(capacity, Math.max(INITIAL_CAPACITY, requests.length * 2)), maxSlots);
+            requests = Arrays.copyOf(requests, newCapacity);
+            errors = Arrays.copyOf(errors, newCapacity);
+            totalTime = Arrays.copyOf(totalTime, newCapacity);
+        }
+    }
+}
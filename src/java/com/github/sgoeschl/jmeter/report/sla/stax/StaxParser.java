@@ -48,6 +48,11 @@ public class StaxParser {
                     final ComponentParser parser = delegates.get(localName);
                     element = parser.startElement(staxXmlReader, elementStack);
                     elementStack.push(element);
+                    // the component parser might have consumed the whole element already
+                    if (StaxUtil.isEndElement(staxXmlReader, localName)) {
+                        parser.endElement(staxXmlReader, elementStack);
+                        elementStack.pop();
+                    }
                 }
             } else if (event == XMLStreamConstants.END_ELEMENT) {
                 localName = staxXmlReader.getLocalName();
@@ -34,5 +34,34 @@ public class StaxUtil {
         }
     }
 
+    /**
+     * Skips the content of the current element without building any text. The reader
+     * is expected to be positioned on a START_ELEMENT and is afterwards positioned on
+     * the matching END_ELEMENT.
+     *
+     * @param reader the Stax stream reader
+     * @throws XMLStreamException parsing the XML failed
+     */
+    public static void skipElement(XMLStreamReader reader) throws XMLStreamException {
 
+        int depth = 1;
+
+        while (depth > 0 && reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * @param reader the Stax stream reader
+     * @param localName the local name of the element
+     * @return true if the reader is positioned on the END_ELEMENT of the given element
+     */
+    public static boolean isEndElement(XMLStreamReader reader, String localName) {
+        return reader.getEventType() == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals(localName);
+    }
 }
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.utils;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Detects duplicated samples, e.g. when passing the JTL files of the slaves together with
+ * the combined JTL file of the controller, using a sample key of timestamp, thread name,
+ * label and elapsed time. Since the key contains the timestamp the samples are partitioned
+ * into time slots having a Bloom filter of their own - only the slots of the most recent
+ * window of sample time are kept so the memory is bounded regardless of the number of samples.
+ * Samples older than the window are passed unchecked and counted, i.e. the samples should be
+ * checked in (approximate) timestamp order. A Bloom filter has no false negatives but might
+ * take a unique sample for a duplicate - the false-positive rate is estimated from the fill
+ * ratio of the fullest filter.
+ * <p>
+ * The filter is thread-safe to be shared by the partial models of concurrent parsing - each
+ * time slot is locked on its own so samples of different slots are checked concurrently.
+ */
+public class DuplicateFilter {
+
+    public static final long DEFAULT_WINDOW_MILLIS = 10L * 60 * 1000;
+    public static final long DEFAULT_MEMORY_BYTES = 64L * 1024 * 1024;
+
+    private static final int SLOTS = 16;
+    private static final int HASHES = 5;
+
+    private final long windowMillis;
+    private final long slotMillis;
+    private final long bitsPerSlot;
+    private final long bitMask;
+    private final ConcurrentMap<Long, Slot> slots = new ConcurrentHashMap<>();
+    private final AtomicLong newestSlot = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong samples = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong uncheckedSamples = new AtomicLong();
+    private final AtomicLong maxSetBits = new AtomicLong();
+
+    /**
+     * @param windowMillis the sample time covered by the filter in milliseconds
+     * @param memoryBytes  the memory used by the Bloom filters of all time slots
+     */
+    public DuplicateFilter(long windowMillis, long memoryBytes) {
+        if (windowMillis < SLOTS) {
+            throw new IllegalArgumentException("Expecting a window of at least " + SLOTS + " ms: " + windowMillis);
+        }
+        if (memoryBytes < SLOTS * Long.BYTES) {
+            throw new IllegalArgumentException("Expecting at least " + SLOTS * Long.BYTES + " bytes of memory: " + memoryBytes);
+        }
+        this.windowMillis = windowMillis;
+        this.slotMillis = windowMillis / SLOTS;
+        // each slot gets an equal share of the memory as a power of two of bits to map the hashes with a mask
+        this.bitsPerSlot = Long.highestOneBit(Math.min(memoryBytes / SLOTS * Byte.SIZE, (long) Integer.MAX_VALUE * Long.SIZE));
+        this.bitMask = bitsPerSlot - 1;
+    }
+
+    /**
+     * Remembers the sample and checks if it was seen before.
+     *
+     * @param timestamp  the timestamp of the sample in milliseconds
+     * @param threadName the thread name or null if not saved
+     * @param label      the label
+     * @param elapsed    the elapsed time in milliseconds
+     * @return true if the sample is (most likely) a duplicate
+     */
+    public boolean isDuplicate(long timestamp, String threadName, String label, long elapsed) {
+
+        samples.incrementAndGet();
+
+        final Slot slot = getSlot(Math.floorDiv(timestamp, slotMillis));
+
+        if (slot == null) {
+            uncheckedSamples.incrementAndGet();
+            return false;
+        }
+
+        // double hashing derives the bit positions from two independent hashes
+        final long hash = hash(timestamp, threadName, label, elapsed);
+        final long hash1 = mix(hash);
+        final long hash2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        final long setBits;
+        int newBits = 0;
+
+        synchronized (slot) {
+            final long[] bits = slot.bits;
+            for (int i = 0; i < HASHES; i++) {
+                final long bit = (hash1 + i * hash2) & bitMask;
+                final int word = (int) (bit >>> 6);
+                final long mask = 1L << bit;
+                if ((bits[word] & mask) == 0) {
+                    bits[word] |= mask;
+                    newBits++;
+                }
+            }
+            slot.setBits += newBits;
+            setBits = slot.setBits;
+        }
+
+        if (newBits == 0) {
+            duplicates.incrementAndGet();
+            return true;
+        }
+
+        long current = maxSetBits.get();
+        while (setBits > current && !maxSetBits.compareAndSet(current, setBits)) {
+            current = maxSetBits.get();
+        }
+
+        return false;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public long getSamples() {
+        return samples.get();
+    }
+
+    /**
+     * @return the number of dropped duplicates
+     */
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    /**
+     * @return the number of samples being older than the window when they were checked
+     */
+    public long getUncheckedSamples() {
+        return uncheckedSamples.get();
+    }
+
+    /**
+     * Estimates the chance of taking a unique sample for a duplicate from the fill ratio
+     * of the fullest Bloom filter, i.e. an upper bound for the samples of all time slots.
+     *
+     * @return the estimated false-positive rate between 0 and 1
+     */
+    public double getFalsePositiveRate() {
+        return Math.pow((double) maxSetBits.get() / bitsPerSlot, HASHES);
+    }
+
+    /**
+     * @return the time slot or null if the slot is older than the window
+     */
+    private Slot getSlot(long slotIndex) {
+
+        long newest = newestSlot.get();
+
+        while (slotIndex > newest) {
+            if (newestSlot.compareAndSet(newest, slotIndex)) {
+                final Iterator<Long> iterator = slots.keySet().iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next() <= slotIndex - SLOTS) {
+                        iterator.remove();
+                    }
+                }
+                newest = slotIndex;
+            } else {
+                newest = newestSlot.get();
+            }
+        }
+
+        if (slotIndex <= newest - SLOTS) {
+            return null;
+        }
+
+        final Slot slot = slots.get(slotIndex);
+        if (slot != null) {
+            return slot;
+        }
+
+        final Slot newSlot = new Slot((int) (bitsPerSlot / Long.SIZE));
+        final Slot existingSlot = slots.putIfAbsent(slotIndex, newSlot);
+        return existingSlot != null ? existingSlot : newSlot;
+    }
+
+    private static long hash(long timestamp, String threadName, String label, long elapsed) {
+        long result = 0xcbf29ce484222325L;
+        result = hash(result, label);
+        result = hash(result, threadName != null ? threadName : "");
+        result = mix(result ^ timestamp);
+        return result ^ elapsed * 0xc4ceb9fe1a85ec53L;
+    }
+
+    /**
+     * FNV-1a over the characters terminated by a zero to separate adjacent strings.
+     */
+    private static long hash(long hash, String value) {
+        long result = hash;
+        for (int i = 0; i < value.length(); i++) {
+            result = (result ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return result * 0x100000001b3L;
+    }
+
+    private static long mix(long value) {
+        long result = value;
+        result ^= result >>> 33;
+        result *= 0xff51afd7ed558ccdL;
+        result ^= result >>> 33;
+        result *= 0xc4ceb9fe1a85ec53L;
+        result ^= result >>> 33;
+        return result;
+    }
+
+    /**
+     * The Bloom filter of a time slot being the lock of its bits.
+     */
+    private static final class Slot {
+
+        private final long[] bits;
+        private long setBits;
+
+        private Slot(int words) {
+            this.bits = new long[words];
+        }
+    }
+}
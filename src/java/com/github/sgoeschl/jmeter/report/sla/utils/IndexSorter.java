@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.utils;
+
+import java.util.Arrays;
+
+/**
+ * Sorts a permutation of row indexes by primitive keys instead of sorting the rows
+ * themselves. Each key is replaced by its rank among all keys and packed together with
+ * its row index into a single long so a primitive sort of the packed values orders the
+ * rows by their keys. The sort is stable, i.e. rows having the same key keep their order
+ * in both directions - the same order as sorting the rows with a stable comparator
+ * negated for a descending sort.
+ */
+public final class IndexSorter {
+
+    private IndexSorter() {
+    }
+
+    /**
+     * @param keys       the keys of the rows
+     * @param descending sort in descending order
+     * @return the row indexes in the order of their keys
+     */
+    public static int[] sort(long[] keys, boolean descending) {
+        final long[] sortedKeys = keys.clone();
+        Arrays.sort(sortedKeys);
+        final int[] ranks = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            ranks[i] = Arrays.binarySearch(sortedKeys, keys[i]);
+        }
+        return sortByRank(ranks, descending);
+    }
+
+    /**
+     * @param keys       the keys of the rows
+     * @param descending sort in descending order
+     * @return the row indexes in the order of their keys
+     */
+    public static int[] sort(String[] keys, boolean descending) {
+        final String[] sortedKeys = keys.clone();
+        Arrays.sort(sortedKeys);
+        final int[] ranks = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            ranks[i] = Arrays.binarySearch(sortedKeys, keys[i]);
+        }
+        return sortByRank(ranks, descending);
+    }
+
+    /**
+     * Maps a double to a long having the same order as {@link Double#compare(double, double)}.
+     *
+     * @param value the value
+     * @return the sortable key
+     */
+    public static long toSortableKey(double value) {
+        final long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Equal keys have the same rank since the binary search of a key is deterministic - the
+     * row index in the lower half of the packed value keeps their order.
+     */
+    private static int[] sortByRank(int[] ranks, boolean descending) {
+        final int length = ranks.length;
+        final long[] packed = new long[length];
+        for (int i = 0; i < length; i++) {
+            final long rank = (descending ? length - 1 - ranks[i] : ranks[i]);
+            packed[i] = (rank << 32) | i;
+        }
+        Arrays.sort(packed);
+        final int[] result = new int[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = (int) packed[i];
+        }
+        return result;
+    }
+}
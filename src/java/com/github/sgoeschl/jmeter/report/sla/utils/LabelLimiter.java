@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.utils;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the number of distinct labels, e.g. when a test run produces a unique label per
+ * request. The first labels up to the cap are kept while the samples of any further
+ * label are folded into a single overflow label so the memory used by the report model
+ * is bounded regardless of the input. The limiter is thread-safe to be shared by the
+ * partial models of concurrent parsing.
+ */
+public class LabelLimiter {
+
+    public static final String OVERFLOW_LABEL = "[other labels]";
+    public static final String OVERFLOW_ERROR_LABEL = "[other errors]";
+
+    // report the heap usage when passing these fractions of the cap
+    private static final int[] WARNING_PERCENTAGES = { 50, 80, 100 };
+
+    private final int maxLabels;
+    private final String overflowLabel;
+    private final Set<String> labels = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param maxLabels     the maximum number of distinct labels or zero for no limit
+     * @param overflowLabel the label of the samples beyond the cap
+     */
+    public LabelLimiter(int maxLabels, String overflowLabel) {
+        if (maxLabels < 0) {
+            throw new IllegalArgumentException("Expecting a non-negative number of labels: " + maxLabels);
+        }
+        this.maxLabels = maxLabels;
+        this.overflowLabel = overflowLabel;
+    }
+
+    /**
+     * @param label the label of a sample
+     * @return the label itself or the overflow label if the cap is reached
+     */
+    public String resolve(String label) {
+
+        if (maxLabels == 0 || labels.contains(label)) {
+            return label;
+        }
+
+        // reserve a slot before adding the label to never exceed the cap
+        final int reserved = size.incrementAndGet();
+
+        if (reserved > maxLabels) {
+            size.decrementAndGet();
+            return overflowLabel;
+        }
+
+        if (!labels.add(label)) {
+            // another thread added the same label in the meantime
+            size.decrementAndGet();
+            return label;
+        }
+
+        reportHeapUsage(reserved);
+        return label;
+    }
+
+    public int getMaxLabels() {
+        return maxLabels;
+    }
+
+    /**
+     * @return the number of distinct labels kept so far
+     */
+    public int getLabelCount() {
+        return labels.size();
+    }
+
+    public String getOverflowLabel() {
+        return overflowLabel;
+    }
+
+    private void reportHeapUsage(int labelCount) {
+        for (int percentage : WARNING_PERCENTAGES) {
+            if (labelCount == (int) ((long) maxLabels * percentage / 100)) {
+                final Runtime runtime = Runtime.getRuntime();
+                final long usedMegaBytes = (runtime.totalMemory() - runtime.freeMemory()) >> 20;
+                final long maxMegaBytes = runtime.maxMemory() >> 20;
+                System.out.println("Reached " + percentage + "% of the label cap (" + labelCount + "/" + maxLabels
+                        + ") using " + usedMegaBytes + " of " + maxMegaBytes + " MB heap - further labels are folded into '" + overflowLabel + "'");
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.utils;
+
+/**
+ * Downsamples a series of points using the "Largest Triangle Three Buckets" algorithm
+ * of Sveinn Steinarsson, i.e. the first and last point are kept and from each of the
+ * buckets in between the point forming the largest triangle with the previously
+ * selected point and the average of the next bucket is selected. This keeps the
+ * peaks and the shape of the series which averaging would flatten.
+ */
+public final class LargestTriangleThreeBuckets {
+
+    private LargestTriangleThreeBuckets() {
+    }
+
+    /**
+     * @param x         the ascending x values
+     * @param y         the y values
+     * @param length    the number of points
+     * @param threshold the maximum number of selected points - all points are selected if less than three
+     * @return the indexes of the selected points in ascending order
+     */
+    public static int[] select(double[] x, double[] y, int length, int threshold) {
+
+        if (threshold >= length || threshold < 3) {
+            final int[] result = new int[length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = i;
+            }
+            return result;
+        }
+
+        final int[] result = new int[threshold];
+        final double bucketSize = (double) (length - 2) / (threshold - 2);
+        int selected = 0;
+        int count = 0;
+
+        result[count++] = selected;
+
+        for (int i = 0; i < threshold - 2; i++) {
+
+            // the average point of the next bucket
+            final int nextFrom = (int) Math.floor((i + 1) * bucketSize) + 1;
+            final int nextTo = Math.min((int) Math.floor((i + 2) * bucketSize) + 1, length);
+            double averageX = 0;
+            double averageY = 0;
+            for (int j = nextFrom; j < nextTo; j++) {
+                averageX += x[j];
+                averageY += y[j];
+            }
+            averageX /= (nextTo - nextFrom);
+            averageY /= (nextTo - nextFrom);
+
+            // the point of the current bucket forming the largest triangle
+            final int from = (int) Math.floor(i * bucketSize) + 1;
+            final int to = (int) Math.floor((i + 1) * bucketSize) + 1;
+            double maxArea = -1.0;
+            int next = from;
+            for (int j = from; j < to; j++) {
+                final double area = Math.abs((x[selected] - averageX) * (y[j] - y[selected]) - (x[selected] - x[j]) * (averageY - y[selected]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+
+            result[count++] = next;
+            selected = next;
+        }
+
+        result[count] = length - 1;
+        return result;
+    }
+}
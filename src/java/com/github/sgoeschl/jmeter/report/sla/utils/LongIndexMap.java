@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.utils;
+
+import java.util.Arrays;
+
+/**
+ * Maps primitive long keys to non-negative int indexes using open addressing, i.e. without
+ * boxing the key or allocating an entry per mapping.
+ */
+public class LongIndexMap {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int FREE = -1;
+
+    private long[] keys;
+    private int[] indexes;
+    private int size;
+
+    public LongIndexMap() {
+        this.keys = new long[INITIAL_CAPACITY];
+        this.indexes = new int[INITIAL_CAPACITY];
+        Arrays.fill(indexes, FREE);
+    }
+
+    /**
+     * @param key the key
+     * @return the index of the key or -1 if not found
+     */
+    public int get(long key) {
+        final int mask = keys.length - 1;
+        for (int slot = slotOf(key, mask); indexes[slot] != FREE; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return indexes[slot];
+            }
+        }
+        return FREE;
+    }
+
+    /**
+     * @param key   the key
+     * @param index the non-negative index
+     */
+    public void put(long key, int index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Expecting a non-negative index: " + index);
+        }
+        // keep the load factor below 0.5 to have short probe sequences
+        if (2 * (size + 1) > keys.length) {
+            resize(2 * keys.length);
+        }
+        if (insert(keys, indexes, key, index)) {
+            size++;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        final long[] newKeys = new long[capacity];
+        final int[] newIndexes = new int[capacity];
+        Arrays.fill(newIndexes, FREE);
+        for (int i = 0; i < keys.length; i++) {
+            if (indexes[i] != FREE) {
+                insert(newKeys, newIndexes, keys[i], indexes[i]);
+            }
+        }
+        keys = newKeys;
+        indexes = newIndexes;
+    }
+
+    /**
+     * @return true if the key was not mapped before
+     */
+    private static boolean insert(long[] keys, int[] indexes, long key, int index) {
+        final int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (indexes[slot] != FREE) {
+            if (keys[slot] == key) {
+                indexes[slot] = index;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        indexes[slot] = index;
+        return true;
+    }
+
+    /**
+     * Spreads the bits of the key since composite keys only differ in a few bits.
+     */
+    private static int slotOf(long key, int mask) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Finds the byte positions of the top-level samples of a JTL or CSV file so a byte range
+ * of the file can be parsed on its own, e.g. the chunks of a preview or the remainder of
+ * a file after a checkpoint. The content of a range is preceded by the header of the file, i.e.
+ * the XML prolog and the opening root element or the CSV header, to be a well-formed source
+ * file - keeping the XML declaration decodes the range using the encoding of the file.
+ * <p>
+ * The samples of JTL files are expected to start at the beginning of a line while nested
+ * samples are indented as written by JMeter. CSV lines must not contain quoted line breaks.
+ */
+public class SampleBoundaries {
+
+    private static final byte[][] XML_SAMPLE_STARTS = {
+            "\n<httpSample ".getBytes(StandardCharsets.UTF_8),
+            "\n<sample ".getBytes(StandardCharsets.UTF_8)
+    };
+    private static final byte[] XML_FOOTER = "</testResults>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[][] CSV_LINE_STARTS = { "\n".getBytes(StandardCharsets.UTF_8) };
+    private static final byte[] XML_SUFFIX = "</testResults>\n".getBytes(StandardCharsets.UTF_8);
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final RandomAccessFile file;
+    private final byte[][] sampleStarts;
+    private final long length;
+    private final long firstSampleStart;
+    private final byte[] prefix;
+    private final byte[] suffix;
+
+    /**
+     * @param file  the JTL or CSV file
+     * @param isCsv is the file a CSV file
+     * @throws IOException reading the file failed
+     */
+    public SampleBoundaries(RandomAccessFile file, boolean isCsv) throws IOException {
+        this.file = file;
+        this.sampleStarts = (isCsv ? CSV_LINE_STARTS : XML_SAMPLE_STARTS);
+        this.length = (isCsv ? file.length() : findXmlFooter(file));
+        this.firstSampleStart = Math.min(length, findSampleStart(0));
+        this.prefix = readHeader(file, firstSampleStart);
+        this.suffix = (isCsv ? new byte[0] : XML_SUFFIX);
+    }
+
+    /**
+     * @return the end of the samples, i.e. the position of the closing "testResults" element or the file length
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * @return the position of the first sample or {@link #getLength()} if no sample was found
+     */
+    public long getFirstSampleStart() {
+        return firstSampleStart;
+    }
+
+    /**
+     * Finds the first sample starting at or after the given position.
+     *
+     * @param position the position to start scanning
+     * @return the position of the sample or the file length
+     * @throws IOException reading the file failed
+     */
+    public long findSampleStart(long position) throws IOException {
+
+        final byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+        // the sample starts with a line break so start scanning at the preceding character
+        long offset = Math.max(0, position - 1);
+
+        while (offset < file.length()) {
+            file.seek(offset);
+            final int count = file.read(buffer);
+            if (count <= 0) {
+                break;
+            }
+            for (int i = 0; i < count; i++) {
+                if (buffer[i] == '\n') {
+                    if (matches(buffer, count, i, offset)) {
+                        return offset + i + 1;
+                    }
+                }
+            }
+            offset += count;
+        }
+
+        return file.length();
+    }
+
+    /**
+     * Reads the samples between two sample positions into memory.
+     *
+     * @param start the start of the first sample
+     * @param end   the start of the sample following the last sample
+     * @return the content of a well-formed source file
+     * @throws IOException reading the file failed
+     */
+    public byte[] read(long start, long end) throws IOException {
+        final byte[] content = new byte[(int) (end - start)];
+        file.seek(start);
+        file.readFully(content);
+        final ByteArrayOutputStream result = new ByteArrayOutputStream(prefix.length + content.length + suffix.length);
+        result.write(prefix);
+        result.write(content);
+        result.write(suffix);
+        return result.toByteArray();
+    }
+
+    /**
+     * Streams the samples between two sample positions without reading them into memory. The
+     * file must not be accessed otherwise until the stream is consumed.
+     *
+     * @param start the start of the first sample
+     * @param end   the start of the sample following the last sample
+     * @return the content of a well-formed source file
+     * @throws IOException reading the file failed
+     */
+    public InputStream openStream(long start, long end) throws IOException {
+        file.seek(start);
+        final InputStream content = new BufferedInputStream(new RangeInputStream(file, end - start));
+        return new SequenceInputStream(Collections.enumeration(Arrays.asList(
+                new ByteArrayInputStream(prefix), content, new ByteArrayInputStream(suffix))));
+    }
+
+    private boolean matches(byte[] buffer, int count, int index, long offset) throws IOException {
+        for (byte[] sampleStart : sampleStarts) {
+            if (index + sampleStart.length <= count) {
+                if (regionMatches(buffer, index, sampleStart)) {
+                    return true;
+                }
+            } else {
+                // the candidate crosses the end of the buffer
+                final byte[] candidate = new byte[sampleStart.length];
+                file.seek(offset + index);
+                if (file.read(candidate) == candidate.length && regionMatches(candidate, 0, sampleStart)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the position of the closing "testResults" element or the file length for incomplete files
+     */
+    private static long findXmlFooter(RandomAccessFile file) throws IOException {
+        final int size = (int) Math.min(file.length(), SCAN_BUFFER_SIZE);
+        final byte[] buffer = new byte[size];
+        file.seek(file.length() - size);
+        file.readFully(buffer);
+        for (int i = size - XML_FOOTER.length; i >= 0; i--) {
+            if (regionMatches(buffer, i, XML_FOOTER)) {
+                return file.length() - size + i;
+            }
+        }
+        return file.length();
+    }
+
+    private static boolean regionMatches(byte[] buffer, int index, byte[] pattern) {
+        for (int i = 0; i < pattern.length; i++) {
+            if (buffer[index + i] != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the bytes preceding the first sample, i.e. the XML prolog and root element or the CSV header
+     */
+    private static byte[] readHeader(RandomAccessFile file, long firstSampleStart) throws IOException {
+        final byte[] result = new byte[(int) firstSampleStart];
+        file.seek(0);
+        file.readFully(result);
+        return result;
+    }
+
+    /**
+     * Reads a byte range of a file starting at its current position.
+     */
+    private static final class RangeInputStream extends InputStream {
+
+        private final RandomAccessFile file;
+        private long remaining;
+
+        RangeInputStream(RandomAccessFile file, long remaining) {
+            this.file = file;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            final int result = file.read();
+            remaining = (result < 0 ? 0 : remaining - 1);
+            return result;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            final int count = file.read(buffer, offset, (int) Math.min(length, remaining));
+            remaining = (count < 0 ? 0 : remaining - count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.github.sgoeschl.jmeter.report.sla.utils;
+
+/**
+ * Maps a pair of strings to a value using open addressing, i.e. a lookup neither allocates
+ * a composite key nor an entry and costs a single probe sequence using the cached hash codes
+ * of the strings. The second string might be null.
+ *
+ * @param <V> the type of the values
+ */
+public class StringPairMap<V> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String[] firsts;
+    private String[] seconds;
+    private Object[] values;
+    private int size;
+
+    public StringPairMap() {
+        this.firsts = new String[INITIAL_CAPACITY];
+        this.seconds = new String[INITIAL_CAPACITY];
+        this.values = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * @param first  the first string
+     * @param second the second string or null
+     * @return the value or null if not found
+     */
+    @SuppressWarnings("unchecked")
+    public V get(String first, String second) {
+        final int mask = firsts.length - 1;
+        for (int slot = slotOf(first, second, mask); firsts[slot] != null; slot = (slot + 1) & mask) {
+            if (first.equals(firsts[slot]) && equals(second, seconds[slot])) {
+                return (V) values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param first  the first string
+     * @param second the second string or null
+     * @param value  the value
+     */
+    public void put(String first, String second, V value) {
+        // keep the load factor below 0.5 to have short probe sequences
+        if (2 * (size + 1) > firsts.length) {
+            resize(2 * firsts.length);
+        }
+        if (insert(firsts, seconds, values, first, second, value)) {
+            size++;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        final String[] newFirsts = new String[capacity];
+        final String[] newSeconds = new String[capacity];
+        final Object[] newValues = new Object[capacity];
+        for (int i = 0; i < firsts.length; i++) {
+            if (firsts[i] != null) {
+                insert(newFirsts, newSeconds, newValues, firsts[i], seconds[i], values[i]);
+            }
+        }
+        firsts = newFirsts;
+        seconds = newSeconds;
+        values = newValues;
+    }
+
+    /**
+     * @return true if the pair was not mapped before
+     */
+    private static boolean insert(String[] firsts, String[] seconds, Object[] values, String first, String second, Object value) {
+        final int mask = firsts.length - 1;
+        int slot = slotOf(first, second, mask);
+        while (firsts[slot] != null) {
+            if (first.equals(firsts[slot]) && equals(second, seconds[slot])) {
+                values[slot] = value;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        firsts[slot] = first;
+        seconds[slot] = second;
+        values[slot] = value;
+        return true;
+    }
+
+    private static int slotOf(String first, String second, int mask) {
+        final int hash = 31 * first.hashCode() + (second != null ? second.hashCode() : 0);
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static boolean equals(String left, String right) {
+        return left == null ? right == null : left.equals(right);
+    }
+}
@@ -8,6 +8,12 @@ import java.io.IOException;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class RegressionTest {
 
@@ -42,6 +48,155 @@ public class RegressionTest {
                 "src/test/data/expected-incomplete-result.html");
     }
 
+    @Test
+    public void testSuccessJtlReportSkippingSuccessfulSamples() throws Exception {
+        runReportAndCompare("src/test/data/success.jtl",
+                "src/test/data/expected-success-result.html",
+                Main.OPTION_SKIP_SUCCESSFUL_SAMPLES);
+    }
+
+    @Test
+    public void testFailureJtlReportSkippingSuccessfulSamples() throws Exception {
+        runReportAndCompare("src/test/data/failure.jtl",
+                "src/test/data/expected-failure-result.html",
+                Main.OPTION_SKIP_SUCCESSFUL_SAMPLES);
+    }
+
+    @Test
+    public void testFailureJtlReportRenderedConcurrently() throws Exception {
+        runReportAndCompare("src/test/data/failure.jtl",
+                "src/test/data/expected-failure-result.html",
+                Main.OPTION_THREADS + "=4");
+    }
+
+    @Test
+    public void testSuccessJtlReportWithVirtualTables() throws Exception {
+        final File reportFile = new File("./target/actual/virtual-tables-result.html");
+
+        Main.onMain(new String[] { Main.OPTION_VIRTUAL_TABLES + "=0", reportFile.getAbsolutePath(), "src/test/data/success.jtl" });
+
+        final String report = readAsString(reportFile);
+        Assert.assertTrue(report.contains("<div id=\"pages-overview\" class=\"virtual-table\""));
+        Assert.assertTrue(report.contains("<script type=\"application/json\" id=\"pages-detail-0-data\">"));
+        Assert.assertTrue(report.contains("<script type=\"application/json\" id=\"kilobytes-received-data\">"));
+        Assert.assertFalse(report.contains("<h2>Pages Overview (ms)</h2>\n<table"));
+    }
+
+    @Test
+    public void testSuccessJtlReportWithSlaConfiguration() throws Exception {
+        final File reportFile = new File("./target/actual/sla-config-result.html");
+
+        Main.onMain(new String[] { Main.OPTION_SLA_CONFIG + "=src/test/data/sla.properties", reportFile.getAbsolutePath(), "src/test/data/success.jtl" });
+
+        final String report = readAsString(reportFile);
+        Assert.assertTrue(report.contains("<h2>Pages Detail Table (ms, SLA &lt; 300ms)</h2>"));
+        Assert.assertTrue(report.contains("<h2>Pages Detail Table (ms, SLA &lt; 150ms)</h2>"));
+        Assert.assertTrue(report.contains("<th>200-300</th><th>>300ms</th>"));
+    }
+
+    @Test
+    public void testFailureJtlReportWithSlaRules() throws Exception {
+        final File reportFile = new File("./target/actual/sla-rules-result.html");
+
+        final int exitCode = Main.onMain(new String[] { Main.OPTION_SLA_CONFIG + "=src/test/data/sla-rules.properties", reportFile.getAbsolutePath(), "src/test/data/failure.jtl" });
+
+        final String report = readAsString(reportFile);
+        Assert.assertEquals(Main.EXIT_SLA_VIOLATION, exitCode);
+        Assert.assertTrue(report.contains("<h2>SLA Verdict</h2>"));
+        Assert.assertTrue(report.contains("<td>errors &lt; 1</td>"));
+    }
+
+    @Test
+    public void testConcurrentParsingCreatesSameReport() throws Exception {
+        final File sequentialReportFile = new File("./target/actual/sequential-result.html");
+        final File concurrentReportFile = new File("./target/actual/concurrent-result.html");
+        final String[] sourceFiles = { "src/test/data/success.jtl", "src/test/data/failure.jtl", "src/test/data/error.jtl", "src/test/data/success.csv" };
+
+        Main.onMain(concat(new String[] { sequentialReportFile.getAbsolutePath() }, sourceFiles));
+        Main.onMain(concat(new String[] { Main.OPTION_THREADS + "=4", concurrentReportFile.getAbsolutePath() }, sourceFiles));
+
+        Assert.assertEquals(
+                removeRunDependentParts(readAsString(sequentialReportFile)),
+                removeRunDependentParts(readAsString(concurrentReportFile)));
+    }
+
+    @Test
+    public void testResumedParsingCreatesSameReport() throws Exception {
+        final File expectedReportFile = new File("./target/actual/complete-result.html");
+        final File resumedReportFile = new File("./target/actual/resumed-result.html");
+        final File checkpointFile = new File("./target/actual/resumed.jscp");
+        final File sourceFile = new File("./target/actual/resumed-success.jtl");
+        final byte[] content = Files.readAllBytes(Paths.get("src/test/data/success.jtl"));
+        final String[] args = {
+                Main.OPTION_CHECKPOINT + "=" + checkpointFile.getAbsolutePath(), Main.OPTION_RESUME,
+                resumedReportFile.getAbsolutePath(), "src/test/data/failure.jtl", sourceFile.getAbsolutePath() };
+
+        Main.onMain(new String[] { expectedReportFile.getAbsolutePath(), "src/test/data/failure.jtl", "src/test/data/success.jtl" });
+
+        // a broken sample aborts parsing after the checkpoint of the first source file
+        Files.deleteIfExists(checkpointFile.toPath());
+        Files.write(sourceFile.toPath(), new String(content, StandardCharsets.ISO_8859_1).replace("<httpSample t=\"8\"", "<httpSample&t=\"8\"").getBytes(StandardCharsets.ISO_8859_1));
+        try {
+            Main.onMain(args);
+            Assert.fail("Expecting a parser failure");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(checkpointFile.exists());
+        }
+
+        Files.write(sourceFile.toPath(), content);
+        Main.onMain(args);
+
+        Assert.assertFalse(checkpointFile.exists());
+        Assert.assertEquals(
+                removeRunDependentParts(readAsString(expectedReportFile)),
+                removeRunDependentParts(readAsString(resumedReportFile)));
+    }
+
+    @Test
+    public void testSuccessBinaryReport() throws Exception {
+        final File binaryFile = new File("./target/actual/success.jtlc");
+        Main.onMain(new String[] { Main.OPTION_CONVERT, binaryFile.getAbsolutePath(), "src/test/data/success.jtl" });
+        runReportAndCompare(binaryFile.getAbsolutePath(), "src/test/data/expected-success-result.html");
+    }
+
+    @Test
+    public void testFailureBinaryReport() throws Exception {
+        final File binaryFile = new File("./target/actual/failure.jtlc");
+        Main.onMain(new String[] { Main.OPTION_CONVERT, binaryFile.getAbsolutePath(), "src/test/data/failure.jtl" });
+        runReportAndCompare(binaryFile.getAbsolutePath(), "src/test/data/expected-failure-result.html");
+    }
+
+    @Test
+    public void testComparisonWithStoredAggregates() throws Exception {
+        final File aggregatesFile = new File("./target/actual/failure.jsla");
+        final File reportFile = new File("./target/actual/comparison-result.html");
+
+        Main.onMain(new String[] { Main.OPTION_SAVE_AGGREGATES + "=" + aggregatesFile.getAbsolutePath(), "./target/actual/baseline-result.html", "src/test/data/failure.jtl" });
+        Main.onMain(new String[] { Main.OPTION_COMPARE + "=" + aggregatesFile.getAbsolutePath(), reportFile.getAbsolutePath(), "src/test/data/failure.jtl" });
+
+        final String report = readAsString(reportFile);
+        Assert.assertTrue(report.contains("<h2>Comparison with failure.jtl</h2>"));
+        Assert.assertTrue(report.contains("<td align='right'>+0.0%</td>"));
+        Assert.assertFalse(report.contains("missing in"));
+    }
+
+    @Test
+    public void testTransactionJtlReport() throws Exception {
+        assertTransactionReport("src/test/data/transaction/transaction.jtl");
+    }
+
+    @Test
+    public void testTransactionJtlReportSkippingSuccessfulSamples() throws Exception {
+        assertTransactionReport("src/test/data/transaction/transaction.jtl", Main.OPTION_SKIP_SUCCESSFUL_SAMPLES);
+    }
+
+    @Test
+    public void testTransactionBinaryReport() throws Exception {
+        final File binaryFile = new File("./target/actual/transaction.jtlc");
+        Main.onMain(new String[] { Main.OPTION_CONVERT, binaryFile.getAbsolutePath(), "src/test/data/transaction/transaction.jtl" });
+        assertTransactionReport(binaryFile.getAbsolutePath());
+    }
+
     @Test
     public void testSuccessCsvReport() throws Exception {
         runReportAndCompare("src/test/data/success.csv",
@@ -68,14 +223,34 @@ public class RegressionTest {
         Main.onMain(new String[] { "./target/empty.html", "src/test/data/empty.csv" });
     }
 
-    private void runReportAndCompare(String inputFile, String expectedOutputFileName)
+    private void assertTransactionReport(String sourceFile, String... options) throws Exception {
+        final File reportFile = new File("./target/actual/transaction-result.html");
+
+        Main.onMain(concat(options, new String[] { reportFile.getAbsolutePath(), sourceFile }));
+
+        final String report = readAsString(reportFile);
+        Assert.assertTrue(report.contains("<h2>Transaction Breakdown (ms)</h2>"));
+        Assert.assertTrue(report.contains("<summary>Checkout (2 sub-samples)</summary>"));
+        Assert.assertTrue(report.contains("<td>Checkout.Pay</td><td align='right'>2</td><td align='right'>270</td>"));
+        // the sub-samples are not counted as top-level samples
+        Assert.assertFalse(report.contains("<td>Checkout.Cart</td><td align='right'>         2</td>"));
+        // the response times are correlated with the number of active threads
+        Assert.assertTrue(report.contains("<h2>Response Time by Active Threads (ms)</h2>"));
+        Assert.assertTrue(report.contains("<td>Checkout</td><td align='right'>0-9</td><td align='right'>1</td><td align='right'>350</td>"));
+        Assert.assertTrue(report.contains("<td>Checkout</td><td align='right'>10-19</td><td align='right'>1</td><td align='right'>410</td>"));
+    }
+
+    private void runReportAndCompare(String inputFile, String expectedOutputFileName, String... options)
             throws Exception {
 
         final File expectedOutputFile = new File(expectedOutputFileName);
         final File actualReportDirectory = new File("./target/actual");
         final File actualOutputFile = new File(actualReportDirectory, expectedOutputFile.getName());
+        final List<String> args = new ArrayList<>(Arrays.asList(options));
 
-        Main.onMain(new String[] { actualOutputFile.getAbsolutePath(), inputFile });
+        args.add(actualOutputFile.getAbsolutePath());
+        args.add(inputFile);
+        Main.onMain(args.toArray(new String[0]));
 
         final String expectedReportContent = removeRunDependentParts(readAsString(expectedOutputFile));
         final String actualReportContent = removeRunDependentParts(readAsString(actualOutputFile));
@@ -83,6 +258,12 @@ public class RegressionTest {
         Assert.assertEquals(expectedReportContent, actualReportContent);
     }
 
+    private static String[] concat(String[] first, String[] second) {
+        final String[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
     private String removeRunDependentParts(String input) {
         final int indexOf = input.indexOf(MARKER);
         if (indexOf == -1) {
@@ -0,0 +1,49 @@
+package com.github.sgoeschl.jmeter.report.sla;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterHtmlReportWriter.BasicDataColumns;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+public class DisplayDataIndexTest {
+
+    @Test
+    public void shouldBuildRowsFromStatistics() {
+        final JMeterReportModel model = new JMeterReportModel();
+        model.addSuccess("Login", new Date(1000), 100);
+        model.addSuccess("Login", new Date(3000), 300);
+        model.addFailure("Login", new Date(2000), 200, "500", null);
+        model.addSuccess("Search", new Date(1500), 50);
+
+        final DisplayDataIndex index = new DisplayDataIndex(model);
+        final DisplayDataIndex.Row[] pages = index.getRows(JMeterReportModel.UNIT_MS);
+        final int[] order = index.getOrder(JMeterReportModel.UNIT_MS, BasicDataColumns.HITS, "desc");
+
+        assertEquals(2, pages.length);
+        assertEquals("Login", pages[order[0]].getLabel());
+        assertEquals(3.0, pages[order[0]].getValue(BasicDataColumns.HITS), 0.0);
+        assertEquals(200.0, pages[order[0]].getValue(BasicDataColumns.AVG), 0.0);
+        assertEquals(100.0, pages[order[0]].getValue(BasicDataColumns.STDEV), 0.0);
+        assertEquals(3000.0, pages[order[0]].getValue(BasicDataColumns.LAST_ACCESS), 0.0);
+        assertEquals("Search", pages[order[1]].getLabel());
+        assertEquals(4, index.getTotals(JMeterReportModel.UNIT_MS).getHits());
+        assertEquals(50, index.getTotals(JMeterReportModel.UNIT_MS).getMin());
+
+        final DisplayDataIndex.Row[] failures = index.getRows(JMeterReportModel.UNIT_EXCEPTION);
+        assertEquals(1, failures.length);
+        assertEquals("Login", failures[0].getLabel());
+        assertEquals(1, failures[0].getHits());
+
+        final DisplayDataIndex.Row[] errors = index.getRows(JMeterReportModel.UNIT_JMETER_ERRORS);
+        assertEquals(1, errors.length);
+        assertEquals("Login - 500", errors[0].getLabel());
+        assertEquals(2000, errors[0].getFirstAccess());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownSortColumn() {
+        new JMeterHtmlReportWriter(new JMeterReportModel(), 7, "asc", null);
+    }
+}
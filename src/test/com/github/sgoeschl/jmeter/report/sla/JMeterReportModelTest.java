@@ -0,0 +1,110 @@
+package com.github.sgoeschl.jmeter.report.sla;
+
+import com.github.sgoeschl.jmeter.report.sla.config.SlaConfiguration;
+import com.jamonapi.MonKeyImp;
+import com.jamonapi.Monitor;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JMeterReportModelTest {
+
+    @Test
+    public void shouldAggregateRepeatedFailures() {
+        final JMeterReportModel model = new JMeterReportModel();
+
+        for (int i = 0; i < 1000; i++) {
+            model.addFailure("Login", new Date(10000 - i), 100 + i, (i % 4 == 0 ? "503" : "500"), null);
+        }
+        model.addSuccess("Login", new Date(20000), 50, 0);
+
+        final Monitor responseTimes = model.getProvider().get("Login", JMeterReportModel.UNIT_MS);
+        assertEquals(1001.0, responseTimes.getHits(), 0.0);
+        assertEquals(50.0, responseTimes.getMin(), 0.0);
+        assertEquals(1099.0, responseTimes.getMax(), 0.0);
+        assertEquals(9001L, responseTimes.getFirstAccess().getTime());
+        assertEquals(20000L, responseTimes.getLastAccess().getTime());
+
+        assertEquals(1000.0, model.getProvider().get("Login", JMeterReportModel.UNIT_EXCEPTION).getHits(), 0.0);
+        assertEquals(750.0, model.getProvider().get("Login - 500", JMeterReportModel.UNIT_JMETER_ERRORS).getHits(), 0.0);
+        assertEquals(250.0, model.getProvider().get("Login - 503", JMeterReportModel.UNIT_JMETER_ERRORS).getHits(), 0.0);
+        assertEquals(1001, model.getStatistics("Login").getRequests());
+        assertEquals(1000, model.getStatistics("Login").getFailures());
+        assertEquals(1001, model.getResponseTimeHistogram("Login").getTotalCount());
+        assertNull(model.getErrorMessagesMap().get("Login"));
+    }
+
+    @Test
+    public void shouldKeepFirstErrorMessages() {
+        final JMeterReportModel model = new JMeterReportModel();
+
+        for (int i = 0; i < 10; i++) {
+            model.addFailure("Login", new Date(i), 100, "500", "Internal Server Error " + i);
+        }
+
+        assertEquals(3, model.getErrorMessagesMap().get("Login").size());
+        final Object[] details = (Object[]) model.getErrorMessagesMap().get("Login").get(2).getDetails();
+        assertEquals("Login - 500", details[1]);
+        assertEquals("Internal Server Error 2", details[3]);
+    }
+
+    @Test
+    public void shouldCacheFailuresOfFoldedLabels() {
+        final Properties properties = new Properties();
+        properties.setProperty(SlaConfiguration.KEY_MAX_LABELS, "1");
+        final JMeterReportModel model = new JMeterReportModel(new SlaConfiguration(properties));
+
+        for (int i = 0; i < 3; i++) {
+            model.addFailure("/session/" + i, new Date(i), 100, "500", null);
+            model.addFailure("/session/" + i, new Date(i), 100, "500", null);
+        }
+
+        assertEquals(2, model.getStatistics("/session/0").getRequests());
+        assertEquals(4, model.getStatistics("[other labels]").getFailures());
+        final Monitor exceptions = model.getProvider().get(new MonKeyImp("/session/0", null, JMeterReportModel.UNIT_EXCEPTION));
+        assertEquals(2.0, exceptions.getHits(), 0.0);
+    }
+
+    @Test
+    public void shouldBoundTimelineOfLabel() {
+        final JMeterReportModel model = new JMeterReportModel();
+
+        for (int i = 0; i < 3600; i++) {
+            model.addSuccess("Login", new Date(i * 1000L), 10, 0);
+        }
+
+        assertTrue(model.getTimeline("Login").getSlots() <= 64);
+    }
+
+    @Test
+    public void shouldMergeMonitorsExplicitly() {
+        final JMeterReportModel sequential = new JMeterReportModel();
+        final JMeterReportModel model = new JMeterReportModel();
+        final JMeterReportModel first = model.createPartialModel();
+        final JMeterReportModel second = model.createPartialModel();
+
+        for (int i = 0; i < 100; i++) {
+            sequential.addSuccess("Login", new Date(1000 + i), 10 + i * i, 0);
+            (i < 50 ? first : second).addSuccess("Login", new Date(1000 + i), 10 + i * i, 0);
+        }
+        model.merge(first);
+        model.merge(second);
+
+        final Monitor expected = sequential.getProvider().get("Login", JMeterReportModel.UNIT_MS);
+        final Monitor actual = model.getProvider().get("Login", JMeterReportModel.UNIT_MS);
+        assertEquals(expected.getHits(), actual.getHits(), 0.0);
+        assertEquals(expected.getTotal(), actual.getTotal(), 0.0);
+        assertEquals(expected.getMin(), actual.getMin(), 0.0);
+        assertEquals(expected.getMax(), actual.getMax(), 0.0);
+        assertEquals(expected.getLastValue(), actual.getLastValue(), 0.0);
+        assertEquals(expected.getFirstAccess(), actual.getFirstAccess());
+        assertEquals(expected.getLastAccess(), actual.getLastAccess());
+        assertEquals(expected.getStdDev(), sequential.getStatistics("Login").getStdDev(), 1E-9);
+        assertEquals(expected.getStdDev(), model.getStatistics("Login").getStdDev(), 1E-9);
+    }
+}
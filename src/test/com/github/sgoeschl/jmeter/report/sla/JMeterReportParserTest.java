@@ -3,6 +3,7 @@ package com.github.sgoeschl.jmeter.report.sla;
 import junit.framework.TestCase;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.List;
 
 import static java.util.Collections.singletonList;
@@ -16,4 +17,29 @@ public class JMeterReportParserTest extends TestCase {
         assertEquals(6, sourceFiles.size());
     }
 
+    public void testCanParseChunksOfSourceFilesConcurrently() {
+        for (String fileName : Arrays.asList("src/test/data/success.jtl", "src/test/data/success.csv")) {
+            final JMeterReportModel expected = parse(fileName, 1);
+            final JMeterReportModel actual = parse(fileName, 3);
+
+            assertEquals(expected.getSummaryStatistics().getRequests(), actual.getSummaryStatistics().getRequests());
+            assertEquals(expected.getSummaryStatistics().getFailures(), actual.getSummaryStatistics().getFailures());
+            assertEquals(expected.getSummaryStatistics().getTotalTime(), actual.getSummaryStatistics().getTotalTime());
+            assertEquals(expected.getLabels(), actual.getLabels());
+            for (String label : expected.getLabels()) {
+                assertEquals(expected.getStatistics(label).getRequests(), actual.getStatistics(label).getRequests());
+            }
+        }
+    }
+
+    private static JMeterReportModel parse(String fileName, int threads) {
+        final JMeterReportModel model = new JMeterReportModel();
+        final JMeterReportParser parser = new JMeterReportParser(model);
+        parser.setSourceFiles(singletonList(new File(fileName)));
+        parser.setThreads(threads);
+        parser.setChunkSize(4096);
+        parser.run();
+        return model;
+    }
+
 }
@@ -0,0 +1,163 @@
+package com.github.sgoeschl.jmeter.report.sla.checkpoint;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportParser;
+import com.github.sgoeschl.jmeter.report.sla.config.SlaConfiguration;
+import com.github.sgoeschl.jmeter.report.sla.spill.SampleSpillWriter;
+import com.github.sgoeschl.jmeter.report.sla.stats.SampleStatistics;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Properties;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParserCheckpointTest {
+
+    private static final File CHECKPOINT_FILE = new File("./target/checkpoint/success.jscp");
+    private static final File SOURCE_FILE = new File("./target/checkpoint/success.jtl");
+
+    @Test
+    public void shouldResumeWithinSourceFile() throws Exception {
+        final byte[] content = Files.readAllBytes(Paths.get("src/test/data/success.jtl"));
+        Files.createDirectories(SOURCE_FILE.getParentFile().toPath());
+        Files.deleteIfExists(CHECKPOINT_FILE.toPath());
+
+        // a broken sample in the second half of the file aborts parsing
+        Files.write(SOURCE_FILE.toPath(), new String(content, StandardCharsets.ISO_8859_1).replace("<httpSample t=\"8\"", "<httpSample&t=\"8\"").getBytes(StandardCharsets.ISO_8859_1));
+        try {
+            createParser(new JMeterReportModel(), false).run();
+            fail("Expecting a parser failure");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains(CHECKPOINT_FILE.getAbsolutePath()));
+        }
+
+        final ParserCheckpoint checkpoint = ParserCheckpoint.load(CHECKPOINT_FILE);
+        assertTrue(checkpoint.getParsedBytes() > content.length / 4);
+        assertTrue(checkpoint.getParsedBytes() < content.length);
+
+        Files.write(SOURCE_FILE.toPath(), content);
+        final JMeterReportModel model = new JMeterReportModel();
+        createParser(model, true).run();
+
+        assertFalse(CHECKPOINT_FILE.exists());
+        assertSameModel(parse("src/test/data/success.jtl"), model);
+    }
+
+    @Test
+    public void shouldRestoreModel() throws Exception {
+        final JMeterReportModel expected = parse("src/test/data/failure.jtl");
+        final List<File> sourceFiles = singletonList(new File("src/test/data/failure.jtl"));
+        final long[] lengths = { sourceFiles.get(0).length() };
+        Files.createDirectories(CHECKPOINT_FILE.getParentFile().toPath());
+
+        ParserCheckpoint.of(sourceFiles, lengths, lengths, expected).save(CHECKPOINT_FILE);
+        final ParserCheckpoint checkpoint = ParserCheckpoint.load(CHECKPOINT_FILE);
+        final Properties properties = new Properties();
+        properties.setProperty(SlaConfiguration.KEY_MAX_LABELS, "1000");
+        final JMeterReportModel model = new JMeterReportModel(new SlaConfiguration(properties));
+        checkpoint.restore(model);
+
+        assertEquals(lengths[0], checkpoint.getParsedBytes());
+        assertSameModel(expected, model);
+        assertEquals(expected.getErrorMessagesMap().keySet(), model.getErrorMessagesMap().keySet());
+        for (String label : expected.getErrorMessagesMap().keySet()) {
+            assertEquals(expected.getErrorMessagesMap().get(label).size(), model.getErrorMessagesMap().get(label).size());
+        }
+        assertEquals(expected.getLabels().size(), model.getLabelLimiter().getLabelCount());
+    }
+
+    @Test
+    public void shouldKeepEncodingOfSourceFile() throws Exception {
+        final String content = new String(Files.readAllBytes(Paths.get("src/test/data/success.jtl")), StandardCharsets.UTF_8);
+        Files.createDirectories(SOURCE_FILE.getParentFile().toPath());
+        Files.deleteIfExists(CHECKPOINT_FILE.toPath());
+        Files.write(SOURCE_FILE.toPath(), content.replace("encoding=\"UTF-8\"", "encoding=\"ISO-8859-1\"")
+                .replace("delete-shift.csv", "l\u00f6sche-shift.csv").getBytes(StandardCharsets.ISO_8859_1));
+
+        final JMeterReportModel model = new JMeterReportModel();
+        createParser(model, false).run();
+
+        final JMeterReportModel expected = parse("src/test/data/success.jtl");
+        assertEquals(expected.getStatistics("delete-shift.csv").getRequests(), model.getStatistics("l\u00f6sche-shift.csv").getRequests());
+        assertEquals(expected.getSummaryStatistics().getRequests(), model.getSummaryStatistics().getRequests());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDuplicateFilter() {
+        final JMeterReportModel model = new JMeterReportModel();
+        model.setDuplicateFilter(SlaConfiguration.createDefault().createDuplicateFilter());
+
+        createParser(model, false).run();
+    }
+
+    @Test
+    public void shouldRejectResumingWithSpilledSamples() throws Exception {
+        Files.createDirectories(SOURCE_FILE.getParentFile().toPath());
+        Files.copy(Paths.get("src/test/data/success.jtl"), SOURCE_FILE.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        final JMeterReportModel model = new JMeterReportModel();
+
+        try (SampleSpillWriter sampleSpillWriter = new SampleSpillWriter(new File("./target/checkpoint/spill"))) {
+            model.setSampleSpillWriter(sampleSpillWriter);
+            createParser(model, true).run();
+            fail("Expecting checkpoints to reject spilling samples");
+        } catch (IllegalArgumentException e) {
+            assertEquals(0, model.getSummaryStatistics().getRequests());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectChangedSourceFiles() {
+        final List<File> sourceFiles = singletonList(new File("src/test/data/failure.jtl"));
+        final ParserCheckpoint checkpoint = new ParserCheckpoint(singletonList(sourceFiles.get(0).getAbsolutePath()), new long[] { 42 }, new long[] { 0 }, new byte[0]);
+
+        checkpoint.verify(sourceFiles, new long[] { sourceFiles.get(0).length() });
+    }
+
+    private static JMeterReportParser createParser(JMeterReportModel model, boolean resume) {
+        final JMeterReportParser parser = new JMeterReportParser(model);
+        parser.setSourceFiles(singletonList(SOURCE_FILE));
+        parser.setCheckpointFile(CHECKPOINT_FILE);
+        parser.setCheckpointInterval(4096);
+        parser.setResume(resume);
+        return parser;
+    }
+
+    private static JMeterReportModel parse(String fileName) {
+        final JMeterReportModel model = new JMeterReportModel();
+        final JMeterReportParser parser = new JMeterReportParser(model);
+        parser.setSourceFiles(singletonList(new File(fileName)));
+        parser.run();
+        return model;
+    }
+
+    private static void assertSameModel(JMeterReportModel expected, JMeterReportModel actual) {
+        assertSameStatistics(expected.getSummaryStatistics(), actual.getSummaryStatistics());
+        assertEquals(expected.getLabels(), actual.getLabels());
+        for (String label : expected.getLabels()) {
+            assertSameStatistics(expected.getStatistics(label), actual.getStatistics(label));
+            assertEquals(expected.getProvider().get(label, JMeterReportModel.UNIT_MS).getHits(), actual.getProvider().get(label, JMeterReportModel.UNIT_MS).getHits(), 0.0);
+            assertEquals(expected.getStatistics(label).getStdDev(), actual.getStatistics(label).getStdDev(), 1E-6);
+            assertEquals(expected.getResponseStatistics(label).getTotalBytesReceived(), actual.getResponseStatistics(label).getTotalBytesReceived());
+            assertEquals(expected.getResponseTimeHistogram(label).getTotalCount(), actual.getResponseTimeHistogram(label).getTotalCount());
+        }
+        assertEquals(expected.getBandwidthTimeline().getTotalBytesReceived(), actual.getBandwidthTimeline().getTotalBytesReceived());
+    }
+
+    private static void assertSameStatistics(SampleStatistics expected, SampleStatistics actual) {
+        assertEquals(expected.getRequests(), actual.getRequests());
+        assertEquals(expected.getFailures(), actual.getFailures());
+        assertEquals(expected.getTotalTime(), actual.getTotalTime());
+        assertEquals(expected.getMaxTime(), actual.getMaxTime());
+        assertEquals(expected.getPercentile(95.0), actual.getPercentile(95.0));
+    }
+}
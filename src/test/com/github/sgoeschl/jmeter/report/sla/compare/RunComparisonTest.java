@@ -0,0 +1,93 @@
+package com.github.sgoeschl.jmeter.report.sla.compare;
+
+import com.github.sgoeschl.jmeter.report.sla.stats.SampleStatistics;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RunComparisonTest {
+
+    private static final ComparisonThresholds THRESHOLDS = new ComparisonThresholds(10, 10, 1, 10);
+
+    @Test
+    public void shouldDetectRegressions() {
+        final RunAggregates baseline = createRun("baseline", 100, 0);
+        final RunAggregates current = createRun("current", 150, 5);
+
+        final RunComparison comparison = RunComparison.compare(baseline, current, THRESHOLDS);
+        final RunComparison.Row row = comparison.getRows().get(0);
+
+        assertEquals("Checkout", row.getLabel());
+        assertEquals(50.0, row.getAvgDelta(), 0.001);
+        assertEquals(5.0, row.getErrorRateDelta(), 0.001);
+        assertTrue(row.isAvgRegression());
+        assertTrue(row.isErrorRateRegression());
+        assertFalse(row.isThroughputRegression());
+        assertTrue(comparison.hasRegressions());
+    }
+
+    @Test
+    public void shouldJoinMissingLabels() {
+        final Map<String, SampleStatistics> statistics = new HashMap<>();
+        statistics.put("Login", createStatistics(100, 0));
+        final RunAggregates baseline = new RunAggregates("baseline", statistics, createStatistics(100, 0));
+
+        final RunComparison comparison = RunComparison.compare(baseline, createRun("current", 100, 0), THRESHOLDS);
+
+        assertEquals(2, comparison.getRows().size());
+        assertNull(comparison.getRows().get(0).getBaseline());
+        assertNull(comparison.getRows().get(1).getCurrent());
+        assertFalse(comparison.hasRegressions());
+    }
+
+    @Test
+    public void shouldStoreAndLoadAggregates() throws Exception {
+        final File file = new File("./target/run-comparison-test.jsla");
+        createRun("baseline", 100, 2).save(file);
+
+        final RunAggregates aggregates = RunAggregates.load(file);
+        final SampleStatistics statistics = aggregates.getStatistics("Checkout");
+
+        assertEquals("baseline", aggregates.getName());
+        assertEquals(100, statistics.getRequests());
+        assertEquals(2, statistics.getFailures());
+        assertEquals(100.0, statistics.getAverageTime(), 0.001);
+        assertEquals(createStatistics(100, 2).getPercentile(95.0), statistics.getPercentile(95.0));
+        assertEquals(100, aggregates.getSummaryStatistics().getRequests());
+    }
+
+    @Test
+    public void shouldStoreLongLabels() throws Exception {
+        final File file = new File("./target/run-comparison-long-label-test.jsla");
+        final StringBuilder label = new StringBuilder();
+        while (label.length() < 100000) {
+            label.append("/checkout?item=\u00e4");
+        }
+        final Map<String, SampleStatistics> statistics = new HashMap<>();
+        statistics.put(label.toString(), createStatistics(100, 2));
+        new RunAggregates("baseline", statistics, createStatistics(100, 2)).save(file);
+
+        assertEquals(100, RunAggregates.load(file).getStatistics(label.toString()).getRequests());
+    }
+
+    private static RunAggregates createRun(String name, long avg, int failures) {
+        final Map<String, SampleStatistics> statistics = new HashMap<>();
+        statistics.put("Checkout", createStatistics(avg, failures));
+        return new RunAggregates(name, statistics, createStatistics(avg, failures));
+    }
+
+    private static SampleStatistics createStatistics(long avg, int failures) {
+        final SampleStatistics result = new SampleStatistics();
+        for (int i = 0; i < 100; i++) {
+            result.add(1000L * i, avg + (i % 2 == 0 ? -10 : 10), i >= failures);
+        }
+        return result;
+    }
+}
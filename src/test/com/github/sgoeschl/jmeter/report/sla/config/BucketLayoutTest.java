@@ -0,0 +1,88 @@
+package com.github.sgoeschl.jmeter.report.sla.config;
+
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class BucketLayoutTest {
+
+    @Test
+    public void shouldResolveDoublingBuckets() {
+        final BucketLayout layout = BucketLayout.parse("10,20,40,80", 1, "ms");
+
+        assertEquals(5, layout.getBucketCount());
+        assertEquals(0, layout.indexOf(0));
+        assertEquals(0, layout.indexOf(9));
+        assertEquals(1, layout.indexOf(10));
+        assertEquals(2, layout.indexOf(39));
+        assertEquals(3, layout.indexOf(40));
+        assertEquals(4, layout.indexOf(80));
+        assertEquals(4, layout.indexOf(Long.MAX_VALUE));
+        assertEquals(">80ms", layout.getHeader(4));
+    }
+
+    @Test
+    public void shouldResolveArbitraryBuckets() {
+        final BucketLayout layout = BucketLayout.parse("100, 250, 300", 1, "ms");
+
+        for (long value = 0; value < 400; value++) {
+            assertEquals("value=" + value, linearScan(new long[] { 100, 250, 300 }, value), layout.indexOf(value));
+        }
+        assertEquals("250-300", layout.getHeader(2));
+        assertEquals(300, layout.getThreshold());
+    }
+
+    @Test
+    public void shouldResolveScaledBuckets() {
+        final BucketLayout layout = BucketLayout.parse("1,2,4", 1024, " KB");
+
+        assertEquals(0, layout.indexOf(1023));
+        assertEquals(1, layout.indexOf(1024));
+        assertEquals(3, layout.indexOf(4096));
+        assertEquals(">4 KB", layout.getHeader(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDescendingBuckets() {
+        BucketLayout.parse("20,10", 1, "ms");
+    }
+
+    @Test
+    public void shouldResolveLabelLayouts() {
+        final Properties properties = new Properties();
+        properties.setProperty("sla.buckets.ms.Checkout", "100,200,300");
+        properties.setProperty("sla.buckets.ms.Search*", "200,400,800");
+        final SlaConfiguration configuration = new SlaConfiguration(properties);
+
+        assertEquals(300, configuration.getResponseTimeLayout("Checkout").getThreshold());
+        assertEquals(800, configuration.getResponseTimeLayout("Search.Products").getThreshold());
+        assertSame(configuration.getResponseTimeLayout(), configuration.getResponseTimeLayout("Login"));
+        assertEquals(3, configuration.getResponseTimeLayouts().size());
+    }
+
+    @Test
+    public void shouldResolveLongestLabelPrefix() {
+        final Properties properties = new Properties();
+        properties.setProperty("sla.buckets.ms.Login*", "100,200");
+        properties.setProperty("sla.buckets.ms.Login.Admin*", "300,400");
+        properties.setProperty("sla.buckets.ms.Login.Admin.Users*", "500,600");
+        final SlaConfiguration configuration = new SlaConfiguration(properties);
+
+        assertEquals(200, configuration.getResponseTimeLayout("Login.User").getThreshold());
+        assertEquals(400, configuration.getResponseTimeLayout("Login.Admin.x").getThreshold());
+        assertEquals(600, configuration.getResponseTimeLayout("Login.Admin.Users.List").getThreshold());
+        assertSame(configuration.getResponseTimeLayout(), configuration.getResponseTimeLayout("Logout"));
+    }
+
+    private static int linearScan(long[] upperBounds, long value) {
+        for (int i = 0; i < upperBounds.length; i++) {
+            if (value < upperBounds[i]) {
+                return i;
+            }
+        }
+        return upperBounds.length;
+    }
+}
@@ -0,0 +1,172 @@
+package com.github.sgoeschl.jmeter.report.sla.groupby;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportParser;
+import com.github.sgoeschl.jmeter.report.sla.binary.BinaryResultConverter;
+import com.github.sgoeschl.jmeter.report.sla.config.SlaConfiguration;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class GroupingTest {
+
+    @Test
+    public void shouldReduceThreadNamesToThreadGroups() {
+        assertEquals("OpenPOS", GroupByDimension.THREAD_GROUP.normalize("OpenPOS 1-2"));
+        assertEquals("Close Shift", GroupByDimension.THREAD_GROUP.normalize("Close Shift 13-120"));
+        assertEquals("Worker", GroupByDimension.THREAD_GROUP.normalize("Worker"));
+        assertEquals("Worker 1", GroupByDimension.THREAD_GROUP.normalize("Worker 1"));
+        assertEquals("Worker -1", GroupByDimension.THREAD_GROUP.normalize("Worker -1"));
+        assertEquals("1-2", GroupByDimension.THREAD_GROUP.normalize("1-2"));
+        assertEquals("OpenPOS 1-2", GroupByDimension.RESPONSE_CODE.normalize("OpenPOS 1-2"));
+    }
+
+    @Test
+    public void shouldGroupByTupleOfDimensions() {
+        final Grouping grouping = Grouping.parse("codes", "threadGroup, responseCode");
+
+        grouping.add(values("Login", "200", "Users 1-1", null), 0, 100, true);
+        grouping.add(values("Logout", "200", "Users 1-2", null), 1000, 300, true);
+        grouping.add(values("Login", "500", "Users 1-2", null), 2000, 50, false);
+        grouping.add(values("Login", "200", "Admins 2-1", null), 3000, 10, true);
+
+        assertEquals(3, grouping.size());
+
+        final List<Integer> rows = grouping.getSortedRows();
+        assertArrayEquals(new String[] { "Admins", "200" }, grouping.getValues(rows.get(0)));
+        assertArrayEquals(new String[] { "Users", "200" }, grouping.getValues(rows.get(1)));
+        assertArrayEquals(new String[] { "Users", "500" }, grouping.getValues(rows.get(2)));
+        assertEquals(2, grouping.getStatistics(rows.get(1)).getRequests());
+        assertEquals(200.0, grouping.getStatistics(rows.get(1)).getAverageTime(), 0.0);
+        assertEquals(1, grouping.getStatistics(rows.get(2)).getFailures());
+    }
+
+    @Test
+    public void shouldUseMissingValueForUnsavedDimensions() {
+        final Grouping grouping = Grouping.parse("hosts", "host");
+
+        grouping.add(values("Login", "200", "Users 1-1", null), 0, 100, true);
+        grouping.add(values("Login", "200", "Users 1-1", ""), 0, 100, true);
+
+        assertEquals(1, grouping.size());
+        assertArrayEquals(new String[] { Grouping.MISSING_VALUE }, grouping.getValues(0));
+    }
+
+    @Test
+    public void shouldFoldValuesBeyondTheDimensionBits() {
+        // four dimensions leave 16 bits per dimension
+        final Grouping grouping = new Grouping("all", Arrays.asList(GroupByDimension.values()));
+
+        for (int i = 0; i < 70000; i++) {
+            grouping.add(values("Login", Integer.toString(i), "Users 1-1", "host"), 0, 1, true);
+        }
+
+        assertEquals(65536, grouping.size());
+        final List<Integer> rows = grouping.getSortedRows();
+        final int overflowRow = rows.get(rows.size() - 1);
+        assertEquals(Grouping.OVERFLOW_VALUE, grouping.getValues(overflowRow)[1]);
+        assertEquals(70000 - 65535, grouping.getStatistics(overflowRow).getRequests());
+    }
+
+    @Test
+    public void shouldMergeAndRestoreGroupings() throws Exception {
+        final Grouping grouping = Grouping.parse("codes", "label,responseCode");
+        final Grouping other = Grouping.parse("codes", "label,responseCode");
+
+        grouping.add(values("Login", "200", null, null), 0, 100, true);
+        other.add(values("Logout", "200", null, null), 0, 100, true);
+        other.add(values("Login", "200", null, null), 0, 300, true);
+
+        grouping.add(other);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        grouping.writeTo(new DataOutputStream(bytes));
+        final Grouping restored = Grouping.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals("codes", restored.getName());
+        assertEquals(2, restored.size());
+        final int row = restored.getSortedRows().get(0);
+        assertArrayEquals(new String[] { "Login", "200" }, restored.getValues(row));
+        assertEquals(2, restored.getStatistics(row).getRequests());
+        assertEquals(300, restored.getStatistics(row).getMaxTime());
+    }
+
+    @Test
+    public void shouldRestoreValuesExceedingTheLimitOfWriteUtf() throws Exception {
+        final Grouping grouping = Grouping.parse("labels", "label");
+        final char[] chars = new char[70000];
+        Arrays.fill(chars, '\u00e4');
+        final String label = new String(chars);
+
+        grouping.add(values(label, "200", null, null), 0, 100, true);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        grouping.writeTo(new DataOutputStream(bytes));
+        final Grouping restored = Grouping.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertArrayEquals(new String[] { label }, restored.getValues(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownDimensions() {
+        Grouping.parse("codes", "label,statusCode");
+    }
+
+    @Test
+    public void shouldComputeAllGroupingsWhileParsing() {
+        assertGroupings(new File("src/test/data/success.jtl"));
+    }
+
+    @Test
+    public void shouldComputeGroupingsOfBinaryResultFile() throws Exception {
+        final File binaryFile = new File("./target/actual/groupings.jtlc");
+        Files.createDirectories(binaryFile.getParentFile().toPath());
+        BinaryResultConverter.convert(Collections.singletonList(new File("src/test/data/success.jtl")), binaryFile, SlaConfiguration.createDefault());
+
+        assertGroupings(binaryFile);
+    }
+
+    private static void assertGroupings(File sourceFile) {
+        final Properties properties = new Properties();
+        properties.setProperty(SlaConfiguration.KEY_GROUP_BY + ".threadGroups", "threadGroup");
+        properties.setProperty(SlaConfiguration.KEY_GROUP_BY + ".codes", "label,responseCode");
+        final JMeterReportModel model = new JMeterReportModel(new SlaConfiguration(properties));
+        final JMeterReportParser parser = new JMeterReportParser(model);
+        parser.setSourceFiles(Collections.singletonList(sourceFile));
+        parser.setThreads(2);
+        parser.run();
+
+        final List<Grouping> groupings = new ArrayList<>(model.getGroupings());
+        assertEquals("codes", groupings.get(0).getName());
+        assertEquals(model.getLabels().size(), groupings.get(0).size());
+        assertEquals("200", groupings.get(0).getValues(0)[1]);
+
+        final Grouping threadGroups = groupings.get(1);
+        assertEquals(3, threadGroups.size());
+        final int row = threadGroups.getSortedRows().get(2);
+        assertArrayEquals(new String[] { "OpenPOS" }, threadGroups.getValues(row));
+        assertEquals(392, threadGroups.getStatistics(row).getRequests());
+    }
+
+    private static String[] values(String label, String responseCode, String threadName, String hostname) {
+        final String[] result = new String[GroupByDimension.values().length];
+        result[GroupByDimension.LABEL.ordinal()] = label;
+        result[GroupByDimension.RESPONSE_CODE.ordinal()] = responseCode;
+        result[GroupByDimension.THREAD_GROUP.ordinal()] = threadName;
+        result[GroupByDimension.HOST.ordinal()] = hostname;
+        return result;
+    }
+}
@@ -0,0 +1,157 @@
+package com.github.sgoeschl.jmeter.report.sla.live;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.parser.LineProtocolSampleParser;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LiveSampleReceiverTest {
+
+    private static final int SAMPLES = 20000;
+
+    @Test
+    public void shouldParseLineProtocol() {
+        final JMeterReportModel model = new JMeterReportModel();
+        final LineProtocolSampleParser parser = new LineProtocolSampleParser(model);
+
+        parser.parse("jmeter,label=Login\\ Page,responseCode=200,success=true elapsed=120i,Latency=100i,Connect=20i,bytes=4096i,sentBytes=512i,allThreads=10i 1309253259940");
+        parser.parse("jmeter,label=Login\\ Page,responseCode=500,success=false elapsed=80i,responseMessage=\"Internal \\\"Server\\\" Error\" 1309253260940");
+
+        assertEquals(2, model.getStatistics("Login Page").getRequests());
+        assertEquals(1, model.getStatistics("Login Page").getFailures());
+        assertEquals(200, model.getStatistics("Login Page").getTotalTime());
+        assertEquals(1309253259940L, model.getStatistics("Login Page").getFirstAccess());
+        assertEquals(512, model.getResponseStatistics("Login Page").getTotalBytesSent());
+        assertEquals(1, model.getConcurrencyHistogram("Login Page").getRequests(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectLinesWithoutElapsedTime() {
+        new LineProtocolSampleParser(new JMeterReportModel()).parse("jmeter,label=Login bytes=10i");
+    }
+
+    @Test
+    public void shouldReceiveStreamedSamples() throws Exception {
+        final JMeterReportModel model = new JMeterReportModel();
+        final AtomicInteger reports = new AtomicInteger();
+
+        try (LiveSampleReceiver receiver = new LiveSampleReceiver(model, 0)) {
+            receiver.setReportInterval(10);
+            receiver.setReportUpdater(new LiveSampleReceiver.ReportUpdater() {
+                @Override
+                public void update(JMeterReportModel model) {
+                    reports.incrementAndGet();
+                }
+            });
+
+            final Thread client = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    send(receiver.getPort());
+                }
+            });
+            client.start();
+            receiver.run();
+            client.join();
+
+            assertEquals(SAMPLES, receiver.getSamples());
+            assertEquals(1, receiver.getInvalidLines());
+        }
+
+        assertEquals(SAMPLES, model.getSummaryStatistics().getRequests());
+        assertEquals(SAMPLES / 10, model.getSummaryStatistics().getFailures());
+        assertEquals(SAMPLES / 2, model.getStatistics("Search").getRequests());
+        assertTrue(reports.get() > 0);
+    }
+
+    @Test
+    public void shouldStopWhenIdle() throws Exception {
+        final JMeterReportModel model = new JMeterReportModel();
+
+        try (LiveSampleReceiver receiver = new LiveSampleReceiver(model, 0);
+             Socket socket = new Socket(InetAddress.getLoopbackAddress(), receiver.getPort())) {
+            receiver.setIdleTimeout(200);
+            socket.getOutputStream().write("jmeter,label=Login elapsed=10i 1309253259940\n".getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+
+            // the connection stays open without sending the end marker
+            receiver.run();
+
+            assertEquals(1, receiver.getSamples());
+        }
+
+        assertEquals(1, model.getSummaryStatistics().getRequests());
+    }
+
+    @Test
+    public void shouldSkipRemainderOfOverlongLine() throws Exception {
+        final JMeterReportModel model = new JMeterReportModel();
+
+        try (LiveSampleReceiver receiver = new LiveSampleReceiver(model, 0)) {
+            final Thread client = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), receiver.getPort())) {
+                        final OutputStream out = socket.getOutputStream();
+                        final StringBuilder line = new StringBuilder("jmeter,label=Login responseMessage=\"");
+                        while (line.length() < 3 * 1024 * 1024) {
+                            line.append("jmeter,label=Login elapsed=10i ");
+                        }
+                        out.write(line.append("\" elapsed=10i\n").toString().getBytes(StandardCharsets.UTF_8));
+                        out.write(("jmeter,label=Logout elapsed=10i\n" + LiveSampleReceiver.END_OF_TEST + "\n").getBytes(StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            client.start();
+            receiver.run();
+            client.join();
+
+            assertEquals(1, receiver.getSamples());
+            assertEquals(1, receiver.getInvalidLines());
+        }
+
+        assertEquals(1, model.getStatistics("Logout").getRequests());
+    }
+
+    /**
+     * Acts as the JMeter side writing the lines in arbitrary chunks.
+     */
+    private static void send(int port) {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            final OutputStream out = socket.getOutputStream();
+            final StringBuilder lines = new StringBuilder();
+            for (int i = 0; i < SAMPLES; i++) {
+                final String label = (i % 2 == 0 ? "Search" : "Checkout");
+                final boolean success = (i % 10 != 0);
+                lines.append("jmeter,label=").append(label).append(",success=").append(success)
+                        .append(" elapsed=").append(i % 500).append("i,bytes=1024i ").append(1309253259940L + i).append('\n');
+                if (i == SAMPLES / 2) {
+                    lines.append("not a sample\r\n");
+                }
+                if (lines.length() > 8000) {
+                    final byte[] bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+                    // split a line between two writes
+                    out.write(bytes, 0, bytes.length - 7);
+                    out.flush();
+                    lines.setLength(0);
+                    lines.append(new String(bytes, bytes.length - 7, 7, StandardCharsets.UTF_8));
+                }
+            }
+            lines.append(LiveSampleReceiver.END_OF_TEST).append('\n');
+            out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.sgoeschl.jmeter.report.sla.live;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.config.SlaConfiguration;
+import com.github.sgoeschl.jmeter.report.sla.groupby.Grouping;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SampleAggregatorTest {
+
+    private static final int THREADS = 8;
+    private static final int SAMPLES_PER_THREAD = 10000;
+
+    @Test
+    public void shouldAggregateSamplesOfConcurrentSamplerThreads() throws Exception {
+        final JMeterReportModel model = new JMeterReportModel();
+        final SampleAggregator aggregator = new SampleAggregator(model, 100);
+        final Thread[] samplerThreads = new Thread[THREADS];
+
+        for (int i = 0; i < THREADS; i++) {
+            final int thread = i;
+            samplerThreads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    // synthetic sample results of a thread group without a JMeter engine
+                    for (int j = 0; j < SAMPLES_PER_THREAD; j++) {
+                        final boolean success = (j % 100 != 0);
+                        aggregator.add(j % 2 == 0 ? "Search" : "Checkout", 1309253259940L + j, j % 300, 10, 2, 2048, 256,
+                                success, success ? "200" : "500", success ? "OK" : "Internal Server Error", "Users 1-" + (thread + 1), "slave-1", THREADS, THREADS);
+                    }
+                }
+            }, "sampler-" + thread);
+            samplerThreads[i].start();
+        }
+
+        for (Thread samplerThread : samplerThreads) {
+            samplerThread.join();
+        }
+        aggregator.close();
+
+        assertEquals(THREADS * SAMPLES_PER_THREAD, aggregator.getSamples());
+        assertEquals(THREADS * SAMPLES_PER_THREAD, model.getSummaryStatistics().getRequests());
+        assertEquals(THREADS * SAMPLES_PER_THREAD / 100, model.getSummaryStatistics().getFailures());
+        assertEquals(THREADS * SAMPLES_PER_THREAD / 2, model.getStatistics("Checkout").getRequests());
+        assertEquals(THREADS * SAMPLES_PER_THREAD * 256L, model.getBandwidthTimeline().getTotalBytesSent());
+    }
+
+    @Test
+    public void shouldGroupByResponseCodeThreadGroupAndHost() {
+        final Properties properties = new Properties();
+        properties.setProperty(SlaConfiguration.KEY_GROUP_BY + ".codes", "responseCode,threadGroup,host");
+        final JMeterReportModel model = new JMeterReportModel(new SlaConfiguration(properties));
+        final SampleAggregator aggregator = new SampleAggregator(model);
+
+        aggregator.add("Login", 1309253259940L, 120, 100, 20, 4096, 512, true, "200", "OK", "Users 1-1", "slave-1", 1, 1);
+        aggregator.add("Login", 1309253260940L, 80, -1, -1, 0, 0, true, "200", "OK", "Users 1-2", "slave-1", 2, 2);
+        aggregator.close();
+
+        final Grouping grouping = model.getGroupings().iterator().next();
+        assertEquals(1, grouping.size());
+        assertArrayEquals(new String[] { "200", "Users", "slave-1" }, grouping.getValues(0));
+        assertEquals(2, grouping.getStatistics(0).getRequests());
+    }
+
+    @Test
+    public void shouldWriteReportAtTestEnd() throws Exception {
+        final File reportFile = new File("./target/actual/in-process-result.html");
+        final SampleAggregator aggregator = new SampleAggregator(new JMeterReportModel());
+        Files.createDirectories(reportFile.getParentFile().toPath());
+
+        aggregator.add("Login", 1309253259940L, 120, 100, 20, 4096, 512, true, "200", "OK", "Users 1-1", "slave-1", 1, 1);
+        aggregator.add("Login", 1309253260940L, 80, -1, -1, 0, 0, false, "500", "Internal Server Error", "Users 1-1", "slave-1", 1, 1);
+        aggregator.close();
+
+        assertNull(aggregator.writeReport(reportFile));
+        final String report = new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8);
+        assertTrue(report.contains("<td>Login - 500 - Internal Server Error</td>"));
+    }
+}
@@ -0,0 +1,141 @@
+package com.github.sgoeschl.jmeter.report.sla.merge;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportParser;
+import com.github.sgoeschl.jmeter.report.sla.element.SampleElement;
+import com.github.sgoeschl.jmeter.report.sla.parser.SampleSink;
+import com.jamonapi.Monitor;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TimeOrderedMergerTest {
+
+    private static final String HEADER = "timeStamp,elapsed,label,responseCode,responseMessage,threadName,success,bytes\n";
+
+    @Test
+    public void shouldAddSamplesInTimestampOrder() throws Exception {
+        // each slave writes its samples on completion, i.e. long samples are written late
+        final File first = write("slave-1.csv", 1000, 3000, 2000, 5000, 4000, 7000);
+        final File second = write("slave-2.csv", 1500, 2500, 500, 6000, 3500, 8000);
+        final List<Long> timestamps = new ArrayList<>();
+        final JMeterReportModel model = new JMeterReportModel() {
+            @Override
+            public void addSample(SampleElement sampleElement) {
+                timestamps.add(sampleElement.getTimestamp().getTime());
+                super.addSample(sampleElement);
+            }
+        };
+
+        final JMeterReportParser parser = new JMeterReportParser(model);
+        parser.setSourceFiles(Arrays.asList(first, second));
+        parser.setReorderWindow(4);
+        parser.run();
+
+        assertEquals(Arrays.asList(500L, 1000L, 1500L, 2000L, 2500L, 3000L, 3500L, 4000L, 5000L, 6000L, 7000L, 8000L), timestamps);
+        assertEquals(12, model.getSummaryStatistics().getRequests());
+        assertEquals(2, model.getStatistics("Login").getFailures());
+
+        final Monitor monitor = model.getProvider().get("Login", JMeterReportModel.UNIT_MS);
+        assertEquals(500L, monitor.getFirstAccess().getTime());
+        assertEquals(8000L, monitor.getLastAccess().getTime());
+    }
+
+    @Test
+    public void shouldTrackExactAccessTimesInFileOrder() throws Exception {
+        final File first = write("unordered-1.csv", 3000, 1000, 2000);
+        final File second = write("unordered-2.csv", 500, 4000, 800);
+        final JMeterReportModel model = new JMeterReportModel();
+
+        final JMeterReportParser parser = new JMeterReportParser(model);
+        parser.setSourceFiles(Arrays.asList(first, second));
+        parser.run();
+
+        final Monitor monitor = model.getProvider().get("Login", JMeterReportModel.UNIT_MS);
+        assertEquals(500L, monitor.getFirstAccess().getTime());
+        assertEquals(4000L, monitor.getLastAccess().getTime());
+    }
+
+    @Test
+    public void shouldCountSamplesBeyondReorderWindow() throws Exception {
+        final LinkedBlockingQueue<RecordedSample> queue = new LinkedBlockingQueue<>();
+        final ReorderingSink sink = new ReorderingSink(1, queue);
+
+        for (long timestamp : new long[] { 3000, 2000, 1000, 4000 }) {
+            final SampleElement sampleElement = new SampleElement();
+            sampleElement.setLabel("Login");
+            sampleElement.setTimestamp(new Date(timestamp));
+            sampleElement.setDuration(10);
+            sampleElement.setSuccess(true);
+            sink.addSample(sampleElement);
+        }
+        sink.finish();
+
+        assertEquals(5, queue.size());
+        assertEquals(2000L, queue.take().getTimestamp().getTime());
+        assertEquals(1000L, queue.take().getTimestamp().getTime());
+        assertEquals(3000L, queue.take().getTimestamp().getTime());
+        assertEquals(4000L, queue.take().getTimestamp().getTime());
+        assertSame(ReorderingSink.END_OF_FILE, queue.take());
+        assertEquals(1, sink.getLateSamples());
+        assertEquals(4, sink.getSamples());
+    }
+
+    @Test
+    public void shouldFailWhenParsingSourceFileFails() throws Exception {
+        final File first = write("failing-1.csv", 1000, 2000, 3000);
+        final File second = write("failing-2.csv", 1500, 2500, 3500);
+        final TimeOrderedMerger merger = new TimeOrderedMerger(new JMeterReportModel(), 2);
+
+        try {
+            merger.merge(Arrays.asList(first, second), new TimeOrderedMerger.SourceParser() {
+                @Override
+                public void parse(File sourceFile, SampleSink sampleSink) throws Exception {
+                    if (sourceFile.equals(second)) {
+                        throw new IOException("Unexpected end of file");
+                    }
+                    new JMeterReportParser(new JMeterReportModel()).parse(sourceFile.getName(), new FileInputStream(sourceFile), sampleSink);
+                }
+            });
+            fail("Expecting the merge to fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("failing-2.csv"));
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTooManySourceFiles() {
+        final List<File> sourceFiles = new ArrayList<>();
+        for (int i = 0; i <= TimeOrderedMerger.MAX_SOURCE_FILES; i++) {
+            sourceFiles.add(new File("slave-" + i + ".csv"));
+        }
+        new TimeOrderedMerger(new JMeterReportModel(), 1).merge(sourceFiles, null);
+    }
+
+    private static File write(String fileName, long... timestamps) throws Exception {
+        final StringBuilder content = new StringBuilder(HEADER);
+        for (int i = 0; i < timestamps.length; i++) {
+            final boolean success = (i != 2);
+            content.append(timestamps[i]).append(",100,Login,").append(success ? "200,OK" : "500,Error").append(",Users 1-1,").append(success).append(",1024\n");
+        }
+        final File result = new File("./target/merge/" + fileName);
+        Files.createDirectories(result.getParentFile().toPath());
+        Files.write(result.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.sgoeschl.jmeter.report.sla.parser;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimestampDecoderTest {
+
+    @Test
+    public void shouldDecodeEpochMilliseconds() {
+        assertEquals(1329852757203L, new TimestampDecoder(null).decode("1329852757203"));
+    }
+
+    @Test
+    public void shouldDecodeAfternoonTimestamps() throws Exception {
+        final TimestampDecoder decoder = new TimestampDecoder(null);
+        final SimpleDateFormat format = new SimpleDateFormat(TimestampDecoder.DEFAULT_PATTERN);
+
+        assertTrue(decoder.isFixedLayout());
+        for (String value : new String[] { "2012/02/21 12:30:00,001", "2012/02/21 12:30:00,999", "2012/02/21 13:59:02,203", "2012/02/21 00:00:59,000", "2012/12/31 23:59:59,999" }) {
+            assertEquals(value, format.parse(value).getTime(), decoder.decode(value));
+        }
+    }
+
+    @Test
+    public void shouldDecodeConfiguredPatterns() throws Exception {
+        assertDecoded("yyyy-MM-dd'T'HH:mm:ss.SSS", "2016-03-27T02:30:00.125");
+        assertDecoded("dd.MM.yy HH:mm:ss", "21.02.12 17:05:03");
+        assertDecoded("yyyy/MM/dd hh:mm:ss a", "2012/02/21 12:05:03 AM");
+        assertDecoded("yyyy/MM/dd hh:mm:ss a", "2012/02/21 12:05:03 PM");
+        assertDecoded("yyyy/MM/dd hh:mm:ss a", "2012/02/21 01:05:03 pm");
+    }
+
+    @Test
+    public void shouldFallBackToSimpleDateFormat() throws Exception {
+        assertFalse(new TimestampDecoder("dd MMM yyyy HH:mm:ss").isFixedLayout());
+        assertDecoded("dd MMM yyyy HH:mm:ss", "21 Feb 2012 17:05:03");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMalformedTimestamps() {
+        new TimestampDecoder(null).decode("2012/02/21 1x:30:00,001");
+    }
+
+    private static void assertDecoded(String pattern, String value) throws Exception {
+        assertEquals(value, new SimpleDateFormat(pattern).parse(value).getTime(), new TimestampDecoder(pattern).decode(value));
+    }
+}
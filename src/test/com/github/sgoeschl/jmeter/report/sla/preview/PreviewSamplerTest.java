@@ -0,0 +1,80 @@
+package com.github.sgoeschl.jmeter.report.sla.preview;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportParser;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Random;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PreviewSamplerTest {
+
+    @Test
+    public void shouldParseAllSamplesOfAllChunks() throws Exception {
+        assertAllSamplesParsed("src/test/data/success.jtl");
+        assertAllSamplesParsed("src/test/data/failure.jtl");
+        assertAllSamplesParsed("src/test/data/incomplete.jtl");
+        assertAllSamplesParsed("src/test/data/success.csv");
+    }
+
+    @Test
+    public void shouldEstimateRequestsWithinConfidenceBounds() throws Exception {
+        final long requests = parse("src/test/data/success.jtl").getSummaryStatistics().getRequests();
+        final JMeterReportModel model = new JMeterReportModel();
+        final PreviewSampler sampler = createSampler("src/test/data/success.jtl", 0.25);
+
+        final PreviewEstimate estimate = sampler.run(model);
+
+        assertTrue(model.getSummaryStatistics().getRequests() < requests);
+        assertTrue(estimate.getParsedChunks() < estimate.getTotalChunks());
+        assertTrue(estimate.getSummaryRequests().getBound() > 0);
+        assertEquals(requests, estimate.getSummaryRequests().getValue(), estimate.getSummaryRequests().getBound());
+    }
+
+    @Test
+    public void shouldAlwaysSelectFirstAndLastChunk() {
+        final PreviewSampler sampler = new PreviewSampler(new JMeterReportParser(null), 0.1, 0);
+
+        assertArrayEquals(new int[] { 0 }, sampler.selectChunks(1, new Random(0)));
+        assertArrayEquals(new int[] { 0, 1 }, sampler.selectChunks(2, new Random(0)));
+
+        final int[] chunks = sampler.selectChunks(102, new Random(0));
+        assertEquals(12, chunks.length);
+        assertEquals(0, chunks[0]);
+        assertEquals(101, chunks[11]);
+    }
+
+    private static void assertAllSamplesParsed(String fileName) throws Exception {
+        final JMeterReportModel model = new JMeterReportModel();
+
+        final PreviewEstimate estimate = createSampler(fileName, 1.0).run(model);
+
+        final JMeterReportModel expected = parse(fileName);
+        assertTrue(estimate.getTotalChunks() > 2);
+        assertEquals(expected.getSummaryStatistics().getRequests(), model.getSummaryStatistics().getRequests());
+        assertEquals(expected.getSummaryStatistics().getFailures(), model.getSummaryStatistics().getFailures());
+        assertEquals(expected.getSummaryStatistics().getRequests(), estimate.getSummaryRequests().getValue(), 0.0);
+        assertEquals(0.0, estimate.getSummaryRequests().getBound(), 0.0);
+    }
+
+    private static PreviewSampler createSampler(String fileName, double fraction) {
+        final JMeterReportParser parser = new JMeterReportParser(null);
+        parser.setSourceFiles(singletonList(new File(fileName)));
+        final PreviewSampler sampler = new PreviewSampler(parser, fraction, 42);
+        sampler.setChunkSize(4096);
+        return sampler;
+    }
+
+    private static JMeterReportModel parse(String fileName) {
+        final JMeterReportModel model = new JMeterReportModel();
+        final JMeterReportParser parser = new JMeterReportParser(model);
+        parser.setSourceFiles(singletonList(new File(fileName)));
+        parser.run();
+        return model;
+    }
+}
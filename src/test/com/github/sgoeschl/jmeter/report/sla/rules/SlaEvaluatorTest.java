@@ -0,0 +1,115 @@
+package com.github.sgoeschl.jmeter.report.sla.rules;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.config.SlaConfiguration;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SlaEvaluatorTest {
+
+    @Test
+    public void shouldParseRules() {
+        final SlaRule rule = SlaRule.parse("search", "Search Products p99.9 <= 800");
+
+        assertEquals("Search Products", rule.getLabel());
+        assertEquals("p99.9 <= 800", rule.getCondition());
+        assertTrue(rule.matches("Search Products"));
+        assertTrue(SlaRule.parse("search", "Search* avg < 1").matches("Search Products"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownMetric() {
+        SlaRule.parse("search", "Search median < 800");
+    }
+
+    @Test
+    public void shouldEvaluateRules() {
+        final JMeterReportModel model = createModel("checkout p95 < 300", "summary errorRate < 10", "login avg < 100");
+
+        for (int i = 0; i < 100; i++) {
+            model.addSuccess("checkout", new Date(i * 100L), i < 90 ? 100 : 500);
+        }
+        model.addFailure("checkout", new Date(10000L), 100, "500", null);
+
+        final SlaVerdict verdict = model.getSlaConfiguration().createSlaEvaluator().evaluate(model);
+
+        assertFalse(verdict.isPassed());
+        assertEquals(3, verdict.getResults().size());
+        assertFalse(verdict.getResults().get(0).isPassed());
+        assertTrue(verdict.getResults().get(1).isPassed());
+        assertTrue(Double.isNaN(verdict.getResults().get(2).getActual()));
+    }
+
+    @Test
+    public void shouldFailFastWhenErrorBudgetIsExhausted() {
+        final Properties properties = new Properties();
+        properties.setProperty("sla.rule.errors", "summary errorRate < 1");
+        properties.setProperty("sla.expected.requests", "100000");
+        final SlaConfiguration configuration = new SlaConfiguration(properties);
+        final JMeterReportModel model = new JMeterReportModel(configuration);
+        model.setFailFastEvaluator(configuration.createSlaEvaluator());
+
+        try {
+            for (int i = 0; i < 100000; i++) {
+                model.addFailure("checkout", new Date(i), 100, "500", null);
+            }
+            fail("Expecting a SLA violation");
+        } catch (SlaViolationException e) {
+            assertTrue(e.getVerdict().isAborted());
+            assertEquals(1000, model.getSummaryStatistics().getRequests());
+        }
+    }
+
+    @Test
+    public void shouldFailFastForChangedLabels() {
+        final JMeterReportModel model = createModel("checkout errors < 10", "search* max < 1000");
+        model.setFailFastEvaluator(model.getSlaConfiguration().createSlaEvaluator());
+
+        try {
+            for (int i = 0; i < 100000; i++) {
+                if (i % 100 == 0) {
+                    model.addFailure("checkout", new Date(i), 100, "500", null);
+                } else {
+                    model.addSuccess("search " + i, new Date(i), 100);
+                }
+            }
+            fail("Expecting a SLA violation");
+        } catch (SlaViolationException e) {
+            assertEquals(1, e.getVerdict().getResults().size());
+            assertEquals("checkout", e.getVerdict().getResults().get(0).getLabel());
+            assertEquals(1000, model.getSummaryStatistics().getRequests());
+        }
+    }
+
+    @Test
+    public void shouldFailFastInPartialModel() {
+        final JMeterReportModel model = createModel("summary errors < 10");
+        model.setFailFastEvaluator(model.getSlaConfiguration().createSlaEvaluator());
+        final JMeterReportModel partialModel = model.createPartialModel();
+
+        try {
+            for (int i = 0; i < 100000; i++) {
+                partialModel.addFailure("checkout", new Date(i), 100, "500", null);
+            }
+            fail("Expecting a SLA violation");
+        } catch (SlaViolationException e) {
+            assertTrue(e.getVerdict().isAborted());
+            assertEquals(1000, partialModel.getSummaryStatistics().getRequests());
+        }
+    }
+
+    private static JMeterReportModel createModel(String... rules) {
+        final Properties properties = new Properties();
+        for (int i = 0; i < rules.length; i++) {
+            properties.setProperty("sla.rule." + i, rules[i]);
+        }
+        return new JMeterReportModel(new SlaConfiguration(properties));
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.sgoeschl.jmeter.report.sla.spill;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.stats.SampleStatistics;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SampleSpillTest {
+
+    private static final File SPILL_DIR = new File("./target/spill/sample-spill-test");
+
+    @Test
+    public void shouldQuerySpilledSamples() throws IOException {
+        try (SampleSpillWriter writer = new SampleSpillWriter(SPILL_DIR)) {
+            for (int i = 1; i <= 1000; i++) {
+                writer.append(i % 2 == 0 ? "Login" : "Search", 1000L * i, i, 2 * i, i % 10 != 0);
+            }
+        }
+
+        try (SampleSpillReader reader = new SampleSpillReader(SPILL_DIR)) {
+            assertEquals(1000, reader.getSampleCount());
+            assertEquals(2, reader.getLabels().size());
+            assertEquals(1000, reader.getExactPercentile(null, 100.0));
+            assertEquals(500, reader.getExactPercentile(null, 50.0));
+            assertEquals(949, reader.getExactPercentile("Search", 95.0));
+
+            final SampleStatistics statistics = reader.getStatistics("Login", 0, 101_000);
+            assertEquals(50, statistics.getRequests());
+            assertEquals(10, statistics.getFailures());
+            assertEquals(100, statistics.getMaxTime());
+        }
+    }
+
+    @Test
+    public void shouldComputeExactPercentileOfLargeValues() throws IOException {
+        final Random random = new Random(42);
+        final int[] values = new int[10_000];
+
+        try (SampleSpillWriter writer = new SampleSpillWriter(SPILL_DIR)) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(1_000_000);
+                writer.append("Checkout", i, values[i], 0, true);
+            }
+        }
+
+        Arrays.sort(values);
+
+        try (SampleSpillReader reader = new SampleSpillReader(SPILL_DIR)) {
+            assertEquals(values[9_899], reader.getExactPercentile("Checkout", 99.0));
+            assertEquals(-1, reader.getExactPercentile("Unknown", 99.0));
+        }
+    }
+
+    @Test
+    public void shouldSpillReceivedBytesOfFailedSamples() throws IOException {
+        final JMeterReportModel model = new JMeterReportModel();
+
+        try (SampleSpillWriter writer = new SampleSpillWriter(SPILL_DIR)) {
+            model.setSampleSpillWriter(writer);
+            model.addSuccess("Login", new Date(1000), 10, 2048);
+            model.addFailure("Login", new Date(2000), 20, 512, "500", "Internal Server Error");
+        }
+
+        final long[] bytes = new long[2];
+
+        try (SampleSpillReader reader = new SampleSpillReader(SPILL_DIR)) {
+            reader.scan(new SampleVisitor() {
+                @Override
+                public void visit(long timestamp, int elapsed, long bytesReceived, boolean success, int labelId) {
+                    bytes[success ? 0 : 1] += bytesReceived;
+                }
+            });
+        }
+
+        assertEquals(2048, bytes[0]);
+        assertEquals(512, bytes[1]);
+    }
+}
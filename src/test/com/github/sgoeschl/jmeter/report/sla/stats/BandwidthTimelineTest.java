@@ -0,0 +1,87 @@
+package com.github.sgoeschl.jmeter.report.sla.stats;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class BandwidthTimelineTest {
+
+    @Test
+    public void shouldSumBytesPerSecond() {
+        final BandwidthTimeline timeline = new BandwidthTimeline();
+
+        timeline.add(10_000, 1000, 100);
+        timeline.add(10_999, 1000, 100);
+        timeline.add(12_500, 4000, 0);
+        // an earlier sample shifts the timeline
+        timeline.add(8_000, 500, 50);
+
+        assertEquals(5, timeline.getSeconds());
+        assertEquals(5, timeline.getSlots());
+        assertEquals(1, timeline.getSlotSeconds());
+        assertEquals(500, timeline.getBytesReceived(0));
+        assertEquals(0, timeline.getBytesReceived(1));
+        assertEquals(2000, timeline.getBytesReceived(2));
+        assertEquals(200, timeline.getBytesSent(2));
+        assertEquals(4000, timeline.getBytesReceived(4));
+        assertEquals(6500, timeline.getTotalBytesReceived());
+        assertEquals(250, timeline.getTotalBytesSent());
+        assertEquals(4000.0, timeline.getPeakBytesReceived(), 0.001);
+        assertEquals(200.0, timeline.getPeakBytesSent(), 0.001);
+        assertEquals(2000.0, timeline.getBytesReceivedPercentile(80.0), 0.001);
+    }
+
+    @Test
+    public void shouldMergeTimelines() {
+        final BandwidthTimeline timeline = new BandwidthTimeline();
+        final BandwidthTimeline other = new BandwidthTimeline();
+
+        timeline.add(5_000, 100, 10);
+        other.add(3_000, 300, 30);
+        other.add(5_500, 200, 20);
+        timeline.add(other);
+
+        assertEquals(3, timeline.getSeconds());
+        assertEquals(300, timeline.getBytesReceived(0));
+        assertEquals(300, timeline.getBytesReceived(2));
+        assertEquals(30, timeline.getBytesSent(2));
+        assertEquals(600, timeline.getTotalBytesReceived());
+    }
+
+    @Test
+    public void shouldCoarsenLongRuns() {
+        final BandwidthTimeline timeline = new BandwidthTimeline();
+        final long oneYear = 365L * 24 * 3600 * 1000;
+
+        timeline.add(1_000_000_000L, 1024, 0);
+        timeline.add(1_000_000_000L + oneYear, 2048, 0);
+
+        assertEquals(365L * 24 * 3600 + 1, timeline.getSeconds());
+        assertEquals(3072, timeline.getTotalBytesReceived());
+        assertEquals(true, timeline.getSlots() <= BandwidthTimeline.MAX_SLOTS);
+        assertEquals(2048.0 / timeline.getSlotSeconds(), timeline.getPeakBytesReceived(), 0.001);
+    }
+
+    @Test
+    public void shouldMergeIntoTheSameTimelineAsSequentialAdds() {
+        final BandwidthTimeline sequential = new BandwidthTimeline();
+        final BandwidthTimeline first = new BandwidthTimeline();
+        final BandwidthTimeline second = new BandwidthTimeline();
+        final long oneWeek = 7L * 24 * 3600 * 1000;
+
+        for (int i = 0; i < 100; i++) {
+            sequential.add(i * 1000L, i, 1);
+            first.add(i * 1000L, i, 1);
+            sequential.add(oneWeek + i * 7000L, 2 * i, 1);
+            second.add(oneWeek + i * 7000L, 2 * i, 1);
+        }
+        first.add(second);
+
+        assertEquals(sequential.getSlotSeconds(), first.getSlotSeconds());
+        assertEquals(sequential.getSlots(), first.getSlots());
+        assertEquals(sequential.getSeconds(), first.getSeconds());
+        for (int i = 0; i < sequential.getSlots(); i++) {
+            assertEquals(sequential.getBytesReceived(i), first.getBytesReceived(i));
+        }
+    }
+}
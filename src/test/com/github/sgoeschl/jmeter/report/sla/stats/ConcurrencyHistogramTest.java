@@ -0,0 +1,55 @@
+package com.github.sgoeschl.jmeter.report.sla.stats;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConcurrencyHistogramTest {
+
+    @Test
+    public void shouldCountResponseTimesPerBand() {
+        final ConcurrencyHistogram histogram = new ConcurrencyHistogram(10);
+
+        for (int i = 1; i <= 100; i++) {
+            histogram.add(5, i);
+            histogram.add(25, 10 * i);
+        }
+
+        assertEquals(3, histogram.getBandCount());
+        assertEquals(100, histogram.getRequests(0));
+        assertEquals(0, histogram.getRequests(1));
+        assertEquals(100, histogram.getRequests(2));
+        assertEquals(20, histogram.getLowestThreads(2));
+        assertEquals(29, histogram.getHighestThreads(2));
+        assertEquals(50.5, histogram.getAverageTime(0), 0.001);
+        assertEquals(50, histogram.getPercentile(0, 50.0));
+        assertEquals(95, histogram.getPercentile(0, 95.0));
+        assertEquals(100, histogram.getMaxTime(0));
+        assertEquals(1000, histogram.getMaxTime(2));
+        assertEquals(0, histogram.getPercentile(1, 95.0));
+        // the log-linear buckets overestimate by less than 3.2%
+        assertEquals(950, histogram.getPercentile(2, 95.0), 950 * 0.032);
+    }
+
+    @Test
+    public void shouldMergeHistograms() {
+        final ConcurrencyHistogram histogram = new ConcurrencyHistogram(10);
+        final ConcurrencyHistogram other = new ConcurrencyHistogram(10);
+
+        histogram.add(1, 10);
+        other.add(1, 30);
+        other.add(42, 500);
+        histogram.add(other);
+
+        assertEquals(5, histogram.getBandCount());
+        assertEquals(2, histogram.getRequests(0));
+        assertEquals(20.0, histogram.getAverageTime(0), 0.001);
+        assertEquals(30, histogram.getMaxTime(0));
+        assertEquals(1, histogram.getRequests(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectDifferentBandWidths() {
+        new ConcurrencyHistogram(10).add(new ConcurrencyHistogram(5));
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.sgoeschl.jmeter.report.sla.stats;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PercentileHistogramTest {
+
+    @Test
+    public void shouldCountSmallValuesExactly() {
+        final PercentileHistogram histogram = new PercentileHistogram();
+        for (int i = 1; i <= 50; i++) {
+            histogram.add(i);
+        }
+
+        assertEquals(25, histogram.getValueAtPercentile(50));
+        assertEquals(48, histogram.getValueAtPercentile(95));
+        assertEquals(50, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void shouldEstimateLargeValuesWithBoundedError() {
+        final PercentileHistogram histogram = new PercentileHistogram();
+        for (int i = 1; i <= 100000; i++) {
+            histogram.add(i);
+        }
+
+        final long p95 = histogram.getValueAtPercentile(95);
+        assertTrue("p95=" + p95, p95 >= 95000 && p95 <= 95000 * 1.032);
+        assertEquals(100000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void shouldMapBucketsContiguously() {
+        for (long value = 0; value < 1 << 20; value++) {
+            final int index = PercentileHistogram.indexOf(value);
+            assertTrue(value <= PercentileHistogram.highestValueOf(index));
+            assertTrue(index == 0 || value > PercentileHistogram.highestValueOf(index - 1));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.sgoeschl.jmeter.report.sla.stats;
+
+import com.github.sgoeschl.jmeter.report.sla.config.BucketLayout;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResponseStatisticsTest {
+
+    private static final BucketLayout KB_LAYOUT = BucketLayout.parse("1,2,4", 1024, " KB");
+
+    @Test
+    public void shouldBreakDownElapsedTime() {
+        final ResponseStatistics statistics = new ResponseStatistics(KB_LAYOUT);
+
+        for (int i = 1; i <= 20; i++) {
+            statistics.addTimings(i, 10 * i, 12 * i);
+        }
+
+        assertEquals(20, statistics.getTimedRequests());
+        assertEquals(10.5, statistics.getAverageConnectTime(), 0.001);
+        assertEquals(105.0, statistics.getAverageLatency(), 0.001);
+        assertEquals(126.0, statistics.getAverageElapsedTime(), 0.001);
+        assertEquals(21.0, statistics.getAverageProcessingTime(), 0.001);
+        assertEquals(19, statistics.getConnectTimePercentile(95.0));
+        assertEquals(190, statistics.getLatencyPercentile(95.0), 190 * 0.032);
+        assertEquals(228, statistics.getElapsedTimePercentile(95.0), 228 * 0.032);
+    }
+
+    @Test
+    public void shouldCountTransferredBytes() {
+        final ResponseStatistics statistics = new ResponseStatistics(KB_LAYOUT);
+
+        statistics.addBytes(1500, 200, true);
+        statistics.addBytes(5000, 300, true);
+        statistics.addBytes(800, 100, false);
+
+        assertEquals(7300, statistics.getTotalBytesReceived());
+        assertEquals(600, statistics.getTotalBytesSent());
+        // only the received bytes of successful samples are distributed
+        assertEquals(2, statistics.getKiloBytesReceivedHistogram().getTotalCount());
+        assertEquals(1, statistics.getKiloBytesReceivedHistogram().getCount(1));
+        assertEquals(1, statistics.getKiloBytesReceivedHistogram().getCount(3));
+        assertEquals(0, statistics.getTimedRequests());
+    }
+
+    @Test
+    public void shouldMergeStatistics() {
+        final ResponseStatistics statistics = new ResponseStatistics(KB_LAYOUT);
+        final ResponseStatistics other = new ResponseStatistics(KB_LAYOUT);
+
+        statistics.addTimings(10, 20, 30);
+        statistics.addBytes(100, 10, true);
+        other.addTimings(30, 40, 50);
+        other.addBytes(300, 30, true);
+        statistics.add(other);
+
+        assertEquals(2, statistics.getTimedRequests());
+        assertEquals(20.0, statistics.getAverageConnectTime(), 0.001);
+        assertEquals(30.0, statistics.getAverageLatency(), 0.001);
+        assertEquals(40.0, statistics.getAverageElapsedTime(), 0.001);
+        assertEquals(50, statistics.getElapsedTimePercentile(100.0));
+        assertEquals(400, statistics.getTotalBytesReceived());
+        assertEquals(40, statistics.getTotalBytesSent());
+        assertEquals(2, statistics.getKiloBytesReceivedHistogram().getTotalCount());
+    }
+}
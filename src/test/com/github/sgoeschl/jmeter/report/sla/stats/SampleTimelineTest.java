@@ -0,0 +1,95 @@
+package com.github.sgoeschl.jmeter.report.sla.stats;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SampleTimelineTest {
+
+    @Test
+    public void shouldCountSamplesPerSecond() {
+        final SampleTimeline timeline = new SampleTimeline();
+
+        timeline.add(10_000, 100, true);
+        timeline.add(10_999, 300, false);
+        timeline.add(12_500, 50, true);
+        // an earlier sample shifts the timeline
+        timeline.add(8_000, 20, true);
+
+        assertEquals(5, timeline.getSlots());
+        assertEquals(1, timeline.getSlotSeconds());
+        assertEquals(8_000, timeline.getStartTime(0));
+        assertEquals(1, timeline.getRequests(0));
+        assertEquals(0, timeline.getRequests(1));
+        assertEquals(2, timeline.getRequests(2));
+        assertEquals(1, timeline.getErrors(2));
+        assertEquals(200.0, timeline.getAverageTime(2), 0.001);
+        assertEquals(0.0, timeline.getAverageTime(3), 0.001);
+        assertEquals(50.0, timeline.getAverageTime(4), 0.001);
+    }
+
+    @Test
+    public void shouldCoarsenLongRuns() {
+        final SampleTimeline timeline = new SampleTimeline(16);
+
+        for (int i = 0; i < 100; i++) {
+            timeline.add(i * 1000L, 10, i % 10 != 0);
+        }
+
+        assertTrue(timeline.getSlots() <= 16);
+        assertEquals(8, timeline.getSlotSeconds());
+        assertEquals(8, timeline.getRequests(0));
+        assertEquals(1, timeline.getErrors(0));
+        assertEquals(10.0, timeline.getAverageTime(0), 0.001);
+    }
+
+    @Test
+    public void shouldMergeIntoTheSameTimelineAsSequentialAdds() {
+        final SampleTimeline sequential = new SampleTimeline();
+        final SampleTimeline first = new SampleTimeline();
+        final SampleTimeline second = new SampleTimeline();
+        final long oneWeek = 7L * 24 * 3600 * 1000;
+
+        for (int i = 0; i < 100; i++) {
+            sequential.add(i * 1000L, i, true);
+            first.add(i * 1000L, i, true);
+            sequential.add(oneWeek + i * 7000L, 2 * i, false);
+            second.add(oneWeek + i * 7000L, 2 * i, false);
+        }
+        first.add(second);
+
+        assertEquals(sequential.getSlotSeconds(), first.getSlotSeconds());
+        assertEquals(sequential.getSlots(), first.getSlots());
+        for (int i = 0; i < sequential.getSlots(); i++) {
+            assertEquals(sequential.getRequests(i), first.getRequests(i));
+            assertEquals(sequential.getErrors(i), first.getErrors(i));
+            assertEquals(sequential.getAverageTime(i), first.getAverageTime(i), 0.001);
+        }
+    }
+
+    @Test
+    public void shouldReadWrittenTimeline() throws Exception {
+        final SampleTimeline timeline = new SampleTimeline(32);
+        for (int i = 0; i < 100; i++) {
+            timeline.add(i * 1000L, i, i % 3 != 0);
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        timeline.writeTo(new DataOutputStream(bytes));
+        final SampleTimeline result = SampleTimeline.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(timeline.getSlotSeconds(), result.getSlotSeconds());
+        assertEquals(timeline.getSlots(), result.getSlots());
+        assertEquals(timeline.getStartTime(0), result.getStartTime(0));
+        for (int i = 0; i < timeline.getSlots(); i++) {
+            assertEquals(timeline.getRequests(i), result.getRequests(i));
+            assertEquals(timeline.getErrors(i), result.getErrors(i));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.sgoeschl.jmeter.report.sla.utils;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportParser;
+import com.github.sgoeschl.jmeter.report.sla.config.SlaConfiguration;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DuplicateFilterTest {
+
+    @Test
+    public void shouldDetectDuplicates() {
+        final DuplicateFilter filter = new DuplicateFilter(60000, 1024 * 1024);
+
+        assertFalse(filter.isDuplicate(1000, "Users 1-1", "Login", 100));
+        assertFalse(filter.isDuplicate(1000, "Users 1-2", "Login", 100));
+        assertFalse(filter.isDuplicate(1000, "Users 1-1", "Logout", 100));
+        assertFalse(filter.isDuplicate(1000, "Users 1-1", "Login", 101));
+        assertFalse(filter.isDuplicate(1001, "Users 1-1", "Login", 100));
+        assertFalse(filter.isDuplicate(1000, null, "Login", 100));
+
+        assertTrue(filter.isDuplicate(1000, "Users 1-1", "Login", 100));
+        assertTrue(filter.isDuplicate(1000, null, "Login", 100));
+
+        assertEquals(8, filter.getSamples());
+        assertEquals(2, filter.getDuplicates());
+    }
+
+    @Test
+    public void shouldNotDropUniqueSamples() {
+        final DuplicateFilter filter = new DuplicateFilter(60000, 16 * 1024 * 1024);
+
+        for (int i = 0; i < 100000; i++) {
+            filter.isDuplicate(1000 + i / 10, "Users 1-" + (i % 10), "Login", 100);
+        }
+
+        assertEquals(0, filter.getDuplicates());
+    }
+
+    @Test
+    public void shouldOnlyCheckSamplesWithinWindow() {
+        final DuplicateFilter filter = new DuplicateFilter(16000, 1024 * 1024);
+
+        assertFalse(filter.isDuplicate(1000, "Users 1-1", "Login", 100));
+        assertFalse(filter.isDuplicate(30000, "Users 1-1", "Login", 100));
+
+        // the slot of the first sample was dropped
+        assertFalse(filter.isDuplicate(1000, "Users 1-1", "Login", 100));
+        assertTrue(filter.isDuplicate(30000, "Users 1-1", "Login", 100));
+        assertEquals(1, filter.getUncheckedSamples());
+    }
+
+    @Test
+    public void shouldDropSamplesOfOverlappingSourceFiles() {
+        final File sourceFile = new File("src/test/data/success.jtl");
+        final JMeterReportModel model = new JMeterReportModel();
+        model.setDuplicateFilter(SlaConfiguration.createDefault().createDuplicateFilter());
+
+        final JMeterReportParser parser = new JMeterReportParser(model);
+        parser.setSourceFiles(Arrays.asList(sourceFile, sourceFile));
+        parser.setThreads(2);
+        parser.run();
+
+        assertEquals(634, model.getSummaryStatistics().getRequests());
+        assertEquals(634, model.getDuplicateFilter().getDuplicates());
+        assertEquals(0, model.getDuplicateFilter().getUncheckedSamples());
+    }
+
+    @Test
+    public void shouldDropSamplesOfSequentialSourceFilesOutsideWindow() {
+        final File sourceFile = new File("src/test/data/success.jtl");
+        final Properties properties = new Properties();
+        properties.setProperty(SlaConfiguration.KEY_DEDUP_WINDOW, "10");
+        final JMeterReportModel model = new JMeterReportModel();
+        model.setDuplicateFilter(new SlaConfiguration(properties).createDuplicateFilter());
+
+        final JMeterReportParser parser = new JMeterReportParser(model);
+        parser.setSourceFiles(Arrays.asList(sourceFile, sourceFile));
+        parser.run();
+
+        assertEquals(634, model.getSummaryStatistics().getRequests());
+        assertEquals(634, model.getDuplicateFilter().getDuplicates());
+        assertEquals(0, model.getDuplicateFilter().getUncheckedSamples());
+    }
+
+    @Test
+    public void shouldEstimateFalsePositiveRate() {
+        final DuplicateFilter filter = new DuplicateFilter(60000, 16 * 1024);
+
+        assertEquals(0.0, filter.getFalsePositiveRate(), 0.0);
+
+        for (int i = 0; i < 1000; i++) {
+            filter.isDuplicate(1000, "Users 1-" + i, "Login", 100);
+        }
+
+        // 8192 bits per slot and 5 hashes expect (1 - e^(-5 * 1000 / 8192))^5 = 0.02
+        assertEquals(0.02, filter.getFalsePositiveRate(), 0.005);
+    }
+}
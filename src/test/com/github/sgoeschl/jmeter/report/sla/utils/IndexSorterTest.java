@@ -0,0 +1,76 @@
+package com.github.sgoeschl.jmeter.report.sla.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IndexSorterTest {
+
+    @Test
+    public void shouldSortLikeStableComparator() {
+        final Random random = new Random(42);
+
+        for (int length : new int[] { 0, 1, 5, 6, 7, 100, 1000 }) {
+            final long[] keys = new long[length];
+            for (int i = 0; i < length; i++) {
+                keys[i] = random.nextInt(20) - 10;
+            }
+            assertArrayEquals(stableSort(keys, false), IndexSorter.sort(keys, false));
+            assertArrayEquals(stableSort(keys, true), IndexSorter.sort(keys, true));
+        }
+    }
+
+    @Test
+    public void shouldKeepOrderOfEqualStrings() {
+        final String[] keys = { "local", "local", "local" };
+
+        assertArrayEquals(new int[] { 0, 1, 2 }, IndexSorter.sort(keys, false));
+        assertArrayEquals(new int[] { 0, 1, 2 }, IndexSorter.sort(keys, true));
+        assertArrayEquals(new int[] { 1, 2, 0 }, IndexSorter.sort(new String[] { "c", "a", "b" }, false));
+    }
+
+    @Test
+    public void shouldSortExtremeKeys() {
+        final long[] keys = { Long.MAX_VALUE, Long.MIN_VALUE, 0, Long.MAX_VALUE, -1 };
+
+        assertArrayEquals(new int[] { 1, 4, 2, 0, 3 }, IndexSorter.sort(keys, false));
+        assertArrayEquals(new int[] { 0, 3, 2, 4, 1 }, IndexSorter.sort(keys, true));
+    }
+
+    @Test
+    public void shouldMapDoublesToSortableKeys() {
+        final double[] values = { Double.NEGATIVE_INFINITY, -1000.5, -1.0, -0.0, 0.0, 1.0E-9, 3.0, 1.0E12, Double.POSITIVE_INFINITY, Double.NaN };
+
+        for (int i = 1; i < values.length; i++) {
+            assertTrue(values[i - 1] + " < " + values[i], IndexSorter.toSortableKey(values[i - 1]) < IndexSorter.toSortableKey(values[i]));
+        }
+        assertEquals(IndexSorter.toSortableKey(2.5), IndexSorter.toSortableKey(2.5));
+    }
+
+    private static int[] stableSort(final long[] keys, final boolean descending) {
+        final List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            indexes.add(i);
+        }
+        Collections.sort(indexes, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                final int result = Long.compare(keys[first], keys[second]);
+                return descending ? -result : result;
+            }
+        });
+        final int[] result = new int[indexes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = indexes.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.sgoeschl.jmeter.report.sla.utils;
+
+import com.github.sgoeschl.jmeter.report.sla.JMeterReportModel;
+import com.github.sgoeschl.jmeter.report.sla.config.SlaConfiguration;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+public class LabelLimiterTest {
+
+    @Test
+    public void shouldFoldLabelsBeyondTheCap() {
+        final LabelLimiter limiter = new LabelLimiter(2, LabelLimiter.OVERFLOW_LABEL);
+
+        assertEquals("a", limiter.resolve("a"));
+        assertEquals("b", limiter.resolve("b"));
+        assertEquals(LabelLimiter.OVERFLOW_LABEL, limiter.resolve("c"));
+        assertEquals("a", limiter.resolve("a"));
+        assertEquals(2, limiter.getLabelCount());
+    }
+
+    @Test
+    public void shouldNotLimitWithoutCap() {
+        final LabelLimiter limiter = new LabelLimiter(0, LabelLimiter.OVERFLOW_LABEL);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("label-" + i, limiter.resolve("label-" + i));
+        }
+    }
+
+    @Test
+    public void shouldBoundTheLabelsOfTheModel() {
+        final Properties properties = new Properties();
+        properties.setProperty(SlaConfiguration.KEY_MAX_LABELS, "3");
+        final JMeterReportModel model = new JMeterReportModel(new SlaConfiguration(properties));
+        final JMeterReportModel partialModel = model.createPartialModel();
+
+        for (int i = 0; i < 10; i++) {
+            model.addSuccess("/session/" + i, new Date(i), 100);
+            partialModel.addFailure("/session/" + (100 + i), new Date(i), 100, "500", "Internal Server Error " + i);
+        }
+        model.merge(partialModel);
+
+        assertEquals(4, model.getLabels().size());
+        assertEquals(17, model.getStatistics(LabelLimiter.OVERFLOW_LABEL).getRequests());
+        // the failures of the partial model got the second cap slot
+        assertEquals(9, model.getStatistics(LabelLimiter.OVERFLOW_LABEL).getFailures());
+        assertEquals(20, model.getSummaryStatistics().getRequests());
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.sgoeschl.jmeter.report.sla.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LargestTriangleThreeBucketsTest {
+
+    @Test
+    public void shouldKeepAllPointsBelowThreshold() {
+        final double[] x = { 0, 1, 2, 3 };
+        final double[] y = { 5, 1, 7, 2 };
+
+        assertArrayEquals(new int[] { 0, 1, 2, 3 }, LargestTriangleThreeBuckets.select(x, y, 4, 10));
+        assertArrayEquals(new int[] { 0, 1, 2 }, LargestTriangleThreeBuckets.select(x, y, 3, 3));
+    }
+
+    @Test
+    public void shouldKeepFirstLastAndPeak() {
+        final int length = 1000;
+        final double[] x = new double[length];
+        final double[] y = new double[length];
+        for (int i = 0; i < length; i++) {
+            x[i] = i;
+            y[i] = (i % 2 == 0 ? 10 : 12);
+        }
+        y[617] = 5000;
+
+        final int[] result = LargestTriangleThreeBuckets.select(x, y, length, 50);
+
+        assertEquals(50, result.length);
+        assertEquals(0, result[0]);
+        assertEquals(length - 1, result[result.length - 1]);
+        boolean hasPeak = false;
+        for (int i = 0; i < result.length; i++) {
+            hasPeak |= (result[i] == 617);
+            if (i > 0) {
+                assertTrue(result[i] > result[i - 1]);
+            }
+        }
+        assertTrue(hasPeak);
+    }
+}